@@ -110,13 +110,28 @@ tasks.check {
 }
 
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
     exclude("it/com/draeger/medical/sdccc/testsuite_it_mock_tests/**")
     testLogging.showStandardStreams = true
     maxHeapSize = "3g"
     maxParallelForks = (Runtime.getRuntime().availableProcessors() / 2).coerceAtLeast(1)
 }
 
+// timing based tests depend on the machine they run on and are only run on demand
+val benchmark by tasks.registering(Test::class) {
+    description = "Runs the benchmarks excluded from the test task."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging.showStandardStreams = true
+    maxHeapSize = "3g"
+}
+
 val testsJar by tasks.registering(Jar::class) {
     archiveClassifier.set("tests")
     from(sourceSets["test"].output)
@@ -23,7 +23,9 @@ import com.draeger.medical.sdccc.manipulation.precondition.PreconditionRegistry;
 import com.draeger.medical.sdccc.messages.MessageStorage;
 import com.draeger.medical.sdccc.sdcri.testclient.TestClient;
 import com.draeger.medical.sdccc.tests.InjectorTestBase;
+import com.draeger.medical.sdccc.tests.util.ParsedMessageCache;
 import com.draeger.medical.sdccc.tests.util.PreconditionFilter;
+import com.draeger.medical.sdccc.tests.util.SharedMdibHistoryReplay;
 import com.draeger.medical.sdccc.tests.util.TestDescriptionFilter;
 import com.draeger.medical.sdccc.tests.util.TestEnabledFilter;
 import com.draeger.medical.sdccc.util.LoggingConfigurator;
@@ -50,6 +52,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -173,6 +176,24 @@ public class TestSuite {
         directTestLauncher.registerTestExecutionListeners(directSummary);
 
         long totalTestFailures = 0L;
+        final String replay = injector.getInstance(Key.get(String.class, Names.named(TestSuiteConfig.REPLAY)));
+        if (!replay.isBlank()) {
+            /*
+             * Offline replay, invariant tests only
+             */
+            totalTestFailures = replay(
+                    Path.of(replay),
+                    totalTestFailures,
+                    outWriter,
+                    invariantTestLauncher,
+                    invariantTestPlan,
+                    invariantSummary);
+
+            final TestRunObserver observer = injector.getInstance(TestRunObserver.class);
+            observer.setTotalNumberOfTestsRun(invariantSummary.getSummary().getTestsStartedCount());
+            return totalTestFailures;
+        }
+
         /*
          * Starting TestSuite Client and connect, check for an archive service of the DUT
          */
@@ -218,7 +239,17 @@ public class TestSuite {
             testRunObserver.invalidateTestRun("Could not stop the test client", e);
         }
 
-        injector.getInstance(MessageStorage.class).close();
+        final MessageStorage messageStorage = injector.getInstance(MessageStorage.class);
+        final Boolean exportArchive =
+                injector.getInstance(Key.get(Boolean.class, Names.named(TestSuiteConfig.COMMLOG_EXPORT_ARCHIVE)));
+        if (exportArchive) {
+            try {
+                messageStorage.exportArchive();
+            } catch (final IOException e) {
+                LOG.error("Could not export the collected messages", e);
+            }
+        }
+        messageStorage.close();
 
         if (testRunObserver.isInvalid()) {
             LOG.info("This test run has been deemed invalid, because of:");
@@ -245,6 +276,47 @@ public class TestSuite {
         final long result =
                 phase2(totalTestFailures, outWriter, invariantTestLauncher, invariantTestPlan, invariantSummary);
         LOG.debug("Had total failures of {}", totalTestFailures);
+        releaseInvariantTestCaches();
+        return result;
+    }
+
+    private void releaseInvariantTestCaches() {
+        // the unmarshalled messages are only shared by the preconditions and the invariant tests
+        client.getInjector().getInstance(ParsedMessageCache.class).clear();
+        client.getInjector().getInstance(SharedMdibHistoryReplay.class).clear();
+    }
+
+    /**
+     * Runs the invariant tests against the messages of a previous test run instead of a device.
+     *
+     * <p>
+     * The client is neither started nor connected, and neither direct tests nor preconditions are run, since the
+     * recording already contains the messages and manipulations they caused.
+     */
+    private long replay(
+            final Path recording,
+            final long totalTestFailures,
+            final PrintWriter outWriter,
+            final Launcher invariantTestLauncher,
+            final TestPlan invariantTestPlan,
+            final SummaryGeneratingListener invariantSummary) {
+        LOG.info("Replaying recorded test run {}", recording);
+        final MessageStorage messageStorage = injector.getInstance(MessageStorage.class);
+        long result = totalTestFailures;
+        try {
+            messageStorage.importRecording(recording);
+            result = phase2(totalTestFailures, outWriter, invariantTestLauncher, invariantTestPlan, invariantSummary);
+            releaseInvariantTestCaches();
+        } catch (final IOException e) {
+            LOG.error("Could not import the recorded test run {}", recording, e);
+            testRunObserver.invalidateTestRun("Could not import the recorded test run " + recording, e);
+        }
+        messageStorage.close();
+
+        if (testRunObserver.isInvalid()) {
+            LOG.info("This test run has been deemed invalid, because of:");
+            testRunObserver.getReasons().forEach(LOG::info);
+        }
         return result;
     }
 
@@ -527,6 +599,11 @@ public class TestSuite {
                     LOG.info("Using adapter ip from cli: {}", ip);
                     bind(TestSuiteConfig.NETWORK_INTERFACE_ADDRESS, String.class, ip);
                 });
+
+                cmdLine.getReplay().ifPresent(replay -> {
+                    LOG.info("Using recorded test run from cli: {}", replay);
+                    bind(TestSuiteConfig.REPLAY, String.class, replay);
+                });
             }
         };
 
@@ -48,6 +48,7 @@ public class CommandLineOptions {
     private static final String TEST_RUN_DIRECTORY = "test_run_directory";
     private static final String NO_SUBDIRECTORIES = "no_subdirectories";
     private static final String FILE_LOG_LEVEL = "file_log_level";
+    private static final String REPLAY = "replay";
     private static final String VERSION = "version";
     private final Path configPath;
     private final Path testConfigPath;
@@ -63,6 +64,7 @@ public class CommandLineOptions {
     private final String testRunDirectory;
     private final Boolean noSubdirectories;
     private final Level fileLogLevel;
+    private final String replay;
 
     /**
      * Parse the command line options passed.
@@ -115,6 +117,7 @@ public class CommandLineOptions {
         this.testRunDirectory = cmd.getOptionValue(TEST_RUN_DIRECTORY);
         this.noSubdirectories = Boolean.parseBoolean(cmd.getOptionValue(NO_SUBDIRECTORIES));
         this.fileLogLevel = Level.toLevel(cmd.getOptionValue(FILE_LOG_LEVEL), Level.INFO);
+        this.replay = cmd.getOptionValue(REPLAY);
     }
 
     private void printVersion() {
@@ -251,6 +254,15 @@ public class CommandLineOptions {
             fileLogLevelOpt.setRequired(false);
             options.addOption(fileLogLevelOpt);
         }
+        {
+            final String description = "Message archive or Database directory of a previous test run. If set, no"
+                    + " device is connected and only the invariant tests are run against the recorded messages."
+                    + " A Database directory is only accepted if its schema matches the one of this SDCcc version."
+                    + " Overrides setting from configuration if provided";
+            final var replayOpt = new Option("rp", REPLAY, true, description);
+            replayOpt.setRequired(false);
+            options.addOption(replayOpt);
+        }
         return options;
     }
 
@@ -324,6 +336,13 @@ public class CommandLineOptions {
         return this.fileLogLevel;
     }
 
+    /**
+     * @return recorded test run to replay instead of testing a device, provided via cli, empty if not set
+     */
+    public Optional<String> getReplay() {
+        return Optional.ofNullable(replay);
+    }
+
     private static void printNetworkAdapterInformation() throws SocketException {
         System.out.println("%nAvailable network adapters are:%n");
         final Iterator<NetworkInterface> networkInterfaceIterator =
@@ -6,6 +6,9 @@
 
 package com.draeger.medical.sdccc.configuration;
 
+import com.draeger.medical.sdccc.messages.HibernateStorageBackend;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
+import com.draeger.medical.sdccc.tests.util.ParsedMessageCache;
 import com.draeger.medical.sdccc.util.Constants;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.somda.sdc.common.guice.AbstractConfigurationModule;
@@ -29,6 +32,9 @@ public class DefaultTestSuiteConfig extends AbstractConfigurationModule {
     };
 
     private static final int BUFFER_SIZE = 100;
+    private static final long MAX_BATCH_SIZE = 100L;
+    private static final long MAX_BATCH_LINGER_TIME = 100L;
+    private static final long METRICS_LOG_INTERVAL = 60L;
 
     @Override
     protected void defaultConfigure() {
@@ -50,6 +56,8 @@ public class DefaultTestSuiteConfig extends AbstractConfigurationModule {
         bind(TestSuiteConfig.ENABLE_MESSAGE_ENCODING_CHECK, Boolean.class, true);
         bind(TestSuiteConfig.SUMMARIZE_MESSAGE_ENCODING_ERRORS, Boolean.class, true);
         bind(TestSuiteConfig.MIN_COLLECT_DATA_TIME, long.class, 10L);
+        bind(TestSuiteConfig.REPLAY, String.class, "");
+        bind(TestSuiteConfig.PARSED_MESSAGE_CACHE_SIZE, int.class, ParsedMessageCache.DEFAULT_MAXIMUM_SIZE);
         bind(Constants.CONFIGURATION_MODULE, AbstractConfigurationModule.class, new AbstractConfigurationModule() {
             @Override
             protected void defaultConfigure() {}
@@ -94,5 +102,13 @@ public class DefaultTestSuiteConfig extends AbstractConfigurationModule {
 
     protected void configureCommlogSettings() {
         bind(TestSuiteConfig.COMMLOG_MESSAGE_BUFFER_SIZE, int.class, BUFFER_SIZE);
+        bind(TestSuiteConfig.COMMLOG_MAX_BATCH_SIZE, long.class, MAX_BATCH_SIZE);
+        bind(TestSuiteConfig.COMMLOG_MAX_BATCH_LINGER_TIME, long.class, MAX_BATCH_LINGER_TIME);
+        bind(TestSuiteConfig.COMMLOG_METRICS_LOG_INTERVAL, long.class, METRICS_LOG_INTERVAL);
+        bind(TestSuiteConfig.COMMLOG_STORAGE_BACKEND, String.class, HibernateStorageBackend.NAME);
+        bind(TestSuiteConfig.COMMLOG_BODY_COMPRESSION, String.class, MessageBodyCodec.NONE.getName());
+        bind(TestSuiteConfig.COMMLOG_MESSAGE_FETCH_SIZE, int.class, HibernateStorageBackend.DEFAULT_MESSAGE_FETCH_SIZE);
+        bind(TestSuiteConfig.COMMLOG_FETCH_SIZE, int.class, HibernateStorageBackend.DEFAULT_FETCH_SIZE);
+        bind(TestSuiteConfig.COMMLOG_EXPORT_ARCHIVE, Boolean.class, false);
     }
 }
@@ -13,8 +13,12 @@ import com.draeger.medical.sdccc.manipulation.Manipulations;
 import com.draeger.medical.sdccc.manipulation.guice.InteractionFactory;
 import com.draeger.medical.sdccc.messages.HibernateConfig;
 import com.draeger.medical.sdccc.messages.HibernateConfigImpl;
+import com.draeger.medical.sdccc.messages.HibernateStorageBackend;
+import com.draeger.medical.sdccc.messages.MessageStorageBackend;
+import com.draeger.medical.sdccc.messages.SegmentLogStorageBackend;
 import com.draeger.medical.sdccc.messages.guice.ManipulationInfoFactory;
 import com.draeger.medical.sdccc.messages.guice.MessageFactory;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
 import com.draeger.medical.sdccc.sdcri.CustomCryptoSettings;
 import com.draeger.medical.sdccc.sdcri.LocalAddressResolverImpl;
 import com.draeger.medical.sdccc.sdcri.testclient.TestClient;
@@ -23,8 +27,12 @@ import com.draeger.medical.sdccc.util.junit.guice.XmlReportFactory;
 import com.draeger.medical.sdccc.util.junit.util.ClassUtil;
 import com.draeger.medical.sdccc.util.junit.util.ClassUtilImpl;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
+import com.google.inject.name.Named;
+import java.util.Arrays;
 import org.somda.sdc.dpws.crypto.CryptoSettings;
 import org.somda.sdc.dpws.network.LocalAddressResolver;
 
@@ -50,4 +58,38 @@ public class DefaultTestSuiteModule extends AbstractModule {
         bind(LocalAddressResolver.class).to(LocalAddressResolverImpl.class).in(Singleton.class);
         bind(ManipulationSerializer.class).to(GsonManipulationSerializer.class).in(Singleton.class);
     }
+
+    @Provides
+    @Singleton
+    MessageStorageBackend getMessageStorageBackend(
+            @Named(TestSuiteConfig.COMMLOG_STORAGE_BACKEND) final String storageBackend,
+            final Provider<HibernateStorageBackend> hibernateStorageBackend,
+            final Provider<SegmentLogStorageBackend> segmentLogStorageBackend) {
+        return switch (storageBackend) {
+            case HibernateStorageBackend.NAME -> hibernateStorageBackend.get();
+            case SegmentLogStorageBackend.NAME -> segmentLogStorageBackend.get();
+            default -> throw new IllegalArgumentException(String.format(
+                    "Unknown %s '%s', expected '%s' or '%s'",
+                    TestSuiteConfig.COMMLOG_STORAGE_BACKEND,
+                    storageBackend,
+                    HibernateStorageBackend.NAME,
+                    SegmentLogStorageBackend.NAME));
+        };
+    }
+
+    @Provides
+    @Singleton
+    MessageBodyCodec getMessageBodyCodec(
+            @Named(TestSuiteConfig.COMMLOG_BODY_COMPRESSION) final String bodyCompression) {
+        return Arrays.stream(MessageBodyCodec.values())
+                .filter(codec -> codec.getName().equals(bodyCompression))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format(
+                        "Unknown %s '%s', expected one of %s",
+                        TestSuiteConfig.COMMLOG_BODY_COMPRESSION,
+                        bodyCompression,
+                        Arrays.stream(MessageBodyCodec.values())
+                                .map(MessageBodyCodec::getName)
+                                .toList())));
+    }
 }
@@ -25,6 +25,10 @@ public final class TestSuiteConfig {
     public static final String SUMMARIZE_MESSAGE_ENCODING_ERRORS = SDCCC + "SummarizeMessageEncodingErrors";
     public static final String ENABLE_MESSAGE_ENCODING_CHECK = SDCCC + "EnableMessageEncodingCheck";
     public static final String MIN_COLLECT_DATA_TIME = SDCCC + "MinCollectDataTime";
+    // message archive or Database directory of a previous test run to run the invariant tests against, if not empty
+    public static final String REPLAY = SDCCC + "Replay";
+    // maximum number of unmarshalled messages the invariant tests share, 0 disables the cache
+    public static final String PARSED_MESSAGE_CACHE_SIZE = SDCCC + "ParsedMessageCacheSize";
     /*
      * TLS configuration
      */
@@ -70,6 +74,22 @@ public final class TestSuiteConfig {
     private static final String COMMLOG = "Commlog.";
     // note, that the actual size will be (this * (thread count + 1))
     public static final String COMMLOG_MESSAGE_BUFFER_SIZE = SDCCC + COMMLOG + "BufferSize";
+    // maximum number of messages committed to the database in one transaction
+    public static final String COMMLOG_MAX_BATCH_SIZE = SDCCC + COMMLOG + "MaxBatchSize";
+    // maximum time in milliseconds a message waits for further messages before its batch is committed
+    public static final String COMMLOG_MAX_BATCH_LINGER_TIME = SDCCC + COMMLOG + "MaxBatchLingerTime";
+    // interval in seconds in which the message storage metrics are logged, 0 disables the periodic logging
+    public static final String COMMLOG_METRICS_LOG_INTERVAL = SDCCC + COMMLOG + "MetricsLogInterval";
+    // persistence layer of the message storage, either "Hibernate" or "SegmentLog"
+    public static final String COMMLOG_STORAGE_BACKEND = SDCCC + COMMLOG + "StorageBackend";
+    // compression of the persisted message bodies, either "None" or "Deflate"
+    public static final String COMMLOG_BODY_COMPRESSION = SDCCC + COMMLOG + "BodyCompression";
+    // number of messages fetched from the database at once and kept in memory while a query result is streamed
+    public static final String COMMLOG_MESSAGE_FETCH_SIZE = SDCCC + COMMLOG + "MessageFetchSize";
+    // same as COMMLOG_MESSAGE_FETCH_SIZE for query results without message bodies, e.g. manipulation data
+    public static final String COMMLOG_FETCH_SIZE = SDCCC + COMMLOG + "FetchSize";
+    // whether the collected messages are exported into an archive in the test run directory at the end of the test run
+    public static final String COMMLOG_EXPORT_ARCHIVE = SDCCC + COMMLOG + "ExportArchive";
 
     /*
      * Internal settings which should not be overwritten by a user
@@ -0,0 +1,346 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * Determines the charset declarations of a message from its raw bytes.
+ *
+ * <p>
+ * Only the first bytes of a message are inspected, i.e. the Unicode Byte Order Mark and the XML Declaration at the
+ * start of the document, without decoding the message.
+ */
+final class CharsetDeclarationScanner {
+
+    static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+    static final Charset UTF_32LE = Charset.forName("UTF-32LE");
+    // AFAIK, all charsets of the EBCDIC family have common bit-patterns for the characters used
+    // in the XML declaration. Hence, any of them could be used to decode the declaration. However,
+    // only 'ebcdic-international-500+euro' was tested in this respect and hence it is used as a
+    // placeholder for 'any EBCDIC charset'.
+    static final Charset EBCDIC = Charset.forName("ebcdic-international-500+euro");
+
+    // Unicode Byte Order Marks, UTF-32LE has to be checked before UTF-16LE as it starts with the same bytes
+    private static final byte[][] BYTE_ORDER_MARKS = {
+        {(byte) 0x00, (byte) 0x00, (byte) 0xFE, (byte) 0xFF},
+        {(byte) 0xFF, (byte) 0xFE, (byte) 0x00, (byte) 0x00},
+        {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},
+        {(byte) 0xFE, (byte) 0xFF},
+        {(byte) 0xFF, (byte) 0xFE},
+    };
+    private static final Charset[] BYTE_ORDER_MARK_CHARSETS = {
+        UTF_32BE, UTF_32LE, StandardCharsets.UTF_8, StandardCharsets.UTF_16BE, StandardCharsets.UTF_16LE,
+    };
+    private static final int UTF_8_BYTE_ORDER_MARK = 2;
+
+    // Prefixes of XML declarations according to Appendix F.1 of the XML Standard
+    private static final byte[][] XML_DECLARATION_PREFIXES = {
+        {0x00, 0x00, 0x00, 0x3C},
+        {0x3C, 0x00, 0x00, 0x00},
+        {0x00, 0x3C, 0x00, 0x3F},
+        {0x3C, 0x00, 0x3F, 0x00},
+        {0x3C, 0x3F, 0x78, 0x6D},
+        {0x4C, 0x6F, (byte) 0xA7, (byte) 0x94},
+    };
+    private static final Charset[] XML_DECLARATION_PREFIX_CHARSETS = {
+        UTF_32BE,
+        UTF_32LE,
+        StandardCharsets.UTF_16BE,
+        StandardCharsets.UTF_16LE,
+        StandardCharsets.US_ASCII, // any ASCII-compatible charset
+        EBCDIC,
+    };
+
+    // upper bound of the characters inspected for the XML declaration
+    private static final int MAX_XML_DECLARATION_LENGTH = 512;
+    private static final String XML_DECLARATION_START = "<?xml";
+    private static final String XML_DECLARATION_END = "?>";
+    private static final String ENCODING_ATTRIBUTE = "encoding";
+    private static final String CHARSET_PARAMETER = "charset";
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    private CharsetDeclarationScanner() {}
+
+    /**
+     * Determines the charset from the Unicode Byte Order Mark.
+     *
+     * @param body raw message bytes
+     * @return the charset indicated by the Byte Order Mark or null if the message does not start with one
+     */
+    @Nullable
+    static Charset charsetFromByteOrderMark(final byte[] body) {
+        final int index = indexOfPrefix(body, 0, BYTE_ORDER_MARKS);
+        return index < 0 ? null : BYTE_ORDER_MARK_CHARSETS[index];
+    }
+
+    /**
+     * Determines the charset from the first bytes of the XML Declaration, following a UTF-8 Byte Order Mark if
+     * present.
+     *
+     * @param body raw message bytes
+     * @return the charset the XML Declaration is encoded in, {@linkplain StandardCharsets#US_ASCII} for any ASCII
+     *         compatible charset and {@linkplain #EBCDIC} for any charset of the EBCDIC family, or null if the
+     *         message does not start with an XML Declaration
+     */
+    @Nullable
+    static Charset charsetFromXmlDeclarationPrefix(final byte[] body) {
+        final int index = indexOfPrefix(body, utf8ByteOrderMarkLength(body), XML_DECLARATION_PREFIXES);
+        return index < 0 ? null : XML_DECLARATION_PREFIX_CHARSETS[index];
+    }
+
+    /**
+     * Determines the charset stated in the encoding declaration of the XML Declaration.
+     *
+     * @param body     raw message bytes
+     * @param encoding the XML Declaration is encoded in
+     * @return the stated charset or null if the message does not start with an XML Declaration stating one
+     * @throws java.nio.charset.IllegalCharsetNameException if the stated charset name is illegal
+     * @throws java.nio.charset.UnsupportedCharsetException if the stated charset is not supported
+     */
+    @Nullable
+    static Charset charsetFromXmlDeclaration(final byte[] body, final Charset encoding) {
+        final String charsetName = encodingDeclaration(declarationView(body, encoding));
+        return charsetName == null ? null : Charset.forName(charsetName);
+    }
+
+    /**
+     * Extracts the charset parameter from a Content-Type header value.
+     *
+     * @param contentType header value, e.g. {@code application/soap+xml; charset=utf-8}
+     * @return the value of the last charset parameter, trimmed and without quotes, or null if there is none
+     */
+    @Nullable
+    static String charsetParameter(final String contentType) {
+        String charsetName = null;
+        int parameterStart = contentType.indexOf(';');
+        while (parameterStart >= 0) {
+            int parameterEnd = contentType.indexOf(';', parameterStart + 1);
+            if (parameterEnd < 0) {
+                parameterEnd = contentType.length();
+            }
+            int index = skipWhitespace(contentType, parameterStart + 1, parameterEnd);
+            if (contentType.startsWith(CHARSET_PARAMETER, index)) {
+                index = skipWhitespace(contentType, index + CHARSET_PARAMETER.length(), parameterEnd);
+                if (index < parameterEnd && contentType.charAt(index) == '=') {
+                    charsetName = stripQuotes(contentType
+                                    .substring(index + 1, parameterEnd)
+                                    .trim())
+                            .trim();
+                }
+            }
+            parameterStart = parameterEnd < contentType.length() ? parameterEnd : -1;
+        }
+        return charsetName;
+    }
+
+    /**
+     * Extracts the value of the encoding declaration from an XML Declaration.
+     *
+     * @param declaration characters at the start of the document
+     * @return the declared encoding or null if the document does not start with an XML Declaration declaring one
+     */
+    @Nullable
+    static String encodingDeclaration(final CharSequence declaration) {
+        if (!startsWith(declaration, 0, XML_DECLARATION_START)) {
+            return null;
+        }
+        final int length = declaration.length();
+        int index = XML_DECLARATION_START.length();
+        while (index < length) {
+            final int nameStart = skipWhitespace(declaration, index, length);
+            if (nameStart == index || startsWith(declaration, nameStart, XML_DECLARATION_END)) {
+                // the declaration ended or its attributes are not separated by whitespace
+                return null;
+            }
+            int nameEnd = nameStart;
+            while (nameEnd < length && isNameChar(declaration.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            final int equalsSign = skipWhitespace(declaration, nameEnd, length);
+            if (nameEnd == nameStart || equalsSign >= length || declaration.charAt(equalsSign) != '=') {
+                return null;
+            }
+            final int valueStart = skipWhitespace(declaration, equalsSign + 1, length);
+            if (valueStart >= length) {
+                return null;
+            }
+            final char quote = declaration.charAt(valueStart);
+            if (quote != '"' && quote != '\'') {
+                return null;
+            }
+            int valueEnd = valueStart + 1;
+            while (valueEnd < length && declaration.charAt(valueEnd) != quote) {
+                valueEnd++;
+            }
+            if (valueEnd >= length) {
+                return null;
+            }
+            if (nameEnd - nameStart == ENCODING_ATTRIBUTE.length()
+                    && startsWith(declaration, nameStart, ENCODING_ATTRIBUTE)) {
+                return declaration.subSequence(valueStart + 1, valueEnd).toString();
+            }
+            index = valueEnd + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Provides the characters at the start of the document, following the Byte Order Mark if present.
+     *
+     * <p>
+     * The characters of the XML Declaration are ASCII characters, hence for ASCII compatible charsets and the UTF-16
+     * and UTF-32 charsets they are read from the code units directly, other charsets are decoded.
+     */
+    private static CharSequence declarationView(final byte[] body, final Charset encoding) {
+        final int byteOrderMarkLength = byteOrderMarkLength(body);
+        if (UTF_32BE.equals(encoding)) {
+            return new AsciiCodeUnits(body, byteOrderMarkLength, 4, 3);
+        } else if (UTF_32LE.equals(encoding)) {
+            return new AsciiCodeUnits(body, byteOrderMarkLength, 4, 0);
+        } else if (StandardCharsets.UTF_16BE.equals(encoding)) {
+            return new AsciiCodeUnits(body, byteOrderMarkLength, 2, 1);
+        } else if (StandardCharsets.UTF_16LE.equals(encoding)) {
+            return new AsciiCodeUnits(body, byteOrderMarkLength, 2, 0);
+        } else if (StandardCharsets.UTF_8.equals(encoding) || StandardCharsets.US_ASCII.equals(encoding)) {
+            return new AsciiCodeUnits(body, byteOrderMarkLength, 1, 0);
+        }
+        return new String(
+                body,
+                byteOrderMarkLength,
+                Math.min(body.length - byteOrderMarkLength, MAX_XML_DECLARATION_LENGTH),
+                encoding);
+    }
+
+    private static int byteOrderMarkLength(final byte[] body) {
+        final int index = indexOfPrefix(body, 0, BYTE_ORDER_MARKS);
+        return index < 0 ? 0 : BYTE_ORDER_MARKS[index].length;
+    }
+
+    private static int utf8ByteOrderMarkLength(final byte[] body) {
+        return startsWith(body, 0, BYTE_ORDER_MARKS[UTF_8_BYTE_ORDER_MARK])
+                ? BYTE_ORDER_MARKS[UTF_8_BYTE_ORDER_MARK].length
+                : 0;
+    }
+
+    private static int indexOfPrefix(final byte[] body, final int offset, final byte[][] prefixes) {
+        for (int i = 0; i < prefixes.length; i++) {
+            if (startsWith(body, offset, prefixes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(final byte[] array, final int offset, final byte[] prefix) {
+        if (prefix.length > array.length - offset) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (array[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(final CharSequence sequence, final int offset, final String prefix) {
+        if (prefix.length() > sequence.length() - offset) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (sequence.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(final CharSequence sequence, final int start, final int end) {
+        int index = start;
+        while (index < end && Character.isWhitespace(sequence.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isNameChar(final char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static String stripQuotes(final String str) {
+        if (str.length() >= 2
+                && (str.startsWith("\"") && str.endsWith("\"") || str.startsWith("'") && str.endsWith("'"))) {
+            return str.substring(1, str.length() - 1);
+        }
+        return str;
+    }
+
+    /**
+     * Characters of fixed width code units which are only read as far as they are ASCII characters, any other
+     * character is read as the replacement character.
+     */
+    private static final class AsciiCodeUnits implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int unitLength;
+        private final int asciiByte;
+        private final int length;
+
+        AsciiCodeUnits(final byte[] bytes, final int offset, final int unitLength, final int asciiByte) {
+            this(
+                    bytes,
+                    offset,
+                    unitLength,
+                    asciiByte,
+                    Math.min((bytes.length - offset) / unitLength, MAX_XML_DECLARATION_LENGTH));
+        }
+
+        private AsciiCodeUnits(
+                final byte[] bytes, final int offset, final int unitLength, final int asciiByte, final int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.unitLength = unitLength;
+            this.asciiByte = asciiByte;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            final int unitStart = this.offset + index * this.unitLength;
+            for (int i = 0; i < this.unitLength; i++) {
+                final byte b = this.bytes[unitStart + i];
+                if (i == this.asciiByte ? b < 0 : b != 0) {
+                    return REPLACEMENT_CHARACTER;
+                }
+            }
+            return (char) this.bytes[unitStart + this.asciiByte];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new AsciiCodeUnits(
+                    this.bytes, this.offset + start * this.unitLength, this.unitLength, this.asciiByte, end - start);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder(this.length);
+            for (int i = 0; i < this.length; i++) {
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks which sequence numbers handed out for database entries have been committed.
+ *
+ * <p>
+ * Entries are committed out of order by several threads, hence the tracker keeps a high-water mark below which every
+ * sequence number has been committed. Sequence numbers start at 1.
+ */
+final class CommitTracker {
+
+    private final ReentrantLock lock;
+    private final Condition committedAdvanced;
+    private final Set<Long> committedAboveHighWaterMark;
+    private long highWaterMark;
+
+    CommitTracker() {
+        this.lock = new ReentrantLock();
+        this.committedAdvanced = this.lock.newCondition();
+        this.committedAboveHighWaterMark = new HashSet<>();
+        this.highWaterMark = 0;
+    }
+
+    /**
+     * Marks a sequence number as committed, i.e. the entry is either persisted or has been discarded.
+     *
+     * <p>
+     * Committing a sequence number more than once has no effect.
+     *
+     * @param sequenceNumber of the committed entry
+     */
+    void commit(final long sequenceNumber) {
+        this.lock.lock();
+        try {
+            if (sequenceNumber <= this.highWaterMark) {
+                return;
+            }
+            if (sequenceNumber != this.highWaterMark + 1) {
+                this.committedAboveHighWaterMark.add(sequenceNumber);
+                return;
+            }
+            this.highWaterMark = sequenceNumber;
+            while (this.committedAboveHighWaterMark.remove(this.highWaterMark + 1)) {
+                this.highWaterMark++;
+            }
+            this.committedAdvanced.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the highest sequence number for which all entries up to and including it have been committed
+     */
+    long getHighWaterMark() {
+        this.lock.lock();
+        try {
+            return this.highWaterMark;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until all entries up to and including the given sequence number have been committed.
+     *
+     * @param sequenceNumber to wait for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitHighWaterMark(final long sequenceNumber) throws InterruptedException {
+        this.lock.lock();
+        try {
+            while (this.highWaterMark < sequenceNumber) {
+                this.committedAdvanced.await();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
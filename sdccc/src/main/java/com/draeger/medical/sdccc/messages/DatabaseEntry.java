@@ -6,11 +6,23 @@
 
 package com.draeger.medical.sdccc.messages;
 
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
+
 /**
  * Interface for database entries .
  * Message object used for storage purposes.
  */
 public interface DatabaseEntry {
 
-    String getID();
+    /**
+     * @return identifier allocated when the entry was captured, see {@linkplain MessageUtil#nextEntryId()}
+     */
+    long getEntryId();
+
+    /**
+     * @return string form of the identifier, e.g. for logs and reports
+     */
+    default String getID() {
+        return MessageUtil.formatEntryId(this.getEntryId());
+    }
 }
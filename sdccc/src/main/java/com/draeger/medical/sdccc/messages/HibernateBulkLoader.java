@@ -0,0 +1,235 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+
+/**
+ * Inserts {@linkplain MessageContent}s and {@linkplain ManipulationData}s using JDBC batches, bypassing the
+ * persistence context, cascades and flushes of a Hibernate session.
+ *
+ * <p>
+ * Tables, columns and the binding of values are taken from the persisters of the session factory, the rows are
+ * therefore the ones Hibernate inserts when saving the entities. Entities referenced by an inverse one-to-many
+ * association are inserted along with their owner, element collections into their collection tables. Mappings the
+ * loader cannot insert, e.g. indexed collections, are rejected. Ids are allocated by the identifier generators of the
+ * session factory, bulk loads can therefore be mixed with regular inserts. Rows are only sent to the database by
+ * {@linkplain #execute()}, parent rows before their children. The tables are locked until the transaction ends,
+ * concurrent bulk loads and inserts therefore wait for each other. Not thread safe.
+ */
+final class HibernateBulkLoader implements AutoCloseable {
+
+    // row locks of a large insert dominate its cost, the transaction locks the tables instead
+    private static final String LOCK_TABLE = "LOCK TABLE %s IN EXCLUSIVE MODE";
+    private static final String INSERT = "INSERT INTO %s (%s) VALUES (%s)";
+
+    private final SharedSessionContractImplementor session;
+    private final SessionFactoryImplementor factory;
+    private final Connection connection;
+
+    // in the order the batches have to be executed in, which is the order the tables were first inserted into
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>();
+
+    /**
+     * Locks the tables of all mapped entities and collections for the transaction of the connection.
+     *
+     * @param session    session the connection belongs to, used for allocating ids and binding values
+     * @param connection connection to insert the rows with, within the transaction of the session
+     * @throws SQLException if the tables could not be locked
+     */
+    HibernateBulkLoader(final SharedSessionContractImplementor session, final Connection connection)
+            throws SQLException {
+        this.session = session;
+        this.factory = session.getFactory();
+        this.connection = connection;
+
+        final MetamodelImplementor metamodel = this.factory.getMetamodel();
+        // a fixed order of the locks keeps concurrent bulk loads from deadlocking
+        final var tables = new TreeSet<String>();
+        for (final EntityPersister persister : metamodel.entityPersisters().values()) {
+            tables.add(((AbstractEntityPersister) persister).getTableName());
+        }
+        for (final CollectionPersister persister :
+                metamodel.collectionPersisters().values()) {
+            if (!persister.isOneToMany()) {
+                tables.add(((AbstractCollectionPersister) persister).getTableName());
+            }
+        }
+        try (final Statement lock = connection.createStatement()) {
+            for (final String table : tables) {
+                lock.execute(String.format(LOCK_TABLE, table));
+            }
+        }
+    }
+
+    /**
+     * Adds the rows of an entity to the batches.
+     *
+     * @param entity {@linkplain MessageContent} or {@linkplain ManipulationData} to insert
+     * @throws SQLException if the rows could not be added
+     */
+    void add(final Object entity) throws SQLException {
+        if (!(entity instanceof MessageContent) && !(entity instanceof ManipulationData)) {
+            throw new IllegalArgumentException("Unsupported entity " + entity);
+        }
+        this.addEntity(entity);
+    }
+
+    /**
+     * Sends the batched rows to the database.
+     *
+     * @throws SQLException if the rows could not be inserted
+     */
+    void execute() throws SQLException {
+        for (final PreparedStatement statement : this.statements.values()) {
+            statement.executeBatch();
+        }
+    }
+
+    private void addEntity(final Object entity) throws SQLException {
+        final var persister = (AbstractEntityPersister) this.session.getEntityPersister(null, entity);
+        // rows of entity hierarchies need discriminators or several tables
+        checkSupported(
+                !persister.isInherited() && !persister.getEntityMetamodel().hasSubclasses(),
+                "Entity " + persister.getEntityName());
+        // generators of assigned ids return the id of the entity, generated ids are not set as the entities are reused
+        final Serializable id = persister.getIdentifierGenerator().generate(this.session, entity);
+
+        final String[] propertyNames = persister.getPropertyNames();
+        final Type[] propertyTypes = persister.getPropertyTypes();
+        final Object[] values = persister.getPropertyValues(entity);
+
+        final List<String> columns = new ArrayList<>();
+        Collections.addAll(columns, persister.getIdentifierColumnNames());
+        for (int i = 0; i < propertyTypes.length; i++) {
+            if (!propertyTypes[i].isCollectionType()) {
+                checkSupported(
+                        persister.getPropertyInsertability()[i],
+                        "Not insertable property " + propertyNames[i] + " of " + persister.getEntityName());
+                Collections.addAll(columns, persister.getPropertyColumnNames(i));
+            }
+        }
+
+        final PreparedStatement statement = this.statement(persister.getTableName(), columns);
+        int index = 1;
+        index = this.bind(statement, index, persister.getIdentifierType(), id);
+        for (int i = 0; i < propertyTypes.length; i++) {
+            if (!propertyTypes[i].isCollectionType()) {
+                index = this.bind(statement, index, propertyTypes[i], values[i]);
+            }
+        }
+        statement.addBatch();
+
+        for (int i = 0; i < propertyTypes.length; i++) {
+            if (propertyTypes[i] instanceof final CollectionType collectionType && values[i] != null) {
+                this.addCollection(collectionType, id, (Collection<?>) values[i]);
+            }
+        }
+    }
+
+    private void addCollection(final CollectionType type, final Serializable ownerId, final Collection<?> elements)
+            throws SQLException {
+        final var persister =
+                (AbstractCollectionPersister) this.factory.getMetamodel().collectionPersister(type.getRole());
+        if (persister.isOneToMany()) {
+            // the elements reference their owner themselves
+            checkSupported(persister.isInverse(), "Collection " + persister.getRole());
+            for (final Object element : elements) {
+                this.addEntity(element);
+            }
+            return;
+        }
+        checkSupported(
+                !persister.hasIndex() && persister.getIdentifierType() == null, "Collection " + persister.getRole());
+
+        final List<String> columns = new ArrayList<>();
+        Collections.addAll(columns, persister.getKeyColumnNames());
+        Collections.addAll(columns, persister.getElementColumnNames());
+        final PreparedStatement statement = this.statement(persister.getTableName(), columns);
+        for (final Object element : elements) {
+            final int index = this.bind(statement, 1, persister.getKeyType(), ownerId);
+            this.bind(statement, index, persister.getElementType(), element);
+            statement.addBatch();
+        }
+    }
+
+    // binds a value to the columns starting at index, returns the index following them
+    private int bind(final PreparedStatement statement, final int index, final Type type, final Object value)
+            throws SQLException {
+        if (type instanceof final EntityType entityType) {
+            // the referenced entity is not known to the session, bind its id like hibernate binds a foreign key
+            final EntityPersister referenced =
+                    this.factory.getMetamodel().entityPersister(entityType.getAssociatedEntityName());
+            final Object id = value == null ? null : referenced.getIdentifier(value, this.session);
+            referenced.getIdentifierType().nullSafeSet(statement, id, index, this.session);
+            return index + referenced.getIdentifierType().getColumnSpan(this.factory);
+        }
+        type.nullSafeSet(statement, value, index, this.session);
+        return index + type.getColumnSpan(this.factory);
+    }
+
+    private PreparedStatement statement(final String table, final List<String> columns) throws SQLException {
+        PreparedStatement statement = this.statements.get(table);
+        if (statement == null) {
+            statement = this.connection.prepareStatement(String.format(
+                    INSERT,
+                    table,
+                    String.join(", ", columns),
+                    String.join(", ", Collections.nCopies(columns.size(), "?"))));
+            this.statements.put(table, statement);
+        }
+        return statement;
+    }
+
+    private static void checkSupported(final boolean supported, final String mapping) {
+        if (!supported) {
+            throw new IllegalStateException(mapping + " is not supported by bulk loads");
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException exception = null;
+        for (final PreparedStatement statement : this.statements.values()) {
+            try {
+                statement.close();
+            } catch (final SQLException e) {
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
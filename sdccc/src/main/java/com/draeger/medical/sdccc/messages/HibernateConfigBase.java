@@ -32,6 +32,8 @@ public class HibernateConfigBase implements HibernateConfig {
     private static final String TRUE_SETTING_VALUE = "true";
 
     private static final int INSERT_BATCH_SIZE = 20;
+    // lazily loaded collections of this many query results are initialized together
+    private static final int BATCH_FETCH_SIZE = HibernateStorageBackend.DEFAULT_MESSAGE_FETCH_SIZE;
     private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 10;
 
     private final String baseUrl;
@@ -63,6 +65,7 @@ public class HibernateConfigBase implements HibernateConfig {
         config.setProperty(Environment.URL, this.baseUrl + ";create=True");
 
         config.setProperty(Environment.STATEMENT_BATCH_SIZE, String.valueOf(this.getInsertBatchSize()));
+        config.setProperty(Environment.DEFAULT_BATCH_FETCH_SIZE, String.valueOf(BATCH_FETCH_SIZE));
         config.setProperty(Environment.ORDER_UPDATES, TRUE_SETTING_VALUE);
         config.setProperty(Environment.ORDER_INSERTS, TRUE_SETTING_VALUE);
         config.setProperty(Environment.BATCH_VERSIONED_DATA, TRUE_SETTING_VALUE);
@@ -0,0 +1,772 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import com.draeger.medical.sdccc.configuration.TestSuiteConfig;
+import com.draeger.medical.sdccc.messages.mapping.HTTPHeaderEntity;
+import com.draeger.medical.sdccc.messages.mapping.HTTPHeaderEntity_;
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData_;
+import com.draeger.medical.sdccc.messages.mapping.ManipulationParameter;
+import com.draeger.medical.sdccc.messages.mapping.ManipulationParameter_;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity_;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent_;
+import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
+import com.draeger.medical.sdccc.util.Constants;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nullable;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import javax.xml.namespace.QName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.query.spi.ScrollableResultsImplementor;
+import org.hibernate.query.spi.StreamDecorator;
+import org.somda.sdc.dpws.CommunicationLog;
+
+/**
+ * Message storage backend persisting entities into a relational database using Hibernate.
+ */
+@Singleton
+public class HibernateStorageBackend implements MessageStorageBackend {
+
+    /**
+     * Value of {@linkplain com.draeger.medical.sdccc.configuration.TestSuiteConfig#COMMLOG_STORAGE_BACKEND} selecting
+     * this backend.
+     */
+    public static final String NAME = "Hibernate";
+
+    /**
+     * Default of {@linkplain TestSuiteConfig#COMMLOG_MESSAGE_FETCH_SIZE}.
+     */
+    public static final int DEFAULT_MESSAGE_FETCH_SIZE = 100;
+
+    /**
+     * Default of {@linkplain TestSuiteConfig#COMMLOG_FETCH_SIZE}.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final Logger LOG = LogManager.getLogger(HibernateStorageBackend.class);
+
+    private static final String HTTP_HEADER_NAME_CONTENT_TYPE = "content-type";
+
+    // number of entities whose rows are sent to the database together by a bulk load
+    private static final int BULK_LOAD_BATCH_SIZE = 1000;
+
+    // space allocated by all tables and indexes of the Derby database
+    private static final String STORAGE_SIZE_QUERY =
+            "SELECT SUM(NUMALLOCATEDPAGES * PAGESIZE) FROM TABLE (SYSCS_DIAG.SPACE_TABLE()) AS T";
+
+    // the containing class has to be singleton, because we want only one SessionFactory
+    private final SessionFactory sessionFactory;
+
+    private final HibernateConfig configuration;
+
+    private final int messageFetchSize;
+    private final int fetchSize;
+
+    @Inject
+    HibernateStorageBackend(
+            final HibernateConfig configuration,
+            @Named(TestSuiteConfig.COMMLOG_MESSAGE_FETCH_SIZE) final int messageFetchSize,
+            @Named(TestSuiteConfig.COMMLOG_FETCH_SIZE) final int fetchSize) {
+        if (messageFetchSize < 1 || fetchSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid fetch size: %s and %s must be positive.",
+                    TestSuiteConfig.COMMLOG_MESSAGE_FETCH_SIZE, TestSuiteConfig.COMMLOG_FETCH_SIZE));
+        }
+        this.messageFetchSize = messageFetchSize;
+        this.fetchSize = fetchSize;
+        this.configuration = configuration;
+        this.sessionFactory = this.configuration.getConfiguration().buildSessionFactory();
+    }
+
+    @Override
+    public void persist(final List<?> entities) {
+        try (final Session session = sessionFactory.openSession()) {
+            final Transaction transaction = session.beginTransaction();
+
+            for (int i = 0; i < entities.size(); i++) {
+                session.save(entities.get(i));
+
+                if (i % configuration.getInsertBatchSize() == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Inserts the entities using JDBC batches instead of saving them in a session, see
+     * {@linkplain HibernateBulkLoader}.
+     *
+     * @param entities to persist
+     */
+    @Override
+    public void bulkLoad(final List<?> entities) {
+        try (final Session session = sessionFactory.openSession()) {
+            final Transaction transaction = session.beginTransaction();
+
+            session.doWork(connection -> {
+                try (final HibernateBulkLoader loader =
+                        new HibernateBulkLoader(session.unwrap(SharedSessionContractImplementor.class), connection)) {
+                    for (int i = 0; i < entities.size(); i++) {
+                        loader.add(entities.get(i));
+
+                        if ((i + 1) % BULK_LOAD_BATCH_SIZE == 0) {
+                            loader.execute();
+                        }
+                    }
+                    loader.execute();
+                }
+            });
+
+            transaction.commit();
+        }
+    }
+
+    @Override
+    public Stream<String> getUniqueSequenceIds() {
+        final CriteriaQuery<String> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(String.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(
+                    messageContentRoot.join(MessageContent_.mdibVersionGroups).get(MdibVersionGroupEntity_.sequenceId));
+
+            messageContentQuery.orderBy(criteriaBuilder.asc(messageContentRoot.get(MessageContent_.nanoTimestamp)));
+        }
+
+        return this.getOrderedQueryResult(messageContentQuery).distinct();
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessages() {
+        final CriteriaQuery<MessageContent> criteria;
+
+        try (final Session session = sessionFactory.openSession()) {
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            criteria = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = criteria.from(MessageContent.class);
+            criteria.select(messageContentRoot);
+            criteria.where(criteriaBuilder.equal(
+                    messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND));
+        }
+
+        return this.getQueryResult(criteria);
+    }
+
+    @Override
+    public Stream<MessageContent> getOutboundMessages() {
+        final CriteriaQuery<MessageContent> criteria;
+
+        try (final Session session = sessionFactory.openSession()) {
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            criteria = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = criteria.from(MessageContent.class);
+            criteria.select(messageContentRoot);
+            criteria.where(criteriaBuilder.equal(
+                    messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.OUTBOUND));
+        }
+
+        return this.getQueryResult(criteria);
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundSoapMessages() {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            final Subquery<HTTPHeaderEntity> headerSubQuery = messageContentQuery.subquery(HTTPHeaderEntity.class);
+            final Root<HTTPHeaderEntity> httpHeaderEntityRoot = headerSubQuery.from(HTTPHeaderEntity.class);
+            headerSubQuery.select(httpHeaderEntityRoot);
+
+            headerSubQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.equal(
+                            httpHeaderEntityRoot.get(HTTPHeaderEntity_.messageContent),
+                            messageContentRoot.get(MessageContent_.entryId)),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(
+                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerKey)),
+                                    HTTP_HEADER_NAME_CONTENT_TYPE),
+                            criteriaBuilder.like(
+                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerValue)),
+                                    criteriaBuilder.literal("%application/soap+xml%")))));
+
+            messageContentQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
+                    criteriaBuilder.or(
+                            criteriaBuilder.isTrue(messageContentRoot.get(MessageContent_.isSOAP)),
+                            criteriaBuilder.exists(headerSubQuery))));
+        }
+
+        return this.getQueryResult(messageContentQuery);
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundSoapResponseMessages() {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            final Subquery<HTTPHeaderEntity> headerSubQuery = messageContentQuery.subquery(HTTPHeaderEntity.class);
+            final Root<HTTPHeaderEntity> httpHeaderEntityRoot = headerSubQuery.from(HTTPHeaderEntity.class);
+            headerSubQuery.select(httpHeaderEntityRoot);
+
+            headerSubQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.equal(
+                            httpHeaderEntityRoot.get(HTTPHeaderEntity_.messageContent),
+                            messageContentRoot.get(MessageContent_.entryId)),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(
+                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerKey)),
+                                    HTTP_HEADER_NAME_CONTENT_TYPE),
+                            criteriaBuilder.like(
+                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerValue)),
+                                    criteriaBuilder.literal("%application/soap+xml%")))));
+
+            messageContentQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.messageType), CommunicationLog.MessageType.RESPONSE),
+                    criteriaBuilder.or(
+                            criteriaBuilder.isTrue(messageContentRoot.get(MessageContent_.isSOAP)),
+                            criteriaBuilder.exists(headerSubQuery))));
+        }
+
+        return this.getQueryResult(messageContentQuery);
+    }
+
+    @Override
+    public Stream<MessageContent> getOutboundHttpMessagesByBodyTypeAndHeaders(
+            final List<QName> bodyTypes, final List<AbstractMap.SimpleImmutableEntry<String, String>> headers) {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            // the inner join drops all messages without a matching MdibVersionGroup
+            joinMatchingMdibVersionGroup(criteriaBuilder, messageContentRoot, null, bodyTypes.toArray(new QName[0]));
+
+            final Subquery<HTTPHeaderEntity> headerSubQuery = messageContentQuery.subquery(HTTPHeaderEntity.class);
+            final Root<HTTPHeaderEntity> httpHeaderEntityRoot = headerSubQuery.from(HTTPHeaderEntity.class);
+            headerSubQuery.select(httpHeaderEntityRoot);
+            final var headerPredicates = new ArrayList<Predicate>();
+            for (final AbstractMap.SimpleImmutableEntry<String, String> header : headers) {
+                headerPredicates.add(criteriaBuilder.and(
+                        criteriaBuilder.equal(
+                                criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerKey)),
+                                header.getKey()),
+                        criteriaBuilder.equal(
+                                criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerValue)),
+                                header.getValue())));
+            }
+            headerSubQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.equal(
+                            httpHeaderEntityRoot.get(HTTPHeaderEntity_.messageContent),
+                            messageContentRoot.get(MessageContent_.entryId)),
+                    criteriaBuilder.or(headerPredicates.toArray(new Predicate[0]))));
+
+            messageContentQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.OUTBOUND),
+                    criteriaBuilder.or(
+                            criteriaBuilder.equal(
+                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
+                                    Constants.HTTP_SCHEME),
+                            criteriaBuilder.equal(
+                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
+                                    Constants.HTTPS_SCHEME)),
+                    criteriaBuilder.exists(headerSubQuery)));
+        }
+
+        return distinctMessages(this.getQueryResult(messageContentQuery));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundHttpMessages() {
+        final CriteriaQuery<MessageContent> criteria;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            criteria = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = criteria.from(MessageContent.class);
+            criteria.select(messageContentRoot);
+            criteria.where(criteriaBuilder.and(
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
+                    criteriaBuilder.or(
+                            criteriaBuilder.equal(
+                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
+                                    Constants.HTTP_SCHEME),
+                            criteriaBuilder.equal(
+                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
+                                    Constants.HTTPS_SCHEME))));
+        }
+
+        return this.getQueryResult(criteria);
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByBodyTypeAndSequenceId(
+            final String sequenceId, final QName... bodyTypes) {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            final Join<MessageContent, MdibVersionGroupEntity> mdibVersionGroupJoin =
+                    joinMatchingMdibVersionGroup(criteriaBuilder, messageContentRoot, sequenceId, bodyTypes);
+
+            messageContentQuery.where(criteriaBuilder.equal(
+                    messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND));
+
+            messageContentQuery.orderBy(
+                    criteriaBuilder.asc(mdibVersionGroupJoin.get(MdibVersionGroupEntity_.mdibVersion)),
+                    criteriaBuilder.asc(messageContentRoot.get(MessageContent_.nanoTimestamp)));
+        }
+
+        return distinctMessages(this.getOrderedQueryResult(messageContentQuery));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByBodyType(final boolean enableSorting, final QName... bodyTypes) {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            final Join<MessageContent, MdibVersionGroupEntity> mdibVersionGroupJoin =
+                    joinMatchingMdibVersionGroup(criteriaBuilder, messageContentRoot, null, bodyTypes);
+
+            messageContentQuery.where(criteriaBuilder.equal(
+                    messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND));
+
+            if (enableSorting) {
+                messageContentQuery.orderBy(
+                        criteriaBuilder.asc(mdibVersionGroupJoin.get(MdibVersionGroupEntity_.mdibVersion)),
+                        // also sort by body type to ensure that DescriptionModificationReports are placed
+                        // before EpisodicReports.
+                        criteriaBuilder.asc(mdibVersionGroupJoin.get(MdibVersionGroupEntity_.bodyElement)));
+            }
+        }
+
+        return distinctMessages(
+                enableSorting
+                        ? this.getOrderedQueryResult(messageContentQuery)
+                        : this.getQueryResult(messageContentQuery));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByMdibVersionAndBodyType(
+            final String sequenceId, final long minimumMdibVersion, final QName... bodyTypes) {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            final Join<MessageContent, MdibVersionGroupEntity> mdibVersionGroupJoin =
+                    joinMatchingMdibVersionGroup(criteriaBuilder, messageContentRoot, sequenceId, bodyTypes);
+
+            messageContentQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.ge(
+                            mdibVersionGroupJoin.get(MdibVersionGroupEntity_.mdibVersion), minimumMdibVersion),
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND)));
+
+            messageContentQuery.orderBy(
+                    criteriaBuilder.asc(mdibVersionGroupJoin.get(MdibVersionGroupEntity_.mdibVersion)),
+                    // also sort by body type to ensure that DescriptionModificationReports are placed
+                    // before EpisodicReports.
+                    criteriaBuilder.asc(mdibVersionGroupJoin.get(MdibVersionGroupEntity_.bodyElement)));
+        }
+
+        return distinctMessages(this.getOrderedQueryResult(messageContentQuery));
+    }
+
+    @Override
+    public Stream<ManipulationData> getManipulationData() {
+        final CriteriaQuery<ManipulationData> criteria;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            criteria = criteriaBuilder.createQuery(ManipulationData.class);
+            final Root<ManipulationData> manipulationDataRoot = criteria.from(ManipulationData.class);
+            criteria.select(manipulationDataRoot);
+            // the answer should adhere to the order in which the manipulations have been performed,
+            // even when mixing bodies
+            criteria.orderBy(criteriaBuilder.asc(manipulationDataRoot.get(ManipulationData_.startTimestamp)));
+        }
+
+        return this.getOrderedQueryResult(criteria);
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByTimeIntervalAndBodyType(
+            final long startTimestamp, final long finishTimestamp, final QName... reportTypes) {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            final Join<MessageContent, MdibVersionGroupEntity> mdibVersionGroupJoin =
+                    joinMatchingMdibVersionGroup(criteriaBuilder, messageContentRoot, null, reportTypes);
+
+            messageContentQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.and(
+                            criteriaBuilder.ge(messageContentRoot.get(MessageContent_.nanoTimestamp), startTimestamp),
+                            criteriaBuilder.le(messageContentRoot.get(MessageContent_.nanoTimestamp), finishTimestamp)),
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND)));
+
+            messageContentQuery.orderBy(
+                    criteriaBuilder.asc(mdibVersionGroupJoin.get(MdibVersionGroupEntity_.mdibVersion)));
+        }
+
+        return distinctMessages(this.getOrderedQueryResult(messageContentQuery));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByTimestampAndBodyType(
+            final String sequenceId, final long finishTimestamp, final QName... reportTypes) {
+        final CriteriaQuery<MessageContent> messageContentQuery;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
+            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
+            messageContentQuery.select(messageContentRoot);
+
+            final Join<MessageContent, MdibVersionGroupEntity> mdibVersionGroupJoin =
+                    joinMatchingMdibVersionGroup(criteriaBuilder, messageContentRoot, sequenceId, reportTypes);
+
+            messageContentQuery.where(criteriaBuilder.and(
+                    criteriaBuilder.lt(messageContentRoot.get(MessageContent_.nanoTimestamp), finishTimestamp),
+                    criteriaBuilder.equal(
+                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND)));
+
+            messageContentQuery.orderBy(
+                    criteriaBuilder.asc(mdibVersionGroupJoin.get(MdibVersionGroupEntity_.mdibVersion)));
+        }
+
+        return distinctMessages(this.getOrderedQueryResult(messageContentQuery));
+    }
+
+    @Override
+    public Stream<ManipulationData> getManipulationDataByManipulation(final String... manipulationNames) {
+        final CriteriaQuery<ManipulationData> criteria;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            criteria = criteriaBuilder.createQuery(ManipulationData.class);
+            final Root<ManipulationData> manipulationDataRoot = criteria.from(ManipulationData.class);
+            criteria.select(manipulationDataRoot);
+            final var predicates = new ArrayList<Predicate>();
+            for (final var manipulationName : manipulationNames) {
+                predicates.add(criteriaBuilder.equal(
+                        manipulationDataRoot.get(ManipulationData_.methodName), manipulationName));
+            }
+            criteria.where(criteriaBuilder.and(predicates.toArray(new Predicate[0])));
+            // the answer should adhere to the order in which the manipulations have been performed,
+            // even when mixing bodies
+            criteria.orderBy(criteriaBuilder.asc(manipulationDataRoot.get(ManipulationData_.startTimestamp)));
+        }
+
+        return this.getOrderedQueryResult(criteria);
+    }
+
+    @Override
+    public Stream<ManipulationData> getManipulationDataByParametersAndManipulation(
+            final ManipulationParameterUtil.ManipulationParameterData parameter, final String manipulationName) {
+        if (parameter.getParameterData().isEmpty()) {
+            return getManipulationDataByManipulation(manipulationName);
+        }
+
+        final CriteriaQuery<ManipulationData> criteria;
+        try (final Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+
+            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            criteria = criteriaBuilder.createQuery(ManipulationData.class);
+            final Root<ManipulationData> root = criteria.from(ManipulationData.class);
+            criteria.select(root);
+
+            final var rootPredicates = new ArrayList<Predicate>();
+            rootPredicates.add(criteriaBuilder.equal(root.get(ManipulationData_.methodName), manipulationName));
+
+            final List<Predicate> parameterExistPredicates = new ArrayList<>();
+
+            for (var parameterData : parameter.getParameterData()) {
+                final var parameterSubquery = criteria.subquery(ManipulationParameter.class);
+                final Root<ManipulationParameter> manipulationParameterRoot =
+                        parameterSubquery.from(ManipulationParameter.class);
+                parameterSubquery
+                        .select(manipulationParameterRoot)
+                        .where(criteriaBuilder.and(
+                                criteriaBuilder.equal(
+                                        manipulationParameterRoot.get(ManipulationParameter_.manipulationData),
+                                        root.get(ManipulationData_.entryId)),
+                                criteriaBuilder.and(
+                                        criteriaBuilder.equal(
+                                                manipulationParameterRoot.get(ManipulationParameter_.parameterName),
+                                                parameterData.getKey()),
+                                        criteriaBuilder.equal(
+                                                manipulationParameterRoot.get(ManipulationParameter_.parameterValue),
+                                                parameterData.getValue()))));
+                parameterExistPredicates.add(criteriaBuilder.exists(parameterSubquery));
+            }
+
+            criteria.where(criteriaBuilder.and(
+                    criteriaBuilder.and(rootPredicates.toArray(new Predicate[0])),
+                    criteriaBuilder.and(parameterExistPredicates.toArray(new Predicate[0]))));
+        }
+        return this.getOrderedQueryResult(criteria);
+    }
+
+    @Override
+    public long getStorageSize() {
+        try (final Session session = sessionFactory.openSession()) {
+            final Object storageSize =
+                    session.createNativeQuery(STORAGE_SIZE_QUERY).getSingleResult();
+            return storageSize instanceof Number ? ((Number) storageSize).longValue() : 0;
+        } catch (final RuntimeException e) {
+            LOG.debug("Unable to determine the size of the database", e);
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.sessionFactory.close();
+        this.configuration.close();
+    }
+
+    // Derby evaluates an EXISTS or IN subquery for every message of a direction. Joining the matching
+    // MdibVersionGroup instead lets the optimizer start from the bodyElement index and fetch only the messages of
+    // interest. A message is returned once per matching MdibVersionGroup by the join, the results therefore have to
+    // be passed through distinctMessages. DISTINCT in the query is not an option, Derby cannot compare the bodies.
+    private static Join<MessageContent, MdibVersionGroupEntity> joinMatchingMdibVersionGroup(
+            final CriteriaBuilder criteriaBuilder,
+            final Root<MessageContent> messageContentRoot,
+            @Nullable final String sequenceId,
+            final QName... bodyTypes) {
+        final Join<MessageContent, MdibVersionGroupEntity> matchingGroupJoin =
+                messageContentRoot.join(MessageContent_.mdibVersionGroups);
+        matchingGroupJoin.on(matchesMdibVersionGroup(criteriaBuilder, matchingGroupJoin, sequenceId, bodyTypes));
+        return matchingGroupJoin;
+    }
+
+    private static Predicate matchesMdibVersionGroup(
+            final CriteriaBuilder criteriaBuilder,
+            final From<?, MdibVersionGroupEntity> mdibVersionGroup,
+            @Nullable final String sequenceId,
+            final QName... bodyTypes) {
+        final List<Predicate> bodyElementPredicates = new ArrayList<>();
+        for (final QName bodyElement : bodyTypes) {
+            bodyElementPredicates.add(criteriaBuilder.equal(
+                    mdibVersionGroup.get(MdibVersionGroupEntity_.bodyElement), bodyElement.toString()));
+        }
+        final Predicate bodyElementPredicate = criteriaBuilder.or(bodyElementPredicates.toArray(new Predicate[0]));
+        if (sequenceId == null) {
+            return bodyElementPredicate;
+        }
+        return criteriaBuilder.and(
+                criteriaBuilder.equal(mdibVersionGroup.get(MdibVersionGroupEntity_.sequenceId), sequenceId),
+                bodyElementPredicate);
+    }
+
+    // keeps the first occurrence of every message, for sorted results the one of its first matching MdibVersionGroup
+    private static Stream<MessageContent> distinctMessages(final Stream<MessageContent> messages) {
+        final Set<Long> entryIds = new HashSet<>();
+        return messages.filter(message -> entryIds.add(message.getEntryId()));
+    }
+
+    private <T> Stream<T> getQueryResult(final CriteriaQuery<T> criteriaQuery) {
+        final int queryFetchSize = this.getFetchSize(criteriaQuery);
+        final Session session = sessionFactory.openSession();
+        final Stream<T> results = getStreamForQuery(session, criteriaQuery, queryFetchSize);
+
+        final ResultIterator<T> resultIterator = new ResultIterator<>(session, results, queryFetchSize);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, Spliterator.ORDERED), false)
+                .onClose(resultIterator::close);
+    }
+
+    private <T> Stream<T> getOrderedQueryResult(final CriteriaQuery<T> criteriaQuery) {
+        final int queryFetchSize = this.getFetchSize(criteriaQuery);
+        final Session session = sessionFactory.openSession();
+        final Stream<T> results = getOrderedStreamForQuery(session, criteriaQuery, queryFetchSize);
+
+        final ResultIterator<T> resultIterator = new ResultIterator<>(session, results, queryFetchSize);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, Spliterator.ORDERED), false)
+                .onClose(resultIterator::close);
+    }
+
+    // messages carry their bodies and are fetched in smaller windows than other results
+    private int getFetchSize(final CriteriaQuery<?> criteriaQuery) {
+        return MessageContent.class.equals(criteriaQuery.getResultType()) ? this.messageFetchSize : this.fetchSize;
+    }
+
+    // be aware, that this does not use evict on cached objects
+    private <T> Stream<T> getStreamForQuery(
+            final Session session, final CriteriaQuery<T> criteriaQuery, final int queryFetchSize) {
+        return session
+                .createQuery(criteriaQuery)
+                .setReadOnly(true)
+                .setCacheable(false)
+                .setFetchSize(queryFetchSize)
+                .stream();
+    }
+
+    // be aware, that this does not use evict on cached objects
+    private <T> Stream<T> getOrderedStreamForQuery(
+            final Session session, final CriteriaQuery<T> criteriaQuery, final int queryFetchSize) {
+        // The stream provided by Hibernate does not have the ORDERED characteristic.
+        // We hence build our own.
+        final ScrollableResultsImplementor scrollableResults =
+                (ScrollableResultsImplementor) session.createQuery(criteriaQuery)
+                        .setReadOnly(true)
+                        .setCacheable(false)
+                        .setFetchSize(queryFetchSize)
+                        .scroll(ScrollMode.FORWARD_ONLY);
+        final OrderedStreamIterator<T> iterator = new OrderedStreamIterator<>(scrollableResults);
+        final Spliterator<T> spliterator =
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL | Spliterator.ORDERED);
+
+        return new StreamDecorator<>(StreamSupport.stream(spliterator, false), scrollableResults::close);
+    }
+
+    /**
+     * Iterates over the results of a query while keeping at most one window of results attached to the session.
+     *
+     * <p>
+     * Each window is read from the cursor as a whole before its first result is returned, which allows Hibernate to
+     * initialize the lazily loaded associations of all results in the window using a few batched queries instead of
+     * one query per result. Results of previous windows are detached when the next window starts. A result returned
+     * by {@linkplain #next()} hence remains usable, including its lazily loaded associations, at least until the
+     * iterator is advanced again.
+     *
+     * @param <T> type of the results
+     */
+    private static class ResultIterator<T> implements Iterator<T>, AutoCloseable {
+        private final Session session;
+        private final Iterator<T> iterator;
+        private final Stream<T> originStream;
+        private final int window;
+        private final List<T> attachedElements;
+        private int nextElement;
+        private boolean exhausted;
+
+        ResultIterator(final Session session, final Stream<T> originStream, final int window) {
+            this.session = session;
+            this.iterator = originStream.iterator();
+            this.originStream = originStream;
+            this.window = window;
+            this.attachedElements = new ArrayList<>(window);
+        }
+
+        @Override
+        public boolean hasNext() {
+            // the underlying iterator loads the next result when checking for it, so the session has to be
+            // cleared beforehand. Clearing once per window is much cheaper than evicting every single result.
+            if (this.nextElement == this.attachedElements.size() && !this.exhausted) {
+                this.session.clear();
+                this.attachedElements.clear();
+                this.nextElement = 0;
+                while (this.attachedElements.size() < this.window && this.iterator.hasNext()) {
+                    this.attachedElements.add(this.iterator.next());
+                }
+                // the last window stays attached once the results are exhausted
+                this.exhausted = this.attachedElements.size() < this.window;
+            }
+            return this.nextElement < this.attachedElements.size();
+        }
+
+        @Override
+        public T next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.attachedElements.get(this.nextElement++);
+        }
+
+        @Override
+        public void close() {
+            this.originStream.close();
+            this.session.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects metrics about the ingestion of database entries by the {@linkplain MessageStorage}.
+ *
+ * <p>
+ * Recording is cheap and thread-safe, the metrics are only aggregated when a {@linkplain Snapshot} is taken.
+ */
+public final class IngestMetrics {
+
+    // number of most recent transmissions the percentile of the transmit time is determined from
+    static final int TRANSMIT_TIME_WINDOW = 1024;
+    private static final double TRANSMIT_TIME_PERCENTILE = 0.99;
+
+    private final long startNanos;
+
+    private final LongAdder capturedEntries;
+    private final LongAccumulator queueOccupancyHighWaterMark;
+
+    private final LongAdder persistedEntries;
+    private final LongAdder persistedBodyBytes;
+    private final LongAdder batchCount;
+    private final LongAccumulator maxBatchSize;
+    private final LongAdder transmitNanos;
+    private final long[] recentTransmitNanos;
+    private long transmitCount;
+
+    private final LongAdder flushCount;
+    private final LongAdder flushNanos;
+    private final LongAccumulator maxFlushNanos;
+
+    private final LongAdder encodingCheckCount;
+    private final LongAdder encodingCheckNanos;
+
+    private long lastSnapshotNanos;
+    private long lastSnapshotPersistedEntries;
+
+    IngestMetrics() {
+        this.startNanos = System.nanoTime();
+        this.capturedEntries = new LongAdder();
+        this.queueOccupancyHighWaterMark = new LongAccumulator(Math::max, 0);
+        this.persistedEntries = new LongAdder();
+        this.persistedBodyBytes = new LongAdder();
+        this.batchCount = new LongAdder();
+        this.maxBatchSize = new LongAccumulator(Math::max, 0);
+        this.transmitNanos = new LongAdder();
+        this.recentTransmitNanos = new long[TRANSMIT_TIME_WINDOW];
+        this.flushCount = new LongAdder();
+        this.flushNanos = new LongAdder();
+        this.maxFlushNanos = new LongAccumulator(Math::max, 0);
+        this.encodingCheckCount = new LongAdder();
+        this.encodingCheckNanos = new LongAdder();
+        this.lastSnapshotNanos = this.startNanos;
+    }
+
+    /**
+     * Records an entry added to the storage.
+     *
+     * @param queueOccupancy number of entries waiting in the message queues after the entry has been added
+     */
+    void recordCapture(final int queueOccupancy) {
+        this.capturedEntries.increment();
+        this.queueOccupancyHighWaterMark.accumulate(queueOccupancy);
+    }
+
+    /**
+     * Records a batch of entries handed to the storage backend.
+     *
+     * @param entries   number of entries in the batch
+     * @param bodyBytes size of the message bodies in the batch as persisted
+     * @param nanos     time it took to persist the batch
+     */
+    void recordBatch(final int entries, final long bodyBytes, final long nanos) {
+        this.persistedEntries.add(entries);
+        this.persistedBodyBytes.add(bodyBytes);
+        this.batchCount.increment();
+        this.maxBatchSize.accumulate(entries);
+        this.transmitNanos.add(nanos);
+        synchronized (this.recentTransmitNanos) {
+            this.recentTransmitNanos[(int) (this.transmitCount++ % TRANSMIT_TIME_WINDOW)] = nanos;
+        }
+    }
+
+    /**
+     * Records a flush of the storage.
+     *
+     * @param nanos time it took until all entries were committed
+     */
+    void recordFlush(final long nanos) {
+        this.flushCount.increment();
+        this.flushNanos.add(nanos);
+        this.maxFlushNanos.accumulate(nanos);
+    }
+
+    /**
+     * Records the check of the encoding of a message.
+     *
+     * @param nanos time it took to determine the charset and to check whether the message can be decoded with it
+     */
+    void recordEncodingCheck(final long nanos) {
+        this.encodingCheckCount.increment();
+        this.encodingCheckNanos.add(nanos);
+    }
+
+    /**
+     * Aggregates the metrics recorded so far.
+     *
+     * @param storageSize size of the persisted entries on disk in bytes, -1 if unknown
+     * @return the aggregated metrics
+     */
+    synchronized Snapshot snapshot(final long storageSize) {
+        final long now = System.nanoTime();
+        final long persisted = this.persistedEntries.sum();
+        final long batches = this.batchCount.sum();
+        final long flushes = this.flushCount.sum();
+        final long encodingChecks = this.encodingCheckCount.sum();
+
+        final Snapshot snapshot = new Snapshot(
+                TimeUnit.NANOSECONDS.toMillis(now - this.startNanos),
+                this.capturedEntries.sum(),
+                persisted,
+                this.persistedBodyBytes.sum(),
+                this.queueOccupancyHighWaterMark.get(),
+                perSecond(persisted, now - this.startNanos),
+                perSecond(persisted - this.lastSnapshotPersistedEntries, now - this.lastSnapshotNanos),
+                batches,
+                batches == 0 ? 0 : (double) persisted / batches,
+                this.maxBatchSize.get(),
+                toMillis(batches == 0 ? 0 : (double) this.transmitNanos.sum() / batches),
+                toMillis(this.transmitTimePercentile()),
+                flushes,
+                toMillis(flushes == 0 ? 0 : (double) this.flushNanos.sum() / flushes),
+                toMillis(this.maxFlushNanos.get()),
+                toMillis(this.encodingCheckNanos.sum()),
+                encodingChecks == 0 ? 0 : this.encodingCheckNanos.sum() / 1000.0 / encodingChecks,
+                storageSize);
+
+        this.lastSnapshotNanos = now;
+        this.lastSnapshotPersistedEntries = persisted;
+        return snapshot;
+    }
+
+    private long transmitTimePercentile() {
+        final long[] window;
+        synchronized (this.recentTransmitNanos) {
+            window = Arrays.copyOf(this.recentTransmitNanos, (int) Math.min(this.transmitCount, TRANSMIT_TIME_WINDOW));
+        }
+        if (window.length == 0) {
+            return 0;
+        }
+        Arrays.sort(window);
+        return window[(int) Math.ceil(TRANSMIT_TIME_PERCENTILE * window.length) - 1];
+    }
+
+    private static double perSecond(final long count, final long nanos) {
+        return nanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    private static double toMillis(final double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Metrics of the ingestion at a point in time.
+     *
+     * @param uptimeMillis                   time since the storage was created
+     * @param capturedEntries                entries added to the storage
+     * @param persistedEntries               entries handed to the storage backend
+     * @param persistedBodyBytes             size of the persisted message bodies, after compression if enabled
+     * @param queueOccupancyHighWaterMark    highest number of entries waiting in the message queues
+     * @param entriesPerSecond               persisted entries per second since the storage was created
+     * @param recentEntriesPerSecond         persisted entries per second since the previous snapshot
+     * @param batchCount                     batches handed to the storage backend
+     * @param averageBatchSize               average number of entries per batch
+     * @param maxBatchSize                   largest number of entries in one batch
+     * @param averageTransmitMillis          average time it took to persist a batch
+     * @param p99TransmitMillis              99th percentile of the time it took to persist one of the most recent
+     *                                       batches
+     * @param flushCount                     flushes which had to wait for entries to be committed
+     * @param averageFlushMillis             average duration of these flushes
+     * @param maxFlushMillis                 longest duration of these flushes
+     * @param encodingCheckMillis            time spent checking the encoding of messages
+     * @param averageEncodingCheckMicros     average time spent checking the encoding of one message
+     * @param storageSize                    size of the persisted entries on disk in bytes, -1 if unknown
+     */
+    public record Snapshot(
+            long uptimeMillis,
+            long capturedEntries,
+            long persistedEntries,
+            long persistedBodyBytes,
+            long queueOccupancyHighWaterMark,
+            double entriesPerSecond,
+            double recentEntriesPerSecond,
+            long batchCount,
+            double averageBatchSize,
+            long maxBatchSize,
+            double averageTransmitMillis,
+            double p99TransmitMillis,
+            long flushCount,
+            double averageFlushMillis,
+            double maxFlushMillis,
+            double encodingCheckMillis,
+            double averageEncodingCheckMicros,
+            long storageSize) {
+
+        /**
+         * @return a single line summary of the metrics for logging
+         */
+        public String toLogString() {
+            return String.format(
+                    "%d entries captured, %d persisted (%.1f/s, recently %.1f/s, %d body bytes), queue high-water "
+                            + "mark %d, %d batches (average %.1f, max %d entries), transmit time average %.2f ms, "
+                            + "p99 %.2f ms, %d flushes (average %.2f ms, max %.2f ms), encoding checks %.2f ms "
+                            + "(average %.1f us), storage size %d bytes",
+                    this.capturedEntries,
+                    this.persistedEntries,
+                    this.entriesPerSecond,
+                    this.recentEntriesPerSecond,
+                    this.persistedBodyBytes,
+                    this.queueOccupancyHighWaterMark,
+                    this.batchCount,
+                    this.averageBatchSize,
+                    this.maxBatchSize,
+                    this.averageTransmitMillis,
+                    this.p99TransmitMillis,
+                    this.flushCount,
+                    this.averageFlushMillis,
+                    this.maxFlushMillis,
+                    this.encodingCheckMillis,
+                    this.averageEncodingCheckMicros,
+                    this.storageSize);
+        }
+    }
+}
@@ -6,12 +6,12 @@
 
 package com.draeger.medical.sdccc.messages;
 
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
 import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
 import com.draeger.medical.t2iapi.ResponseTypes;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.util.List;
-import java.util.UUID;
 import org.apache.commons.lang3.tuple.Pair;
 
 /**
@@ -25,7 +25,7 @@ public class ManipulationInfo implements DatabaseEntry {
     private final String methodName;
     private final List<Pair<String, String>> parameters;
     private final MessageStorage storage;
-    private UUID id;
+    private final long entryId;
 
     @Inject
     ManipulationInfo(
@@ -43,6 +43,39 @@ public class ManipulationInfo implements DatabaseEntry {
         this.response = response;
         this.methodName = methodName;
         this.parameters = parameters.getParameterData();
+        this.entryId = MessageUtil.nextEntryId();
+        storage = messageStorage;
+    }
+
+    /**
+     * Restores a manipulation, e.g. one that has been spilled to disk before being stored.
+     *
+     * @param startTimestamp  of the manipulation
+     * @param finishTimestamp of the manipulation
+     * @param result          of the manipulation
+     * @param response        of the manipulation
+     * @param methodName      of the manipulation
+     * @param parameters      of the manipulation
+     * @param entryId         of the manipulation
+     * @param messageStorage  the manipulation belongs to
+     */
+    ManipulationInfo(
+            final long startTimestamp,
+            final long finishTimestamp,
+            final ResponseTypes.Result result,
+            final String response,
+            final String methodName,
+            final List<Pair<String, String>> parameters,
+            final long entryId,
+            final MessageStorage messageStorage) {
+
+        this.startTimestamp = startTimestamp;
+        this.finishTimestamp = finishTimestamp;
+        this.result = result;
+        this.response = response;
+        this.methodName = methodName;
+        this.parameters = parameters;
+        this.entryId = entryId;
         storage = messageStorage;
     }
 
@@ -54,11 +87,8 @@ public class ManipulationInfo implements DatabaseEntry {
     }
 
     @Override
-    public String getID() {
-        if (this.id == null) {
-            this.id = UUID.randomUUID();
-        }
-        return this.id.toString();
+    public long getEntryId() {
+        return entryId;
     }
 
     public long getStartTimestamp() {
@@ -6,14 +6,16 @@
 
 package com.draeger.medical.sdccc.messages;
 
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.MessageDigest;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.Arrays;
+import java.util.Objects;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.somda.sdc.dpws.CommunicationLog;
@@ -21,12 +23,20 @@ import org.somda.sdc.dpws.soap.CommunicationContext;
 
 /**
  * Message object used for storage purposes.
+ *
+ * <p>
+ * The message is captured into a buffer drawn from a pool, which is handed back once the message storage has taken
+ * over the body. Copying the body into {@linkplain #getFinalMemory()} is deferred until it is first requested, i.e.
+ * it does not happen on the thread writing the message. The body is hashed while it is written.
  */
 public class Message extends OutputStream implements DatabaseEntry {
     public static final String MESSAGE_WRITE_CALLED_ON_CLOSED_MESSAGE = "Message write called on closed message";
 
     private static final Logger LOG = LogManager.getLogger(Message.class);
 
+    // shared by all messages, retains at most MessageBufferPool.MAX_RETAINED_BYTES for the lifetime of the JVM
+    private static final MessageBufferPool BUFFER_POOL = new MessageBufferPool();
+
     private final MessageStorage messageStorage;
     private final CommunicationLog.Direction direction;
     private final CommunicationLog.MessageType messageType;
@@ -37,11 +47,16 @@ public class Message extends OutputStream implements DatabaseEntry {
 
     private final CommunicationContext communicationContext;
 
-    private ByteArrayOutputStream memory;
+    private byte[] buffer;
+    private int length;
+    private boolean closed;
 
     private byte[] finalMemory;
 
-    private UUID id;
+    private final MessageDigest digest;
+    private byte[] messageDigest;
+
+    private final long entryId;
 
     @Inject
     Message(
@@ -57,25 +72,87 @@ public class Message extends OutputStream implements DatabaseEntry {
 
         this.timestamp = Instant.now().toEpochMilli();
         this.nanoTimestamp = System.nanoTime();
-        this.memory = new ByteArrayOutputStream();
+        this.entryId = MessageUtil.nextEntryId();
+        this.digest = MessageUtil.createMessageDigest();
+    }
+
+    /**
+     * Restores a closed message, e.g. one that has been spilled to disk before being stored.
+     *
+     * @param direction            of the message
+     * @param messageType          of the message
+     * @param communicationContext of the message
+     * @param timestamp            at which the message was created
+     * @param nanoTimestamp        at which the message was created
+     * @param entryId              of the message
+     * @param finalMemory          the body of the message
+     * @param messageStorage       the message belongs to
+     */
+    Message(
+            final CommunicationLog.Direction direction,
+            final CommunicationLog.MessageType messageType,
+            final CommunicationContext communicationContext,
+            final long timestamp,
+            final long nanoTimestamp,
+            final long entryId,
+            final byte[] finalMemory,
+            final MessageStorage messageStorage) {
+        this.messageStorage = messageStorage;
+
+        this.direction = direction;
+        this.messageType = messageType;
+        this.communicationContext = communicationContext;
+
+        this.timestamp = timestamp;
+        this.nanoTimestamp = nanoTimestamp;
+        this.entryId = entryId;
+        this.finalMemory = finalMemory;
+        this.digest = null;
+        this.closed = true;
     }
 
     @Override
     public void write(final int b) throws IOException {
-        if (this.memory == null) {
+        this.ensureCapacity(1);
+        this.buffer[this.length++] = (byte) b;
+        this.digest.update((byte) b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        this.ensureCapacity(len);
+        System.arraycopy(b, off, this.buffer, this.length, len);
+        this.length += len;
+        this.digest.update(b, off, len);
+    }
+
+    private void ensureCapacity(final int additionalBytes) throws IOException {
+        if (this.closed) {
             LOG.warn(MESSAGE_WRITE_CALLED_ON_CLOSED_MESSAGE);
             throw new IOException(MESSAGE_WRITE_CALLED_ON_CLOSED_MESSAGE);
         }
 
-        memory.write(b);
+        final int requiredCapacity = this.length + additionalBytes;
+        if (requiredCapacity < 0) {
+            throw new OutOfMemoryError("Message exceeds the maximum array size");
+        }
+        if (this.buffer == null) {
+            this.buffer = BUFFER_POOL.acquire(requiredCapacity);
+        } else if (requiredCapacity > this.buffer.length) {
+            final byte[] grownBuffer = BUFFER_POOL.acquire(
+                    Math.max(requiredCapacity, (int) Math.min(2L * this.buffer.length, Integer.MAX_VALUE)));
+            System.arraycopy(this.buffer, 0, grownBuffer, 0, this.length);
+            BUFFER_POOL.release(this.buffer);
+            this.buffer = grownBuffer;
+        }
     }
 
     @Override
     public void close() throws IOException {
-        if (this.memory != null) {
-            this.finalMemory = memory.toByteArray();
-            this.memory.close();
-            this.memory = null;
+        if (!this.closed) {
+            this.messageDigest = this.digest.digest();
+            this.closed = true;
 
             this.messageStorage.addMessage(this);
         } else {
@@ -87,7 +164,19 @@ public class Message extends OutputStream implements DatabaseEntry {
      * @return is this {@linkplain OutputStream} closed
      */
     public boolean isClosed() {
-        return this.memory == null;
+        return this.closed;
+    }
+
+    /**
+     * Hands the capture buffer back to the pool once the body is not going to be requested by the message storage
+     * anymore. The body stays available through {@linkplain #getFinalMemory()}.
+     */
+    synchronized void releaseBuffer() {
+        if (this.buffer != null && this.closed) {
+            this.getFinalMemory();
+            BUFFER_POOL.release(this.buffer);
+            this.buffer = null;
+        }
     }
 
     @Override
@@ -102,10 +191,24 @@ public class Message extends OutputStream implements DatabaseEntry {
     @SuppressFBWarnings(
             value = {"EI_EXPOSE_REP"},
             justification = "it doesn't matter, the field might as well be public.")
-    public byte[] getFinalMemory() {
+    public synchronized byte[] getFinalMemory() {
+        if (this.finalMemory == null && this.closed) {
+            this.finalMemory = this.buffer == null ? new byte[0] : Arrays.copyOf(this.buffer, this.length);
+        }
         return finalMemory;
     }
 
+    /**
+     * @return SHA-256 hash of the body, null if the message has not been closed yet
+     */
+    public synchronized byte[] getMessageDigest() {
+        if (this.messageDigest == null && this.closed) {
+            // restored messages have not been hashed while being written
+            this.messageDigest = MessageUtil.digestMessage(this.getFinalMemory());
+        }
+        return this.messageDigest == null ? null : this.messageDigest.clone();
+    }
+
     public CommunicationLog.Direction getDirection() {
         return direction;
     }
@@ -127,11 +230,7 @@ public class Message extends OutputStream implements DatabaseEntry {
     }
 
     @Override
-    public String getID() {
-        if (this.id == null) {
-            this.id = UUID.randomUUID();
-        }
-
-        return this.id.toString();
+    public long getEntryId() {
+        return entryId;
     }
 }
@@ -0,0 +1,311 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact archive of the entities persisted by the {@linkplain MessageStorage}, meant for replaying a test run later.
+ *
+ * <p>
+ * The archive starts with a header, followed by chunks of {@linkplain SegmentLogCodec} records. Each chunk holds the
+ * length prefixed records of roughly {@linkplain #DEFAULT_CHUNK_SIZE} bytes, compressed using
+ * {@linkplain MessageBodyCodec#DEFLATE}. The chunks are followed by an index containing offset, compressed length and
+ * record count of every chunk, and by a trailer pointing to the index. A chunk can therefore be read without reading
+ * the ones before it, and every chunk can be handed to a storage backend as one batch.
+ *
+ * <p>
+ * An archive is written into a temporary file next to it, which only replaces the archive once it is completed. An
+ * export which fails therefore leaves neither a truncated archive nor one that looks complete.
+ */
+final class MessageArchive {
+
+    /**
+     * Uncompressed size after which a chunk is completed.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final int MAGIC = 0x53444341; // "SDCA"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private MessageArchive() {}
+
+    /**
+     * Position and size of a chunk inside the archive.
+     *
+     * @param offset           of the compressed chunk from the start of the archive
+     * @param compressedLength of the chunk in bytes
+     * @param recordCount      number of records in the chunk
+     */
+    record Chunk(long offset, int compressedLength, int recordCount) {}
+
+    /**
+     * Writes an archive sequentially. Not thread safe.
+     */
+    static final class Writer implements AutoCloseable {
+
+        private final Path path;
+        private final Path temporaryPath;
+        private final DataOutputStream out;
+        private final int chunkSize;
+        private final ByteArrayOutputStream chunkBytes;
+        private final DataOutputStream chunk;
+        private final List<Chunk> chunks;
+
+        private long position;
+        private int chunkRecordCount;
+        private long recordCount;
+        private boolean failed;
+        private boolean completed;
+
+        /**
+         * Starts writing an archive, an existing file is only replaced by {@linkplain #complete()}.
+         *
+         * @param path      of the archive
+         * @param chunkSize uncompressed size after which a chunk is completed
+         * @throws IOException if the archive could not be created
+         */
+        Writer(final Path path, final int chunkSize) throws IOException {
+            this.path = path;
+            this.temporaryPath = Files.createTempFile(
+                    path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.temporaryPath)));
+            } catch (final IOException e) {
+                Files.deleteIfExists(this.temporaryPath);
+                throw e;
+            }
+            this.chunkSize = chunkSize;
+            this.chunkBytes = new ByteArrayOutputStream(chunkSize + chunkSize / 4);
+            this.chunk = new DataOutputStream(this.chunkBytes);
+            this.chunks = new ArrayList<>();
+
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            this.position = HEADER_SIZE;
+        }
+
+        /**
+         * Appends an entity to the archive.
+         *
+         * @param entity {@linkplain MessageContent} or {@linkplain ManipulationData} to append
+         * @throws IOException if a completed chunk could not be written
+         */
+        void append(final Object entity) throws IOException {
+            try {
+                SegmentLogCodec.writeBytes(this.chunk, SegmentLogCodec.encode(entity));
+                this.chunkRecordCount++;
+                this.recordCount++;
+                if (this.chunkBytes.size() >= this.chunkSize) {
+                    this.writeChunk();
+                }
+            } catch (final IOException | RuntimeException e) {
+                // the archive would silently lack the entity
+                this.failed = true;
+                throw e;
+            }
+        }
+
+        /**
+         * @return number of entities appended so far
+         */
+        long getRecordCount() {
+            return this.recordCount;
+        }
+
+        private void writeChunk() throws IOException {
+            if (this.chunkRecordCount == 0) {
+                return;
+            }
+            final byte[] compressed = MessageBodyCodec.DEFLATE.compress(this.chunkBytes.toByteArray());
+            this.out.write(compressed);
+            this.chunks.add(new Chunk(this.position, compressed.length, this.chunkRecordCount));
+            this.position += compressed.length;
+            this.chunkBytes.reset();
+            this.chunkRecordCount = 0;
+        }
+
+        /**
+         * Completes the last chunk, writes the index and replaces any existing file at the path of the archive.
+         *
+         * @throws IOException if appending an entity failed before or the archive could not be completed
+         */
+        void complete() throws IOException {
+            if (this.failed) {
+                throw new IOException("Message archive " + this.path + " is incomplete, as appending an entity failed");
+            }
+            try {
+                this.writeChunk();
+                final long indexOffset = this.position;
+                this.out.writeInt(this.chunks.size());
+                for (final Chunk completedChunk : this.chunks) {
+                    this.out.writeLong(completedChunk.offset());
+                    this.out.writeInt(completedChunk.compressedLength());
+                    this.out.writeInt(completedChunk.recordCount());
+                }
+                this.out.writeLong(indexOffset);
+                this.out.writeInt(MAGIC);
+                this.out.close();
+                Files.move(
+                        this.temporaryPath,
+                        this.path,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException | RuntimeException e) {
+                this.failed = true;
+                throw e;
+            }
+            this.completed = true;
+        }
+
+        /**
+         * Discards the archive unless it has been completed.
+         *
+         * @throws IOException if the temporary file of the archive could not be deleted
+         */
+        @Override
+        public void close() throws IOException {
+            if (this.completed) {
+                return;
+            }
+            try {
+                this.out.close();
+            } finally {
+                Files.deleteIfExists(this.temporaryPath);
+            }
+        }
+    }
+
+    /**
+     * Reads the chunks of an archive. Not thread safe.
+     */
+    static final class Reader implements AutoCloseable {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final List<Chunk> chunks;
+
+        /**
+         * Opens an archive and reads its index.
+         *
+         * @param path of the archive
+         * @throws IOException if the archive could not be read or is not an archive written by {@linkplain Writer}
+         */
+        Reader(final Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                this.chunks = this.readIndex();
+            } catch (final IOException | RuntimeException e) {
+                this.channel.close();
+                throw e;
+            }
+        }
+
+        private List<Chunk> readIndex() throws IOException {
+            final long size = this.channel.size();
+            if (size < HEADER_SIZE + Integer.BYTES + TRAILER_SIZE) {
+                throw new IOException("File " + this.path + " is not a message archive");
+            }
+            final ByteBuffer header = this.read(0, HEADER_SIZE);
+            final ByteBuffer trailer = this.read(size - TRAILER_SIZE, TRAILER_SIZE);
+            final long indexOffset = trailer.getLong();
+            if (header.getInt() != MAGIC || trailer.getInt() != MAGIC) {
+                throw new IOException("File " + this.path + " is not a message archive");
+            }
+            final byte version = header.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported message archive version " + version + " in " + this.path);
+            }
+            if (indexOffset < HEADER_SIZE || indexOffset > size - TRAILER_SIZE - Integer.BYTES) {
+                throw new IOException("Message archive " + this.path + " has a corrupt index");
+            }
+
+            final ByteBuffer index = this.read(indexOffset, (int) (size - TRAILER_SIZE - indexOffset));
+            final int chunkCount = index.getInt();
+            if (index.remaining() != (long) chunkCount * INDEX_ENTRY_SIZE) {
+                throw new IOException("Message archive " + this.path + " has a corrupt index");
+            }
+            final List<Chunk> result = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                result.add(new Chunk(index.getLong(), index.getInt(), index.getInt()));
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        /**
+         * @return the chunks of the archive in the order they were written
+         */
+        List<Chunk> getChunks() {
+            return this.chunks;
+        }
+
+        /**
+         * @return number of entities in the archive
+         */
+        long getRecordCount() {
+            long recordCount = 0;
+            for (final Chunk chunk : this.chunks) {
+                recordCount += chunk.recordCount();
+            }
+            return recordCount;
+        }
+
+        /**
+         * Reads and decodes all entities of a chunk.
+         *
+         * @param chunk to read, one of {@linkplain #getChunks()}
+         * @return the {@linkplain MessageContent}s and {@linkplain ManipulationData}s of the chunk
+         * @throws IOException if the chunk could not be read
+         */
+        List<Object> readChunk(final Chunk chunk) throws IOException {
+            final ByteBuffer records = ByteBuffer.wrap(MessageBodyCodec.DEFLATE.decompress(
+                    this.read(chunk.offset(), chunk.compressedLength()).array()));
+            final List<Object> entities = new ArrayList<>(chunk.recordCount());
+            for (int i = 0; i < chunk.recordCount(); i++) {
+                final byte[] record = new byte[records.getInt()];
+                records.get(record);
+                entities.add(SegmentLogCodec.decode(record));
+            }
+            return entities;
+        }
+
+        private ByteBuffer read(final long offset, final int length) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (this.channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Message archive " + this.path + " is truncated");
+                }
+            }
+            return buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
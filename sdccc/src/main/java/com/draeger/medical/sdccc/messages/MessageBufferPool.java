@@ -0,0 +1,111 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of the buffers messages are captured into.
+ *
+ * <p>
+ * Buffers are handed out in power of two size classes, so that a buffer released by one message fits any message
+ * requesting the same or a smaller size class. Buffers larger than the largest size class are neither pooled nor
+ * retained.
+ *
+ * <p>
+ * The buffers retained across all size classes are bounded by {@linkplain #MAX_RETAINED_BYTES}, released buffers
+ * exceeding the bound are left to the garbage collector. As messages share a single pool for the lifetime of the JVM,
+ * this is the memory the pool keeps at most once all messages have been stored.
+ */
+final class MessageBufferPool {
+
+    static final int MIN_BUFFER_SIZE = 4 * 1024;
+    static final int MAX_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    // upper bound of the memory retained across all size classes, fits two of the largest buffers
+    static final long MAX_RETAINED_BYTES = 2L * MAX_BUFFER_SIZE;
+
+    private final List<ArrayBlockingQueue<byte[]>> sizeClasses;
+    private final long maxRetainedBytes;
+    private final AtomicLong retainedBytes;
+
+    MessageBufferPool() {
+        this(MAX_RETAINED_BYTES);
+    }
+
+    /**
+     * @param maxRetainedBytes upper bound of the memory retained across all size classes
+     */
+    MessageBufferPool(final long maxRetainedBytes) {
+        this.sizeClasses = new ArrayList<>();
+        for (int size = MIN_BUFFER_SIZE; size <= MAX_BUFFER_SIZE; size *= 2) {
+            this.sizeClasses.add(
+                    new ArrayBlockingQueue<>((int) Math.max(1, Math.min(Integer.MAX_VALUE, maxRetainedBytes / size))));
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.retainedBytes = new AtomicLong();
+    }
+
+    /**
+     * Hands out a buffer of at least the requested capacity.
+     *
+     * @param minCapacity the buffer has to provide
+     * @return a pooled buffer if one is available, a new buffer otherwise
+     */
+    byte[] acquire(final int minCapacity) {
+        final int sizeClass = sizeClassOf(minCapacity);
+        if (sizeClass >= this.sizeClasses.size()) {
+            return new byte[minCapacity];
+        }
+        final byte[] buffer = this.sizeClasses.get(sizeClass).poll();
+        if (buffer == null) {
+            return new byte[MIN_BUFFER_SIZE << sizeClass];
+        }
+        this.retainedBytes.addAndGet(-buffer.length);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool, the buffer must not be used by the caller afterwards.
+     *
+     * @param buffer acquired from this pool
+     */
+    void release(final byte[] buffer) {
+        final int sizeClass = sizeClassOf(buffer.length);
+        // only buffers which have been handed out by this pool exactly match their size class
+        if (sizeClass < this.sizeClasses.size() && buffer.length == MIN_BUFFER_SIZE << sizeClass) {
+            // the buffer is accounted for before it is offered, so that concurrent releases never exceed the bound
+            if (this.retainedBytes.addAndGet(buffer.length) > this.maxRetainedBytes
+                    || !this.sizeClasses.get(sizeClass).offer(buffer)) {
+                this.retainedBytes.addAndGet(-buffer.length);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes currently retained across all size classes
+     */
+    long getRetainedBytes() {
+        return this.retainedBytes.get();
+    }
+
+    /**
+     * @param capacity to find the size class for
+     * @return index of the smallest size class providing the capacity, may exceed the pooled size classes
+     */
+    private static int sizeClassOf(final int capacity) {
+        if (capacity <= MIN_BUFFER_SIZE) {
+            return 0;
+        }
+        return Integer.SIZE
+                - Integer.numberOfLeadingZeros(capacity - 1)
+                - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+}
@@ -6,82 +6,69 @@
 
 package com.draeger.medical.sdccc.messages;
 
+import com.draeger.medical.sdccc.configuration.TestRunConfig;
 import com.draeger.medical.sdccc.configuration.TestSuiteConfig;
 import com.draeger.medical.sdccc.messages.guice.MessageFactory;
-import com.draeger.medical.sdccc.messages.mapping.HTTPHeaderEntity;
-import com.draeger.medical.sdccc.messages.mapping.HTTPHeaderEntity_;
 import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
-import com.draeger.medical.sdccc.messages.mapping.ManipulationData_;
-import com.draeger.medical.sdccc.messages.mapping.ManipulationParameter;
-import com.draeger.medical.sdccc.messages.mapping.ManipulationParameter_;
 import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
-import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity_;
 import com.draeger.medical.sdccc.messages.mapping.MessageContent;
-import com.draeger.medical.sdccc.messages.mapping.MessageContent_;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
 import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
 import com.draeger.medical.sdccc.util.Constants;
 import com.draeger.medical.sdccc.util.TestRunObserver;
 import com.draeger.medical.sdccc.util.XPathExtractor;
 import com.draeger.medical.t2iapi.ResponseTypes;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStreamReader;
+import java.io.Writer;
 import java.nio.ByteBuffer;
-import java.nio.charset.CharacterCodingException;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
-import javax.persistence.criteria.Subquery;
 import javax.xml.namespace.QName;
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
-import org.apache.commons.io.ByteOrderMark;
-import org.apache.commons.io.input.BOMInputStream;
+import javax.xml.stream.XMLStreamReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.hibernate.ScrollMode;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
-import org.hibernate.query.spi.ScrollableResultsImplementor;
-import org.hibernate.query.spi.StreamDecorator;
+import org.hibernate.HibernateException;
+import org.hibernate.tool.schema.spi.SchemaManagementException;
 import org.somda.sdc.dpws.CommunicationLog;
 import org.somda.sdc.dpws.soap.ApplicationInfo;
 import org.somda.sdc.dpws.soap.CommunicationContext;
@@ -98,27 +85,17 @@ public class MessageStorage implements AutoCloseable {
 
     private static final Logger LOG = LogManager.getLogger(MessageStorage.class);
 
-    private static final int FETCH_SIZE = 10;
-
-    // Prefixes of XML declarations according to Appendix F.1 of the XML Standard
-    private static final int XML_DECLARATION_PREFIX_LENGTH = 4;
-    private static final Map<byte[], Charset> XML_DECLARATION_PREFIXES = Map.of(
-            new byte[] {0x00, 0x00, 0x00, 0x3C},
-            Charset.forName("UTF-32BE"),
-            new byte[] {0x3C, 0x00, 0x00, 0x00},
-            Charset.forName("UTF-32LE"),
-            new byte[] {0x00, 0x3C, 0x00, 0x3F},
-            StandardCharsets.UTF_16BE,
-            new byte[] {0x3C, 0x00, 0x3F, 0x00},
-            StandardCharsets.UTF_16LE,
-            new byte[] {0x3C, 0x3F, 0x78, 0x6D},
-            StandardCharsets.US_ASCII, // any ASCII-compatible charset
-            // AFAIK, all charsets of the EBCDIC family have common bit-patterns for the characters used
-            // in the XML declaration. Hence, any of them could be used to decode the declaration. However,
-            // only 'ebcdic-international-500+euro' was tested in this respect and hence it is used as a
-            // placeholder for 'any EBCDIC charset'.
-            new byte[] {0x4C, 0x6F, (byte) 0xA7, (byte) 0x94},
-            Charset.forName("ebcdic-international-500+euro"));
+    private static final int DECODING_BUFFER_SIZE = 4096;
+
+    private static final String OVERFLOW_SPILL_FILE_NAME = "MessageQueueOverflow.spill";
+    private static final String INGEST_METRICS_FILE_NAME = "IngestMetrics.json";
+    private static final String MESSAGE_ARCHIVE_FILE_NAME = "MessageArchive.bin";
+    // number of entities read from a recorded database which are persisted together
+    private static final int IMPORT_BATCH_SIZE = 500;
+    private static final String METRICS_LOGGER_THREAD_NAME = "MessageStorageMetricsLogger";
+    // interval in which idle conversion threads look for spilled entries
+    private static final long SPILL_RECOVERY_INTERVAL_MILLIS = 100;
+
     private static final List<String> SDC_MIME_TYPES = List.of("application/soap+xml", "application/xml");
 
     private static final String HTTP_HEADER_NAME_CONTENT_TYPE = "content-type";
@@ -140,6 +117,8 @@ public class MessageStorage implements AutoCloseable {
             "getInboundMessagesByTimestampAndBodyType called on closed storage";
     private static final String GET_MANIPULATION_DATA_BY_MANIPULATION =
             "getManipulationDataByManipulation called on closed storage";
+    private static final String EXPORT_ARCHIVE_CALLED_ON_CLOSED_STORAGE = "exportArchive called on closed storage";
+    private static final String IMPORT_RECORDING_CALLED_ON_CLOSED_STORAGE = "importRecording called on closed storage";
     private static final String FILTERING_FOR_GIVEN_ELEMENT_NAME_NOT_IMPLEMENTED =
             "Filtering for the given element name is not supported due to MdibVersionGroups "
                     + "not being parsed for elements with the name %s .";
@@ -150,12 +129,6 @@ public class MessageStorage implements AutoCloseable {
     private static final String XML_DECLARATION_ORIGIN = "XML Declaration states '%s'";
     private static final String XML_DECLARATION_PREFIX_ORIGIN = "XML Declaration is encoded in %s";
 
-    private final Pattern charsetPattern = Pattern.compile(".*;\\s*charset\\s*=\\s*([^;]*).*");
-    private final Pattern encodingFromXmlDeclarationPatternDoubleQuotes =
-            Pattern.compile(".*<\\?.*encoding\\s*=\\s*\"([^\"]*)\".*\\?>.*", Pattern.DOTALL);
-    private final Pattern encodingFromXmlDeclarationPatternSingleQuotes =
-            Pattern.compile(".*<\\?.*encoding\\s*=\\s*'([^']*)'.*\\?>.*", Pattern.DOTALL);
-
     private final MessageFactory messageFactory;
 
     private final AtomicBoolean closed;
@@ -163,51 +136,90 @@ public class MessageStorage implements AutoCloseable {
     private final XPathExtractor actionExtractor;
     private final XMLInputFactory xmlInputFactory;
 
-    // the containing class has to be singleton, because we want only one SessionFactory
-    private final SessionFactory sessionFactory;
-
-    private final HibernateConfig configuration;
+    private final MessageStorageBackend storageBackend;
 
-    private final ArrayBlockingQueue<DatabaseEntry> messageQueue;
-    private final List<DatabaseInteractionThread> databaseInteractionThreads;
-    private final ReentrantLock queueExitLock;
+    private final List<IngestShard> shards;
     private final ReentrantLock closeLock;
 
+    // guards the spill file and the decision whether an added entry is queued or spilled
+    private final ReentrantLock spillLock;
+    private final OverflowSpillFile overflowSpillFile;
+    private final AtomicLong spilledEntryCount;
+    private final AtomicLong recoveredEntryCount;
+
     private final int blockingQueueSize;
+    private final int maxBatchSize;
+    private final long maxBatchLingerTimeNanos;
 
-    private final CyclicBarrier flushBarrier;
+    private final AtomicLong lastSequenceNumber;
+    private final CommitTracker commitTracker;
+    private volatile long flushSequenceNumber;
 
     private final TestRunObserver testRunObserver;
     private final boolean summarizeMessageEncodingErrors;
     private final AtomicLong messageEncodingErrorCount;
-    private int invalidMimeTypeCount;
+    private final AtomicLong invalidMimeTypeCount;
     private final boolean enableEncodingCheck;
 
+    private final MessageBodyCodec bodyCodec;
+
+    private final IngestMetrics ingestMetrics;
+    private final Path ingestMetricsFile;
+    private final Path messageArchiveFile;
+
+    @Nullable
+    private final ScheduledExecutorService metricsLogger;
+
+    private final AtomicLong uncompressedBodyBytes;
+    private final AtomicLong compressedBodyBytes;
+
     @Inject
     MessageStorage(
             @Named(TestSuiteConfig.COMMLOG_MESSAGE_BUFFER_SIZE) final int blockingQueueSize,
+            @Named(TestSuiteConfig.COMMLOG_MAX_BATCH_SIZE) final long maxBatchSize,
+            @Named(TestSuiteConfig.COMMLOG_MAX_BATCH_LINGER_TIME) final long maxBatchLingerTime,
+            @Named(TestSuiteConfig.COMMLOG_METRICS_LOG_INTERVAL) final long metricsLogInterval,
             @Named(TestSuiteConfig.SUMMARIZE_MESSAGE_ENCODING_ERRORS) final boolean summarizeMessageEncodingErrors,
             @Named(TestSuiteConfig.ENABLE_MESSAGE_ENCODING_CHECK) final boolean enableEncodingCheck,
+            final MessageBodyCodec bodyCodec,
+            @Named(TestRunConfig.TEST_RUN_DIR) final File testRunDir,
             final MessageFactory messageFactory,
-            final HibernateConfig configuration,
+            final MessageStorageBackend storageBackend,
             final TestRunObserver testRunObserver) {
         this.messageFactory = messageFactory;
         this.testRunObserver = testRunObserver;
         this.closed = new AtomicBoolean();
         this.blockingQueueSize = blockingQueueSize;
+        if (maxBatchSize < 1 || maxBatchLingerTime < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid commit policy: %s must be positive and %s must not be negative.",
+                    TestSuiteConfig.COMMLOG_MAX_BATCH_SIZE, TestSuiteConfig.COMMLOG_MAX_BATCH_LINGER_TIME));
+        }
+        if (metricsLogInterval < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid metrics log interval: %s must not be negative.",
+                    TestSuiteConfig.COMMLOG_METRICS_LOG_INTERVAL));
+        }
+        this.maxBatchSize = Math.toIntExact(maxBatchSize);
+        this.maxBatchLingerTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchLingerTime);
         this.summarizeMessageEncodingErrors = summarizeMessageEncodingErrors;
         this.enableEncodingCheck = enableEncodingCheck;
         this.messageEncodingErrorCount = new AtomicLong(0);
-        this.invalidMimeTypeCount = 0;
+        this.invalidMimeTypeCount = new AtomicLong(0);
+        this.bodyCodec = bodyCodec;
+        this.uncompressedBodyBytes = new AtomicLong(0);
+        this.compressedBodyBytes = new AtomicLong(0);
 
         this.actionExtractor = new XPathExtractor(String.format("//%s:Action", WsAddressingConstants.NAMESPACE_PREFIX));
 
-        this.configuration = configuration;
-        this.sessionFactory = this.configuration.getConfiguration().buildSessionFactory();
+        this.storageBackend = storageBackend;
 
-        this.messageQueue = new ArrayBlockingQueue<>(this.blockingQueueSize);
-        this.queueExitLock = new ReentrantLock();
         this.closeLock = new ReentrantLock();
+        this.spillLock = new ReentrantLock();
+        this.overflowSpillFile =
+                new OverflowSpillFile(Path.of(testRunDir.getAbsolutePath(), OVERFLOW_SPILL_FILE_NAME), this);
+        this.spilledEntryCount = new AtomicLong(0);
+        this.recoveredEntryCount = new AtomicLong(0);
 
         final int logicalProcessorCount = Runtime.getRuntime().availableProcessors();
         final int logicalProcessorsToUse;
@@ -219,22 +231,43 @@ public class MessageStorage implements AutoCloseable {
         }
 
         LOG.info(
-                "Logical processor count is {}. Will use {} database interaction threads.",
+                "Logical processor count is {}. Will use {} ingest shards, each with a conversion and a database "
+                        + "interaction thread.",
                 logicalProcessorCount,
                 logicalProcessorsToUse);
 
-        // database interaction threads plus the main flush functions caller thread
-        this.flushBarrier = new CyclicBarrier(logicalProcessorsToUse + 1);
+        this.lastSequenceNumber = new AtomicLong(0);
+        this.commitTracker = new CommitTracker();
+        this.flushSequenceNumber = 0;
+
+        this.xmlInputFactory = XMLInputFactory.newInstance();
 
-        this.databaseInteractionThreads = new ArrayList<>(logicalProcessorsToUse);
+        // the queue capacity is split among the shards, so that the storage does not buffer more entries in total
+        final int shardQueueSize =
+                Math.max(1, (this.blockingQueueSize + logicalProcessorsToUse - 1) / logicalProcessorsToUse);
+        this.shards = new ArrayList<>(logicalProcessorsToUse);
         for (int i = 0; i < logicalProcessorsToUse; i++) {
-            final DatabaseInteractionThread databaseInteractionThread = new DatabaseInteractionThread();
-            databaseInteractionThread.setDaemon(true);
-            databaseInteractionThread.start();
-            this.databaseInteractionThreads.add(databaseInteractionThread);
+            this.shards.add(new IngestShard(shardQueueSize));
+        }
+
+        this.ingestMetrics = new IngestMetrics();
+        this.ingestMetricsFile = Path.of(testRunDir.getAbsolutePath(), INGEST_METRICS_FILE_NAME);
+        this.messageArchiveFile = Path.of(testRunDir.getAbsolutePath(), MESSAGE_ARCHIVE_FILE_NAME);
+        if (metricsLogInterval > 0) {
+            this.metricsLogger = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat(METRICS_LOGGER_THREAD_NAME)
+                    .setDaemon(true)
+                    .build());
+            this.metricsLogger.scheduleAtFixedRate(
+                    () -> LOG.info(
+                            "Message storage metrics: {}",
+                            this.getIngestMetrics().toLogString()),
+                    metricsLogInterval,
+                    metricsLogInterval,
+                    TimeUnit.SECONDS);
+        } else {
+            this.metricsLogger = null;
         }
-
-        this.xmlInputFactory = XMLInputFactory.newInstance();
     }
 
     public XPathExtractor getActionExtractor() {
@@ -244,6 +277,9 @@ public class MessageStorage implements AutoCloseable {
     /**
      * Adds message to the message database.
      *
+     * <p>
+     * Never blocks on a busy storage, the message is spilled to disk if the message queue is full.
+     *
      * @param message to add to the database
      */
     public void addMessage(final DatabaseEntry message) {
@@ -256,40 +292,135 @@ public class MessageStorage implements AutoCloseable {
                 return;
             }
 
-            try {
-                this.messageQueue.put(message);
-            } catch (final InterruptedException e) {
-                LOG.error("unable to put message content into queue", e);
-                testRunObserver.invalidateTestRun(e);
+            final long sequenceNumber = this.lastSequenceNumber.incrementAndGet();
+            final IngestShard shard = this.shards.get((int) (sequenceNumber % this.shards.size()));
+            if (!this.enqueueOrSpill(shard, new QueuedEntry(sequenceNumber, message))) {
+                // the entry is lost, flushes must not wait for it
+                this.commitTracker.commit(sequenceNumber);
             }
+            this.ingestMetrics.recordCapture(this.getQueueOccupancy());
         } finally {
             this.closeLock.unlock();
         }
     }
 
+    /**
+     * Hands an entry over to the conversion thread of a shard without blocking.
+     *
+     * <p>
+     * The entry is spilled to the overflow file if the message queue of the shard is full or spilled entries are
+     * still waiting, so that entries are taken up by the conversion threads in the order they were added.
+     *
+     * @param shard       to hand the entry over to
+     * @param queuedEntry to hand over
+     * @return true if the entry was queued or spilled, false if it is lost
+     */
+    private boolean enqueueOrSpill(final IngestShard shard, final QueuedEntry queuedEntry) {
+        this.spillLock.lock();
+        try {
+            final boolean spilling = !this.overflowSpillFile.isEmpty();
+            if (!spilling && shard.messageQueue.offer(queuedEntry)) {
+                return true;
+            }
+            if (!spilling) {
+                LOG.warn(
+                        "The message queue is full, spilling messages to {} until the storage caught up.",
+                        this.overflowSpillFile.getPath());
+            }
+            this.overflowSpillFile.append(queuedEntry.sequenceNumber(), queuedEntry.entry());
+            this.spilledEntryCount.incrementAndGet();
+            releaseCaptureBuffer(queuedEntry.entry());
+            return true;
+        } catch (final IOException | RuntimeException e) {
+            LOG.error(
+                    "unable to spill database entry with id={}",
+                    queuedEntry.entry().getID(),
+                    e);
+            testRunObserver.invalidateTestRun(e);
+            releaseCaptureBuffer(queuedEntry.entry());
+            return false;
+        } finally {
+            this.spillLock.unlock();
+        }
+    }
+
+    /**
+     * Hands the capture buffer of a message back to the pool once the storage does not need the buffer anymore.
+     *
+     * @param entry to release the capture buffer of
+     */
+    private static void releaseCaptureBuffer(final DatabaseEntry entry) {
+        if (entry instanceof Message message) {
+            message.releaseBuffer();
+        }
+    }
+
+    /**
+     * Reads back the oldest spilled entry.
+     *
+     * @return the entry or null if no spilled entry is waiting
+     */
+    @Nullable
+    private QueuedEntry recoverSpilledEntry() {
+        this.spillLock.lock();
+        try {
+            final OverflowSpillFile.SpilledEntry spilledEntry = this.overflowSpillFile.poll();
+            if (spilledEntry == null) {
+                return null;
+            }
+            this.recoveredEntryCount.incrementAndGet();
+            return new QueuedEntry(spilledEntry.sequenceNumber(), spilledEntry.entry());
+        } catch (final IOException | RuntimeException e) {
+            LOG.error("unable to read spilled database entries back, dropping them", e);
+            testRunObserver.invalidateTestRun(e);
+            try {
+                // flushes must not wait for the dropped entries
+                this.overflowSpillFile.discard().forEach(this.commitTracker::commit);
+            } catch (final IOException discardException) {
+                LOG.error("unable to discard the spilled database entries", discardException);
+            }
+            return null;
+        } finally {
+            this.spillLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of messages added to the storage so far, excluding imported recordings
+     */
+    public long getAddedMessageCount() {
+        return this.lastSequenceNumber.get();
+    }
+
+    /**
+     * @return number of entries which have been spilled to disk because the message queue was full
+     */
+    public long getSpilledEntryCount() {
+        return this.spilledEntryCount.get();
+    }
+
+    /**
+     * @return number of spilled entries which have been read back for storage
+     */
+    public long getRecoveredEntryCount() {
+        return this.recoveredEntryCount.get();
+    }
+
     public XMLInputFactory getXmlInputFactory() {
         return xmlInputFactory;
     }
 
     protected MessageContent convertMessageToMessageContent(final Message message) {
         boolean isSOAP = false;
-        String body = "";
+        Charset messageCharset = StandardCharsets.UTF_8;
         final Set<String> actions = new HashSet<>();
         final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups = new LinkedList<>();
         final byte[] bodyBytes = message.getFinalMemory();
         if (bodyBytes.length > 0) {
-            Charset messageCharset = StandardCharsets.UTF_8;
             if (this.enableEncodingCheck) {
+                final long encodingCheckStart = System.nanoTime();
                 messageCharset = determineCharsetFromMessage(message);
-            }
-            final CharsetDecoder charsetDecoder = messageCharset.newDecoder();
-            charsetDecoder.onUnmappableCharacter(CodingErrorAction.REPORT);
-            charsetDecoder.onMalformedInput(CodingErrorAction.REPORT);
-            try {
-                final var decodingResult = charsetDecoder.decode(ByteBuffer.wrap(message.getFinalMemory()));
-                body = decodingResult.toString();
-            } catch (CharacterCodingException e) {
-                if (this.enableEncodingCheck) {
+                if (!isDecodable(bodyBytes, messageCharset)) {
                     if (this.summarizeMessageEncodingErrors) {
                         // TestRun will be invalidated in TestSuite if messageEncodingErrorCount > 0
                         this.messageEncodingErrorCount.incrementAndGet();
@@ -297,16 +428,18 @@ public class MessageStorage implements AutoCloseable {
                         this.testRunObserver.invalidateTestRun(String.format(
                                 "Encountered message encoding problem: charset %s was specified, but message "
                                         + "cannot be decoded using this charset. The specified charset is incorrect, "
-                                        + "or the message contains invalid characters (Message UID='%s').",
+                                        + "or the message contains invalid characters (Message ID='%s').",
                                 messageCharset, message.getID()));
                     }
                 }
-                body = new String(message.getFinalMemory(), messageCharset);
+                this.ingestMetrics.recordEncodingCheck(System.nanoTime() - encodingCheckStart);
             }
-            isSOAP = processMessageBody(body, actions, mdibVersionGroups);
+            isSOAP = processMessageBody(bodyBytes, messageCharset, actions, mdibVersionGroups);
         }
-        return new MessageContent(
-                body,
+        final MessageContent messageContent = new MessageContent(
+                bodyBytes,
+                messageCharset,
+                message.getMessageDigest(),
                 message.getCommunicationContext(),
                 message.getDirection(),
                 message.getMessageType(),
@@ -314,23 +447,30 @@ public class MessageStorage implements AutoCloseable {
                 message.getNanoTimestamp(),
                 mdibVersionGroups,
                 actions,
-                message.getID(),
+                message.getEntryId(),
                 isSOAP,
                 getSender(message));
+        if (this.bodyCodec != MessageBodyCodec.NONE) {
+            messageContent.compressBody(this.bodyCodec);
+            this.uncompressedBodyBytes.addAndGet(bodyBytes.length);
+            this.compressedBodyBytes.addAndGet(
+                    messageContent.getStoredBodyBuffer().remaining());
+        }
+        return messageContent;
     }
 
     private String getSender(final Message message) {
         final CommunicationContext communicationContext = message.getCommunicationContext();
         if (communicationContext == null) {
             // NOTE: this should never happen. If it does, this should be considered a bug.
-            LOG.trace("Encountered message (uuid={}) without a CommunicationContext.", message.getID());
+            LOG.trace("Encountered message (id={}) without a CommunicationContext.", message.getID());
             testRunObserver.invalidateTestRun("Encountered message without a CommunicationContext.");
             return null;
         }
         final TransportInfo transportInfo = communicationContext.getTransportInfo();
         if (transportInfo == null) {
             // NOTE: this should never happen. If it does, this should be considered a bug.
-            LOG.trace("Encountered message (uuid={}) without a TransportInfo.", message.getID());
+            LOG.trace("Encountered message (id={}) without a TransportInfo.", message.getID());
             testRunObserver.invalidateTestRun("Encountered message without a TransportInfo.");
             return null;
         }
@@ -338,7 +478,7 @@ public class MessageStorage implements AutoCloseable {
             final Optional<String> remoteAddress = transportInfo.getRemoteAddress();
             if (remoteAddress.isEmpty()) {
                 // NOTE: this should never happen. If it does, this should be considered a bug.
-                LOG.trace("Encountered inbound message (uuid={}) without a remoteAddress.", message.getID());
+                LOG.trace("Encountered inbound message (id={}) without a remoteAddress.", message.getID());
                 testRunObserver.invalidateTestRun("Encountered inbound message without a remoteAddress.");
                 return null;
             } else {
@@ -356,34 +496,63 @@ public class MessageStorage implements AutoCloseable {
         } else {
             testRunObserver.invalidateTestRun("Encountered unknown direction in message.");
             LOG.trace(
-                    "Encountered unknown direction {} in message with uuid={}",
-                    message.getDirection(),
-                    message.getID());
+                    "Encountered unknown direction {} in message with id={}", message.getDirection(), message.getID());
             return null;
         }
     }
 
+    /**
+     * Checks whether the body can be decoded using the charset without materializing the decoded characters.
+     *
+     * @param body    raw message body
+     * @param charset the body is expected to be encoded in
+     * @return true if the body is well-formed and mappable in the charset, false otherwise
+     */
+    private static boolean isDecodable(final byte[] body, final Charset charset) {
+        final CharsetDecoder charsetDecoder = charset.newDecoder();
+        charsetDecoder.onUnmappableCharacter(CodingErrorAction.REPORT);
+        charsetDecoder.onMalformedInput(CodingErrorAction.REPORT);
+        final ByteBuffer input = ByteBuffer.wrap(body);
+        final CharBuffer output = CharBuffer.allocate(DECODING_BUFFER_SIZE);
+        CoderResult result;
+        do {
+            output.clear();
+            result = charsetDecoder.decode(input, output, true);
+        } while (result.isOverflow());
+        if (result.isError()) {
+            return false;
+        }
+        do {
+            output.clear();
+            result = charsetDecoder.flush(output);
+        } while (result.isOverflow());
+        return !result.isError();
+    }
+
     private boolean processMessageBody(
-            final String body,
+            final byte[] body,
+            final Charset charset,
             final Set<String> actions,
             final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups) {
         var isSOAP = false;
+        XMLStreamReader reader = null;
         try {
-            final XMLEventReader reader = this.getXmlInputFactory().createXMLEventReader(new StringReader(body));
-
-            while (reader.hasNext()) {
-                final XMLEvent nextEvent = reader.nextEvent();
-
-                if (nextEvent.isStartElement()) {
-                    final StartElement startElement = nextEvent.asStartElement();
-                    if (startElement.getName().getLocalPart().equals("Action")
-                            && startElement.getName().getNamespaceURI().equals(WsAddressingConstants.NAMESPACE)) {
-                        handleActionEvent(actions, reader);
-                    } else if (startElement.getName().getLocalPart().equals("Body")
-                            && startElement.getName().getNamespaceURI().equals(SoapConstants.NAMESPACE)) {
-                        handleSoapBodyEvent(mdibVersionGroups, reader);
-                    } else if (startElement.getName().getLocalPart().equals("Envelope")
-                            && startElement.getName().getNamespaceURI().equals(SoapConstants.NAMESPACE)) {
+            // decode using the determined charset, regardless of the encoding declared in the document
+            reader = this.getXmlInputFactory()
+                    .createXMLStreamReader(new InputStreamReader(new ByteArrayInputStream(body), charset));
+
+            // the SOAP body is the last element of interest, nothing after it is read
+            var bodyProcessed = false;
+            while (!bodyProcessed && reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    final String namespace = reader.getNamespaceURI();
+                    final String localName = reader.getLocalName();
+                    if ("Action".equals(localName) && WsAddressingConstants.NAMESPACE.equals(namespace)) {
+                        handleActionElement(actions, reader);
+                    } else if ("Body".equals(localName) && SoapConstants.NAMESPACE.equals(namespace)) {
+                        handleSoapBodyElement(mdibVersionGroups, reader);
+                        bodyProcessed = true;
+                    } else if ("Envelope".equals(localName) && SoapConstants.NAMESPACE.equals(namespace)) {
                         isSOAP = true;
                     }
                 }
@@ -392,6 +561,14 @@ public class MessageStorage implements AutoCloseable {
             LOG.trace(
                     "unable to extract action or body from message content, " + "this is expected for invalid messages",
                     e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final XMLStreamException e) {
+                    LOG.trace("unable to close the reader of the message content", e);
+                }
+            }
         }
         return isSOAP;
     }
@@ -404,7 +581,34 @@ public class MessageStorage implements AutoCloseable {
                 manipulationInfo.getResponse(),
                 manipulationInfo.getMethodName(),
                 manipulationInfo.getParameter(),
-                manipulationInfo.getID());
+                manipulationInfo.getEntryId());
+    }
+
+    /**
+     * Converts a queued entry into its ready-to-persist entity, so that database interaction threads only
+     * have to insert it.
+     *
+     * @param queuedEntry to convert
+     * @return the converted entry or null if the entry could not be converted
+     */
+    @Nullable
+    private ConvertedEntry convertEntry(final QueuedEntry queuedEntry) {
+        final DatabaseEntry entry = queuedEntry.entry();
+        final long sequenceNumber = queuedEntry.sequenceNumber();
+        try {
+            if (entry instanceof Message) {
+                return new ConvertedEntry(sequenceNumber, convertMessageToMessageContent((Message) entry));
+            } else if (entry instanceof ManipulationInfo) {
+                return new ConvertedEntry(
+                        sequenceNumber, convertManipulationInfoToManipulationData((ManipulationInfo) entry));
+            }
+            LOG.error("Encountered database entry of unknown type {}", entry.getClass());
+            testRunObserver.invalidateTestRun("Encountered unknown database entry type.");
+        } catch (final RuntimeException e) {
+            LOG.error("unable to convert database entry with id={}", entry.getID(), e);
+            testRunObserver.invalidateTestRun(e);
+        }
+        return null;
     }
 
     protected Charset determineCharsetFromMessage(final Message message) {
@@ -414,12 +618,14 @@ public class MessageStorage implements AutoCloseable {
         //       3. XML Declaration
         try {
 
+            final byte[] body = message.getFinalMemory();
             // 1. check HTTP Header
             final Charset charsetFromHttpHeader = determineCharsetFromHttpHeader(message);
             // 2. check Unicode Byte Order Mark
-            final Charset charsetFromUnicodeByteOrderMark = determineCharsetFromUnicodeByteOrderMark(message);
+            final Charset charsetFromUnicodeByteOrderMark = determineCharsetFromUnicodeByteOrderMark(message, body);
             // 3. check XML Declaration
-            final Charset charsetFromXmlDeclaration = determineCharsetFromXmlDeclaration(message);
+            final Charset charsetFromXmlDeclaration =
+                    determineCharsetFromXmlDeclaration(message, body, charsetFromUnicodeByteOrderMark);
 
             checkFullCharsetConsistency(
                     charsetFromHttpHeader,
@@ -456,7 +662,7 @@ public class MessageStorage implements AutoCloseable {
                 } else {
                     this.testRunObserver.invalidateTestRun(String.format(
                             "Encountered a message whose encoding is declared to be %s. This violates"
-                                    + " MDPWS:R0007_0 - SOAP ENVELOPEs SHALL be encoded by using UTF-8. (Message UID='%s')",
+                                    + " MDPWS:R0007_0 - SOAP ENVELOPEs SHALL be encoded by using UTF-8. (Message ID='%s')",
                             charsetWithOrigin, message.getID()));
                 }
             }
@@ -554,12 +760,12 @@ public class MessageStorage implements AutoCloseable {
                 if (!SDC_MIME_TYPES.contains(mimeType)) {
                     if (summarizeMessageEncodingErrors) {
                         // TestRun will be invalidated in TestSuite if invalidMimeTypeCount > 0
-                        this.invalidMimeTypeCount++;
+                        this.invalidMimeTypeCount.incrementAndGet();
                     } else {
                         this.testRunObserver.invalidateTestRun(String.format(
                                 "encountered a SOAP Envelope whose mimeType '%s' (declared in its "
                                         + "HTTP Header) indicates that it was not serialized as 'application/soap+xml' and "
-                                        + "that hence violates the definition of a SOAP TEXT ENVELOPE in MDPWS Section 3.1. (Message UUID='%s')",
+                                        + "that hence violates the definition of a SOAP TEXT ENVELOPE in MDPWS Section 3.1. (Message ID='%s')",
                                 mimeType, message.getID()));
                     }
                 }
@@ -567,53 +773,26 @@ public class MessageStorage implements AutoCloseable {
         }
     }
 
-    private Charset determineCharsetFromUnicodeByteOrderMark(final Message message) {
-        Charset charsetFromUnicodeByteOrderMark = null;
-        try {
-            final ByteArrayInputStream in = new ByteArrayInputStream(message.getFinalMemory());
-            final BOMInputStream bomIn = new BOMInputStream(
-                    in,
-                    ByteOrderMark.UTF_8,
-                    ByteOrderMark.UTF_16LE,
-                    ByteOrderMark.UTF_16BE,
-                    ByteOrderMark.UTF_32LE,
-                    ByteOrderMark.UTF_32BE);
-            if (!bomIn.hasBOM()) {
-                LOG.trace("Unable to determine charset from byte order mark for message with ID '" + message.getID()
-                        + "'. Will use another option.");
-            } else if (bomIn.hasBOM(ByteOrderMark.UTF_8)) {
-                charsetFromUnicodeByteOrderMark = StandardCharsets.UTF_8;
-            } else if (bomIn.hasBOM(ByteOrderMark.UTF_16LE)) {
-                charsetFromUnicodeByteOrderMark = StandardCharsets.UTF_16LE;
-            } else if (bomIn.hasBOM(ByteOrderMark.UTF_16BE)) {
-                charsetFromUnicodeByteOrderMark = StandardCharsets.UTF_16BE;
-            } else if (bomIn.hasBOM(ByteOrderMark.UTF_32LE)) {
-                charsetFromUnicodeByteOrderMark = Charset.forName("UTF_32LE");
-            } else if (bomIn.hasBOM(ByteOrderMark.UTF_32BE)) {
-                charsetFromUnicodeByteOrderMark = Charset.forName("UTF_32BE");
-            }
-        } catch (IOException e) {
-            if (this.summarizeMessageEncodingErrors) {
-                // TestRun will be invalidated in TestSuite if messageEncodingErrorCount > 0
-                this.messageEncodingErrorCount.incrementAndGet();
-            } else {
-                this.testRunObserver.invalidateTestRun(
-                        "Unable to read message contents of message with ID '" + message.getID() + "'", e);
-            }
+    private Charset determineCharsetFromUnicodeByteOrderMark(final Message message, final byte[] body) {
+        final Charset charsetFromUnicodeByteOrderMark = CharsetDeclarationScanner.charsetFromByteOrderMark(body);
+        if (charsetFromUnicodeByteOrderMark == null) {
+            LOG.trace(
+                    "Unable to determine charset from byte order mark for message with ID '{}'. Will use another option.",
+                    message.getID());
         }
         return charsetFromUnicodeByteOrderMark;
     }
 
-    private Charset determineCharsetFromXmlDeclaration(final Message message) {
-        final Charset charsetFromBOM = determineCharsetFromUnicodeByteOrderMark(message);
-        final Charset charsetFromPrefix = determineCharsetFromXmlDeclarationPrefix(message);
+    private Charset determineCharsetFromXmlDeclaration(
+            final Message message, final byte[] body, @Nullable final Charset charsetFromBOM) {
+        final Charset charsetFromPrefix = CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(body);
 
         Charset result = null;
         if (charsetFromBOM != null) {
-            result = determineCharsetFromXmlDeclarationInternal(message, charsetFromBOM);
+            result = CharsetDeclarationScanner.charsetFromXmlDeclaration(body, charsetFromBOM);
         } else {
             if (charsetFromPrefix != null) {
-                result = determineCharsetFromXmlDeclarationInternal(message, charsetFromPrefix);
+                result = CharsetDeclarationScanner.charsetFromXmlDeclaration(body, charsetFromPrefix);
             }
         }
 
@@ -665,7 +844,7 @@ public class MessageStorage implements AutoCloseable {
                     charsetFromPrefix != null && !charsetFromPrefix.equals(charsetFromDeclaration);
             // EBCDIC Prefix is consistent with any charset from the EBCDIC family.
             final boolean special_case_EBCDIC_family = charsetFromPrefix != null
-                    && charsetFromPrefix.equals(Charset.forName("ebcdic-international-500+euro"))
+                    && charsetFromPrefix.equals(CharsetDeclarationScanner.EBCDIC)
                     && isEBCDIC(charsetFromDeclaration);
             // UTF-8 Prefix is consistent with any charset using the same bit pattern for the ASCII characters
             // as UTF-8. Since we were able to read the XML Declaration successfully we can assume this is the
@@ -701,72 +880,6 @@ public class MessageStorage implements AutoCloseable {
         return result;
     }
 
-    private Charset determineCharsetFromXmlDeclarationPrefix(final Message message) {
-        final ByteArrayInputStream in = new ByteArrayInputStream(message.getFinalMemory());
-        final BOMInputStream bomIn = new BOMInputStream(in, ByteOrderMark.UTF_8);
-        try {
-            Charset result = null;
-            final byte[] msg = bomIn.readNBytes(XML_DECLARATION_PREFIX_LENGTH);
-            for (Map.Entry<byte[], Charset> e : XML_DECLARATION_PREFIXES.entrySet()) {
-                if (startsWith(msg, e.getKey())) {
-                    result = e.getValue();
-                    break;
-                }
-            }
-            return result;
-        } catch (IOException e) {
-            return null;
-        }
-    }
-
-    /**
-     * Utility method to check if one byte array starts with a specified sequence of bytes.
-     *
-     * @param array  The array to check
-     * @param prefix The prefix bytes to test for
-     * @return true if the array starts with the bytes from the prefix
-     */
-    private static boolean startsWith(final byte[] array, final byte[] prefix) {
-        if (array == prefix) {
-            return true;
-        }
-        return startsWithInternal1(array, prefix);
-    }
-
-    private static boolean startsWithInternal1(final byte[] array, final byte[] prefix) {
-        if (prefix.length > array.length) {
-            return false;
-        }
-        return startsWithInternal2(array, prefix);
-    }
-
-    private static boolean startsWithInternal2(final byte[] array, final byte[] prefix) {
-        final int prefixLength = prefix.length;
-        for (int i = 0; i < prefixLength; i++) {
-            if (array[i] != prefix[i]) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private Charset determineCharsetFromXmlDeclarationInternal(final Message message, final Charset encoding) {
-        Charset charsetFromXmlDeclaration = null;
-
-        final String content = new String(message.getFinalMemory(), encoding);
-        final Matcher matcher = encodingFromXmlDeclarationPatternDoubleQuotes.matcher(content);
-        if (matcher.matches()) {
-            charsetFromXmlDeclaration = Charset.forName(matcher.group(1));
-        } else {
-            final Matcher matcher2 = encodingFromXmlDeclarationPatternSingleQuotes.matcher(content);
-            if (matcher2.matches()) {
-                charsetFromXmlDeclaration = Charset.forName(matcher2.group(1));
-            }
-        }
-        return charsetFromXmlDeclaration;
-    }
-
     private Charset determineCharsetFromHttpHeader(final Message message) {
         Charset charsetFromHttpHeader = null;
         final ApplicationInfo applicationInfo =
@@ -775,10 +888,8 @@ public class MessageStorage implements AutoCloseable {
             final List<String> contentTypeHeaderValues =
                     ((HttpApplicationInfo) applicationInfo).getHeaders().get(HTTP_HEADER_NAME_CONTENT_TYPE);
             for (final String value : contentTypeHeaderValues) {
-                final Matcher matcher = charsetPattern.matcher(value);
-                if (matcher.matches()) {
-                    final String charsetName =
-                            stripQuotes(matcher.group(1).trim()).trim();
+                final String charsetName = CharsetDeclarationScanner.charsetParameter(value);
+                if (charsetName != null) {
                     try {
                         charsetFromHttpHeader = Charset.forName(charsetName);
                     } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
@@ -804,19 +915,13 @@ public class MessageStorage implements AutoCloseable {
         return charsetFromHttpHeader;
     }
 
-    private String stripQuotes(final String str) {
-        if ((str.startsWith("\"") && str.endsWith("\"")) || (str.startsWith("'") && str.endsWith("'"))) {
-            return str.substring(1, str.length() - 1);
-        } else {
-            return str;
-        }
-    }
-
-    private void handleActionEvent(final Set<String> actions, final XMLEventReader reader) throws XMLStreamException {
-        final XMLEvent nextEvent;
-        nextEvent = reader.nextEvent();
-        if (nextEvent.isCharacters()) {
-            actions.add(nextEvent.asCharacters().getData());
+    private void handleActionElement(final Set<String> actions, final XMLStreamReader reader)
+            throws XMLStreamException {
+        final int nextEvent = reader.next();
+        if (nextEvent == XMLStreamConstants.CHARACTERS
+                || nextEvent == XMLStreamConstants.CDATA
+                || nextEvent == XMLStreamConstants.SPACE) {
+            actions.add(reader.getText());
         } else {
             LOG.warn("empty action element encountered");
             actions.add("");
@@ -827,66 +932,64 @@ public class MessageStorage implements AutoCloseable {
         return Constants.RELEVANT_REPORT_BODIES.contains(name) || Constants.MSG_GET_MDIB_RESPONSE.equals(name);
     }
 
-    private void handleSoapBodyEvent(
-            final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups, final XMLEventReader reader)
+    /**
+     * Extracts the MdibVersionGroup of the direct children of the SOAP body the reader is positioned at. Only the start
+     * tags of the children are inspected, their content is skipped without being materialized.
+     *
+     * @param mdibVersionGroups to add the MdibVersionGroups of the children to
+     * @param reader            positioned at the start tag of the SOAP body, positioned at its end tag afterwards
+     * @throws XMLStreamException if the body is not well-formed
+     */
+    private void handleSoapBodyElement(
+            final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups, final XMLStreamReader reader)
             throws XMLStreamException {
         long childCounter = 0;
 
-        XMLEvent nextEvent;
         var level = 0;
         while (level >= 0) {
-            nextEvent = reader.nextEvent();
-            if (nextEvent.isStartElement()) {
+            final int nextEvent = reader.next();
+            if (nextEvent == XMLStreamConstants.START_ELEMENT) {
                 level++;
                 // only add elements on level 1, i.e. direct children of the SOAP body
                 if (level == 1) {
                     childCounter++;
 
-                    final StartElement startElement = nextEvent.asStartElement();
-
-                    final String bodyElementNameString = startElement.getName().toString();
+                    final QName bodyElementName = reader.getName();
 
                     long mdibVersion = -3L;
                     String sequenceId = null;
 
-                    if (this.checkElementSupportsMdibVersionSorting(startElement.getName())) {
+                    if (this.checkElementSupportsMdibVersionSorting(bodyElementName)) {
 
-                        final Attribute mdibVersionAttribute = startElement.getAttributeByName(Constants.MDIB_VERSION);
+                        final String mdibVersionValue = getAttributeValue(reader, Constants.MDIB_VERSION);
 
-                        if (mdibVersionAttribute == null) {
+                        if (mdibVersionValue == null) {
                             mdibVersion = 0L;
-                        } else if (mdibVersionAttribute.getValue() == null) {
-                            mdibVersion = -2L;
-                            this.testRunObserver.invalidateTestRun(
-                                    "Calling getValue on mdibVersionAttribute resulted in null. "
-                                            + "Saved -2L as a replacement value.");
-                        } else if (mdibVersionAttribute.getValue().equals("")) {
+                        } else if (mdibVersionValue.isEmpty()) {
                             mdibVersion = -1L;
                             this.testRunObserver.invalidateTestRun(
                                     "Encountered MdibVersion attribute that has an empty string as its value"
                                             + "and saved -1L as a replacement value.");
                         } else {
                             try {
-                                mdibVersion = Long.parseLong(mdibVersionAttribute.getValue());
+                                mdibVersion = Long.parseLong(mdibVersionValue);
                             } catch (NumberFormatException e) {
                                 this.testRunObserver.invalidateTestRun(e);
                             }
                         }
 
-                        final Attribute sequenceIdAttribute = startElement.getAttributeByName(Constants.SEQUENCE_ID);
+                        sequenceId = getAttributeValue(reader, Constants.SEQUENCE_ID);
 
-                        if (sequenceIdAttribute != null) {
-                            sequenceId = sequenceIdAttribute.getValue();
-                        } else {
+                        if (sequenceId == null) {
                             this.testRunObserver.invalidateTestRun(String.format(
                                     "Encountered body with the QName %s " + "without a SequenceId attribute.",
-                                    startElement.getName()));
+                                    bodyElementName));
                         }
                     }
                     mdibVersionGroups.add(new MdibVersionGroupEntity.MdibVersionGroup(
-                            mdibVersion, sequenceId, bodyElementNameString));
+                            mdibVersion, sequenceId, bodyElementName.toString()));
                 }
-            } else if (nextEvent.isEndElement()) {
+            } else if (nextEvent == XMLStreamConstants.END_ELEMENT) {
                 level--;
             }
         }
@@ -897,6 +1000,18 @@ public class MessageStorage implements AutoCloseable {
         }
     }
 
+    @Nullable
+    private static String getAttributeValue(final XMLStreamReader reader, final QName attributeName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String namespace = reader.getAttributeNamespace(i);
+            if (attributeName.getLocalPart().equals(reader.getAttributeLocalName(i))
+                    && attributeName.getNamespaceURI().equals(namespace == null ? "" : namespace)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
     /**
      * Creates a {@linkplain Message} object in which the message information can be written.
      *
@@ -952,18 +1067,59 @@ public class MessageStorage implements AutoCloseable {
 
                 this.flush();
 
-                this.databaseInteractionThreads.forEach(DatabaseInteractionThread::setStopped);
-                this.databaseInteractionThreads.forEach(thread -> {
+                this.shards.forEach(shard -> this.enqueueMarkers(shard.messageQueue, QueuedEntry.STOP_MARKER, 1));
+                this.shards.forEach(shard -> {
+                    try {
+                        shard.conversionThread.join();
+                    } catch (final InterruptedException e) {
+                        LOG.error("unable to wait for conversion thread termination due to an interrupt", e);
+                        testRunObserver.invalidateTestRun(e);
+                    }
+                });
+
+                this.shards.forEach(shard -> this.enqueueMarkers(shard.persistQueue, ConvertedEntry.STOP_MARKER, 1));
+                this.shards.forEach(shard -> {
                     try {
-                        thread.join();
+                        shard.databaseInteractionThread.join();
                     } catch (final InterruptedException e) {
                         LOG.error("unable to wait for database interaction thread termination due to an interrupt", e);
                         testRunObserver.invalidateTestRun(e);
                     }
                 });
 
-                this.sessionFactory.close();
-                this.configuration.close();
+                if (this.metricsLogger != null) {
+                    this.metricsLogger.shutdownNow();
+                }
+                this.writeIngestMetrics();
+
+                this.storageBackend.close();
+
+                this.spillLock.lock();
+                try {
+                    this.overflowSpillFile.close();
+                } catch (final IOException e) {
+                    LOG.error("unable to remove the overflow spill file {}", this.overflowSpillFile.getPath(), e);
+                } finally {
+                    this.spillLock.unlock();
+                }
+                if (this.spilledEntryCount.get() > 0) {
+                    LOG.info(
+                            "{} entries were spilled to disk because the message queue was full, {} of them were "
+                                    + "recovered.",
+                            this.spilledEntryCount.get(),
+                            this.recoveredEntryCount.get());
+                }
+
+                if (this.bodyCodec != MessageBodyCodec.NONE) {
+                    final long uncompressed = this.uncompressedBodyBytes.get();
+                    final long compressed = this.compressedBodyBytes.get();
+                    LOG.info(
+                            "{} compression reduced the message bodies from {} to {} bytes (ratio {}).",
+                            this.bodyCodec.getName(),
+                            uncompressed,
+                            compressed,
+                            String.format("%.2f", compressed == 0 ? 1.0 : (double) uncompressed / compressed));
+                }
             }
         } finally {
             this.closeLock.unlock();
@@ -971,114 +1127,195 @@ public class MessageStorage implements AutoCloseable {
     }
 
     /**
-     * Sends all queued and buffered messages to the database and does a plausibility check via a select query.
+     * Sends all queued and buffered messages to the database and waits until they have been committed.
      */
     public synchronized void flush() {
+        final long sequenceNumber = this.lastSequenceNumber.get();
+        if (this.commitTracker.getHighWaterMark() >= sequenceNumber) {
+            return;
+        }
 
-        this.databaseInteractionThreads.forEach(DatabaseInteractionThread::triggerFlush);
-        final List<DatabaseEntry> temp = new ArrayList<>(this.blockingQueueSize);
-        this.messageQueue.drainTo(temp, this.blockingQueueSize);
-        this.awaitFlushBarrier();
-        // will not block at the barrier since other threads had already arrived at the barrier
-        this.flush(temp);
-    }
-
-    private void flush(final List<DatabaseEntry> messageList) {
-        this.flush(messageList, false, null);
+        // database interaction threads stop lingering until the flush is done, the markers wake up lingering ones
+        final long flushStart = System.nanoTime();
+        this.flushSequenceNumber = sequenceNumber;
+        this.shards.forEach(shard -> this.enqueueMarkers(shard.persistQueue, ConvertedEntry.FLUSH_MARKER, 1));
+        try {
+            this.commitTracker.awaitHighWaterMark(sequenceNumber);
+            this.ingestMetrics.recordFlush(System.nanoTime() - flushStart);
+        } catch (final InterruptedException e) {
+            LOG.error("the message flush was interrupted", e);
+            testRunObserver.invalidateTestRun(e);
+        }
     }
 
-    private void flush(
-            final List<DatabaseEntry> messageList,
-            final boolean await,
-            @Nullable final DatabaseInteractionThread databaseInteractionThread) {
-
-        if (!messageList.isEmpty()) {
-
-            final var firstElement = messageList.get(0);
-            final var lastElement = messageList.get(messageList.size() - 1);
-            final String firstID = firstElement.getID();
-            final String lastID = lastElement.getID();
-
-            this.transmit(messageList);
-
-            // only uuid shall be selected, thus it is a string criteria query
-            final CriteriaQuery<String> criteriaFirst = buildCriteria(firstElement.getClass(), firstID);
-            final CriteriaQuery<String> criteriaLast = buildCriteria(lastElement.getClass(), lastID);
-
-            long uuidCount = 0;
-
-            while (uuidCount < 2) {
-
-                uuidCount = 0;
-
-                try (final Stream<String> uuidStream = this.getStreamForQuery(criteriaLast)) {
-                    final long lastIDCount = uuidStream.filter(lastID::equals).count();
-
-                    if (lastIDCount < 2) {
-                        uuidCount += lastIDCount;
-                    } else {
-                        throw new RuntimeException("duplicate uuid found in database");
-                    }
-                }
-
-                try (final Stream<String> uuidStream = this.getStreamForQuery(criteriaFirst)) {
-                    final long firstIDCount = uuidStream.filter(firstID::equals).count();
+    /**
+     * Exports all persisted messages and manipulations into a {@linkplain MessageArchive} in the test run directory,
+     * replacing a previous export once the export has been completed.
+     *
+     * <p>
+     * Queued messages are flushed beforehand. The entities are streamed from the storage backend, hence the export
+     * does not hold more than one chunk of the archive in memory.
+     *
+     * @return the path of the archive
+     * @throws IOException if storage is closed or the archive could not be written
+     */
+    public synchronized Path exportArchive() throws IOException {
+        if (this.closed.get()) {
+            LOG.error(EXPORT_ARCHIVE_CALLED_ON_CLOSED_STORAGE);
+            throw new IOException(EXPORT_ARCHIVE_CALLED_ON_CLOSED_STORAGE);
+        }
+        this.flush();
 
-                    if (firstIDCount < 2) {
-                        uuidCount += firstIDCount;
-                    } else {
-                        throw new RuntimeException("duplicate uuid found in database");
-                    }
-                }
+        final long exportStart = System.nanoTime();
+        final long recordCount;
+        try (final MessageArchive.Writer writer =
+                new MessageArchive.Writer(this.messageArchiveFile, MessageArchive.DEFAULT_CHUNK_SIZE)) {
+            appendToArchive(writer, this.storageBackend.getInboundMessages());
+            appendToArchive(writer, this.storageBackend.getOutboundMessages());
+            appendToArchive(writer, this.storageBackend.getManipulationData());
+            writer.complete();
+            recordCount = writer.getRecordCount();
+        }
+        LOG.info(
+                "Exported {} entries to {} ({} bytes) in {} ms.",
+                recordCount,
+                this.messageArchiveFile,
+                Files.size(this.messageArchiveFile),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - exportStart));
+        return this.messageArchiveFile;
+    }
 
-                Thread.yield();
+    private static void appendToArchive(final MessageArchive.Writer writer, final Stream<?> entities)
+            throws IOException {
+        try (entities) {
+            final Iterator<?> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                writer.append(iterator.next());
             }
         }
+    }
 
-        if (databaseInteractionThread != null) {
-            databaseInteractionThread.resetFlushEvent();
+    /**
+     * Imports the messages and manipulations of a previous test run, which allows running tests against them without
+     * a device.
+     *
+     * <p>
+     * The recording is either a {@linkplain MessageArchive} created by {@linkplain #exportArchive()} or the Database
+     * directory of a previous test run, which is only read. The entities are bulk loaded into the storage backend in
+     * large batches, bypassing the message queues and the conversion of captured messages. The storage is expected to be
+     * empty, entities keep the entry ids they were recorded with.
+     *
+     * @param recording message archive or Database directory to import
+     * @return number of imported entities
+     * @throws IOException if storage is closed or the recording could not be read
+     */
+    public synchronized long importRecording(final Path recording) throws IOException {
+        if (this.closed.get()) {
+            LOG.error(IMPORT_RECORDING_CALLED_ON_CLOSED_STORAGE);
+            throw new IOException(IMPORT_RECORDING_CALLED_ON_CLOSED_STORAGE);
         }
 
-        if (await) {
-            this.awaitFlushBarrier();
+        final long importStart = System.nanoTime();
+        final long importedEntities;
+        if (Files.isDirectory(recording)) {
+            importedEntities = this.importDatabase(recording);
+        } else {
+            importedEntities = this.importArchive(recording);
         }
+        LOG.info(
+                "Imported {} entries from {} in {} ms.",
+                importedEntities,
+                recording,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - importStart));
+        return importedEntities;
     }
 
-    private CriteriaQuery<String> buildCriteria(final Class<? extends DatabaseEntry> entryClass, final String id) {
-        final CriteriaQuery<String> criteria;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            criteria = criteriaBuilder.createQuery(String.class);
-            if (entryClass.equals(Message.class)) {
-                final Root<MessageContent> messageContentRoot = criteria.from(MessageContent.class);
+    private long importArchive(final Path archive) throws IOException {
+        try (final MessageArchive.Reader reader = new MessageArchive.Reader(archive)) {
+            for (final MessageArchive.Chunk chunk : reader.getChunks()) {
+                this.persistImported(reader.readChunk(chunk));
+            }
+            return reader.getRecordCount();
+        }
+    }
 
-                // here we want only the uuid, not the whole row
-                criteria.select(messageContentRoot.get(MessageContent_.uuid));
+    private long importDatabase(final Path databaseDirectory) throws IOException {
+        final HibernateStorageBackend recordedBackend;
+        try {
+            recordedBackend = new HibernateStorageBackend(
+                    new RecordedHibernateConfig(databaseDirectory),
+                    HibernateStorageBackend.DEFAULT_MESSAGE_FETCH_SIZE,
+                    HibernateStorageBackend.DEFAULT_FETCH_SIZE);
+        } catch (final SchemaManagementException e) {
+            throw new IOException(
+                    "The recorded database " + databaseDirectory + " does not match the schema of this SDCcc version,"
+                            + " only databases of the same version can be replayed: " + e.getMessage(),
+                    e);
+        } catch (final HibernateException e) {
+            throw new IOException("Could not open the recorded database " + databaseDirectory, e);
+        }
 
-                criteria.where(criteriaBuilder.equal(messageContentRoot.get(MessageContent_.uuid), id));
-            } else if (entryClass.equals(ManipulationInfo.class)) {
-                final Root<ManipulationData> manipulationDataRoot = criteria.from(ManipulationData.class);
+        // entities of the recorded database are copied, they must not be attached to its sessions when persisted
+        try (recordedBackend) {
+            return this.importEntities(recordedBackend.getInboundMessages())
+                    + this.importEntities(recordedBackend.getOutboundMessages())
+                    + this.importEntities(recordedBackend.getManipulationData());
+        }
+    }
 
-                // here we want only the uuid, not the whole row
-                criteria.select(manipulationDataRoot.get(ManipulationData_.uuid));
+    private long importEntities(final Stream<?> entities) {
+        long importedEntities = 0;
+        try (entities) {
+            final List<Object> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            final Iterator<?> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                batch.add(SegmentLogCodec.decode(SegmentLogCodec.encode(iterator.next())));
+                if (batch.size() == IMPORT_BATCH_SIZE || !iterator.hasNext()) {
+                    this.persistImported(batch);
+                    importedEntities += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        return importedEntities;
+    }
 
-                criteria.where(criteriaBuilder.equal(manipulationDataRoot.get(ManipulationData_.uuid), id));
+    private void persistImported(final List<Object> entities) {
+        if (this.bodyCodec != MessageBodyCodec.NONE) {
+            for (final Object entity : entities) {
+                if (entity instanceof final MessageContent messageContent) {
+                    messageContent.compressBody(this.bodyCodec);
+                }
             }
         }
-        return criteria;
+        this.storageBackend.bulkLoad(entities);
     }
 
-    private void awaitFlushBarrier() {
+    private void writeIngestMetrics() {
+        final IngestMetrics.Snapshot metrics = this.getIngestMetrics();
+        LOG.info("Message storage metrics: {}", metrics.toLogString());
+        try (final Writer writer = Files.newBufferedWriter(this.ingestMetricsFile, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(metrics, writer);
+        } catch (final IOException | JsonIOException e) {
+            LOG.error("unable to write the message storage metrics to {}", this.ingestMetricsFile, e);
+        }
+    }
+
+    private <T> void enqueueMarkers(final BlockingQueue<T> queue, final T marker, final int count) {
         try {
-            this.flushBarrier.await();
-        } catch (InterruptedException | BrokenBarrierException e) {
-            LOG.error("the message flush was interrupted", e);
+            for (int i = 0; i < count; i++) {
+                queue.put(marker);
+            }
+        } catch (final InterruptedException e) {
+            LOG.error("unable to put marker {} into queue", marker, e);
             testRunObserver.invalidateTestRun(e);
         }
     }
 
+    private boolean isFlushPending() {
+        return this.commitTracker.getHighWaterMark() < this.flushSequenceNumber;
+    }
+
     /**
      * Retrieves all SequenceId attribute values that have been seen.
      * Orders them by the timestamp of the first message that used the respective SequenceId.
@@ -1093,20 +1330,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_UNIQUE_SEQUENCE_IDS_CALLED_ON_CLOSED_STORAGE);
         }
 
-        final CriteriaQuery<String> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(String.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(
-                    messageContentRoot.join(MessageContent_.mdibVersionGroups).get(MdibVersionGroupEntity_.sequenceId));
-
-            messageContentQuery.orderBy(criteriaBuilder.asc(messageContentRoot.get(MessageContent_.nanoTimestamp)));
-        }
-
-        return this.getOrderedQueryResult(messageContentQuery).distinct();
+        return this.storageBackend.getUniqueSequenceIds();
     }
 
     /**
@@ -1122,23 +1346,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_INBOUND_MESSAGES_CALLED_ON_CLOSED_STORAGE);
         }
 
-        final CriteriaQuery<MessageContent> criteria;
-
-        try (final Session session = sessionFactory.openSession()) {
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            criteria = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = criteria.from(MessageContent.class);
-            criteria.select(messageContentRoot);
-            criteria.where(criteriaBuilder.equal(
-                    messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getQueryResult(criteria)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getQueryResult(criteria), present);
+        return this.createGetterResult(this.storageBackend.getInboundMessages());
     }
 
     /**
@@ -1154,23 +1362,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_OUTBOUND_MESSAGES_CALLED_ON_CLOSED_STORAGE);
         }
 
-        final CriteriaQuery<MessageContent> criteria;
-
-        try (final Session session = sessionFactory.openSession()) {
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            criteria = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = criteria.from(MessageContent.class);
-            criteria.select(messageContentRoot);
-            criteria.where(criteriaBuilder.equal(
-                    messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.OUTBOUND));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getQueryResult(criteria)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getQueryResult(criteria), present);
+        return this.createGetterResult(this.storageBackend.getOutboundMessages());
     }
 
     /**
@@ -1189,45 +1381,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_INBOUND_SOAP_MESSAGES_CALLED_ON_CLOSED_STORAGE);
         }
 
-        final CriteriaQuery<MessageContent> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(messageContentRoot);
-
-            final Subquery<HTTPHeaderEntity> headerSubQuery = messageContentQuery.subquery(HTTPHeaderEntity.class);
-            final Root<HTTPHeaderEntity> httpHeaderEntityRoot = headerSubQuery.from(HTTPHeaderEntity.class);
-            headerSubQuery.select(httpHeaderEntityRoot);
-
-            headerSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            httpHeaderEntityRoot.get(HTTPHeaderEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.and(
-                            criteriaBuilder.equal(
-                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerKey)),
-                                    HTTP_HEADER_NAME_CONTENT_TYPE),
-                            criteriaBuilder.like(
-                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerValue)),
-                                    criteriaBuilder.literal("%application/soap+xml%")))));
-
-            messageContentQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
-                    criteriaBuilder.or(
-                            criteriaBuilder.isTrue(messageContentRoot.get(MessageContent_.isSOAP)),
-                            criteriaBuilder.exists(headerSubQuery))));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getQueryResult(messageContentQuery)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getQueryResult(messageContentQuery), present);
+        return this.createGetterResult(this.storageBackend.getInboundSoapMessages());
     }
 
     /**
@@ -1246,47 +1400,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_INBOUND_SOAP_MESSAGES_CALLED_ON_CLOSED_STORAGE);
         }
 
-        final CriteriaQuery<MessageContent> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(messageContentRoot);
-
-            final Subquery<HTTPHeaderEntity> headerSubQuery = messageContentQuery.subquery(HTTPHeaderEntity.class);
-            final Root<HTTPHeaderEntity> httpHeaderEntityRoot = headerSubQuery.from(HTTPHeaderEntity.class);
-            headerSubQuery.select(httpHeaderEntityRoot);
-
-            headerSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            httpHeaderEntityRoot.get(HTTPHeaderEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.and(
-                            criteriaBuilder.equal(
-                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerKey)),
-                                    HTTP_HEADER_NAME_CONTENT_TYPE),
-                            criteriaBuilder.like(
-                                    criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerValue)),
-                                    criteriaBuilder.literal("%application/soap+xml%")))));
-
-            messageContentQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
-                    criteriaBuilder.equal(
-                            messageContentRoot.get(MessageContent_.messageType), CommunicationLog.MessageType.RESPONSE),
-                    criteriaBuilder.or(
-                            criteriaBuilder.isTrue(messageContentRoot.get(MessageContent_.isSOAP)),
-                            criteriaBuilder.exists(headerSubQuery))));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getQueryResult(messageContentQuery)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getQueryResult(messageContentQuery), present);
+        return this.createGetterResult(this.storageBackend.getInboundSoapResponseMessages());
     }
 
     /**
@@ -1309,72 +1423,8 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(failureString);
         }
 
-        final CriteriaQuery<MessageContent> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(messageContentRoot);
-
-            final Subquery<MdibVersionGroupEntity> mdibVersionGroupSubQuery =
-                    messageContentQuery.subquery(MdibVersionGroupEntity.class);
-            final Root<MdibVersionGroupEntity> mdibVersionGroupEntityRoot =
-                    mdibVersionGroupSubQuery.from(MdibVersionGroupEntity.class);
-            mdibVersionGroupSubQuery.select(mdibVersionGroupEntityRoot);
-            final List<Predicate> bodyElementPredicates = new ArrayList<>();
-
-            for (final QName bodyElement : bodyTypes) {
-                bodyElementPredicates.add(criteriaBuilder.equal(
-                        mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.bodyElement), bodyElement.toString()));
-            }
-
-            mdibVersionGroupSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.or(bodyElementPredicates.toArray(new Predicate[0]))));
-
-            final Subquery<HTTPHeaderEntity> headerSubQuery = messageContentQuery.subquery(HTTPHeaderEntity.class);
-            final Root<HTTPHeaderEntity> httpHeaderEntityRoot = headerSubQuery.from(HTTPHeaderEntity.class);
-            headerSubQuery.select(httpHeaderEntityRoot);
-            final var headerPredicates = new ArrayList<Predicate>();
-            for (final AbstractMap.SimpleImmutableEntry<String, String> header : headers) {
-                headerPredicates.add(criteriaBuilder.and(
-                        criteriaBuilder.equal(
-                                criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerKey)),
-                                header.getKey()),
-                        criteriaBuilder.equal(
-                                criteriaBuilder.lower(httpHeaderEntityRoot.get(HTTPHeaderEntity_.headerValue)),
-                                header.getValue())));
-            }
-            headerSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            httpHeaderEntityRoot.get(HTTPHeaderEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.or(headerPredicates.toArray(new Predicate[0]))));
-
-            messageContentQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.OUTBOUND),
-                    criteriaBuilder.or(
-                            criteriaBuilder.equal(
-                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
-                                    Constants.HTTP_SCHEME),
-                            criteriaBuilder.equal(
-                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
-                                    Constants.HTTPS_SCHEME)),
-                    criteriaBuilder.exists(mdibVersionGroupSubQuery),
-                    criteriaBuilder.exists(headerSubQuery)));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getQueryResult(messageContentQuery)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getQueryResult(messageContentQuery), present);
+        return this.createGetterResult(
+                this.storageBackend.getOutboundHttpMessagesByBodyTypeAndHeaders(bodyTypes, headers));
     }
 
     /**
@@ -1392,32 +1442,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_INBOUND_SOAP_MESSAGES_CALLED_ON_CLOSED_STORAGE);
         }
 
-        final CriteriaQuery<MessageContent> criteria;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            criteria = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = criteria.from(MessageContent.class);
-            criteria.select(messageContentRoot);
-            criteria.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
-                    criteriaBuilder.or(
-                            criteriaBuilder.equal(
-                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
-                                    Constants.HTTP_SCHEME),
-                            criteriaBuilder.equal(
-                                    criteriaBuilder.lower(messageContentRoot.get(MessageContent_.scheme)),
-                                    Constants.HTTPS_SCHEME))));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getQueryResult(criteria)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getQueryResult(criteria), present);
+        return this.createGetterResult(this.storageBackend.getInboundHttpMessages());
     }
 
     /**
@@ -1449,55 +1474,8 @@ public class MessageStorage implements AutoCloseable {
             }
         }
 
-        final CriteriaQuery<MessageContent> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(messageContentRoot);
-
-            final Subquery<MdibVersionGroupEntity> mdibVersionGroupSubQuery =
-                    messageContentQuery.subquery(MdibVersionGroupEntity.class);
-            final Root<MdibVersionGroupEntity> mdibVersionGroupEntityRoot =
-                    mdibVersionGroupSubQuery.from(MdibVersionGroupEntity.class);
-            mdibVersionGroupSubQuery.select(mdibVersionGroupEntityRoot);
-            final List<Predicate> bodyElementPredicates = new ArrayList<>();
-
-            for (final QName bodyElement : bodyTypes) {
-                bodyElementPredicates.add(criteriaBuilder.and(
-                        criteriaBuilder.equal(
-                                mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.bodyElement),
-                                bodyElement.toString()),
-                        criteriaBuilder.equal(
-                                mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.sequenceId), sequenceId)));
-            }
-
-            mdibVersionGroupSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.or(bodyElementPredicates.toArray(new Predicate[0]))));
-
-            messageContentQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
-                    criteriaBuilder.exists(mdibVersionGroupSubQuery)));
-
-            messageContentQuery.orderBy(
-                    criteriaBuilder.asc(messageContentRoot
-                            .join(MessageContent_.mdibVersionGroups)
-                            .get(MdibVersionGroupEntity_.mdibVersion)),
-                    criteriaBuilder.asc(messageContentRoot.get(MessageContent_.nanoTimestamp)));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getOrderedQueryResult(messageContentQuery)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getOrderedQueryResult(messageContentQuery), present);
+        return this.createGetterResult(
+                this.storageBackend.getInboundMessagesByBodyTypeAndSequenceId(sequenceId, bodyTypes));
     }
 
     /**
@@ -1531,63 +1509,7 @@ public class MessageStorage implements AutoCloseable {
             }
         }
 
-        final CriteriaQuery<MessageContent> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(messageContentRoot);
-
-            final Subquery<MdibVersionGroupEntity> mdibVersionGroupSubQuery =
-                    messageContentQuery.subquery(MdibVersionGroupEntity.class);
-            final Root<MdibVersionGroupEntity> mdibVersionGroupEntityRoot =
-                    mdibVersionGroupSubQuery.from(MdibVersionGroupEntity.class);
-            mdibVersionGroupSubQuery.select(mdibVersionGroupEntityRoot);
-            final List<Predicate> bodyElementPredicates = new ArrayList<>();
-
-            for (final QName bodyElement : bodyTypes) {
-                bodyElementPredicates.add(criteriaBuilder.equal(
-                        mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.bodyElement), bodyElement.toString()));
-            }
-
-            mdibVersionGroupSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.or(bodyElementPredicates.toArray(new Predicate[0]))));
-
-            messageContentQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            messageContentRoot.get(MessageContent_.direction), CommunicationLog.Direction.INBOUND),
-                    criteriaBuilder.exists(mdibVersionGroupSubQuery)));
-
-            if (enableSorting) {
-                messageContentQuery.orderBy(
-                        criteriaBuilder.asc(messageContentRoot
-                                .join(MessageContent_.mdibVersionGroups)
-                                .get(MdibVersionGroupEntity_.mdibVersion)),
-                        // also sort by body type to ensure that DescriptionModificationReports are placed
-                        // before EpisodicReports.
-                        criteriaBuilder.asc(messageContentRoot
-                                .join(MessageContent_.mdibVersionGroups)
-                                .get(MdibVersionGroupEntity_.bodyElement)));
-            }
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = enableSorting
-                ? this.getOrderedQueryResult(messageContentQuery)
-                : this.getQueryResult(messageContentQuery)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(
-                enableSorting
-                        ? this.getOrderedQueryResult(messageContentQuery)
-                        : this.getQueryResult(messageContentQuery),
-                present);
+        return this.createGetterResult(this.storageBackend.getInboundMessagesByBodyType(enableSorting, bodyTypes));
     }
 
     /**
@@ -1604,6 +1526,39 @@ public class MessageStorage implements AutoCloseable {
         return this.getInboundMessagesByBodyType(true, bodyTypes);
     }
 
+    /**
+     * Retrieves all incoming messages which match any of the provided body element QNames, belong to the given
+     * SequenceId and have at least the given MdibVersion.
+     *
+     * <p>
+     * Messages are sorted by MdibVersion on the inner join result or, if the MdibVersion is the same,
+     * are sorted in ascending order of the code points of the name of the body types.
+     *
+     * @param sequenceId         SequenceId attribute value to filter for
+     * @param minimumMdibVersion lowest MdibVersion to retrieve messages for, inclusive
+     * @param bodyTypes          to match messages against
+     * @return container with stream of all matching inbound {@linkplain MessageContent}s
+     * @throws IOException if storage is closed
+     */
+    public GetterResult<MessageContent> getInboundMessagesByMdibVersionAndBodyType(
+            final String sequenceId, final long minimumMdibVersion, final QName... bodyTypes) throws IOException {
+        if (this.closed.get()) {
+            LOG.error(GET_INBOUND_MESSAGE_BY_BODY_TYPE_CALLED_ON_CLOSED_STORAGE);
+            throw new IOException(GET_INBOUND_MESSAGE_BY_BODY_TYPE_CALLED_ON_CLOSED_STORAGE);
+        }
+
+        for (final QName qname : bodyTypes) {
+            if (!this.checkElementSupportsMdibVersionSorting(qname)) {
+                final String localErrorMessage = String.format(FILTERING_FOR_GIVEN_ELEMENT_NAME_NOT_IMPLEMENTED, qname);
+                this.testRunObserver.invalidateTestRun(localErrorMessage);
+                throw new UnsupportedOperationException(localErrorMessage);
+            }
+        }
+
+        return this.createGetterResult(this.storageBackend.getInboundMessagesByMdibVersionAndBodyType(
+                sequenceId, minimumMdibVersion, bodyTypes));
+    }
+
     /**
      * Retrieves all manipulation data from storage.
      *
@@ -1619,25 +1574,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_MANIPULATION_DATA_BY_MANIPULATION);
         }
 
-        final CriteriaQuery<ManipulationData> criteria;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            criteria = criteriaBuilder.createQuery(ManipulationData.class);
-            final Root<ManipulationData> manipulationDataRoot = criteria.from(ManipulationData.class);
-            criteria.select(manipulationDataRoot);
-            // the answer should adhere to the order in which the manipulations have been performed,
-            // even when mixing bodies
-            criteria.orderBy(criteriaBuilder.asc(manipulationDataRoot.get(ManipulationData_.startTimestamp)));
-        }
-
-        final boolean present;
-        try (final Stream<ManipulationData> countingStream = this.getOrderedQueryResult(criteria)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getOrderedQueryResult(criteria), present);
+        return this.createGetterResult(this.storageBackend.getManipulationData());
     }
 
     /**
@@ -1669,54 +1606,8 @@ public class MessageStorage implements AutoCloseable {
             }
         }
 
-        final CriteriaQuery<MessageContent> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(messageContentRoot);
-
-            final Subquery<MdibVersionGroupEntity> mdibVersionGroupSubQuery =
-                    messageContentQuery.subquery(MdibVersionGroupEntity.class);
-            final Root<MdibVersionGroupEntity> mdibVersionGroupEntityRoot =
-                    mdibVersionGroupSubQuery.from(MdibVersionGroupEntity.class);
-            mdibVersionGroupSubQuery.select(mdibVersionGroupEntityRoot);
-            final List<Predicate> bodyElementPredicates = new ArrayList<>();
-
-            for (final QName bodyElement : reportTypes) {
-                bodyElementPredicates.add(criteriaBuilder.equal(
-                        mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.bodyElement), bodyElement.toString()));
-            }
-
-            mdibVersionGroupSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.or(bodyElementPredicates.toArray(new Predicate[0]))));
-
-            messageContentQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.and(
-                            criteriaBuilder.ge(messageContentRoot.get(MessageContent_.nanoTimestamp), startTimestamp),
-                            criteriaBuilder.le(messageContentRoot.get(MessageContent_.nanoTimestamp), finishTimestamp)),
-                    criteriaBuilder.and(
-                            criteriaBuilder.equal(
-                                    messageContentRoot.get(MessageContent_.direction),
-                                    CommunicationLog.Direction.INBOUND),
-                            criteriaBuilder.exists(mdibVersionGroupSubQuery))));
-
-            messageContentQuery.orderBy(criteriaBuilder.asc(messageContentRoot
-                    .join(MessageContent_.mdibVersionGroups)
-                    .get(MdibVersionGroupEntity_.mdibVersion)));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getOrderedQueryResult(messageContentQuery)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getOrderedQueryResult(messageContentQuery), present);
+        return this.createGetterResult(this.storageBackend.getInboundMessagesByTimeIntervalAndBodyType(
+                startTimestamp, finishTimestamp, reportTypes));
     }
 
     /**
@@ -1747,56 +1638,8 @@ public class MessageStorage implements AutoCloseable {
             }
         }
 
-        final CriteriaQuery<MessageContent> messageContentQuery;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            messageContentQuery = criteriaBuilder.createQuery(MessageContent.class);
-            final Root<MessageContent> messageContentRoot = messageContentQuery.from(MessageContent.class);
-            messageContentQuery.select(messageContentRoot);
-
-            final Subquery<MdibVersionGroupEntity> mdibVersionGroupSubQuery =
-                    messageContentQuery.subquery(MdibVersionGroupEntity.class);
-            final Root<MdibVersionGroupEntity> mdibVersionGroupEntityRoot =
-                    mdibVersionGroupSubQuery.from(MdibVersionGroupEntity.class);
-            mdibVersionGroupSubQuery.select(mdibVersionGroupEntityRoot);
-            final List<Predicate> bodyElementPredicates = new ArrayList<>();
-
-            for (final QName bodyElement : reportTypes) {
-                bodyElementPredicates.add(criteriaBuilder.and(
-                        criteriaBuilder.equal(
-                                mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.bodyElement),
-                                bodyElement.toString()),
-                        criteriaBuilder.equal(
-                                mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.sequenceId), sequenceId)));
-            }
-
-            mdibVersionGroupSubQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.equal(
-                            mdibVersionGroupEntityRoot.get(MdibVersionGroupEntity_.messageContent),
-                            messageContentRoot.get(MessageContent_.incId)),
-                    criteriaBuilder.or(bodyElementPredicates.toArray(new Predicate[0]))));
-
-            messageContentQuery.where(criteriaBuilder.and(
-                    criteriaBuilder.lt(messageContentRoot.get(MessageContent_.nanoTimestamp), finishTimestamp),
-                    criteriaBuilder.and(
-                            criteriaBuilder.equal(
-                                    messageContentRoot.get(MessageContent_.direction),
-                                    CommunicationLog.Direction.INBOUND),
-                            criteriaBuilder.exists(mdibVersionGroupSubQuery))));
-
-            messageContentQuery.orderBy(criteriaBuilder.asc(messageContentRoot
-                    .join(MessageContent_.mdibVersionGroups)
-                    .get(MdibVersionGroupEntity_.mdibVersion)));
-        }
-
-        final boolean present;
-        try (final Stream<MessageContent> countingStream = this.getOrderedQueryResult(messageContentQuery)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getOrderedQueryResult(messageContentQuery), present);
+        return this.createGetterResult(
+                this.storageBackend.getInboundMessagesByTimestampAndBodyType(sequenceId, finishTimestamp, reportTypes));
     }
 
     /**
@@ -1816,31 +1659,7 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_MANIPULATION_DATA_BY_MANIPULATION);
         }
 
-        final CriteriaQuery<ManipulationData> criteria;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            criteria = criteriaBuilder.createQuery(ManipulationData.class);
-            final Root<ManipulationData> manipulationDataRoot = criteria.from(ManipulationData.class);
-            criteria.select(manipulationDataRoot);
-            final var predicates = new ArrayList<Predicate>();
-            for (final var manipulationName : manipulationNames) {
-                predicates.add(criteriaBuilder.equal(
-                        manipulationDataRoot.get(ManipulationData_.methodName), manipulationName));
-            }
-            criteria.where(criteriaBuilder.and(predicates.toArray(new Predicate[0])));
-            // the answer should adhere to the order in which the manipulations have been performed,
-            // even when mixing bodies
-            criteria.orderBy(criteriaBuilder.asc(manipulationDataRoot.get(ManipulationData_.startTimestamp)));
-        }
-
-        final boolean present;
-        try (final Stream<ManipulationData> countingStream = this.getOrderedQueryResult(criteria)) {
-            present = countingStream.findAny().isPresent();
-        }
-
-        return new GetterResult<>(this.getOrderedQueryResult(criteria), present);
+        return this.createGetterResult(this.storageBackend.getManipulationDataByManipulation(manipulationNames));
     }
 
     /**
@@ -1862,139 +1681,72 @@ public class MessageStorage implements AutoCloseable {
             throw new IOException(GET_MANIPULATION_DATA_BY_MANIPULATION);
         }
 
-        if (parameter.getParameterData().isEmpty()) {
-            return getManipulationDataByManipulation(manipulationName);
-        }
-
-        final CriteriaQuery<ManipulationData> criteria;
-        try (final Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            final CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
-            criteria = criteriaBuilder.createQuery(ManipulationData.class);
-            final Root<ManipulationData> root = criteria.from(ManipulationData.class);
-            criteria.select(root);
-
-            final var rootPredicates = new ArrayList<Predicate>();
-            rootPredicates.add(criteriaBuilder.equal(root.get(ManipulationData_.methodName), manipulationName));
-
-            final List<Predicate> parameterExistPredicates = new ArrayList<>();
-
-            for (var parameterData : parameter.getParameterData()) {
-                final var parameterSubquery = criteria.subquery(ManipulationParameter.class);
-                final Root<ManipulationParameter> manipulationParameterRoot =
-                        parameterSubquery.from(ManipulationParameter.class);
-                parameterSubquery
-                        .select(manipulationParameterRoot)
-                        .where(criteriaBuilder.and(
-                                criteriaBuilder.equal(
-                                        manipulationParameterRoot.get(ManipulationParameter_.manipulationData),
-                                        root.get(ManipulationData_.incId)),
-                                criteriaBuilder.and(
-                                        criteriaBuilder.equal(
-                                                manipulationParameterRoot.get(ManipulationParameter_.parameterName),
-                                                parameterData.getKey()),
-                                        criteriaBuilder.equal(
-                                                manipulationParameterRoot.get(ManipulationParameter_.parameterValue),
-                                                parameterData.getValue()))));
-                parameterExistPredicates.add(criteriaBuilder.exists(parameterSubquery));
-            }
-
-            criteria.where(criteriaBuilder.and(
-                    criteriaBuilder.and(rootPredicates.toArray(new Predicate[0])),
-                    criteriaBuilder.and(parameterExistPredicates.toArray(new Predicate[0]))));
-        }
-        final boolean present;
-        try (final Stream<ManipulationData> countingStream = this.getOrderedQueryResult(criteria)) {
-            present = countingStream.findAny().isPresent();
-        }
-        return new GetterResult<>(this.getOrderedQueryResult(criteria), present);
-    }
-
-    private <T> Stream<T> getQueryResult(final CriteriaQuery<T> criteriaQuery) {
-        final Session session = sessionFactory.openSession();
-        final Stream<T> results = getStreamForQuery(session, criteriaQuery);
-
-        final ResultIterator<T> resultIterator = new ResultIterator<>(session, results);
-
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, Spliterator.ORDERED), false)
-                .onClose(resultIterator::close);
+        return this.createGetterResult(
+                this.storageBackend.getManipulationDataByParametersAndManipulation(parameter, manipulationName));
     }
 
-    private <T> Stream<T> getOrderedQueryResult(final CriteriaQuery<T> criteriaQuery) {
-        final Session session = sessionFactory.openSession();
-        final Stream<T> results = getOrderedStreamForQuery(session, criteriaQuery);
-
-        final ResultIterator<T> resultIterator = new ResultIterator<>(session, results);
+    // the first element is peeked from the result cursor, running the query a second time is not necessary
+    private <T> GetterResult<T> createGetterResult(final Stream<T> results) {
+        final Spliterator<T> spliterator;
+        final List<T> firstElement = new ArrayList<>(1);
+        try {
+            spliterator = results.spliterator();
+            spliterator.tryAdvance(firstElement::add);
+        } catch (final RuntimeException e) {
+            results.close();
+            throw e;
+        }
 
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultIterator, Spliterator.ORDERED), false)
-                .onClose(resultIterator::close);
+        final Stream<T> remainingElements =
+                StreamSupport.stream(spliterator, false).onClose(results::close);
+        if (firstElement.isEmpty()) {
+            return new GetterResult<>(remainingElements, false);
+        }
+        return new GetterResult<>(Stream.concat(firstElement.stream(), remainingElements), true);
     }
 
-    // be aware, that this does not use evict on cached objects
-    private <T> Stream<T> getStreamForQuery(final CriteriaQuery<T> criteriaQuery) {
-        final Session session = sessionFactory.openSession();
-        final Stream<T> results =
-                session
-                        .createQuery(criteriaQuery)
-                        .setReadOnly(true)
-                        .setCacheable(false)
-                        .setFetchSize(FETCH_SIZE)
-                        .stream();
-
-        return results.onClose(session::close);
+    private void transmit(final List<ConvertedEntry> results) {
+        try {
+            final long transmitStart = System.nanoTime();
+            this.storageBackend.persist(
+                    results.stream().map(ConvertedEntry::entity).toList());
+            this.ingestMetrics.recordBatch(
+                    results.size(), persistedBodyBytes(results), System.nanoTime() - transmitStart);
+        } catch (final RuntimeException e) {
+            LOG.error("unable to persist {} database entries", results.size(), e);
+            testRunObserver.invalidateTestRun(e);
+        } finally {
+            // failed entries are lost as well, flushes must not wait for them
+            results.forEach(entry -> commitTracker.commit(entry.sequenceNumber()));
+        }
     }
 
-    // be aware, that this does not use evict on cached objects
-    private <T> Stream<T> getStreamForQuery(final Session session, final CriteriaQuery<T> criteriaQuery) {
-        return session
-                .createQuery(criteriaQuery)
-                .setReadOnly(true)
-                .setCacheable(false)
-                .setFetchSize(FETCH_SIZE)
-                .stream();
+    private static long persistedBodyBytes(final List<ConvertedEntry> results) {
+        long bodyBytes = 0;
+        for (final ConvertedEntry result : results) {
+            if (result.entity() instanceof MessageContent messageContent) {
+                bodyBytes += messageContent.getStoredBodyBuffer().remaining();
+            }
+        }
+        return bodyBytes;
     }
 
-    // be aware, that this does not use evict on cached objects
-    private <T> Stream<T> getOrderedStreamForQuery(final Session session, final CriteriaQuery<T> criteriaQuery) {
-        // The stream provided by Hibernate does not have the ORDERED characteristic.
-        // We hence build our own.
-        final ScrollableResultsImplementor scrollableResults =
-                (ScrollableResultsImplementor) session.createQuery(criteriaQuery)
-                        .setReadOnly(true)
-                        .setCacheable(false)
-                        .setFetchSize(FETCH_SIZE)
-                        .scroll(ScrollMode.FORWARD_ONLY);
-        final OrderedStreamIterator<T> iterator = new OrderedStreamIterator<>(scrollableResults);
-        final Spliterator<T> spliterator =
-                Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL | Spliterator.ORDERED);
-
-        return new StreamDecorator<>(StreamSupport.stream(spliterator, false), scrollableResults::close);
+    private int getQueueOccupancy() {
+        int queueOccupancy = 0;
+        for (final IngestShard shard : this.shards) {
+            queueOccupancy += shard.messageQueue.size();
+        }
+        return queueOccupancy;
     }
 
-    private void transmit(final List<DatabaseEntry> results) {
-        try (final Session session = sessionFactory.openSession()) {
-            final Transaction transaction = session.beginTransaction();
-
-            for (int i = 0; i < results.size(); i++) {
-                final var entry = results.get(i);
-                if (entry instanceof Message) {
-                    final MessageContent content = convertMessageToMessageContent((Message) entry);
-                    session.save(content);
-                } else if (entry instanceof ManipulationInfo) {
-                    final ManipulationData content =
-                            convertManipulationInfoToManipulationData((ManipulationInfo) entry);
-                    session.save(content);
-                }
-
-                if (i % configuration.getInsertBatchSize() == 0) {
-                    session.flush();
-                    session.clear();
-                }
-            }
-
-            transaction.commit();
-        }
+    /**
+     * Get the metrics of the ingestion of messages and manipulations, e.g. throughput and the time it takes to
+     * persist them.
+     *
+     * @return the metrics at this point in time
+     */
+    public IngestMetrics.Snapshot getIngestMetrics() {
+        return this.ingestMetrics.snapshot(this.storageBackend.getStorageSize());
     }
 
     /**
@@ -2006,13 +1758,33 @@ public class MessageStorage implements AutoCloseable {
         return this.messageEncodingErrorCount.getPlain();
     }
 
+    /**
+     * Get the total size of all message bodies before compression, only counted when a compressing
+     * {@linkplain MessageBodyCodec} is configured.
+     *
+     * @return the size in bytes
+     */
+    public long getUncompressedBodyBytes() {
+        return this.uncompressedBodyBytes.get();
+    }
+
+    /**
+     * Get the total size of all message bodies as persisted, only counted when a compressing
+     * {@linkplain MessageBodyCodec} is configured.
+     *
+     * @return the size in bytes
+     */
+    public long getCompressedBodyBytes() {
+        return this.compressedBodyBytes.get();
+    }
+
     /**
      * Get the number of messages detected by the MessageStorage where the MIME type has an unexpected value.
      *
      * @return the count
      */
     public long getInvalidMimeTypeErrorCount() {
-        return this.invalidMimeTypeCount;
+        return this.invalidMimeTypeCount.get();
     }
 
     /**
@@ -2047,110 +1819,228 @@ public class MessageStorage implements AutoCloseable {
         }
     }
 
-    private static class ResultIterator<T> implements Iterator<T>, AutoCloseable {
-        private final Session session;
-        private final Iterator<T> iterator;
-        private final Stream<T> originStream;
-        private T currentElement;
+    /**
+     * An entry added to the storage together with its sequence number.
+     *
+     * @param sequenceNumber used to acknowledge the commit of the entry
+     * @param entry          the entry as it was added to the storage
+     */
+    private record QueuedEntry(long sequenceNumber, DatabaseEntry entry) {
+        private static final QueuedEntry STOP_MARKER = new QueuedEntry(-1, QueueMarker.STOP);
+    }
 
-        ResultIterator(final Session session, final Stream<T> originStream) {
-            this.session = session;
-            this.iterator = originStream.iterator();
-            this.originStream = originStream;
-        }
+    /**
+     * A queued entry converted into the entity to persist.
+     *
+     * @param sequenceNumber of the queued entry
+     * @param entity         the entity to persist for the entry
+     */
+    private record ConvertedEntry(long sequenceNumber, Object entity) {
+        private static final ConvertedEntry FLUSH_MARKER = new ConvertedEntry(-1, QueueMarker.FLUSH);
+        private static final ConvertedEntry STOP_MARKER = new ConvertedEntry(-1, QueueMarker.STOP);
+    }
+
+    /**
+     * Control entries which are put into the queues to make the processing threads commit early or stop.
+     */
+    private enum QueueMarker implements DatabaseEntry {
+        FLUSH,
+        STOP;
 
         @Override
-        public boolean hasNext() {
-            return this.iterator.hasNext();
+        public long getEntryId() {
+            // markers are not captured
+            return -1;
         }
 
         @Override
-        public T next() {
-            if (this.currentElement != null) {
-                try {
-                    this.session.evict(this.currentElement);
-                } catch (IllegalArgumentException e) {
-                    this.session.clear();
-                }
-            }
-
-            this.currentElement = this.iterator.next();
-            return this.currentElement;
+        public String getID() {
+            return name();
         }
+    }
 
-        @Override
-        public void close() {
-            this.currentElement = null;
-            this.originStream.close();
-            this.session.close();
+    /**
+     * Independent lane of the ingest pipeline.
+     *
+     * <p>
+     * Entries are distributed among the shards by their sequence number. Each shard converts and persists its entries
+     * with its own threads, so that neither the queues nor the database sessions are shared between threads. The
+     * order in which entries are persisted does not matter, as the entries are ordered by their timestamps and
+     * MdibVersions when they are queried.
+     */
+    private final class IngestShard {
+        private final ArrayBlockingQueue<QueuedEntry> messageQueue;
+        private final ArrayBlockingQueue<ConvertedEntry> persistQueue;
+        private final ConversionThread conversionThread;
+        private final DatabaseInteractionThread databaseInteractionThread;
+
+        private IngestShard(final int queueSize) {
+            this.messageQueue = new ArrayBlockingQueue<>(queueSize);
+            this.persistQueue = new ArrayBlockingQueue<>(queueSize);
+
+            this.conversionThread = new ConversionThread(this.messageQueue, this.persistQueue);
+            this.conversionThread.setDaemon(true);
+            this.conversionThread.start();
+
+            this.databaseInteractionThread = new DatabaseInteractionThread(this.persistQueue);
+            this.databaseInteractionThread.setDaemon(true);
+            this.databaseInteractionThread.start();
         }
     }
 
-    private final class DatabaseInteractionThread extends Thread {
-        private final AtomicBoolean stopped;
-        private final AtomicBoolean flushEvent;
+    private final class ConversionThread extends Thread {
+        private final BlockingQueue<QueuedEntry> messageQueue;
+        private final BlockingQueue<ConvertedEntry> persistQueue;
 
-        private DatabaseInteractionThread() {
+        private ConversionThread(
+                final BlockingQueue<QueuedEntry> messageQueue, final BlockingQueue<ConvertedEntry> persistQueue) {
+            this.messageQueue = messageQueue;
+            this.persistQueue = persistQueue;
+        }
 
-            this.stopped = new AtomicBoolean();
-            this.flushEvent = new AtomicBoolean();
+        /**
+         * Takes the next entry to convert.
+         *
+         * <p>
+         * Queued entries are older than spilled ones, hence spilled entries are only recovered once the message
+         * queue of the shard has been drained. While spilling, added entries do not reach the message queues, hence
+         * idle shards look for spilled entries periodically, so that all shards take part in the recovery.
+         *
+         * @return the next entry
+         * @throws InterruptedException if interrupted while waiting for the message queue
+         */
+        private QueuedEntry takeNext() throws InterruptedException {
+            while (true) {
+                final QueuedEntry queuedEntry = this.messageQueue.poll();
+                if (queuedEntry != null) {
+                    return queuedEntry;
+                }
+                final QueuedEntry spilledEntry = recoverSpilledEntry();
+                if (spilledEntry != null) {
+                    return spilledEntry;
+                }
+                final QueuedEntry nextEntry =
+                        this.messageQueue.poll(SPILL_RECOVERY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (nextEntry != null) {
+                    return nextEntry;
+                }
+            }
         }
 
-        public void setStopped() {
-            if (!this.stopped.compareAndSet(false, true)) {
-                LOG.error("setStopped called on already stopped thread");
+        /**
+         * Converts the next queued entry and hands it over to the database interaction thread of the shard.
+         *
+         * @return false if the thread shall stop, true otherwise
+         * @throws InterruptedException if interrupted while waiting for the queues
+         */
+        private boolean convertNext() throws InterruptedException {
+            final QueuedEntry entry = takeNext();
+            if (entry == QueuedEntry.STOP_MARKER) {
+                return false;
+            }
+
+            final ConvertedEntry convertedEntry;
+            try {
+                convertedEntry = convertEntry(entry);
+            } finally {
+                releaseCaptureBuffer(entry.entry());
+            }
+            if (convertedEntry == null) {
+                // nothing to persist, flushes must not wait for it
+                commitTracker.commit(entry.sequenceNumber());
+                return true;
+            }
+
+            try {
+                this.persistQueue.put(convertedEntry);
+            } catch (final InterruptedException e) {
+                commitTracker.commit(entry.sequenceNumber());
+                throw e;
             }
+            return true;
         }
 
-        public void triggerFlush() {
-            if (!this.flushEvent.compareAndSet(false, true)) {
-                throw new RuntimeException("a previous flush has not been finished");
+        public void run() {
+            boolean running = true;
+            while (running) {
+                try {
+                    running = convertNext();
+                } catch (final InterruptedException e) {
+                    LOG.error("the message conversion was interrupted", e);
+                    testRunObserver.invalidateTestRun(e);
+                }
             }
         }
+    }
 
-        private void drainQueue() {
-            final List<DatabaseEntry> results = new ArrayList<>(blockingQueueSize);
+    private final class DatabaseInteractionThread extends Thread {
+        private final BlockingQueue<ConvertedEntry> persistQueue;
 
-            queueExitLock.lock();
-            try {
-                while (results.size() < blockingQueueSize && !this.stopped.get()) {
-                    final DatabaseEntry polledElement = messageQueue.poll(100L, TimeUnit.MICROSECONDS);
-                    if (polledElement != null) {
-                        results.add(polledElement);
-                    }
+        private DatabaseInteractionThread(final BlockingQueue<ConvertedEntry> persistQueue) {
+            this.persistQueue = persistQueue;
+        }
 
-                    if (this.flushEvent.get()) {
-                        queueExitLock.unlock();
-                        try {
-                            // will block at the barrier
-                            flush(results, true, this);
-                            results.clear();
-                        } finally {
-                            queueExitLock.lock();
-                        }
+        /**
+         * Collects the next batch of entries from the persist queue.
+         *
+         * <p>
+         * Blocks until the first entry arrives and afterwards waits at most the linger time for further entries,
+         * so that the batch is committed once it is full or the linger time has passed. While a flush is pending,
+         * the batch is committed as soon as no further entries are queued.
+         *
+         * @param results list to collect the entries in
+         * @return the marker which ended the batch or null if the batch is full or the linger time has passed
+         * @throws InterruptedException if interrupted while waiting for entries
+         */
+        @Nullable
+        private ConvertedEntry collectBatch(final List<ConvertedEntry> results) throws InterruptedException {
+            ConvertedEntry next = this.persistQueue.take();
+            final long lingerDeadline = System.nanoTime() + maxBatchLingerTimeNanos;
+            while (!(next.entity() instanceof QueueMarker)) {
+                results.add(next);
+                if (results.size() >= maxBatchSize) {
+                    return null;
+                }
+                next = this.persistQueue.poll();
+                if (next == null) {
+                    if (isFlushPending()) {
+                        return null;
+                    }
+                    next = this.persistQueue.poll(lingerDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        return null;
                     }
                 }
+            }
+            return next;
+        }
+
+        /**
+         * Persists the next batch of entries.
+         *
+         * @return false if the thread shall stop, true otherwise
+         */
+        private boolean drainQueue() {
+            final List<ConvertedEntry> results = new ArrayList<>(maxBatchSize);
+            ConvertedEntry marker = null;
+
+            try {
+                marker = collectBatch(results);
             } catch (final InterruptedException e) {
                 LOG.error("the message content queue poll was interrupted", e);
                 testRunObserver.invalidateTestRun(e);
-            } finally {
-                queueExitLock.unlock();
             }
 
-            transmit(results);
-        }
-
-        public void resetFlushEvent() {
-            if (!this.flushEvent.compareAndSet(true, false)) {
-                final String flushEventEarlyReset = "The flush event was reset too early";
-                LOG.error(flushEventEarlyReset);
-                testRunObserver.invalidateTestRun(flushEventEarlyReset);
+            if (!results.isEmpty()) {
+                transmit(results);
             }
+            return marker != ConvertedEntry.STOP_MARKER;
         }
 
         public void run() {
-            while (!this.stopped.get()) {
-                drainQueue();
+            boolean running = true;
+            while (running) {
+                running = drainQueue();
             }
         }
     }
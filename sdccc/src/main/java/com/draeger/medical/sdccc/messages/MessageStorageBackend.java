@@ -0,0 +1,183 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.xml.namespace.QName;
+
+/**
+ * Persistence layer of the {@linkplain MessageStorage}.
+ *
+ * <p>
+ * The message storage converts captured messages and manipulations into {@linkplain MessageContent} and
+ * {@linkplain ManipulationData} entities and hands them to the backend in batches. Queries are only issued by the
+ * message storage after it has validated its arguments. Every returned stream is lazy and must be closed by the caller.
+ */
+public interface MessageStorageBackend extends AutoCloseable {
+
+    /**
+     * Persists a batch of entities, i.e. {@linkplain MessageContent}s and {@linkplain ManipulationData}s.
+     *
+     * <p>
+     * May be called concurrently by several threads.
+     *
+     * @param entities to persist
+     * @throws RuntimeException if the batch could not be persisted
+     */
+    void persist(List<?> entities);
+
+    /**
+     * Persists a large batch of entities which have not been captured during this test run, e.g. imported from a
+     * recording or created as test fixtures.
+     *
+     * <p>
+     * Backends may use a faster way of inserting the entities than {@linkplain #persist(List)}, the persisted entities
+     * are the same. Entities are not modified and may be reused by the caller afterwards. The default persists them
+     * using {@linkplain #persist(List)}.
+     *
+     * @param entities to persist
+     * @throws RuntimeException if the batch could not be persisted
+     */
+    default void bulkLoad(final List<?> entities) {
+        this.persist(entities);
+    }
+
+    /**
+     * Retrieves all SequenceId attribute values that have been seen, ordered by the timestamp of the first message
+     * that used the respective SequenceId.
+     *
+     * @return stream of all SequenceId attribute values that have been seen
+     */
+    Stream<String> getUniqueSequenceIds();
+
+    /**
+     * @return stream of all inbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getInboundMessages();
+
+    /**
+     * @return stream of all outbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getOutboundMessages();
+
+    /**
+     * @return stream of all inbound {@linkplain MessageContent}s with a SOAP envelope or SOAP content type
+     */
+    Stream<MessageContent> getInboundSoapMessages();
+
+    /**
+     * @return stream of all inbound response {@linkplain MessageContent}s with a SOAP envelope or SOAP content type
+     */
+    Stream<MessageContent> getInboundSoapResponseMessages();
+
+    /**
+     * Retrieves all outbound HTTP messages which match any of the provided body types and any of the provided headers.
+     *
+     * @param bodyTypes to match messages against
+     * @param headers   to match messages against, keys and values are expected in lower case
+     * @return stream of all matching outbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getOutboundHttpMessagesByBodyTypeAndHeaders(
+            List<QName> bodyTypes, List<AbstractMap.SimpleImmutableEntry<String, String>> headers);
+
+    /**
+     * @return stream of all inbound {@linkplain MessageContent}s transmitted via HTTP or HTTPS
+     */
+    Stream<MessageContent> getInboundHttpMessages();
+
+    /**
+     * Retrieves all inbound messages which match any of the provided body types within the given SequenceId, sorted
+     * by MdibVersion and timestamp.
+     *
+     * @param sequenceId SequenceId attribute value to filter for
+     * @param bodyTypes  to match messages against
+     * @return stream of all matching inbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getInboundMessagesByBodyTypeAndSequenceId(String sequenceId, QName... bodyTypes);
+
+    /**
+     * Retrieves all inbound messages which match any of the provided body types.
+     *
+     * @param enableSorting whether to sort the messages by MdibVersion and body type
+     * @param bodyTypes     to match messages against
+     * @return stream of all matching inbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getInboundMessagesByBodyType(boolean enableSorting, QName... bodyTypes);
+
+    /**
+     * Retrieves all inbound messages which match any of the provided body types within the given SequenceId and have
+     * at least the given MdibVersion, sorted by MdibVersion and body type.
+     *
+     * @param sequenceId         SequenceId attribute value to filter for
+     * @param minimumMdibVersion lowest MdibVersion to retrieve messages for, inclusive
+     * @param bodyTypes          to match messages against
+     * @return stream of all matching inbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getInboundMessagesByMdibVersionAndBodyType(
+            String sequenceId, long minimumMdibVersion, QName... bodyTypes);
+
+    /**
+     * @return stream of all {@linkplain ManipulationData}s, sorted by their start timestamp
+     */
+    Stream<ManipulationData> getManipulationData();
+
+    /**
+     * Retrieves all inbound messages which match any of the provided body types and have been received within the
+     * given time interval, sorted by MdibVersion.
+     *
+     * @param startTimestamp  of relevant time interval, inclusive
+     * @param finishTimestamp of relevant time interval, inclusive
+     * @param reportTypes     to match messages against
+     * @return stream of all matching inbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getInboundMessagesByTimeIntervalAndBodyType(
+            long startTimestamp, long finishTimestamp, QName... reportTypes);
+
+    /**
+     * Retrieves all inbound messages which match any of the provided body types within the given SequenceId and have
+     * been received before the given timestamp, sorted by MdibVersion.
+     *
+     * @param sequenceId      SequenceId attribute value to filter for
+     * @param finishTimestamp of relevant time interval, exclusive
+     * @param reportTypes     to match messages against
+     * @return stream of all matching inbound {@linkplain MessageContent}s
+     */
+    Stream<MessageContent> getInboundMessagesByTimestampAndBodyType(
+            String sequenceId, long finishTimestamp, QName... reportTypes);
+
+    /**
+     * Retrieves all manipulation data which match all of the provided manipulation names, sorted by their start
+     * timestamp.
+     *
+     * @param manipulationNames to match manipulation data against
+     * @return stream of all matching {@linkplain ManipulationData}s
+     */
+    Stream<ManipulationData> getManipulationDataByManipulation(String... manipulationNames);
+
+    /**
+     * Retrieves all manipulation data which match the provided manipulation name and contain all provided parameters.
+     *
+     * @param parameter        of the manipulation
+     * @param manipulationName to match manipulation data against
+     * @return stream of all matching {@linkplain ManipulationData}s
+     */
+    Stream<ManipulationData> getManipulationDataByParametersAndManipulation(
+            ManipulationParameterUtil.ManipulationParameterData parameter, String manipulationName);
+
+    /**
+     * @return size of the persisted entities in bytes, -1 if it cannot be determined
+     */
+    long getStorageSize();
+
+    @Override
+    void close();
+}
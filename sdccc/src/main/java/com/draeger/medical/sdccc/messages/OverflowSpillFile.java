@@ -0,0 +1,400 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static com.draeger.medical.sdccc.messages.SegmentLogCodec.readBytes;
+import static com.draeger.medical.sdccc.messages.SegmentLogCodec.readString;
+import static com.draeger.medical.sdccc.messages.SegmentLogCodec.writeBytes;
+import static com.draeger.medical.sdccc.messages.SegmentLogCodec.writeString;
+
+import com.draeger.medical.t2iapi.ResponseTypes;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.somda.sdc.dpws.CommunicationLog;
+import org.somda.sdc.dpws.soap.ApplicationInfo;
+import org.somda.sdc.dpws.soap.CommunicationContext;
+import org.somda.sdc.dpws.soap.HttpApplicationInfo;
+import org.somda.sdc.dpws.soap.TransportInfo;
+
+/**
+ * File the {@linkplain MessageStorage} spills added entries to while its message queue is full.
+ *
+ * <p>
+ * Records are appended behind each other as length prefix followed by the record and are read back in the order
+ * they were appended. Once every record has been read, the file is truncated again, hence it only grows while the
+ * conversion of the added entries falls behind. The file is created on the first spilled entry and deleted on close.
+ *
+ * <p>
+ * Spilled entries are expected to have increasing sequence numbers. Not thread safe, callers have to synchronize.
+ */
+final class OverflowSpillFile implements AutoCloseable {
+
+    private static final byte MESSAGE = 1;
+    private static final byte MANIPULATION_INFO = 2;
+
+    private static final String X509_CERTIFICATE_TYPE = "X.509";
+
+    private final Path path;
+    private final MessageStorage messageStorage;
+
+    @Nullable
+    private FileChannel channel;
+
+    private long readPosition;
+    private long writePosition;
+    private long firstPendingSequenceNumber;
+    private long lastPendingSequenceNumber;
+
+    /**
+     * Creates a spill file, the file itself is only created once the first entry is spilled.
+     *
+     * @param path           of the file
+     * @param messageStorage restored entries belong to
+     */
+    OverflowSpillFile(final Path path, final MessageStorage messageStorage) {
+        this.path = path;
+        this.messageStorage = messageStorage;
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * @return true if no spilled entry is waiting to be read, false otherwise
+     */
+    boolean isEmpty() {
+        return this.readPosition == this.writePosition;
+    }
+
+    /**
+     * Appends an entry to the file.
+     *
+     * @param sequenceNumber of the entry, has to be larger than the ones of all previously appended entries
+     * @param entry          to spill, either a {@linkplain Message} or a {@linkplain ManipulationInfo}
+     * @throws IOException if the entry could not be written
+     */
+    void append(final long sequenceNumber, final DatabaseEntry entry) throws IOException {
+        final byte[] record = encode(sequenceNumber, entry);
+        if (this.channel == null) {
+            this.channel = FileChannel.open(
+                    this.path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        while (buffer.hasRemaining()) {
+            this.writePosition += this.channel.write(buffer, this.writePosition);
+        }
+
+        if (this.firstPendingSequenceNumber == 0) {
+            this.firstPendingSequenceNumber = sequenceNumber;
+        }
+        this.lastPendingSequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * Reads the oldest spilled entry which has not been read yet.
+     *
+     * @return the entry or null if no spilled entry is waiting to be read
+     * @throws IOException if the entry could not be read, the file has to be discarded afterwards
+     */
+    @Nullable
+    SpilledEntry poll() throws IOException {
+        if (this.isEmpty() || this.channel == null) {
+            return null;
+        }
+
+        final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+        this.readFully(lengthBuffer, this.readPosition);
+        final ByteBuffer recordBuffer = ByteBuffer.allocate(lengthBuffer.flip().getInt());
+        this.readFully(recordBuffer, this.readPosition + Integer.BYTES);
+        final SpilledEntry spilledEntry = this.decode(recordBuffer.array());
+
+        this.readPosition += Integer.BYTES + recordBuffer.capacity();
+        this.firstPendingSequenceNumber = spilledEntry.sequenceNumber() + 1;
+        if (this.isEmpty()) {
+            this.reset();
+        }
+        return spilledEntry;
+    }
+
+    /**
+     * Drops all spilled entries which have not been read yet, e.g. after they could not be read.
+     *
+     * @return the sequence numbers the dropped entries could have had, they may include sequence numbers of entries
+     *     which have not been spilled
+     * @throws IOException if the file could not be truncated
+     */
+    LongStream discard() throws IOException {
+        final LongStream sequenceNumbers = this.firstPendingSequenceNumber == 0
+                ? LongStream.empty()
+                : LongStream.rangeClosed(this.firstPendingSequenceNumber, this.lastPendingSequenceNumber);
+        this.readPosition = this.writePosition;
+        this.reset();
+        return sequenceNumbers;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+        this.readPosition = 0;
+        this.writePosition = 0;
+        this.firstPendingSequenceNumber = 0;
+        Files.deleteIfExists(this.path);
+    }
+
+    private void reset() throws IOException {
+        if (this.channel != null) {
+            this.channel.truncate(0);
+        }
+        this.readPosition = 0;
+        this.writePosition = 0;
+        this.firstPendingSequenceNumber = 0;
+    }
+
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of overflow spill file " + this.path);
+            }
+        }
+    }
+
+    private static byte[] encode(final long sequenceNumber, final DatabaseEntry entry) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            if (entry instanceof final Message message) {
+                out.writeByte(MESSAGE);
+                out.writeLong(sequenceNumber);
+                encodeMessage(out, message);
+            } else if (entry instanceof final ManipulationInfo manipulationInfo) {
+                out.writeByte(MANIPULATION_INFO);
+                out.writeLong(sequenceNumber);
+                encodeManipulationInfo(out, manipulationInfo);
+            } else {
+                throw new IllegalArgumentException("Unsupported entry type " + entry.getClass());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private SpilledEntry decode(final byte[] record) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            final byte type = in.readByte();
+            final long sequenceNumber = in.readLong();
+            return switch (type) {
+                case MESSAGE -> new SpilledEntry(sequenceNumber, this.decodeMessage(in));
+                case MANIPULATION_INFO -> new SpilledEntry(sequenceNumber, this.decodeManipulationInfo(in));
+                default -> throw new IOException("Unknown overflow spill file record type " + type);
+            };
+        }
+    }
+
+    private static void encodeMessage(final DataOutputStream out, final Message message) throws IOException {
+        out.writeByte(message.getDirection().ordinal());
+        out.writeByte(message.getMessageType().ordinal());
+        out.writeLong(message.getTimestamp());
+        out.writeLong(message.getNanoTimestamp());
+        out.writeLong(message.getEntryId());
+        writeBytes(out, message.getFinalMemory());
+
+        // the communication log context is not needed to store the message and hence not spilled
+        final CommunicationContext communicationContext = message.getCommunicationContext();
+        out.writeBoolean(communicationContext != null);
+        if (communicationContext == null) {
+            return;
+        }
+
+        final ApplicationInfo applicationInfo = communicationContext.getApplicationInfo();
+        out.writeBoolean(applicationInfo instanceof HttpApplicationInfo);
+        if (applicationInfo instanceof final HttpApplicationInfo httpApplicationInfo) {
+            final ListMultimap<String, String> headers = httpApplicationInfo.getHeaders();
+            out.writeInt(headers.size());
+            for (final Map.Entry<String, String> header : headers.entries()) {
+                writeString(out, header.getKey());
+                writeString(out, header.getValue());
+            }
+            writeString(out, httpApplicationInfo.getTransactionId());
+            writeString(out, httpApplicationInfo.getRequestUri().orElse(null));
+        }
+
+        final TransportInfo transportInfo = communicationContext.getTransportInfo();
+        out.writeBoolean(transportInfo != null);
+        if (transportInfo == null) {
+            return;
+        }
+        writeString(out, transportInfo.getScheme());
+        writeString(out, transportInfo.getLocalAddress().orElse(null));
+        writePort(out, transportInfo.getLocalPort().orElse(null));
+        writeString(out, transportInfo.getRemoteAddress().orElse(null));
+        writePort(out, transportInfo.getRemotePort().orElse(null));
+
+        final List<X509Certificate> certs = transportInfo.getX509Certificates();
+        out.writeInt(certs.size());
+        for (final X509Certificate cert : certs) {
+            try {
+                writeBytes(out, cert.getEncoded());
+            } catch (final CertificateException e) {
+                throw new IOException("Could not encode certificate", e);
+            }
+        }
+    }
+
+    private Message decodeMessage(final DataInputStream in) throws IOException {
+        final CommunicationLog.Direction direction = CommunicationLog.Direction.values()[in.readByte()];
+        final CommunicationLog.MessageType messageType = CommunicationLog.MessageType.values()[in.readByte()];
+        final long timestamp = in.readLong();
+        final long nanoTimestamp = in.readLong();
+        final long entryId = in.readLong();
+        final byte[] body = readBytes(in);
+
+        CommunicationContext communicationContext = null;
+        if (in.readBoolean()) {
+            ApplicationInfo applicationInfo = new ApplicationInfo();
+            if (in.readBoolean()) {
+                final ListMultimap<String, String> headers = ArrayListMultimap.create();
+                final int headerCount = in.readInt();
+                for (int i = 0; i < headerCount; i++) {
+                    final String key = readString(in);
+                    headers.put(key, readString(in));
+                }
+                final String transactionId = readString(in);
+                applicationInfo = new HttpApplicationInfo(headers, transactionId, readString(in));
+            }
+
+            TransportInfo transportInfo = null;
+            if (in.readBoolean()) {
+                final String scheme = readString(in);
+                final String localAddress = readString(in);
+                final Integer localPort = readPort(in);
+                final String remoteAddress = readString(in);
+                final Integer remotePort = readPort(in);
+
+                final int certCount = in.readInt();
+                final List<X509Certificate> certs = new ArrayList<>(certCount);
+                if (certCount > 0) {
+                    try {
+                        final CertificateFactory certificateFactory =
+                                CertificateFactory.getInstance(X509_CERTIFICATE_TYPE);
+                        for (int i = 0; i < certCount; i++) {
+                            certs.add((X509Certificate)
+                                    certificateFactory.generateCertificate(new ByteArrayInputStream(readBytes(in))));
+                        }
+                    } catch (final CertificateException e) {
+                        throw new IOException("Could not decode certificate", e);
+                    }
+                }
+                transportInfo = new TransportInfo(scheme, localAddress, localPort, remoteAddress, remotePort, certs);
+            }
+            communicationContext = new CommunicationContext(applicationInfo, transportInfo, null);
+        }
+
+        return new Message(
+                direction,
+                messageType,
+                communicationContext,
+                timestamp,
+                nanoTimestamp,
+                entryId,
+                body,
+                this.messageStorage);
+    }
+
+    private static void encodeManipulationInfo(final DataOutputStream out, final ManipulationInfo manipulationInfo)
+            throws IOException {
+        out.writeLong(manipulationInfo.getStartTimestamp());
+        out.writeLong(manipulationInfo.getFinishTimestamp());
+        writeString(
+                out,
+                manipulationInfo.getResult() == null
+                        ? null
+                        : manipulationInfo.getResult().name());
+        writeString(out, manipulationInfo.getResponse());
+        writeString(out, manipulationInfo.getMethodName());
+        out.writeLong(manipulationInfo.getEntryId());
+
+        final List<Pair<String, String>> parameters = manipulationInfo.getParameter();
+        out.writeInt(parameters.size());
+        for (final Pair<String, String> parameter : parameters) {
+            writeString(out, parameter.getKey());
+            writeString(out, parameter.getValue());
+        }
+    }
+
+    private ManipulationInfo decodeManipulationInfo(final DataInputStream in) throws IOException {
+        final long startTimestamp = in.readLong();
+        final long finishTimestamp = in.readLong();
+        final String result = readString(in);
+        final String response = readString(in);
+        final String methodName = readString(in);
+        final long entryId = in.readLong();
+
+        final int parameterCount = in.readInt();
+        final List<Pair<String, String>> parameters = new ArrayList<>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            final String parameterName = readString(in);
+            parameters.add(Pair.of(parameterName, readString(in)));
+        }
+
+        return new ManipulationInfo(
+                startTimestamp,
+                finishTimestamp,
+                result == null ? null : ResponseTypes.Result.valueOf(result),
+                response,
+                methodName,
+                parameters,
+                entryId,
+                this.messageStorage);
+    }
+
+    private static void writePort(final DataOutputStream out, @Nullable final Integer port) throws IOException {
+        out.writeBoolean(port != null);
+        if (port != null) {
+            out.writeInt(port);
+        }
+    }
+
+    @Nullable
+    private static Integer readPort(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    /**
+     * An entry read back from the spill file.
+     *
+     * @param sequenceNumber the entry was added with
+     * @param entry          the restored entry
+     */
+    record SpilledEntry(long sequenceNumber, DatabaseEntry entry) {}
+}
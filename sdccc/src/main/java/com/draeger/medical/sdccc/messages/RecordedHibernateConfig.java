@@ -0,0 +1,44 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import java.nio.file.Path;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+
+/**
+ * Hibernate configuration for reading the database of a previous test run, which leaves the existing schema and
+ * data untouched.
+ *
+ * <p>
+ * The schema is validated against the current mapping when the session factory is built, a database written by an
+ * SDCcc version with a different schema is therefore rejected instead of failing on the first query. Validation only
+ * covers tables, columns and column types, not how the values were written.
+ */
+class RecordedHibernateConfig extends HibernateConfigBase {
+
+    private final String databaseUrl;
+
+    /**
+     * Creates a configuration for a recorded database.
+     *
+     * @param databaseDirectory the Database directory of a previous test run
+     */
+    RecordedHibernateConfig(final Path databaseDirectory) {
+        super(databaseDirectory.toAbsolutePath().toString());
+        this.databaseUrl = "jdbc:derby:" + databaseDirectory.toAbsolutePath();
+    }
+
+    @Override
+    public Configuration getConfiguration() {
+        final Configuration config = super.getConfiguration();
+        config.setProperty(Environment.HBM2DDL_AUTO, "validate");
+        // fail instead of creating an empty database if there is none
+        config.setProperty(Environment.URL, this.databaseUrl);
+        return config;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.ManipulationParameter;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
+import com.draeger.medical.t2iapi.ResponseTypes;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.tuple.Pair;
+import org.somda.sdc.dpws.CommunicationLog;
+import org.somda.sdc.dpws.soap.ApplicationInfo;
+import org.somda.sdc.dpws.soap.CommunicationContext;
+import org.somda.sdc.dpws.soap.HttpApplicationInfo;
+import org.somda.sdc.dpws.soap.TransportInfo;
+
+/**
+ * Binary record format of the {@linkplain SegmentLogStorageBackend}.
+ *
+ * <p>
+ * A record starts with a type byte followed by the fields of the entity. Strings are stored as length prefixed UTF-8
+ * bytes, with a length of -1 denoting null. Message bodies are stored as persisted by the message storage, i.e.
+ * possibly compressed, preceded by the name of their charset and their {@linkplain MessageBodyCodec}.
+ */
+final class SegmentLogCodec {
+
+    static final byte MESSAGE_CONTENT = 1;
+    static final byte MANIPULATION_DATA = 2;
+
+    private static final int NULL_LENGTH = -1;
+    private static final String X509_CERTIFICATE_TYPE = "X.509";
+
+    private SegmentLogCodec() {}
+
+    /**
+     * Encodes an entity into a record.
+     *
+     * @param entity {@linkplain MessageContent} or {@linkplain ManipulationData} to encode
+     * @return the record
+     * @throws IllegalArgumentException if the entity is of an unsupported type
+     */
+    static byte[] encode(final Object entity) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            if (entity instanceof final MessageContent messageContent) {
+                out.writeByte(MESSAGE_CONTENT);
+                encodeMessageContent(out, messageContent);
+            } else if (entity instanceof final ManipulationData manipulationData) {
+                out.writeByte(MANIPULATION_DATA);
+                encodeManipulationData(out, manipulationData);
+            } else {
+                throw new IllegalArgumentException("Unsupported entity type " + entity.getClass());
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a record created by {@linkplain #encode(Object)}.
+     *
+     * @param record to decode
+     * @return the decoded {@linkplain MessageContent} or {@linkplain ManipulationData}
+     */
+    static Object decode(final byte[] record) {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            final byte type = in.readByte();
+            return switch (type) {
+                case MESSAGE_CONTENT -> decodeMessageContent(in);
+                case MANIPULATION_DATA -> decodeManipulationData(in);
+                default -> throw new IllegalStateException("Unknown segment log record type " + type);
+            };
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void encodeMessageContent(final DataOutputStream out, final MessageContent messageContent)
+            throws IOException {
+        out.writeByte(messageContent.getDirection().ordinal());
+        out.writeByte(messageContent.getMessageType().ordinal());
+        out.writeLong(messageContent.getTimestamp());
+        out.writeLong(messageContent.getNanoTimestamp());
+        out.writeBoolean(messageContent.getIsSOAP());
+        out.writeLong(messageContent.getEntryId());
+        writeString(out, messageContent.getSender());
+        writeString(out, messageContent.getScheme());
+        writeString(out, messageContent.getTransactionId());
+        writeString(out, messageContent.getRequestUri());
+
+        final Map<String, List<String>> headers = messageContent.getHeaders();
+        out.writeInt(headers.size());
+        for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+            writeString(out, header.getKey());
+            out.writeInt(header.getValue().size());
+            for (final String value : header.getValue()) {
+                writeString(out, value);
+            }
+        }
+
+        final List<X509Certificate> certs = messageContent.getCerts() == null ? List.of() : messageContent.getCerts();
+        out.writeInt(certs.size());
+        for (final X509Certificate cert : certs) {
+            try {
+                writeBytes(out, cert.getEncoded());
+            } catch (final CertificateException e) {
+                throw new IOException("Could not encode certificate", e);
+            }
+        }
+
+        final Set<String> actions = messageContent.getActions();
+        out.writeInt(actions.size());
+        for (final String action : actions) {
+            writeString(out, action);
+        }
+
+        final List<MdibVersionGroupEntity> mdibVersionGroups = messageContent.getMdibVersionGroups();
+        out.writeInt(mdibVersionGroups.size());
+        for (final MdibVersionGroupEntity mdibVersionGroup : mdibVersionGroups) {
+            out.writeLong(mdibVersionGroup.getMdibVersion());
+            writeString(out, mdibVersionGroup.getSequenceId());
+            writeString(out, mdibVersionGroup.getBodyElement());
+        }
+
+        writeString(out, messageContent.getBodyCharset().name());
+        writeBytes(out, messageContent.getMessageDigest());
+        out.writeByte(messageContent.getBodyCodec().ordinal());
+        final ByteBuffer storedBody = messageContent.getStoredBodyBuffer();
+        out.writeInt(storedBody.remaining());
+        Channels.newChannel(out).write(storedBody);
+    }
+
+    private static MessageContent decodeMessageContent(final DataInputStream in) throws IOException {
+        final CommunicationLog.Direction direction = CommunicationLog.Direction.values()[in.readByte()];
+        final CommunicationLog.MessageType messageType = CommunicationLog.MessageType.values()[in.readByte()];
+        final long timestamp = in.readLong();
+        final long nanoTimestamp = in.readLong();
+        final boolean isSOAP = in.readBoolean();
+        final long entryId = in.readLong();
+        final String sender = readString(in);
+        final String scheme = readString(in);
+        final String transactionId = readString(in);
+        final String requestUri = readString(in);
+
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        final int headerCount = in.readInt();
+        for (int i = 0; i < headerCount; i++) {
+            final String key = readString(in);
+            final int valueCount = in.readInt();
+            for (int j = 0; j < valueCount; j++) {
+                headers.put(key, readString(in));
+            }
+        }
+
+        final int certCount = in.readInt();
+        final List<X509Certificate> certs = new ArrayList<>(certCount);
+        if (certCount > 0) {
+            try {
+                final CertificateFactory certificateFactory = CertificateFactory.getInstance(X509_CERTIFICATE_TYPE);
+                for (int i = 0; i < certCount; i++) {
+                    certs.add((X509Certificate)
+                            certificateFactory.generateCertificate(new ByteArrayInputStream(readBytes(in))));
+                }
+            } catch (final CertificateException e) {
+                throw new IOException("Could not decode certificate", e);
+            }
+        }
+
+        final int actionCount = in.readInt();
+        final Set<String> actions = new LinkedHashSet<>();
+        for (int i = 0; i < actionCount; i++) {
+            actions.add(readString(in));
+        }
+
+        final int mdibVersionGroupCount = in.readInt();
+        final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups = new ArrayList<>(mdibVersionGroupCount);
+        for (int i = 0; i < mdibVersionGroupCount; i++) {
+            final long mdibVersion = in.readLong();
+            final String sequenceId = readString(in);
+            mdibVersionGroups.add(new MdibVersionGroupEntity.MdibVersionGroup(mdibVersion, sequenceId, readString(in)));
+        }
+
+        final Charset bodyCharset = Charset.forName(readString(in));
+        final byte[] messageDigest = readBytes(in);
+        final MessageBodyCodec bodyCodec = MessageBodyCodec.values()[in.readByte()];
+        final byte[] body = bodyCodec.decompress(readBytes(in));
+
+        // only http messages carry a transaction id, headers or a request uri
+        final ApplicationInfo applicationInfo = transactionId != null || requestUri != null || !headers.isEmpty()
+                ? new HttpApplicationInfo(headers, transactionId, requestUri)
+                : new ApplicationInfo();
+        final CommunicationContext communicationContext = new CommunicationContext(
+                applicationInfo, new TransportInfo(scheme, null, null, null, null, certs), null);
+
+        return new MessageContent(
+                body,
+                bodyCharset,
+                messageDigest,
+                communicationContext,
+                direction,
+                messageType,
+                timestamp,
+                nanoTimestamp,
+                mdibVersionGroups,
+                actions,
+                entryId,
+                isSOAP,
+                sender);
+    }
+
+    private static void encodeManipulationData(final DataOutputStream out, final ManipulationData manipulationData)
+            throws IOException {
+        out.writeLong(manipulationData.getStartTimestamp());
+        out.writeLong(manipulationData.getFinishTimestamp());
+        writeString(
+                out,
+                manipulationData.getResult() == null
+                        ? null
+                        : manipulationData.getResult().name());
+        writeString(out, manipulationData.getResponse());
+        writeString(out, manipulationData.getMethodName());
+        out.writeLong(manipulationData.getEntryId());
+
+        final List<ManipulationParameter> parameters = manipulationData.getParameters();
+        out.writeInt(parameters.size());
+        for (final ManipulationParameter parameter : parameters) {
+            writeString(out, parameter.getParameterName());
+            writeString(out, parameter.getParameterValue());
+        }
+    }
+
+    private static ManipulationData decodeManipulationData(final DataInputStream in) throws IOException {
+        final long startTimestamp = in.readLong();
+        final long finishTimestamp = in.readLong();
+        final String result = readString(in);
+        final String response = readString(in);
+        final String methodName = readString(in);
+        final long entryId = in.readLong();
+
+        final int parameterCount = in.readInt();
+        final List<Pair<String, String>> parameters = new ArrayList<>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            final String parameterName = readString(in);
+            parameters.add(Pair.of(parameterName, readString(in)));
+        }
+
+        return new ManipulationData(
+                startTimestamp,
+                finishTimestamp,
+                result == null ? null : ResponseTypes.Result.valueOf(result),
+                response,
+                methodName,
+                parameters,
+                entryId);
+    }
+
+    static void writeString(final DataOutputStream out, @Nullable final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Nullable
+    static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeBytes(final DataOutputStream out, final byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    @Nullable
+    static byte[] readBytes(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
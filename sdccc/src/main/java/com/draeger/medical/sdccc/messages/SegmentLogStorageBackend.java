@@ -0,0 +1,613 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import com.draeger.medical.sdccc.configuration.TestRunConfig;
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
+import com.draeger.medical.sdccc.util.Constants;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import javax.xml.namespace.QName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.somda.sdc.dpws.CommunicationLog;
+
+/**
+ * Message storage backend writing entities into an append-only log of memory-mapped segment files.
+ *
+ * <p>
+ * Every entity is appended as a length prefixed record (see {@linkplain SegmentLogCodec}). Queries are answered from
+ * compact in-memory indexes over direction, body element, SequenceId, MdibVersion and timestamp, so that only the
+ * records which are actually part of a result are read and decoded, lazily while the result stream is consumed.
+ * Segments which already exist in the log directory are indexed when the backend is created.
+ */
+@Singleton
+public class SegmentLogStorageBackend implements MessageStorageBackend {
+
+    /**
+     * Value of {@linkplain com.draeger.medical.sdccc.configuration.TestSuiteConfig#COMMLOG_STORAGE_BACKEND} selecting
+     * this backend.
+     */
+    public static final String NAME = "SegmentLog";
+
+    private static final Logger LOG = LogManager.getLogger(SegmentLogStorageBackend.class);
+
+    private static final String DIRECTORY_NAME = "SegmentLog";
+    private static final String SEGMENT_FILE_FORMAT = "segment-%06d.log";
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final String HTTP_HEADER_NAME_CONTENT_TYPE = "content-type";
+    private static final String SOAP_CONTENT_TYPE = "application/soap+xml";
+
+    private final Path directory;
+    private final int segmentSize;
+
+    // segments are only appended while holding the write lock, readers access them without locking
+    private final List<Segment> segments;
+    private final ReentrantReadWriteLock lock;
+
+    private int messageCount;
+    private final Map<CommunicationLog.Direction, List<MessageIndexEntry>> messagesByDirection;
+    private final Map<String, List<MessageIndexEntry>> messagesByBodyElement;
+    private final Map<String, Long> firstTimestampBySequenceId;
+    private final Map<String, String> internedStrings;
+    private final List<ManipulationIndexEntry> manipulations;
+
+    @Inject
+    SegmentLogStorageBackend(@Named(TestRunConfig.TEST_RUN_DIR) final File dir) throws IOException {
+        this(Path.of(dir.getAbsolutePath(), DIRECTORY_NAME), DEFAULT_SEGMENT_SIZE);
+    }
+
+    SegmentLogStorageBackend(final Path directory, final int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segments = new CopyOnWriteArrayList<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.messagesByDirection = new EnumMap<>(CommunicationLog.Direction.class);
+        this.messagesByBodyElement = new HashMap<>();
+        this.firstTimestampBySequenceId = new HashMap<>();
+        this.internedStrings = new HashMap<>();
+        this.manipulations = new ArrayList<>();
+
+        Files.createDirectories(this.directory);
+        this.recoverSegments();
+    }
+
+    @Override
+    public void persist(final List<?> entities) {
+        final List<byte[]> records =
+                entities.stream().map(SegmentLogCodec::encode).toList();
+
+        this.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                final byte[] record = records.get(i);
+                Segment segment = this.segments.isEmpty() ? null : this.segments.get(this.segments.size() - 1);
+                if (segment == null || !segment.fits(record)) {
+                    segment = this.createSegment(Math.max(this.segmentSize, Segment.recordSize(record)));
+                }
+                final int offset = segment.append(record);
+                this.index(entities.get(i), new RecordLocation(this.segments.size() - 1, offset, record.length));
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<String> getUniqueSequenceIds() {
+        this.lock.readLock().lock();
+        try {
+            return this.firstTimestampBySequenceId.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .stream();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessages() {
+        return this.readMessages(this.findMessages(CommunicationLog.Direction.INBOUND, entry -> true));
+    }
+
+    @Override
+    public Stream<MessageContent> getOutboundMessages() {
+        return this.readMessages(this.findMessages(CommunicationLog.Direction.OUTBOUND, entry -> true));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundSoapMessages() {
+        return this.readMessages(this.findMessages(CommunicationLog.Direction.INBOUND, MessageIndexEntry::soap));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundSoapResponseMessages() {
+        return this.readMessages(this.findMessages(
+                CommunicationLog.Direction.INBOUND,
+                entry -> entry.soap() && entry.messageType() == CommunicationLog.MessageType.RESPONSE));
+    }
+
+    @Override
+    public Stream<MessageContent> getOutboundHttpMessagesByBodyTypeAndHeaders(
+            final List<QName> bodyTypes, final List<AbstractMap.SimpleImmutableEntry<String, String>> headers) {
+        final List<String> bodyElements =
+                bodyTypes.stream().map(QName::toString).toList();
+        return this.readMessages(this.findMessages(
+                        bodyElements,
+                        entry -> entry.direction() == CommunicationLog.Direction.OUTBOUND && entry.http()))
+                .filter(messageContent -> messageContent.getHeaders().entrySet().stream()
+                        .anyMatch(header -> header.getValue().stream()
+                                .anyMatch(value -> headers.contains(new AbstractMap.SimpleImmutableEntry<>(
+                                        header.getKey().toLowerCase(Locale.ROOT), value.toLowerCase(Locale.ROOT))))));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundHttpMessages() {
+        return this.readMessages(this.findMessages(CommunicationLog.Direction.INBOUND, MessageIndexEntry::http));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByBodyTypeAndSequenceId(
+            final String sequenceId, final QName... bodyTypes) {
+        final List<String> bodyElements = toBodyElements(bodyTypes);
+        final Predicate<MdibVersionGroupEntity.MdibVersionGroup> matchesGroup =
+                group -> bodyElements.contains(group.bodyElement()) && sequenceId.equals(group.sequenceId());
+        final List<MessageIndexEntry> matches = this.findMessages(
+                bodyElements,
+                entry -> entry.direction() == CommunicationLog.Direction.INBOUND
+                        && entry.hasMdibVersionGroup(matchesGroup));
+        return this.readMessages(sortByMatchingMdibVersionGroup(
+                matches,
+                matchesGroup,
+                Comparator.comparingLong(SortKey::mdibVersion)
+                        .thenComparingLong(key -> key.entry().nanoTimestamp())));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByBodyType(final boolean enableSorting, final QName... bodyTypes) {
+        final List<String> bodyElements = toBodyElements(bodyTypes);
+        final List<MessageIndexEntry> matches =
+                this.findMessages(bodyElements, entry -> entry.direction() == CommunicationLog.Direction.INBOUND);
+        if (!enableSorting) {
+            return this.readMessages(matches);
+        }
+
+        // also sort by body type to ensure that DescriptionModificationReports are placed before EpisodicReports
+        return this.readMessages(sortByMatchingMdibVersionGroup(
+                matches,
+                group -> bodyElements.contains(group.bodyElement()),
+                Comparator.comparingLong(SortKey::mdibVersion).thenComparing(SortKey::bodyElement)));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByMdibVersionAndBodyType(
+            final String sequenceId, final long minimumMdibVersion, final QName... bodyTypes) {
+        final List<String> bodyElements = toBodyElements(bodyTypes);
+        final Predicate<MdibVersionGroupEntity.MdibVersionGroup> matchesGroup =
+                group -> bodyElements.contains(group.bodyElement())
+                        && sequenceId.equals(group.sequenceId())
+                        && group.mdibVersion() >= minimumMdibVersion;
+        final List<MessageIndexEntry> matches = this.findMessages(
+                bodyElements,
+                entry -> entry.direction() == CommunicationLog.Direction.INBOUND
+                        && entry.hasMdibVersionGroup(matchesGroup));
+        return this.readMessages(sortByMatchingMdibVersionGroup(
+                matches,
+                matchesGroup,
+                Comparator.comparingLong(SortKey::mdibVersion).thenComparing(SortKey::bodyElement)));
+    }
+
+    @Override
+    public Stream<ManipulationData> getManipulationData() {
+        return this.readManipulations(this.findManipulations(entry -> true, true));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByTimeIntervalAndBodyType(
+            final long startTimestamp, final long finishTimestamp, final QName... reportTypes) {
+        final List<String> bodyElements = toBodyElements(reportTypes);
+        final List<MessageIndexEntry> matches = this.findMessages(
+                bodyElements,
+                entry -> entry.direction() == CommunicationLog.Direction.INBOUND
+                        && entry.nanoTimestamp() >= startTimestamp
+                        && entry.nanoTimestamp() <= finishTimestamp);
+        return this.readMessages(sortByMatchingMdibVersionGroup(
+                matches,
+                group -> bodyElements.contains(group.bodyElement()),
+                Comparator.comparingLong(SortKey::mdibVersion)));
+    }
+
+    @Override
+    public Stream<MessageContent> getInboundMessagesByTimestampAndBodyType(
+            final String sequenceId, final long finishTimestamp, final QName... reportTypes) {
+        final List<String> bodyElements = toBodyElements(reportTypes);
+        final Predicate<MdibVersionGroupEntity.MdibVersionGroup> matchesGroup =
+                group -> bodyElements.contains(group.bodyElement()) && sequenceId.equals(group.sequenceId());
+        final List<MessageIndexEntry> matches = this.findMessages(
+                bodyElements,
+                entry -> entry.direction() == CommunicationLog.Direction.INBOUND
+                        && entry.nanoTimestamp() < finishTimestamp
+                        && entry.hasMdibVersionGroup(matchesGroup));
+        return this.readMessages(
+                sortByMatchingMdibVersionGroup(matches, matchesGroup, Comparator.comparingLong(SortKey::mdibVersion)));
+    }
+
+    @Override
+    public Stream<ManipulationData> getManipulationDataByManipulation(final String... manipulationNames) {
+        return this.readManipulations(this.findManipulations(
+                entry -> Arrays.stream(manipulationNames).allMatch(name -> name.equals(entry.methodName())), true));
+    }
+
+    @Override
+    public Stream<ManipulationData> getManipulationDataByParametersAndManipulation(
+            final ManipulationParameterUtil.ManipulationParameterData parameter, final String manipulationName) {
+        if (parameter.getParameterData().isEmpty()) {
+            return getManipulationDataByManipulation(manipulationName);
+        }
+
+        return this.readManipulations(
+                        this.findManipulations(entry -> manipulationName.equals(entry.methodName()), false))
+                .filter(manipulationData -> parameter.getParameterData().stream()
+                        .allMatch(parameterData -> manipulationData.getParameters().stream()
+                                .anyMatch(storedParameter -> parameterData
+                                                .getKey()
+                                                .equals(storedParameter.getParameterName())
+                                        && parameterData.getValue().equals(storedParameter.getParameterValue()))));
+    }
+
+    @Override
+    public long getStorageSize() {
+        this.lock.readLock().lock();
+        try {
+            long storageSize = 0;
+            for (final Segment segment : this.segments) {
+                storageSize += segment.position;
+            }
+            return storageSize;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.lock.writeLock().lock();
+        try {
+            for (final Segment segment : this.segments) {
+                try {
+                    segment.close();
+                } catch (final IOException e) {
+                    LOG.error("Could not close segment {}", segment.path, e);
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void recoverSegments() throws IOException {
+        final List<Path> segmentFiles;
+        try (final Stream<Path> files = Files.list(this.directory)) {
+            segmentFiles = files.filter(file -> file.getFileName().toString().matches("segment-\\d+\\.log"))
+                    .sorted()
+                    .toList();
+        }
+        for (final Path segmentFile : segmentFiles) {
+            final Segment segment = Segment.open(segmentFile, Math.toIntExact(Files.size(segmentFile)));
+            this.segments.add(segment);
+            final int segmentIndex = this.segments.size() - 1;
+            int offset = 0;
+            int length;
+            while ((length = segment.recordLength(offset)) > 0) {
+                final RecordLocation location = new RecordLocation(segmentIndex, offset, length);
+                this.index(SegmentLogCodec.decode(this.readRecord(location)), location);
+                offset += Segment.recordSize(length);
+            }
+            segment.position = offset;
+        }
+        if (!segmentFiles.isEmpty()) {
+            LOG.info(
+                    "Indexed {} messages and {} manipulations from {} existing segments in {}",
+                    this.messageCount,
+                    this.manipulations.size(),
+                    segmentFiles.size(),
+                    this.directory);
+        }
+    }
+
+    private Segment createSegment(final int capacity) throws IOException {
+        final Path path = this.directory.resolve(String.format(SEGMENT_FILE_FORMAT, this.segments.size()));
+        final Segment segment = Segment.create(path, capacity);
+        this.segments.add(segment);
+        return segment;
+    }
+
+    private void index(final Object entity, final RecordLocation location) {
+        if (entity instanceof final MessageContent messageContent) {
+            final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups =
+                    messageContent.getMdibVersionGroups().stream()
+                            .map(group -> new MdibVersionGroupEntity.MdibVersionGroup(
+                                    group.getMdibVersion(),
+                                    this.intern(group.getSequenceId()),
+                                    this.intern(group.getBodyElement())))
+                            .toList();
+            final MessageIndexEntry entry = new MessageIndexEntry(
+                    this.messageCount++,
+                    location,
+                    messageContent.getDirection(),
+                    messageContent.getMessageType(),
+                    messageContent.getIsSOAP() || hasSoapContentType(messageContent),
+                    Constants.HTTP_SCHEME.equalsIgnoreCase(messageContent.getScheme())
+                            || Constants.HTTPS_SCHEME.equalsIgnoreCase(messageContent.getScheme()),
+                    messageContent.getNanoTimestamp(),
+                    mdibVersionGroups);
+
+            this.messagesByDirection
+                    .computeIfAbsent(entry.direction(), direction -> new ArrayList<>())
+                    .add(entry);
+            mdibVersionGroups.stream()
+                    .map(MdibVersionGroupEntity.MdibVersionGroup::bodyElement)
+                    .distinct()
+                    .forEach(bodyElement -> this.messagesByBodyElement
+                            .computeIfAbsent(bodyElement, key -> new ArrayList<>())
+                            .add(entry));
+            for (final MdibVersionGroupEntity.MdibVersionGroup group : mdibVersionGroups) {
+                this.firstTimestampBySequenceId.merge(group.sequenceId(), entry.nanoTimestamp(), Math::min);
+            }
+        } else if (entity instanceof final ManipulationData manipulationData) {
+            this.manipulations.add(new ManipulationIndexEntry(
+                    location, manipulationData.getStartTimestamp(), this.intern(manipulationData.getMethodName())));
+        } else {
+            throw new IllegalArgumentException("Unsupported entity type " + entity.getClass());
+        }
+    }
+
+    @Nullable
+    private String intern(@Nullable final String value) {
+        return value == null ? null : this.internedStrings.computeIfAbsent(value, key -> key);
+    }
+
+    private List<MessageIndexEntry> findMessages(
+            final CommunicationLog.Direction direction, final Predicate<MessageIndexEntry> filter) {
+        this.lock.readLock().lock();
+        try {
+            return this.messagesByDirection.getOrDefault(direction, List.of()).stream()
+                    .filter(filter)
+                    .toList();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private List<MessageIndexEntry> findMessages(
+            final List<String> bodyElements, final Predicate<MessageIndexEntry> filter) {
+        this.lock.readLock().lock();
+        try {
+            // a message containing several of the body elements must only be returned once, in insertion order
+            return bodyElements.stream()
+                    .distinct()
+                    .flatMap(bodyElement -> this.messagesByBodyElement.getOrDefault(bodyElement, List.of()).stream())
+                    .distinct()
+                    .filter(filter)
+                    .sorted(Comparator.comparingInt(MessageIndexEntry::ordinal))
+                    .toList();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private List<ManipulationIndexEntry> findManipulations(
+            final Predicate<ManipulationIndexEntry> filter, final boolean sortByStartTimestamp) {
+        this.lock.readLock().lock();
+        try {
+            final Stream<ManipulationIndexEntry> matches =
+                    this.manipulations.stream().filter(filter);
+            return (sortByStartTimestamp
+                            ? matches.sorted(Comparator.comparingLong(ManipulationIndexEntry::startTimestamp))
+                            : matches)
+                    .toList();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private Stream<MessageContent> readMessages(final List<MessageIndexEntry> entries) {
+        return entries.stream()
+                .map(entry -> (MessageContent) SegmentLogCodec.decode(this.readRecord(entry.location())));
+    }
+
+    private Stream<ManipulationData> readManipulations(final List<ManipulationIndexEntry> entries) {
+        return entries.stream()
+                .map(entry -> (ManipulationData) SegmentLogCodec.decode(this.readRecord(entry.location())));
+    }
+
+    private byte[] readRecord(final RecordLocation location) {
+        return this.segments.get(location.segment()).read(location.offset(), location.length());
+    }
+
+    private static List<MessageIndexEntry> sortByMatchingMdibVersionGroup(
+            final List<MessageIndexEntry> matches,
+            final Predicate<MdibVersionGroupEntity.MdibVersionGroup> matchesGroup,
+            final Comparator<SortKey> comparator) {
+        // like the query of the hibernate backend, a message is placed at its first matching MdibVersionGroup
+        final List<SortKey> keys = new ArrayList<>();
+        for (final MessageIndexEntry entry : matches) {
+            for (final MdibVersionGroupEntity.MdibVersionGroup group : entry.mdibVersionGroups()) {
+                if (matchesGroup.test(group)) {
+                    keys.add(new SortKey(entry, group.mdibVersion(), group.bodyElement()));
+                }
+            }
+        }
+        keys.sort(comparator);
+        return keys.stream().map(SortKey::entry).distinct().toList();
+    }
+
+    private static List<String> toBodyElements(final QName... bodyTypes) {
+        return Arrays.stream(bodyTypes).map(QName::toString).toList();
+    }
+
+    private static boolean hasSoapContentType(final MessageContent messageContent) {
+        return messageContent.getHeaders().entrySet().stream()
+                .filter(header ->
+                        HTTP_HEADER_NAME_CONTENT_TYPE.equals(header.getKey().toLowerCase(Locale.ROOT)))
+                .flatMap(header -> header.getValue().stream())
+                .anyMatch(value -> value.toLowerCase(Locale.ROOT).contains(SOAP_CONTENT_TYPE));
+    }
+
+    /**
+     * Position of a record within the segment log.
+     *
+     * @param segment index of the segment
+     * @param offset  of the length prefix of the record within the segment
+     * @param length  of the record without its length prefix
+     */
+    private record RecordLocation(int segment, int offset, int length) {}
+
+    /**
+     * Index entry of a persisted {@linkplain MessageContent}.
+     *
+     * @param ordinal           position of the message in insertion order
+     * @param location          of the record
+     * @param direction         of the message
+     * @param messageType       of the message
+     * @param soap              whether the message has a SOAP envelope or SOAP content type
+     * @param http              whether the message was transmitted via HTTP or HTTPS
+     * @param nanoTimestamp     of the message
+     * @param mdibVersionGroups of the message
+     */
+    private record MessageIndexEntry(
+            int ordinal,
+            RecordLocation location,
+            CommunicationLog.Direction direction,
+            CommunicationLog.MessageType messageType,
+            boolean soap,
+            boolean http,
+            long nanoTimestamp,
+            List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups) {
+
+        private boolean hasMdibVersionGroup(final Predicate<MdibVersionGroupEntity.MdibVersionGroup> predicate) {
+            return this.mdibVersionGroups.stream().anyMatch(predicate);
+        }
+    }
+
+    /**
+     * Index entry of a persisted {@linkplain ManipulationData}.
+     *
+     * @param location       of the record
+     * @param startTimestamp of the manipulation
+     * @param methodName     of the manipulation
+     */
+    private record ManipulationIndexEntry(RecordLocation location, long startTimestamp, String methodName) {}
+
+    /**
+     * Sort key of a message for one of its MdibVersionGroups.
+     *
+     * @param entry       of the message
+     * @param mdibVersion to sort by
+     * @param bodyElement to sort by
+     */
+    private record SortKey(MessageIndexEntry entry, long mdibVersion, String bodyElement) {}
+
+    /**
+     * Memory-mapped segment file, records are written behind each other as length prefix followed by the record.
+     * The length prefix is written last, hence a zero length marks the end of the written part of the segment.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(final Path path, final FileChannel channel, final int capacity) throws IOException {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            this.position = 0;
+        }
+
+        private static Segment create(final Path path, final int capacity) throws IOException {
+            return new Segment(
+                    path,
+                    FileChannel.open(
+                            path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                    capacity);
+        }
+
+        private static Segment open(final Path path, final int capacity) throws IOException {
+            return new Segment(
+                    path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE), capacity);
+        }
+
+        private static int recordSize(final byte[] record) {
+            return recordSize(record.length);
+        }
+
+        private static int recordSize(final int length) {
+            return Integer.BYTES + length;
+        }
+
+        private boolean fits(final byte[] record) {
+            return this.buffer.capacity() - this.position >= recordSize(record);
+        }
+
+        private int append(final byte[] record) {
+            final int offset = this.position;
+            this.buffer.put(offset + Integer.BYTES, record);
+            this.buffer.putInt(offset, record.length);
+            this.position += recordSize(record);
+            return offset;
+        }
+
+        private int recordLength(final int offset) {
+            if (this.buffer.capacity() - offset < Integer.BYTES) {
+                return 0;
+            }
+            return this.buffer.getInt(offset);
+        }
+
+        private byte[] read(final int offset, final int length) {
+            final byte[] record = new byte[length];
+            this.buffer.get(offset + Integer.BYTES, record);
+            return record;
+        }
+
+        private void close() throws IOException {
+            this.buffer.force();
+            this.channel.close();
+        }
+    }
+}
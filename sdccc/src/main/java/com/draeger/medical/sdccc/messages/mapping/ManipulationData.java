@@ -12,13 +12,11 @@ import java.util.List;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 import org.apache.commons.lang3.tuple.Pair;
-import org.hibernate.annotations.GenericGenerator;
 
 /**
  * POJO for persisting relevant manipulation data.
@@ -30,10 +28,9 @@ public class ManipulationData {
     @Transient
     private static final int MAXIMUM_LENGTH = 2147483647;
 
+    // allocated when the manipulation was captured
     @Id
-    @GenericGenerator(name = "ManipulationDataIDGen", strategy = "increment")
-    @GeneratedValue(generator = "ManipulationDataIDGen")
-    private long incId;
+    private long entryId;
 
     private long startTimestamp;
     private long finishTimestamp;
@@ -47,8 +44,6 @@ public class ManipulationData {
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "manipulationData", orphanRemoval = true)
     private List<ManipulationParameter> parameters;
 
-    private String uuid;
-
     /**
      * This will be used by hibernate when creating the POJO from database entries.
      */
@@ -63,7 +58,7 @@ public class ManipulationData {
      * @param response        of the manipulation
      * @param methodName      of the manipulation
      * @param parameters      of the manipulation
-     * @param uuid            of the manipulation
+     * @param entryId         identifier allocated when the manipulation was captured
      */
     public ManipulationData(
             final long startTimestamp,
@@ -72,7 +67,7 @@ public class ManipulationData {
             final String response,
             final String methodName,
             final List<Pair<String, String>> parameters,
-            final String uuid) {
+            final long entryId) {
         this.startTimestamp = startTimestamp;
         this.finishTimestamp = finishTimestamp;
         this.response = response;
@@ -83,7 +78,7 @@ public class ManipulationData {
             manipulationParameters.add(new ManipulationParameter(parameter.getKey(), parameter.getValue(), this));
         }
         this.parameters = manipulationParameters;
-        this.uuid = uuid;
+        this.entryId = entryId;
     }
 
     public long getStartTimestamp() {
@@ -102,8 +97,8 @@ public class ManipulationData {
         return methodName;
     }
 
-    public String getUuid() {
-        return uuid;
+    public long getEntryId() {
+        return entryId;
     }
 
     public List<ManipulationParameter> getParameters() {
@@ -20,14 +20,13 @@ import javax.persistence.metamodel.StaticMetamodel;
         justification = "This is a commonly made design choice for persistence meta models.")
 @StaticMetamodel(ManipulationData.class)
 public final class ManipulationData_ {
-    public static volatile SingularAttribute<ManipulationData, Long> incId;
+    public static volatile SingularAttribute<ManipulationData, Long> entryId;
     public static volatile SingularAttribute<ManipulationData, Long> startTimestamp;
     public static volatile SingularAttribute<ManipulationData, Long> finishTimestamp;
     public static volatile SingularAttribute<ManipulationData, ResponseTypes.Result> result;
     public static volatile SingularAttribute<ManipulationData, String> response;
     public static volatile SingularAttribute<ManipulationData, String> methodName;
     public static volatile ListAttribute<ManipulationData, ManipulationParameter> parameters;
-    public static volatile SingularAttribute<ManipulationData, String> uuid;
 
     private ManipulationData_() {}
 }
@@ -11,6 +11,7 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import org.hibernate.annotations.GenericGenerator;
@@ -19,7 +20,12 @@ import org.hibernate.annotations.GenericGenerator;
  * POJO for persisting MdibVersionGroups.
  */
 @Entity(name = "MdibVersionGroupEntity")
-@Table(name = "mdib_version_groups")
+@Table(
+        name = "mdib_version_groups",
+        indexes = {
+            // body type and SequenceId filters of the message queries, selecting the matching messages first
+            @Index(name = "mdib_version_groups_body_element_idx", columnList = "bodyElement, sequenceId, mdibVersion")
+        })
 public class MdibVersionGroupEntity {
 
     @Id
@@ -6,7 +6,13 @@
 
 package com.draeger.medical.sdccc.messages.mapping;
 
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
 import com.draeger.medical.sdccc.messages.util.MessageUtil;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -20,12 +26,12 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Transient;
-import org.hibernate.annotations.GenericGenerator;
 import org.somda.sdc.dpws.CommunicationLog;
 import org.somda.sdc.dpws.soap.CommunicationContext;
 import org.somda.sdc.dpws.soap.HttpApplicationInfo;
@@ -34,19 +40,37 @@ import org.somda.sdc.dpws.soap.HttpApplicationInfo;
  * POJO for persisting relevant message information.
  */
 @Entity(name = "MessageContent")
-@Table(name = "message_content")
+@Table(
+        name = "message_content",
+        indexes = {
+            // direction filters and nanoTimestamp ordering and ranges of most queries
+            @Index(name = "message_content_direction_idx", columnList = "direction, nanoTimestamp")
+        })
 public class MessageContent {
 
     @Transient
     private static final int MAXIMUM_LENGTH = 2147483647;
 
+    @Transient
+    private static final int MESSAGE_HASH_LENGTH = 32;
+
+    // allocated when the message was captured
     @Id
-    @GenericGenerator(name = "MessageContentIDGen", strategy = "increment")
-    @GeneratedValue(generator = "MessageContentIDGen")
-    private long incId;
+    private long entryId;
+
+    @Lob
+    @Column(columnDefinition = "blob", length = MAXIMUM_LENGTH)
+    private byte[] body;
+
+    private String bodyCharset;
 
-    @Column(columnDefinition = "clob", length = MAXIMUM_LENGTH)
-    private String body;
+    private MessageBodyCodec bodyCodec;
+
+    @Transient
+    private byte[] uncompressedBody;
+
+    @Transient
+    private String decodedBody;
 
     @ElementCollection
     @Column(columnDefinition = "blob", length = MAXIMUM_LENGTH)
@@ -70,9 +94,11 @@ public class MessageContent {
     private String requestUri;
     private long timestamp;
     private long nanoTimestamp;
-    private String messageHash;
+
+    @Column(length = MESSAGE_HASH_LENGTH)
+    private byte[] messageHash;
+
     private String scheme;
-    private String uuid;
     private boolean isSOAP;
 
     @Column(nullable = true)
@@ -86,7 +112,7 @@ public class MessageContent {
     /**
      * This will be used when creating the POJO before loading it into the database.
      *
-     * @param body                 data send on top of the transport or application layer
+     * @param body                 data send on top of the transport or application layer, will be stored UTF-8 encoded
      * @param communicationContext information about the transport and application layer
      * @param direction            declares, if the message was outgoing or ingoing
      * @param messageType          type of the message, i.e. request, response
@@ -95,7 +121,7 @@ public class MessageContent {
      *                             useful for sorting
      * @param mdibVersionGroups    MdibVersionGroup values
      * @param actions              ws addressing actions
-     * @param uuid                 identifier for ensuring, that a message was written to the database
+     * @param entryId              identifier allocated when the message was captured
      * @param isSOAP               shall be true if a SOAP envelope was found and false otherwise
      * @param sender               the IP address of the message's sender or null if it could not be determined.
      */
@@ -108,21 +134,74 @@ public class MessageContent {
             final long nanoTimestamp,
             final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups,
             final Set<String> actions,
-            final String uuid,
+            final long entryId,
+            final boolean isSOAP,
+            @Nullable final String sender) {
+        this(
+                body.getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8,
+                null,
+                communicationContext,
+                direction,
+                messageType,
+                timestamp,
+                nanoTimestamp,
+                mdibVersionGroups,
+                actions,
+                entryId,
+                isSOAP,
+                sender);
+        this.decodedBody = body;
+    }
+
+    /**
+     * This will be used when creating the POJO before loading it into the database.
+     *
+     * @param body                 raw data send on top of the transport or application layer, as transmitted
+     * @param bodyCharset          charset the body is encoded in
+     * @param messageDigest        SHA-256 hash of the body, e.g. computed while it was captured, hashed from the
+     *                             body if null
+     * @param communicationContext information about the transport and application layer
+     * @param direction            declares, if the message was outgoing or ingoing
+     * @param messageType          type of the message, i.e. request, response
+     * @param timestamp            time point of the stream creation for getting the body
+     * @param nanoTimestamp        point in time relative to current jvm start at which message arrived,
+     *                             useful for sorting
+     * @param mdibVersionGroups    MdibVersionGroup values
+     * @param actions              ws addressing actions
+     * @param entryId              identifier allocated when the message was captured
+     * @param isSOAP               shall be true if a SOAP envelope was found and false otherwise
+     * @param sender               the IP address of the message's sender or null if it could not be determined.
+     */
+    public MessageContent(
+            final byte[] body,
+            final Charset bodyCharset,
+            @Nullable final byte[] messageDigest,
+            final CommunicationContext communicationContext,
+            final CommunicationLog.Direction direction,
+            final CommunicationLog.MessageType messageType,
+            final long timestamp,
+            final long nanoTimestamp,
+            final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups,
+            final Set<String> actions,
+            final long entryId,
             final boolean isSOAP,
             @Nullable final String sender) {
 
         this.body = body;
+        this.bodyCharset = bodyCharset.name();
+        this.bodyCodec = MessageBodyCodec.NONE;
+        this.uncompressedBody = body;
         this.direction = direction;
         this.messageType = messageType;
         this.timestamp = timestamp;
         this.nanoTimestamp = nanoTimestamp;
         this.actions = actions;
-        this.uuid = uuid;
+        this.entryId = entryId;
         this.isSOAP = isSOAP;
         this.sender = sender;
 
-        this.messageHash = MessageUtil.hashMessage(this.body);
+        this.messageHash = messageDigest != null ? messageDigest : MessageUtil.digestMessage(this.body);
         this.scheme = communicationContext.getTransportInfo().getScheme();
 
         this.certs = communicationContext.getTransportInfo().getX509Certificates();
@@ -152,8 +231,70 @@ public class MessageContent {
                 .toList();
     }
 
+    /**
+     * Decodes the body using its charset. The decoded body is cached, prefer {@linkplain #getBodyStream()} when the
+     * body is only going to be parsed.
+     *
+     * @return the decoded body
+     */
     public String getBody() {
-        return this.body;
+        if (this.decodedBody == null) {
+            this.decodedBody = new String(getUncompressedBody(), getBodyCharset());
+        }
+        return this.decodedBody;
+    }
+
+    /**
+     * @return stream over the raw body bytes, encoded in {@linkplain #getBodyCharset()}
+     */
+    public InputStream getBodyStream() {
+        return new ByteArrayInputStream(getUncompressedBody());
+    }
+
+    /**
+     * @return read-only buffer over the raw body bytes, encoded in {@linkplain #getBodyCharset()}
+     */
+    public ByteBuffer getBodyBuffer() {
+        return ByteBuffer.wrap(getUncompressedBody()).asReadOnlyBuffer();
+    }
+
+    public Charset getBodyCharset() {
+        return Charset.forName(this.bodyCharset);
+    }
+
+    public MessageBodyCodec getBodyCodec() {
+        return this.bodyCodec;
+    }
+
+    /**
+     * @return read-only buffer over the body as it is persisted, i.e. compressed using {@linkplain #getBodyCodec()}
+     */
+    public ByteBuffer getStoredBodyBuffer() {
+        return ByteBuffer.wrap(this.body).asReadOnlyBuffer();
+    }
+
+    /**
+     * Compresses the body for persisting it, bodies which do not get smaller are persisted as they are. The body
+     * exposed by the other accessors is not affected.
+     *
+     * @param codec to compress the body with
+     */
+    public void compressBody(final MessageBodyCodec codec) {
+        if (this.bodyCodec != MessageBodyCodec.NONE || codec == MessageBodyCodec.NONE) {
+            return;
+        }
+        final byte[] compressedBody = codec.compress(this.body);
+        if (compressedBody.length < this.body.length) {
+            this.body = compressedBody;
+            this.bodyCodec = codec;
+        }
+    }
+
+    private byte[] getUncompressedBody() {
+        if (this.uncompressedBody == null) {
+            this.uncompressedBody = this.bodyCodec.decompress(this.body);
+        }
+        return this.uncompressedBody;
     }
 
     public String getScheme() {
@@ -164,16 +305,26 @@ public class MessageContent {
         return this.actions;
     }
 
-    public String getUuid() {
-        return this.uuid;
+    public long getEntryId() {
+        return this.entryId;
     }
 
     public boolean getIsSOAP() {
         return this.isSOAP;
     }
 
+    /**
+     * @return hex representation of the SHA-256 hash of the body, e.g. for identifying the message in reports
+     */
     public String getMessageHash() {
-        return this.messageHash;
+        return MessageUtil.formatMessageHash(this.messageHash);
+    }
+
+    /**
+     * @return SHA-256 hash of the body
+     */
+    public byte[] getMessageDigest() {
+        return this.messageHash.clone();
     }
 
     public long getTimestamp() {
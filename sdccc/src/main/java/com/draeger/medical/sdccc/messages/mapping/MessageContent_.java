@@ -6,6 +6,7 @@
 
 package com.draeger.medical.sdccc.messages.mapping;
 
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.security.cert.X509Certificate;
 import javax.persistence.metamodel.ListAttribute;
@@ -23,8 +24,10 @@ import org.somda.sdc.dpws.CommunicationLog;
 @StaticMetamodel(MessageContent.class)
 public final class MessageContent_ {
 
-    public static volatile SingularAttribute<MessageContent, Long> incId;
-    public static volatile SingularAttribute<MessageContent, String> body;
+    public static volatile SingularAttribute<MessageContent, Long> entryId;
+    public static volatile SingularAttribute<MessageContent, byte[]> body;
+    public static volatile SingularAttribute<MessageContent, String> bodyCharset;
+    public static volatile SingularAttribute<MessageContent, MessageBodyCodec> bodyCodec;
     public static volatile ListAttribute<MessageContent, X509Certificate> certs;
     public static volatile ListAttribute<MessageContent, HTTPHeaderEntity> headers;
     public static volatile SingularAttribute<MessageContent, CommunicationLog.Direction> direction;
@@ -33,11 +36,10 @@ public final class MessageContent_ {
     public static volatile SingularAttribute<MessageContent, String> requestUri;
     public static volatile SingularAttribute<MessageContent, Long> timestamp;
     public static volatile SingularAttribute<MessageContent, Long> nanoTimestamp;
-    public static volatile SingularAttribute<MessageContent, String> messageHash;
+    public static volatile SingularAttribute<MessageContent, byte[]> messageHash;
     public static volatile ListAttribute<MessageContent, MdibVersionGroupEntity> mdibVersionGroups;
     public static volatile SetAttribute<MessageContent, String> actions;
     public static volatile SingularAttribute<MessageContent, String> scheme;
-    public static volatile SingularAttribute<MessageContent, String> uuid;
     public static volatile SingularAttribute<MessageContent, Boolean> isSOAP;
     public static volatile SingularAttribute<MessageContent, String> sender;
 
@@ -0,0 +1,145 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codecs for compressing persisted message bodies.
+ */
+public enum MessageBodyCodec {
+
+    /**
+     * Stores message bodies as transmitted.
+     */
+    NONE("None") {
+        @Override
+        public byte[] compress(final byte[] data) {
+            return data;
+        }
+
+        @Override
+        public byte[] decompress(final byte[] data) {
+            return data;
+        }
+    },
+
+    /**
+     * Compresses message bodies using Deflate with a preset dictionary of SDC vocabulary.
+     */
+    DEFLATE("Deflate") {
+        @Override
+        public byte[] compress(final byte[] data) {
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setDictionary(DICTIONARY);
+                deflater.setInput(data);
+                deflater.finish();
+                final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + BUFFER_SIZE);
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decompress(final byte[] data) {
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(data.length, BUFFER_SIZE));
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                while (!inflater.finished()) {
+                    final int length = inflater.inflate(buffer);
+                    if (length == 0) {
+                        if (inflater.needsDictionary()) {
+                            inflater.setDictionary(DICTIONARY);
+                        } else if (inflater.needsInput()) {
+                            throw new IllegalStateException("Compressed message body is truncated");
+                        }
+                    }
+                    out.write(buffer, 0, length);
+                }
+                return out.toByteArray();
+            } catch (final DataFormatException e) {
+                throw new IllegalStateException("Compressed message body is corrupt", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Deflate references the dictionary like preceding data, the most frequent strings are therefore placed last.
+    // The dictionary must never change, otherwise previously compressed bodies can no longer be decompressed.
+    private static final byte[] DICTIONARY = String.join(
+                    "",
+                    "http://docs.oasis-open.org/ws-dd/ns/dpws/2009/01",
+                    "http://docs.oasis-open.org/ws-dd/ns/discovery/2009/01",
+                    "http://schemas.xmlsoap.org/ws/2004/08/eventing",
+                    "http://schemas.xmlsoap.org/ws/2004/09/mex",
+                    "http://schemas.xmlsoap.org/ws/2004/09/transfer",
+                    "http://standards.ieee.org/downloads/11073/11073-20702-2016",
+                    "http://standards.ieee.org/downloads/11073/11073-10207-2017/extension",
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                    "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"",
+                    "xmlns:wsa=\"http://www.w3.org/2005/08/addressing\"",
+                    "<wsa:Action>",
+                    "</wsa:Action><wsa:MessageID>urn:uuid:</wsa:MessageID><wsa:RelatesTo>",
+                    "<s12:Envelope xmlns:s12=\"http://www.w3.org/2003/05/soap-envelope\"",
+                    "<s12:Header></s12:Header><s12:Body></s12:Body></s12:Envelope>",
+                    "xmlns:msg=\"http://standards.ieee.org/downloads/11073/11073-10207-2017/message\"",
+                    "xmlns:pm=\"http://standards.ieee.org/downloads/11073/11073-10207-2017/participant\"",
+                    "<msg:ReportPart><msg:SourceMds></msg:SourceMds></msg:ReportPart>",
+                    "<pm:Type Code=\"\" CodingSystem=\"\"></pm:Type><pm:Unit Code=\"\"></pm:Unit>",
+                    "<pm:MetricValue DeterminationTime=\"\" Value=\"\"><pm:MetricQuality Validity=\"Vld\"/>",
+                    "</pm:MetricValue>",
+                    " xsi:type=\"pm:NumericMetricState\" xsi:type=\"pm:NumericMetricDescriptor\"",
+                    " ActivationState=\"On\" DescriptorVersion=\"0\" StateVersion=\"0\"",
+                    " MdibVersion=\"\" SequenceId=\"urn:uuid:\" InstanceId=\"0\"",
+                    " DescriptorHandle=\"\" Handle=\"\"")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final String name;
+
+    MessageBodyCodec(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the codec as used in the configuration
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Compresses a message body.
+     *
+     * @param data the message body as transmitted
+     * @return the compressed message body
+     */
+    public abstract byte[] compress(byte[] data);
+
+    /**
+     * Decompresses a message body compressed by {@linkplain #compress(byte[])} of the same codec.
+     *
+     * @param data the compressed message body
+     * @return the message body as transmitted
+     * @throws IllegalStateException if the data is not a valid compressed message body
+     */
+    public abstract byte[] decompress(byte[] data);
+}
@@ -9,6 +9,8 @@ package com.draeger.medical.sdccc.messages.util;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -18,7 +20,11 @@ import org.apache.logging.log4j.Logger;
 public final class MessageUtil {
     private static final Logger LOG = LogManager.getLogger(MessageUtil.class);
 
-    private static final int BYTE_SIZE = 0xff;
+    private static final String MESSAGE_DIGEST_ALGORITHM = "SHA-256";
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+
+    private static final long ENTRY_IDS_PER_MILLISECOND = 1000;
+    private static final AtomicLong LAST_ENTRY_ID = new AtomicLong();
 
     private MessageUtil() {}
 
@@ -29,25 +35,75 @@ public final class MessageUtil {
      * @return hex representation of the SHA-256 hash
      */
     public static String hashMessage(final String data) {
+        return hashMessage(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hashes raw message bytes using the SHA-256 algorithm.
+     *
+     * @param data bytes to hash
+     * @return hex representation of the SHA-256 hash
+     */
+    public static String hashMessage(final byte[] data) {
+        return formatMessageHash(digestMessage(data));
+    }
+
+    /**
+     * Hashes raw message bytes using the SHA-256 algorithm.
+     *
+     * @param data bytes to hash
+     * @return the SHA-256 hash
+     */
+    public static byte[] digestMessage(final byte[] data) {
+        return createMessageDigest().digest(data);
+    }
+
+    /**
+     * Creates a digest for hashing messages incrementally, e.g. while they are captured.
+     *
+     * @return a new SHA-256 digest
+     */
+    public static MessageDigest createMessageDigest() {
         try {
-            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            final byte[] encodedHash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(encodedHash);
+            return MessageDigest.getInstance(MESSAGE_DIGEST_ALGORITHM);
         } catch (final NoSuchAlgorithmException e) {
             LOG.error("Error while initializing message digest", e);
             throw new RuntimeException(e);
         }
     }
 
-    private static String bytesToHex(final byte[] hash) {
-        final StringBuilder hexString = new StringBuilder();
-        for (final byte b : hash) {
-            final String hex = Integer.toHexString(BYTE_SIZE & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
-        }
-        return hexString.toString();
+    /**
+     * Formats a message hash, e.g. for logs and reports.
+     *
+     * @param hash to format
+     * @return hex representation of the hash
+     */
+    public static String formatMessageHash(final byte[] hash) {
+        return HEX_FORMAT.formatHex(hash);
+    }
+
+    /**
+     * Allocates the identifier of a captured message or manipulation.
+     *
+     * <p>
+     * Identifiers are derived from the current time and strictly increase, i.e. they are unique within the process
+     * and ordered by the time they were allocated at. Up to {@value #ENTRY_IDS_PER_MILLISECOND} identifiers per
+     * millisecond are allocated without running ahead of the clock.
+     *
+     * @return the next identifier
+     */
+    public static long nextEntryId() {
+        final long timeBasedId = System.currentTimeMillis() * ENTRY_IDS_PER_MILLISECOND;
+        return LAST_ENTRY_ID.updateAndGet(lastId -> Math.max(lastId + 1, timeBasedId));
+    }
+
+    /**
+     * Formats the identifier of a captured message or manipulation, e.g. for logs and reports.
+     *
+     * @param entryId to format
+     * @return fixed width hex representation of the identifier, which sorts like the identifier itself
+     */
+    public static String formatEntryId(final long entryId) {
+        return HEX_FORMAT.toHexDigits(entryId);
     }
 }
@@ -10,6 +10,7 @@ import com.draeger.medical.sdccc.configuration.TestSuiteConfig;
 import com.draeger.medical.sdccc.messages.MessageStorage;
 import com.draeger.medical.sdccc.sdcri.CommunicationLogMessageStorage;
 import com.draeger.medical.sdccc.tests.util.MdibHistorian;
+import com.draeger.medical.sdccc.tests.util.ParsedMessageCache;
 import com.draeger.medical.sdccc.tests.util.guice.MdibHistorianFactory;
 import com.draeger.medical.sdccc.util.Constants;
 import com.draeger.medical.sdccc.util.TestRunObserver;
@@ -100,6 +101,7 @@ public class TestClientUtil {
      *                                       Values from 1 to 255 are valid.
      * @param enabledTlsProtocols            TLS protocol versions to be enabled
      * @param enabledCiphers                 ciphers to be enabled
+     * @param parsedMessageCacheSize         maximum number of messages kept by the {@linkplain ParsedMessageCache}
      * @param configurationModule            configuration for AbstractConfigurationModule
      */
     @Inject
@@ -111,6 +113,7 @@ public class TestClientUtil {
             @Named(TestSuiteConfig.NETWORK_MULTICAST_TTL) final Long multicastTTL,
             @Named(TestSuiteConfig.TLS_ENABLED_PROTOCOLS) final String[] enabledTlsProtocols,
             @Named(TestSuiteConfig.TLS_ENABLED_CIPHERS) final String[] enabledCiphers,
+            @Named(TestSuiteConfig.PARSED_MESSAGE_CACHE_SIZE) final int parsedMessageCacheSize,
             @Named(Constants.CONFIGURATION_MODULE) final AbstractConfigurationModule configurationModule) {
 
         injector = createClientInjector(List.of(
@@ -127,6 +130,7 @@ public class TestClientUtil {
                         bind(DpwsConfig.HTTPS_SUPPORT, Boolean.class, true);
                         bind(DpwsConfig.HTTP_SUPPORT, Boolean.class, false);
                         bind(DpwsConfig.MULTICAST_TTL, Integer.class, multicastTTL.intValue());
+                        bind(TestSuiteConfig.PARSED_MESSAGE_CACHE_SIZE, int.class, parsedMessageCacheSize);
                     }
                 },
                 new AbstractModule() {
@@ -293,6 +297,15 @@ public class TestClientUtil {
                                 .implement(MdibHistorian.class, MdibHistorian.class)
                                 .build(MdibHistorianFactory.class));
                     }
+                },
+                new AbstractConfigurationModule() {
+                    @Override
+                    protected void defaultConfigure() {
+                        bind(
+                                TestSuiteConfig.PARSED_MESSAGE_CACHE_SIZE,
+                                int.class,
+                                ParsedMessageCache.DEFAULT_MAXIMUM_SIZE);
+                    }
                 });
 
         return Guice.createInjector(Modules.override(BASE_MODULES).with(overrides));
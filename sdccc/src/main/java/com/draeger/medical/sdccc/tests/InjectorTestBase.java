@@ -8,6 +8,8 @@ package com.draeger.medical.sdccc.tests;
 
 import com.draeger.medical.sdccc.tests.util.NoTestData;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
 import java.util.Collection;
 import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
@@ -42,6 +44,16 @@ public class InjectorTestBase {
         InjectorTestBase.injector = injector;
     }
 
+    /**
+     * Determines whether a test is enabled in the configuration.
+     *
+     * @param testIdentifier of the test, see {@linkplain com.draeger.medical.sdccc.configuration.EnabledTestConfig}
+     * @return true if the test is enabled, false otherwise
+     */
+    public static boolean isTestEnabled(final String testIdentifier) {
+        return getInjector().getInstance(Key.get(Boolean.class, Names.named(testIdentifier)));
+    }
+
     /**
      * Asserts whether the provided collection is not empty.
      *
@@ -25,14 +25,13 @@ import com.draeger.medical.sdccc.tests.annotations.TestIdentifier;
 import com.draeger.medical.sdccc.tests.util.ImpliedValueUtil;
 import com.draeger.medical.sdccc.tests.util.InitialImpliedValue;
 import com.draeger.medical.sdccc.tests.util.InitialImpliedValueException;
-import com.draeger.medical.sdccc.tests.util.MdibHistorian;
+import com.draeger.medical.sdccc.tests.util.MdibSnapshot;
 import com.draeger.medical.sdccc.tests.util.NoTestData;
+import com.draeger.medical.sdccc.tests.util.ParsedMessageCache;
 import com.draeger.medical.sdccc.tests.util.guice.MdibHistorianFactory;
 import com.draeger.medical.sdccc.util.Constants;
 import com.draeger.medical.sdccc.util.TestRunObserver;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -40,13 +39,11 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.util.TriConsumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.somda.sdc.biceps.common.storage.PreprocessingException;
 import org.somda.sdc.biceps.consumer.access.RemoteMdibAccess;
 import org.somda.sdc.biceps.model.message.AbstractReport;
 import org.somda.sdc.biceps.model.message.DescriptionModificationReport;
@@ -70,18 +67,16 @@ import org.somda.sdc.biceps.model.participant.MdsDescriptor;
 import org.somda.sdc.biceps.model.participant.ScoDescriptor;
 import org.somda.sdc.biceps.model.participant.SystemContextDescriptor;
 import org.somda.sdc.biceps.model.participant.VmdDescriptor;
-import org.somda.sdc.dpws.soap.MarshallingService;
 import org.somda.sdc.dpws.soap.SoapMessage;
 import org.somda.sdc.dpws.soap.SoapUtil;
 import org.somda.sdc.dpws.soap.exception.MarshallingException;
-import org.somda.sdc.glue.consumer.report.ReportProcessingException;
 
 /**
  * Test for the normative Annex Message Model of BICEPS.
  */
 public class InvariantMessageModelAnnexTest extends InjectorTestBase {
     private static final String STATE_UNCHANGED = "The state with the handle %s from the report has not changed";
-    private MarshallingService marshalling;
+    private ParsedMessageCache parsedMessageCache;
     private SoapUtil soapUtil;
     private MessageStorage messageStorage;
     private MdibHistorianFactory mdibHistorianFactory;
@@ -91,7 +86,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
         this.messageStorage = getInjector().getInstance(MessageStorage.class);
         final var riInjector = getInjector().getInstance(TestClient.class).getInjector();
         this.mdibHistorianFactory = riInjector.getInstance(MdibHistorianFactory.class);
-        this.marshalling = riInjector.getInstance(MarshallingService.class);
+        this.parsedMessageCache = riInjector.getInstance(ParsedMessageCache.class);
         this.soapUtil = riInjector.getInstance(SoapUtil.class);
     }
 
@@ -114,8 +109,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
             for (final Iterator<MessageContent> iterator = reports.getStream().iterator(); iterator.hasNext(); ) {
 
                 final MessageContent messageContent = iterator.next();
-                final SoapMessage soapMessage = marshalling.unmarshal(
-                        new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+                final SoapMessage soapMessage = parsedMessageCache.unmarshal(messageContent);
                 final Optional<DescriptionModificationReport> reportOpt =
                         soapUtil.getBody(soapMessage, DescriptionModificationReport.class);
                 final DescriptionModificationReport descriptionModificationReport = reportOpt.orElseThrow();
@@ -245,8 +239,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
                 messageStorage.getInboundMessagesByBodyType(Constants.MSG_DESCRIPTION_MODIFICATION_REPORT)) {
             for (MessageContent messageContent :
                     descriptionModificationReports.getStream().toList()) {
-                final SoapMessage soapMessage = marshalling.unmarshal(
-                        new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+                final SoapMessage soapMessage = parsedMessageCache.unmarshal(messageContent);
                 final DescriptionModificationReport descriptionModificationReport = soapUtil.getBody(
                                 soapMessage, DescriptionModificationReport.class)
                         .orElseThrow();
@@ -285,8 +278,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
 
             messages.getStream().forEach(messageContent -> {
                 try {
-                    final var soapMessage = marshalling.unmarshal(
-                            new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+                    final var soapMessage = parsedMessageCache.unmarshal(messageContent);
                     final var reportOpt = soapUtil.getBody(soapMessage, DescriptionModificationReport.class);
                     if (reportOpt.isPresent()) {
                         for (var part : reportOpt.orElseThrow().getReportPart()) {
@@ -325,8 +317,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
 
             messages.getStream().forEach(messageContent -> {
                 try {
-                    final var soapMessage = marshalling.unmarshal(
-                            new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+                    final var soapMessage = parsedMessageCache.unmarshal(messageContent);
                     final var reportOpt = soapUtil.getBody(soapMessage, DescriptionModificationReport.class);
                     reportOpt.ifPresent(descriptionModificationReport ->
                             checkOrderOfReportParts(descriptionModificationReport, descriptorsSeen));
@@ -502,8 +493,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
             final var impliedValueMap = new HashMap<String, InitialImpliedValue>();
             messages.getStream().forEach(messageContent -> {
                 try {
-                    final var soapMessage = marshalling.unmarshal(
-                            new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+                    final var soapMessage = parsedMessageCache.unmarshal(messageContent);
                     final var reportOpt = soapUtil.getBody(soapMessage, DescriptionModificationReport.class);
                     final var crtReportParts = reportOpt.orElseThrow().getReportPart().stream()
                             .filter(part ->
@@ -566,8 +556,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
             final var impliedValueMap = new HashMap<Object, InitialImpliedValue>();
             messages.getStream().forEach(messageContent -> {
                 try {
-                    final var soapMessage = marshalling.unmarshal(
-                            new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+                    final var soapMessage = parsedMessageCache.unmarshal(messageContent);
                     final var reportOpt = soapUtil.getBody(soapMessage, DescriptionModificationReport.class);
                     final var uptReportParts = reportOpt.orElseThrow().getReportPart().stream()
                             .filter(part ->
@@ -631,8 +620,7 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
 
             messages.getStream().forEach(messageContent -> {
                 try {
-                    final var soapMessage = marshalling.unmarshal(
-                            new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+                    final var soapMessage = parsedMessageCache.unmarshal(messageContent);
                     final var reportOpt = soapUtil.getBody(soapMessage, DescriptionModificationReport.class);
                     final var delReportParts = reportOpt.orElseThrow().getReportPart().stream()
                             .filter(part ->
@@ -743,20 +731,15 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
         final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
                 messageStorage, getInjector().getInstance(TestRunObserver.class));
         final var acceptableSequenceSeen = new AtomicInteger(0);
-        try (final Stream<String> sequenceIds = mdibHistorian.getKnownSequenceIds()) {
-            sequenceIds.forEach(sequenceId -> {
-                try {
-                    checkReportsForSequenceId(
-                            reportClass,
-                            stateClass,
-                            getStatesOfReportParts,
-                            sequenceId,
-                            mdibHistorian,
-                            acceptableSequenceSeen);
-                } catch (NoTestData e) {
-                    fail(e);
-                }
-            });
+        try {
+            // compares against the mdib before the mdib version of the report, as e.g. a description
+            // modification report of the same mdib version may already contain the states of the report
+            mdibHistorian.processAllApplicableReportsWithSnapshots(
+                    reportClass::isInstance, (mdibBeforeReport, mdibAfterReport, report) -> {
+                        acceptableSequenceSeen.incrementAndGet();
+                        compareReportWithMdib(
+                                stateClass, getStatesOfReportParts, mdibBeforeReport, mdibAfterReport, report);
+                    });
         } catch (IOException e) {
             fail(e);
         }
@@ -765,86 +748,37 @@ public class InvariantMessageModelAnnexTest extends InjectorTestBase {
                 String.format("No %s seen during test run, test failed.", reportClass.getSimpleName()));
     }
 
-    private void checkReportsForSequenceId(
-            final Class<? extends AbstractReport> reportClass,
-            final Class<? extends AbstractState> stateClass,
-            final GetStatesOfReportParts getStatesOfReportParts,
-            final String sequenceId,
-            final MdibHistorian mdibHistorian,
-            final AtomicInteger acceptableSequenceSeen)
-            throws NoTestData {
-
-        try (final var history = mdibHistorian.episodicReportBasedHistory(sequenceId)) {
-            try (final var historyNext = mdibHistorian.episodicReportBasedHistory(sequenceId)) {
-                // skip the first entry so that history and historyNext are off by one entry
-                final var skippedElement = historyNext.next();
-                assertTestData(skippedElement != null, "Not enough input to compare mdib revisions");
-                compareReportsWithMdib(
-                        mdibHistorian,
-                        sequenceId,
-                        reportClass,
-                        stateClass,
-                        acceptableSequenceSeen,
-                        getStatesOfReportParts,
-                        history,
-                        historyNext);
-            }
-        } catch (ReportProcessingException | PreprocessingException e) {
-            fail(e);
-        }
-    }
-
-    private void compareReportsWithMdib(
-            final MdibHistorian mdibHistorian,
-            final String sequenceId,
-            final Class<? extends AbstractReport> reportClass,
+    private void compareReportWithMdib(
             final Class<? extends AbstractState> stateClass,
-            final AtomicInteger acceptableSequenceSeen,
             final GetStatesOfReportParts getStatesOfReportParts,
-            final MdibHistorian.HistorianResult history,
-            final MdibHistorian.HistorianResult historyNext) {
-        RemoteMdibAccess mdibAccess = history.next();
-        RemoteMdibAccess mdibAccessAhead = historyNext.next();
-
-        final var minimumMdibVersion = ImpliedValueUtil.getMdibVersion(mdibAccess.getMdibVersion());
-        try (final var reports = mdibHistorian.getAllUniqueReports(sequenceId, minimumMdibVersion)) {
-            for (final Iterator<AbstractReport> iterator = reports.iterator(); iterator.hasNext(); ) {
-                final AbstractReport report = iterator.next();
-
-                if (reportClass.isInstance(report)) {
-                    acceptableSequenceSeen.incrementAndGet();
-                    final var reportMdibVersion = ImpliedValueUtil.getReportMdibVersion(report);
-                    // fast-forward history to the mdib version before the report
-                    while (ImpliedValueUtil.getMdibVersion(mdibAccessAhead.getMdibVersion())
-                                    .compareTo(reportMdibVersion)
-                            < 0) {
-                        mdibAccessAhead = historyNext.next();
-                        mdibAccess = history.next();
-                    }
-
-                    final var reportParts = getStatesOfReportParts.apply(reportClass.cast(report));
-                    for (var reportPart : reportParts) {
-                        for (var state : reportPart) {
-                            final Optional<? extends AbstractState> stateBeforeReport;
-
-                            if (state instanceof AbstractMultiState multiState) {
-                                stateBeforeReport = mdibAccess.getState(multiState.getHandle(), stateClass);
-                            } else {
-                                stateBeforeReport = mdibAccess.getState(state.getDescriptorHandle(), stateClass);
-                            }
-                            if (stateBeforeReport.isEmpty()) {
-                                // If stateBeforeReport is not present, it has either been inserted as a multi-state or
-                                // with a description change report within the same mdib version. In both cases,
-                                // the state has definitely changed.
-                                continue;
-                            }
-                            assertNotEquals(
-                                    state,
-                                    stateBeforeReport.orElseThrow(),
-                                    String.format(STATE_UNCHANGED, state.getDescriptorHandle()));
-                        }
-                    }
+            final MdibSnapshot mdibBeforeReport,
+            final MdibSnapshot mdibAfterReport,
+            final AbstractReport report) {
+        // entities shared by both snapshots have not been changed by any report of the mdib version so far
+        final var changedEntities = mdibBeforeReport.getChangedEntities(mdibAfterReport);
+        final var reportParts = getStatesOfReportParts.apply(report);
+        for (var reportPart : reportParts) {
+            for (var state : reportPart) {
+                final Optional<? extends AbstractState> stateBeforeReport;
+
+                if (state instanceof AbstractMultiState multiState) {
+                    stateBeforeReport = mdibBeforeReport.getState(multiState.getHandle(), stateClass);
+                } else {
+                    stateBeforeReport = mdibBeforeReport.getState(state.getDescriptorHandle(), stateClass);
+                }
+                if (stateBeforeReport.isEmpty()) {
+                    // If stateBeforeReport is not present, it has either been inserted as a multi-state or
+                    // with a description change report within the same mdib version. In both cases,
+                    // the state has definitely changed.
+                    continue;
                 }
+                assertTrue(
+                        changedEntities.contains(state.getDescriptorHandle()),
+                        String.format(STATE_UNCHANGED, state.getDescriptorHandle()));
+                assertNotEquals(
+                        state,
+                        stateBeforeReport.orElseThrow(),
+                        String.format(STATE_UNCHANGED, state.getDescriptorHandle()));
             }
         }
     }
@@ -21,19 +21,21 @@ import com.draeger.medical.sdccc.tests.annotations.RequirePrecondition;
 import com.draeger.medical.sdccc.tests.annotations.TestDescription;
 import com.draeger.medical.sdccc.tests.annotations.TestIdentifier;
 import com.draeger.medical.sdccc.tests.util.ImpliedValueUtil;
+import com.draeger.medical.sdccc.tests.util.MdibHistoryVisitor;
 import com.draeger.medical.sdccc.tests.util.NoTestData;
-import com.draeger.medical.sdccc.tests.util.guice.MdibHistorianFactory;
+import com.draeger.medical.sdccc.tests.util.ParsedMessageCache;
+import com.draeger.medical.sdccc.tests.util.SharedMdibHistoryReplay;
 import com.draeger.medical.sdccc.util.Constants;
 import com.draeger.medical.sdccc.util.TestRunObserver;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,7 +47,6 @@ import org.somda.sdc.biceps.model.message.DescriptionModificationType;
 import org.somda.sdc.biceps.model.participant.AbstractContextState;
 import org.somda.sdc.biceps.model.participant.AbstractDescriptor;
 import org.somda.sdc.biceps.model.participant.AbstractMultiState;
-import org.somda.sdc.dpws.soap.MarshallingService;
 import org.somda.sdc.dpws.soap.SoapMessage;
 import org.somda.sdc.dpws.soap.SoapUtil;
 import org.somda.sdc.dpws.soap.exception.MarshallingException;
@@ -57,9 +58,14 @@ public class InvariantParticipantModelHandleTest extends InjectorTestBase {
 
     private static final Pair<Integer, Integer> VALID_ASCII_RANGE = new ImmutablePair<>(0x21, 0x7E);
 
+    // the history is replayed once for the checks of all tests
+    private static final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> HISTORY_CHECKS = Map.of(
+            EnabledTestConfig.BICEPS_R0007_0, InvariantParticipantModelHandleTest::checkUniqueHandles,
+            EnabledTestConfig.BICEPS_R0105_0, InvariantParticipantModelHandleTest::checkHandleCharacters);
+
     private MessageStorage messageStorage;
-    private MdibHistorianFactory mdibHistorianFactory;
-    private MarshallingService marshalling;
+    private SharedMdibHistoryReplay sharedMdibHistoryReplay;
+    private ParsedMessageCache parsedMessageCache;
     private SoapUtil soapUtil;
 
     @BeforeEach
@@ -67,8 +73,8 @@ public class InvariantParticipantModelHandleTest extends InjectorTestBase {
         this.messageStorage = getInjector().getInstance(MessageStorage.class);
 
         final var riInjector = getInjector().getInstance(TestClient.class).getInjector();
-        this.mdibHistorianFactory = riInjector.getInstance(MdibHistorianFactory.class);
-        this.marshalling = riInjector.getInstance(MarshallingService.class);
+        this.sharedMdibHistoryReplay = riInjector.getInstance(SharedMdibHistoryReplay.class);
+        this.parsedMessageCache = riInjector.getInstance(ParsedMessageCache.class);
         this.soapUtil = riInjector.getInstance(SoapUtil.class);
     }
 
@@ -78,43 +84,7 @@ public class InvariantParticipantModelHandleTest extends InjectorTestBase {
     @TestDescription("Starting from the initially retrieved mdib, ensures that for each mdib version, "
             + " all contained handles are unique.")
     void testRequirementR0007() throws NoTestData, IOException {
-        // NOTE: MdibHistorian checks the uniqueness of Handles in all MdibVersions.
-        //       However, its checks are missing duplicate handles introduced by ContextReports.
-        //       Hence, we cannot fully rely on the MdibHistorian and have to check handle
-        //       uniqueness ourselves.
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final AtomicInteger handlesSeen = new AtomicInteger();
-
-        mdibHistorian.processAllRemoteMdibAccess(current -> {
-            final var allEntities = current.findEntitiesByType(AbstractDescriptor.class);
-
-            final List<String> entityHandles =
-                    allEntities.stream().map(MdibEntity::getHandle).toList();
-            final HashSet<String> allHandles = new HashSet<>();
-            for (var handle : entityHandles) {
-                assertFalse(
-                        allHandles.contains(handle),
-                        "Handle '" + handle + "' is not unique in mdib version " + current.getMdibVersion() + ".");
-                allHandles.add(handle);
-            }
-
-            final List<AbstractContextState> contextStates =
-                    current.findContextStatesByType(AbstractContextState.class);
-            final List<String> contextStateHandles =
-                    contextStates.stream().map(AbstractMultiState::getHandle).toList();
-            for (var cSHandle : contextStateHandles) {
-                assertFalse(
-                        allHandles.contains(cSHandle),
-                        "contextState handle '" + cSHandle + "' is not unique in Mdib version "
-                                + current.getMdibVersion() + ".");
-                allHandles.add(cSHandle);
-            }
-            handlesSeen.addAndGet(allHandles.size());
-        });
-
-        assertTestData(handlesSeen.get(), "No Data to perform test on");
+        assertTestData(replayHistory(EnabledTestConfig.BICEPS_R0007_0), "No Data to perform test on");
     }
 
     @Test
@@ -125,36 +95,7 @@ public class InvariantParticipantModelHandleTest extends InjectorTestBase {
             + " verifies that every descriptor and state handle present only contains valid ASCII characters within the"
             + " permitted range.")
     void testRequirementR0105() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var handlesSeen = new HashSet<String>();
-
-        mdibHistorian.processAllRemoteMdibAccess(first -> {
-            final var mdibVersion = first.getMdibVersion();
-            final var allEntities = first.findEntitiesByType(AbstractDescriptor.class);
-            for (MdibEntity entity : allEntities) {
-                // descriptor handle
-                assertTrue(
-                        isWithinPermittedASCIIRange(entity.getHandle()),
-                        String.format(
-                                "Invalid descriptor handle %s found in mdib version %s",
-                                entity.getHandle(), mdibVersion));
-                handlesSeen.add(entity.getHandle());
-
-                // state handles
-                entity.doIfMultiState(states -> states.forEach(state -> {
-                    handlesSeen.add(state.getHandle());
-                    assertTrue(
-                            isWithinPermittedASCIIRange(state.getHandle()),
-                            String.format(
-                                    "Invalid multi state handle %s found in mdib version %s",
-                                    state.getHandle(), mdibVersion));
-                }));
-            }
-        });
-
-        assertTestData(handlesSeen, "No Data to perform test on");
+        assertTestData(replayHistory(EnabledTestConfig.BICEPS_R0105_0), "No Data to perform test on");
     }
 
     @Test
@@ -211,11 +152,9 @@ public class InvariantParticipantModelHandleTest extends InjectorTestBase {
 
     private Optional<DescriptionModificationReport> getDescriptionModificationReportFromMessageContent(
             final MessageContent content) {
-        final var body = content.getBody();
-
         final SoapMessage message;
         try {
-            message = marshalling.unmarshal(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+            message = parsedMessageCache.unmarshal(content);
         } catch (MarshallingException e) {
             fail("Could not unmarshal message", e);
             // unreachable, silence warnings
@@ -240,11 +179,80 @@ public class InvariantParticipantModelHandleTest extends InjectorTestBase {
      * @param data to verify
      * @return true if correct, false otherwise
      */
-    boolean isWithinPermittedASCIIRange(final String data) {
+    static boolean isWithinPermittedASCIIRange(final String data) {
         return data.codePoints().allMatch(c -> isInRange(c, VALID_ASCII_RANGE));
     }
 
-    private boolean isInRange(final int codePoint, final Pair<Integer, Integer> range) {
+    private static boolean isInRange(final int codePoint, final Pair<Integer, Integer> range) {
         return codePoint >= range.getLeft() && codePoint <= range.getRight();
     }
+
+    private static MdibHistoryVisitor checkUniqueHandles(final AtomicInteger handlesSeen) {
+        // NOTE: MdibHistorian checks the uniqueness of Handles in all MdibVersions.
+        //       However, its checks are missing duplicate handles introduced by ContextReports.
+        //       Hence, we cannot fully rely on the MdibHistorian and have to check handle
+        //       uniqueness ourselves.
+        return MdibHistoryVisitor.ofRevisions(current -> {
+            final var allEntities = current.findEntitiesByType(AbstractDescriptor.class);
+
+            final List<String> entityHandles =
+                    allEntities.stream().map(MdibEntity::getHandle).toList();
+            final HashSet<String> allHandles = new HashSet<>();
+            for (var handle : entityHandles) {
+                assertFalse(
+                        allHandles.contains(handle),
+                        "Handle '" + handle + "' is not unique in mdib version " + current.getMdibVersion() + ".");
+                allHandles.add(handle);
+            }
+
+            final List<AbstractContextState> contextStates =
+                    current.findContextStatesByType(AbstractContextState.class);
+            final List<String> contextStateHandles =
+                    contextStates.stream().map(AbstractMultiState::getHandle).toList();
+            for (var cSHandle : contextStateHandles) {
+                assertFalse(
+                        allHandles.contains(cSHandle),
+                        "contextState handle '" + cSHandle + "' is not unique in Mdib version "
+                                + current.getMdibVersion() + ".");
+                allHandles.add(cSHandle);
+            }
+            handlesSeen.addAndGet(allHandles.size());
+        });
+    }
+
+    private static MdibHistoryVisitor checkHandleCharacters(final AtomicInteger handlesSeen) {
+        return MdibHistoryVisitor.ofRevisions(first -> {
+            final var mdibVersion = first.getMdibVersion();
+            final var allEntities = first.findEntitiesByType(AbstractDescriptor.class);
+            for (MdibEntity entity : allEntities) {
+                // descriptor handle
+                assertTrue(
+                        isWithinPermittedASCIIRange(entity.getHandle()),
+                        String.format(
+                                "Invalid descriptor handle %s found in mdib version %s",
+                                entity.getHandle(), mdibVersion));
+                handlesSeen.incrementAndGet();
+
+                // state handles
+                entity.doIfMultiState(states -> states.forEach(state -> {
+                    handlesSeen.incrementAndGet();
+                    assertTrue(
+                            isWithinPermittedASCIIRange(state.getHandle()),
+                            String.format(
+                                    "Invalid multi state handle %s found in mdib version %s",
+                                    state.getHandle(), mdibVersion));
+                }));
+            }
+        });
+    }
+
+    private int replayHistory(final String check) throws IOException {
+        return sharedMdibHistoryReplay.getTestData(
+                InvariantParticipantModelHandleTest.class,
+                HISTORY_CHECKS,
+                InjectorTestBase::isTestEnabled,
+                check,
+                messageStorage,
+                getInjector().getInstance(TestRunObserver.class));
+    }
 }
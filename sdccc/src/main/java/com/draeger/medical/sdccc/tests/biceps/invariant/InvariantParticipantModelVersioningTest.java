@@ -21,7 +21,9 @@ import com.draeger.medical.sdccc.tests.util.ImpliedValueUtil;
 import com.draeger.medical.sdccc.tests.util.InitialImpliedValue;
 import com.draeger.medical.sdccc.tests.util.InitialImpliedValueException;
 import com.draeger.medical.sdccc.tests.util.MdibHistorian;
+import com.draeger.medical.sdccc.tests.util.MdibHistoryVisitor;
 import com.draeger.medical.sdccc.tests.util.NoTestData;
+import com.draeger.medical.sdccc.tests.util.SharedMdibHistoryReplay;
 import com.draeger.medical.sdccc.tests.util.guice.MdibHistorianFactory;
 import com.draeger.medical.sdccc.util.TestRunObserver;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -29,8 +31,10 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
@@ -64,14 +68,26 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
 
     public static final String DESCRIPTOR_UPDATE_PREFIX =
             "Descriptor version has not been incremented by one, but descriptor has changed.";
+
+    // the history is replayed once for the checks of the tests comparing consecutive mdib revisions
+    private static final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> HISTORY_CHECKS = Map.of(
+            EnabledTestConfig.BICEPS_R0033,
+            InvariantParticipantModelVersioningTest::checkDescriptorVersionsOnChildChanges,
+            EnabledTestConfig.BICEPS_R0034_0,
+            InvariantParticipantModelVersioningTest::checkDescriptorVersions,
+            EnabledTestConfig.BICEPS_R0038_0,
+            InvariantParticipantModelVersioningTest::checkStateVersions);
+
     private MessageStorage messageStorage;
     private MdibHistorianFactory mdibHistorianFactory;
+    private SharedMdibHistoryReplay sharedMdibHistoryReplay;
 
     @BeforeEach
     void setUp() {
         this.messageStorage = getInjector().getInstance(MessageStorage.class);
         final var riInjector = getInjector().getInstance(TestClient.class).getInjector();
         this.mdibHistorianFactory = riInjector.getInstance(MdibHistorianFactory.class);
+        this.sharedMdibHistoryReplay = riInjector.getInstance(SharedMdibHistoryReplay.class);
     }
 
     @Test
@@ -82,60 +98,7 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
     @RequirePrecondition(
             simplePreconditions = {ConditionalPreconditions.DescriptionModificationCrtOrDelPrecondition.class})
     void testRequirementR0033() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var descriptorChanges = new AtomicInteger(0);
-
-        try (final Stream<String> sequenceIds = mdibHistorian.getKnownSequenceIds()) {
-            sequenceIds.forEach(sequenceId -> {
-                final var impliedValueMap = new InitialImpliedValue();
-                mdibHistorian.processAllConsecutivePairsForSequenceId(
-                        (first, second) -> {
-                            final var currentDescriptors = first.findEntitiesByType(AbstractDescriptor.class);
-                            for (MdibEntity entity : currentDescriptors) {
-                                final var descriptor = entity.getDescriptor(AbstractDescriptor.class)
-                                        .orElseThrow();
-                                final var nextEntityOpt = second.getEntity(descriptor.getHandle());
-                                if (nextEntityOpt.isEmpty()) {
-                                    continue;
-                                }
-                                final var nextEntity = nextEntityOpt.orElseThrow();
-                                final var nextDescriptor = nextEntity
-                                        .getDescriptor(AbstractDescriptor.class)
-                                        .orElseThrow();
-
-                                // compare children of current and next descriptor one by one
-                                final var childrenChanged =
-                                        haveDescriptorChildrenDisOrReappeared(descriptor.getHandle(), first, second);
-
-                                if (!childrenChanged) {
-                                    continue;
-                                }
-
-                                descriptorChanges.incrementAndGet();
-
-                                try {
-                                    assertTrue(
-                                            isIncrementedVersion(
-                                                    ImpliedValueUtil.getDescriptorVersion(descriptor, impliedValueMap),
-                                                    ImpliedValueUtil.getDescriptorVersion(
-                                                            nextDescriptor, impliedValueMap)),
-                                            "Descriptor version has not changed, but children have."
-                                                    + " MdibVersions " + first.getMdibVersion()
-                                                    + " and " + second.getMdibVersion()
-                                                    + ". Descriptor handle " + descriptor.getHandle()
-                                                    + ". Old children " + descriptor
-                                                    + " new children " + nextEntity.getChildren());
-                                } catch (InitialImpliedValueException e) {
-                                    fail(e);
-                                }
-                            }
-                        },
-                        sequenceId);
-            });
-        }
-        assertTestData(descriptorChanges.get(), "No descriptor changed during the test run.");
+        assertTestData(replayHistory(EnabledTestConfig.BICEPS_R0033), "No descriptor changed during the test run.");
     }
 
     @Test
@@ -149,84 +112,7 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
     @RequirePrecondition(
             simplePreconditions = {ConditionalPreconditions.TriggerDescriptionModificationReportPrecondition.class})
     void testRequirementR0034() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var descriptorChanges = new AtomicInteger(0);
-
-        try (final Stream<String> sequenceIds = mdibHistorian.getKnownSequenceIds()) {
-            sequenceIds.forEach(sequenceId -> {
-                final var impliedValueMap = new InitialImpliedValue();
-                final var lastDescriptorMap = new HashMap<String, AbstractDescriptor>();
-                mdibHistorian.processAllConsecutivePairsForSequenceId(
-                        (first, second) -> {
-                            final var currentDescriptors = first.findEntitiesByType(AbstractDescriptor.class);
-                            for (MdibEntity entity : currentDescriptors) {
-                                // check if this was previously deleted and returned
-                                final var descriptor = entity.getDescriptor(AbstractDescriptor.class)
-                                        .orElseThrow();
-                                final var oldVersion = lastDescriptorMap.remove(descriptor.getHandle());
-                                if (oldVersion != null) {
-                                    final var descriptorChanged = hasDescriptorChanged(oldVersion, descriptor);
-                                    if (descriptorChanged) {
-                                        descriptorChanges.incrementAndGet();
-                                        try {
-                                            assertTrue(
-                                                    isIncrementedVersion(
-                                                            ImpliedValueUtil.getDescriptorVersion(
-                                                                    oldVersion, impliedValueMap),
-                                                            ImpliedValueUtil.getDescriptorVersion(
-                                                                    descriptor, impliedValueMap)),
-                                                    DESCRIPTOR_REINSERTION_PREFIX
-                                                            + " MdibVersions of insertion " + first.getMdibVersion()
-                                                            + ". Descriptor handle " + descriptor.getHandle()
-                                                            + ". Old Descriptor " + oldVersion
-                                                            + " Inserted Descriptor " + descriptor);
-                                        } catch (InitialImpliedValueException e) {
-                                            fail(e);
-                                        }
-                                    }
-                                }
-
-                                final var nextEntityOpt = second.getEntity(descriptor.getHandle());
-                                if (nextEntityOpt.isEmpty()) {
-                                    // descriptor was removed, add to storage
-                                    lastDescriptorMap.put(descriptor.getHandle(), descriptor);
-                                    continue;
-                                }
-
-                                final var nextDescriptor = nextEntityOpt
-                                        .orElseThrow()
-                                        .getDescriptor(AbstractDescriptor.class)
-                                        .orElseThrow();
-                                // compare children of current and next descriptor one by one
-                                final var descriptorChanged = hasDescriptorChanged(descriptor, nextDescriptor);
-                                if (!descriptorChanged) {
-                                    continue;
-                                }
-
-                                descriptorChanges.incrementAndGet();
-                                try {
-                                    assertTrue(
-                                            isIncrementedVersion(
-                                                    ImpliedValueUtil.getDescriptorVersion(descriptor, impliedValueMap),
-                                                    ImpliedValueUtil.getDescriptorVersion(
-                                                            nextDescriptor, impliedValueMap)),
-                                            DESCRIPTOR_UPDATE_PREFIX
-                                                    + " MdibVersions " + first.getMdibVersion()
-                                                    + " and " + second.getMdibVersion()
-                                                    + ". Descriptor handle " + descriptor.getHandle()
-                                                    + ". Old Descriptor " + descriptor
-                                                    + " New Descriptor " + nextDescriptor);
-                                } catch (InitialImpliedValueException e) {
-                                    fail(e);
-                                }
-                            }
-                        },
-                        sequenceId);
-            });
-        }
-        assertTestData(descriptorChanges.get(), "No descriptor changed during the test run.");
+        assertTestData(replayHistory(EnabledTestConfig.BICEPS_R0034_0), "No descriptor changed during the test run.");
     }
 
     @Test
@@ -238,84 +124,7 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
             + " changed.")
     @RequirePrecondition(simplePreconditions = {ConditionalPreconditions.StateChangedPrecondition.class})
     void testRequirementR0038() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var stateChanges = new AtomicInteger(0);
-
-        try (final Stream<String> sequenceIds = mdibHistorian.getKnownSequenceIds()) {
-            sequenceIds.forEach(sequenceId -> {
-                final var impliedValueMap = new InitialImpliedValue();
-                final var removedStatesMap = new HashMap<String, AbstractState>();
-                mdibHistorian.processAllConsecutivePairsForSequenceId(
-                        (first, second) -> {
-                            final var states = first.getStatesByType(AbstractState.class);
-                            for (var state : states) {
-
-                                final String stateHandle;
-                                if (state instanceof AbstractMultiState) {
-                                    stateHandle = ((AbstractMultiState) state).getHandle();
-                                } else {
-                                    stateHandle = state.getDescriptorHandle();
-                                }
-                                final Optional<AbstractState> nextStateOpt = second.getState(stateHandle);
-
-                                if (removedStatesMap.containsKey(stateHandle)) {
-                                    final var removedState = removedStatesMap.get(stateHandle);
-                                    if (!removedState.equals(state)) {
-                                        try {
-                                            assertTrue(
-                                                    isIncrementedVersion(
-                                                            ImpliedValueUtil.getStateVersion(
-                                                                    removedState, impliedValueMap),
-                                                            ImpliedValueUtil.getStateVersion(state, impliedValueMap)),
-                                                    "State version has not been incremented by one, but reinserted state"
-                                                            + " has changed. MdibVersions " + first.getMdibVersion()
-                                                            + " and " + second.getMdibVersion()
-                                                            + ". State handle " + stateHandle
-                                                            + ". Old State " + removedState
-                                                            + " New State " + state);
-                                        } catch (InitialImpliedValueException e) {
-                                            fail(e);
-                                        }
-                                    }
-                                    removedStatesMap.remove(stateHandle);
-                                }
-
-                                if (nextStateOpt.isEmpty()) {
-                                    // state will be removed
-                                    removedStatesMap.put(stateHandle, state);
-                                    continue;
-                                }
-
-                                final var nextState = nextStateOpt.orElseThrow();
-
-                                if (state.equals(nextState)) {
-                                    continue;
-                                }
-
-                                stateChanges.incrementAndGet();
-                                try {
-                                    assertTrue(
-                                            isIncrementedVersion(
-                                                    ImpliedValueUtil.getStateVersion(state, impliedValueMap),
-                                                    ImpliedValueUtil.getStateVersion(nextState, impliedValueMap)),
-                                            "State version has not been incremented by one, but state has changed."
-                                                    + " MdibVersions " + first.getMdibVersion()
-                                                    + " and " + second.getMdibVersion()
-                                                    + ". State handle " + stateHandle
-                                                    + ". Old State " + state
-                                                    + " New State " + nextState);
-                                } catch (InitialImpliedValueException e) {
-                                    fail(e);
-                                }
-                            }
-                        },
-                        sequenceId);
-                removedStatesMap.clear();
-            });
-        }
-        assertTestData(stateChanges.get(), "No state changed during the test run.");
+        assertTestData(replayHistory(EnabledTestConfig.BICEPS_R0038_0), "No state changed during the test run.");
     }
 
     @Test
@@ -409,7 +218,7 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
      * @param nextDescriptor    next descriptor to compare to
      * @return true if descriptor has changed, false otherwise
      */
-    protected boolean hasDescriptorChanged(
+    protected static boolean hasDescriptorChanged(
             final AbstractDescriptor currentDescriptor, final AbstractDescriptor nextDescriptor) {
         // set all fields to null we don't want to compare
         final var currentWithoutDescriptors = nullDescriptorChildren(currentDescriptor);
@@ -421,7 +230,7 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
             value = {"NP_NONNULL_PARAM_VIOLATION"},
             justification = "These are allowed to be null, just not marked as such. Null is the value representing"
                     + " an empty field.")
-    protected AbstractDescriptor nullDescriptorChildren(final AbstractDescriptor descriptor) {
+    protected static AbstractDescriptor nullDescriptorChildren(final AbstractDescriptor descriptor) {
         final var descr = (AbstractDescriptor) descriptor.clone();
         if (descr instanceof AlertSystemDescriptor) {
             final var desc = (AlertSystemDescriptor) descr;
@@ -471,7 +280,7 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
      * @param nextStorage    next mdib
      * @return true if descriptors have been inserted or removed, false otherwise
      */
-    private boolean haveDescriptorChildrenDisOrReappeared(
+    private static boolean haveDescriptorChildrenDisOrReappeared(
             final String handle, final MdibAccess currentStorage, final MdibAccess nextStorage) {
         final var currentDescriptorChildren =
                 currentStorage.getChildrenByType(handle, AbstractDescriptor.class).stream()
@@ -491,7 +300,199 @@ public class InvariantParticipantModelVersioningTest extends InjectorTestBase {
         return nextVersion.compareTo(version) >= 0;
     }
 
-    private boolean isIncrementedVersion(final BigInteger version, final BigInteger nextVersion) {
+    private static boolean isIncrementedVersion(final BigInteger version, final BigInteger nextVersion) {
         return nextVersion.equals(version.add(BigInteger.ONE));
     }
+
+    private static MdibHistoryVisitor checkDescriptorVersionsOnChildChanges(final AtomicInteger descriptorChanges) {
+        return MdibHistoryVisitor.ofConsecutivePairsPerSequence(() -> {
+            final var impliedValueMap = new InitialImpliedValue();
+            return (first, second) -> {
+                final var currentDescriptors = first.findEntitiesByType(AbstractDescriptor.class);
+                for (MdibEntity entity : currentDescriptors) {
+                    final var descriptor =
+                            entity.getDescriptor(AbstractDescriptor.class).orElseThrow();
+                    final var nextEntityOpt = second.getEntity(descriptor.getHandle());
+                    if (nextEntityOpt.isEmpty()) {
+                        continue;
+                    }
+                    final var nextEntity = nextEntityOpt.orElseThrow();
+                    final var nextDescriptor =
+                            nextEntity.getDescriptor(AbstractDescriptor.class).orElseThrow();
+
+                    // compare children of current and next descriptor one by one
+                    final var childrenChanged =
+                            haveDescriptorChildrenDisOrReappeared(descriptor.getHandle(), first, second);
+
+                    if (!childrenChanged) {
+                        continue;
+                    }
+
+                    descriptorChanges.incrementAndGet();
+
+                    try {
+                        assertTrue(
+                                isIncrementedVersion(
+                                        ImpliedValueUtil.getDescriptorVersion(descriptor, impliedValueMap),
+                                        ImpliedValueUtil.getDescriptorVersion(nextDescriptor, impliedValueMap)),
+                                "Descriptor version has not changed, but children have."
+                                        + " MdibVersions " + first.getMdibVersion()
+                                        + " and " + second.getMdibVersion()
+                                        + ". Descriptor handle " + descriptor.getHandle()
+                                        + ". Old children " + descriptor
+                                        + " new children " + nextEntity.getChildren());
+                    } catch (InitialImpliedValueException e) {
+                        fail(e);
+                    }
+                }
+            };
+        });
+    }
+
+    private static MdibHistoryVisitor checkDescriptorVersions(final AtomicInteger descriptorChanges) {
+        return MdibHistoryVisitor.ofConsecutivePairsPerSequence(() -> {
+            final var impliedValueMap = new InitialImpliedValue();
+            final var lastDescriptorMap = new HashMap<String, AbstractDescriptor>();
+            return (first, second) -> {
+                final var currentDescriptors = first.findEntitiesByType(AbstractDescriptor.class);
+                for (MdibEntity entity : currentDescriptors) {
+                    // check if this was previously deleted and returned
+                    final var descriptor =
+                            entity.getDescriptor(AbstractDescriptor.class).orElseThrow();
+                    final var oldVersion = lastDescriptorMap.remove(descriptor.getHandle());
+                    if (oldVersion != null) {
+                        final var descriptorChanged = hasDescriptorChanged(oldVersion, descriptor);
+                        if (descriptorChanged) {
+                            descriptorChanges.incrementAndGet();
+                            try {
+                                assertTrue(
+                                        isIncrementedVersion(
+                                                ImpliedValueUtil.getDescriptorVersion(oldVersion, impliedValueMap),
+                                                ImpliedValueUtil.getDescriptorVersion(descriptor, impliedValueMap)),
+                                        DESCRIPTOR_REINSERTION_PREFIX
+                                                + " MdibVersions of insertion " + first.getMdibVersion()
+                                                + ". Descriptor handle " + descriptor.getHandle()
+                                                + ". Old Descriptor " + oldVersion
+                                                + " Inserted Descriptor " + descriptor);
+                            } catch (InitialImpliedValueException e) {
+                                fail(e);
+                            }
+                        }
+                    }
+
+                    final var nextEntityOpt = second.getEntity(descriptor.getHandle());
+                    if (nextEntityOpt.isEmpty()) {
+                        // descriptor was removed, add to storage
+                        lastDescriptorMap.put(descriptor.getHandle(), descriptor);
+                        continue;
+                    }
+
+                    final var nextDescriptor = nextEntityOpt
+                            .orElseThrow()
+                            .getDescriptor(AbstractDescriptor.class)
+                            .orElseThrow();
+                    // compare children of current and next descriptor one by one
+                    final var descriptorChanged = hasDescriptorChanged(descriptor, nextDescriptor);
+                    if (!descriptorChanged) {
+                        continue;
+                    }
+
+                    descriptorChanges.incrementAndGet();
+                    try {
+                        assertTrue(
+                                isIncrementedVersion(
+                                        ImpliedValueUtil.getDescriptorVersion(descriptor, impliedValueMap),
+                                        ImpliedValueUtil.getDescriptorVersion(nextDescriptor, impliedValueMap)),
+                                DESCRIPTOR_UPDATE_PREFIX
+                                        + " MdibVersions " + first.getMdibVersion()
+                                        + " and " + second.getMdibVersion()
+                                        + ". Descriptor handle " + descriptor.getHandle()
+                                        + ". Old Descriptor " + descriptor
+                                        + " New Descriptor " + nextDescriptor);
+                    } catch (InitialImpliedValueException e) {
+                        fail(e);
+                    }
+                }
+            };
+        });
+    }
+
+    private static MdibHistoryVisitor checkStateVersions(final AtomicInteger stateChanges) {
+        return MdibHistoryVisitor.ofConsecutivePairsPerSequence(() -> {
+            final var impliedValueMap = new InitialImpliedValue();
+            final var removedStatesMap = new HashMap<String, AbstractState>();
+            return (first, second) -> {
+                final var states = first.getStatesByType(AbstractState.class);
+                for (var state : states) {
+
+                    final String stateHandle;
+                    if (state instanceof AbstractMultiState) {
+                        stateHandle = ((AbstractMultiState) state).getHandle();
+                    } else {
+                        stateHandle = state.getDescriptorHandle();
+                    }
+                    final Optional<AbstractState> nextStateOpt = second.getState(stateHandle);
+
+                    if (removedStatesMap.containsKey(stateHandle)) {
+                        final var removedState = removedStatesMap.get(stateHandle);
+                        if (!removedState.equals(state)) {
+                            try {
+                                assertTrue(
+                                        isIncrementedVersion(
+                                                ImpliedValueUtil.getStateVersion(removedState, impliedValueMap),
+                                                ImpliedValueUtil.getStateVersion(state, impliedValueMap)),
+                                        "State version has not been incremented by one, but reinserted state"
+                                                + " has changed. MdibVersions " + first.getMdibVersion()
+                                                + " and " + second.getMdibVersion()
+                                                + ". State handle " + stateHandle
+                                                + ". Old State " + removedState
+                                                + " New State " + state);
+                            } catch (InitialImpliedValueException e) {
+                                fail(e);
+                            }
+                        }
+                        removedStatesMap.remove(stateHandle);
+                    }
+
+                    if (nextStateOpt.isEmpty()) {
+                        // state will be removed
+                        removedStatesMap.put(stateHandle, state);
+                        continue;
+                    }
+
+                    final var nextState = nextStateOpt.orElseThrow();
+
+                    if (state.equals(nextState)) {
+                        continue;
+                    }
+
+                    stateChanges.incrementAndGet();
+                    try {
+                        assertTrue(
+                                isIncrementedVersion(
+                                        ImpliedValueUtil.getStateVersion(state, impliedValueMap),
+                                        ImpliedValueUtil.getStateVersion(nextState, impliedValueMap)),
+                                "State version has not been incremented by one, but state has changed."
+                                        + " MdibVersions " + first.getMdibVersion()
+                                        + " and " + second.getMdibVersion()
+                                        + ". State handle " + stateHandle
+                                        + ". Old State " + state
+                                        + " New State " + nextState);
+                    } catch (InitialImpliedValueException e) {
+                        fail(e);
+                    }
+                }
+            };
+        });
+    }
+
+    private int replayHistory(final String check) throws IOException {
+        return sharedMdibHistoryReplay.getTestData(
+                InvariantParticipantModelVersioningTest.class,
+                HISTORY_CHECKS,
+                InjectorTestBase::isTestEnabled,
+                check,
+                messageStorage,
+                getInjector().getInstance(TestRunObserver.class));
+    }
 }
@@ -20,13 +20,16 @@ import com.draeger.medical.sdccc.tests.annotations.RequirePrecondition;
 import com.draeger.medical.sdccc.tests.annotations.TestDescription;
 import com.draeger.medical.sdccc.tests.annotations.TestIdentifier;
 import com.draeger.medical.sdccc.tests.util.ImpliedValueUtil;
+import com.draeger.medical.sdccc.tests.util.MdibHistoryVisitor;
 import com.draeger.medical.sdccc.tests.util.NoTestData;
-import com.draeger.medical.sdccc.tests.util.guice.MdibHistorianFactory;
+import com.draeger.medical.sdccc.tests.util.SharedMdibHistoryReplay;
 import com.draeger.medical.sdccc.util.TestRunObserver;
 import java.io.IOException;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -51,14 +54,23 @@ import org.somda.sdc.biceps.model.participant.StringMetricState;
  * Glue Non-functional quality attributes tests (ch. 10).
  */
 public class InvariantNonFunctionalQualityAttributesTest extends InjectorTestBase {
+    // the history is replayed once for the checks of all tests
+    private static final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> HISTORY_CHECKS = Map.of(
+            EnabledTestConfig.GLUE_R0010_0, InvariantNonFunctionalQualityAttributesTest::checkClocks,
+            EnabledTestConfig.GLUE_R0011, InvariantNonFunctionalQualityAttributesTest::checkMetricDeterminationTimes,
+            EnabledTestConfig.GLUE_R0012_0_0,
+                    InvariantNonFunctionalQualityAttributesTest::checkAlertConditionDeterminationTimes,
+            EnabledTestConfig.GLUE_R0013, InvariantNonFunctionalQualityAttributesTest::checkBindingStartTimes,
+            EnabledTestConfig.GLUE_R0072, InvariantNonFunctionalQualityAttributesTest::checkBindingEndTimes);
+
     private MessageStorage messageStorage;
-    private MdibHistorianFactory mdibHistorianFactory;
+    private SharedMdibHistoryReplay sharedMdibHistoryReplay;
 
     @BeforeEach
     void setup() {
         this.messageStorage = getInjector().getInstance(MessageStorage.class);
         final var riInjector = getInjector().getInstance(TestClient.class).getInjector();
-        this.mdibHistorianFactory = riInjector.getInstance(MdibHistorianFactory.class);
+        this.sharedMdibHistoryReplay = riInjector.getInstance(SharedMdibHistoryReplay.class);
     }
 
     @Test
@@ -68,12 +80,54 @@ public class InvariantNonFunctionalQualityAttributesTest extends InjectorTestBas
     @TestDescription("Starting from the initially retrieved mdib, applies each episodic report to the mdib and"
             + " verifies for each mds that a clock descriptor and a clock state are present.")
     void testRequirementR0010() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
+        assertTestData(replayHistory(EnabledTestConfig.GLUE_R0010_0), "No mds seen during test run, test failed.");
+    }
+
+    @Test
+    @TestIdentifier(EnabledTestConfig.GLUE_R0011)
+    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib and "
+            + "verifies for each metric that if a value is present, a timestamp is also present.")
+    void testRequirementR0011() throws NoTestData, IOException {
+        assertTestData(replayHistory(EnabledTestConfig.GLUE_R0011), "No metric with a value has been seen.");
+    }
+
+    @Test
+    @DisplayName("R0012_0_0: When pm:AlertConditionState/@Presence changes, an SDC SERVICE PROVIDER"
+            + " SHALL update pm:AlertConditionState/@DeterminationTime.")
+    @TestIdentifier(EnabledTestConfig.GLUE_R0012_0_0)
+    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib"
+            + " and verifies for every alert condition state, that its @DeterminationTime is updated"
+            + " whenever its @Presence changes.")
+    void testRequirementR001200() throws NoTestData, IOException {
+        assertTestData(
+                replayHistory(EnabledTestConfig.GLUE_R0012_0_0),
+                "No AlertConditionState seen during the test run, test failed.");
+    }
+
+    @Test
+    @TestIdentifier(EnabledTestConfig.GLUE_R0013)
+    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib and"
+            + " verifies for every context state, that the BindingStartTime is set, when the BindingMdibVersion is"
+            + " present.")
+    @RequirePrecondition(
+            manipulationPreconditions = {ManipulationPreconditions.AssociateContextStateWithBindingMdibVersion.class})
+    void testRequirementR0013() throws NoTestData, IOException {
+        assertTestData(replayHistory(EnabledTestConfig.GLUE_R0013), "No suitable context states seen, test failed.");
+    }
 
-        final var acceptableSequenceSeen = new AtomicInteger(0);
+    @Test
+    @TestIdentifier(EnabledTestConfig.GLUE_R0072)
+    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib and"
+            + " verifies for every context state, that the BindingEndTime is set, when the UnbindingMdibVersion is"
+            + " present.")
+    @RequirePrecondition(
+            manipulationPreconditions = {ManipulationPreconditions.AssociateContextStateWithUnbindingMdibVersion.class})
+    void testRequirementR0072() throws NoTestData, IOException {
+        assertTestData(replayHistory(EnabledTestConfig.GLUE_R0072), "No suitable context states seen, test failed.");
+    }
 
-        mdibHistorian.processAllRemoteMdibAccess(remoteMdibAccess -> {
+    private static MdibHistoryVisitor checkClocks(final AtomicInteger acceptableSequenceSeen) {
+        return MdibHistoryVisitor.ofRevisions(remoteMdibAccess -> {
             final var entities = remoteMdibAccess.findEntitiesByType(MdsDescriptor.class);
 
             for (var entity : entities) {
@@ -95,21 +149,10 @@ public class InvariantNonFunctionalQualityAttributesTest extends InjectorTestBas
                         String.format("No clock descriptor present for mds with handle %s.", entity.getHandle()));
             }
         });
-
-        assertTestData(acceptableSequenceSeen.get(), "No mds seen during test run, test failed.");
     }
 
-    @Test
-    @TestIdentifier(EnabledTestConfig.GLUE_R0011)
-    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib and "
-            + "verifies for each metric that if a value is present, a timestamp is also present.")
-    void testRequirementR0011() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var acceptableSequenceSeen = new AtomicInteger(0);
-
-        mdibHistorian.processAllRemoteMdibAccess(remoteMdibAccess -> {
+    private static MdibHistoryVisitor checkMetricDeterminationTimes(final AtomicInteger acceptableSequenceSeen) {
+        return MdibHistoryVisitor.ofRevisions(remoteMdibAccess -> {
             final var entities = remoteMdibAccess.findEntitiesByType(AbstractMetricDescriptor.class);
 
             for (var entity : entities) {
@@ -197,24 +240,11 @@ public class InvariantNonFunctionalQualityAttributesTest extends InjectorTestBas
                 }
             }
         });
-
-        assertTestData(acceptableSequenceSeen.get(), "No metric with a value has been seen.");
     }
 
-    @Test
-    @DisplayName("R0012_0_0: When pm:AlertConditionState/@Presence changes, an SDC SERVICE PROVIDER"
-            + " SHALL update pm:AlertConditionState/@DeterminationTime.")
-    @TestIdentifier(EnabledTestConfig.GLUE_R0012_0_0)
-    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib"
-            + " and verifies for every alert condition state, that its @DeterminationTime is updated"
-            + " whenever its @Presence changes.")
-    void testRequirementR001200() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var acceptableSequenceSeen = new AtomicInteger(0);
-
-        mdibHistorian.processAllConsecutivePairs((last, current) -> {
+    private static MdibHistoryVisitor checkAlertConditionDeterminationTimes(
+            final AtomicInteger acceptableSequenceSeen) {
+        return MdibHistoryVisitor.ofConsecutivePairs((last, current) -> {
             final var currentAlertConditionStates = current.getStatesByType(AlertConditionState.class);
 
             for (var currentAlertConditionState : currentAlertConditionStates) {
@@ -245,24 +275,10 @@ public class InvariantNonFunctionalQualityAttributesTest extends InjectorTestBas
                 }
             }
         });
-
-        assertTestData(acceptableSequenceSeen.get(), "No AlertConditionState seen during the test run, test failed.");
     }
 
-    @Test
-    @TestIdentifier(EnabledTestConfig.GLUE_R0013)
-    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib and"
-            + " verifies for every context state, that the BindingStartTime is set, when the BindingMdibVersion is"
-            + " present.")
-    @RequirePrecondition(
-            manipulationPreconditions = {ManipulationPreconditions.AssociateContextStateWithBindingMdibVersion.class})
-    void testRequirementR0013() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var acceptableSequenceSeen = new AtomicInteger(0);
-
-        mdibHistorian.processAllRemoteMdibAccess(first -> {
+    private static MdibHistoryVisitor checkBindingStartTimes(final AtomicInteger acceptableSequenceSeen) {
+        return MdibHistoryVisitor.ofRevisions(first -> {
             final var contextStates = first.getStatesByType(AbstractContextState.class);
             for (var contextState : contextStates) {
                 final var bindingMdibVersion = contextState.getBindingMdibVersion();
@@ -277,24 +293,10 @@ public class InvariantNonFunctionalQualityAttributesTest extends InjectorTestBas
                 }
             }
         });
-
-        assertTestData(acceptableSequenceSeen.get(), "No suitable context states seen, test failed.");
     }
 
-    @Test
-    @TestIdentifier(EnabledTestConfig.GLUE_R0072)
-    @TestDescription("Starting from the initially retrieved mdib, applies every episodic report to the mdib and"
-            + " verifies for every context state, that the BindingEndTime is set, when the UnbindingMdibVersion is"
-            + " present.")
-    @RequirePrecondition(
-            manipulationPreconditions = {ManipulationPreconditions.AssociateContextStateWithUnbindingMdibVersion.class})
-    void testRequirementR0072() throws NoTestData, IOException {
-        final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(
-                messageStorage, getInjector().getInstance(TestRunObserver.class));
-
-        final var acceptableSequenceSeen = new AtomicInteger(0);
-
-        mdibHistorian.processAllRemoteMdibAccess(first -> {
+    private static MdibHistoryVisitor checkBindingEndTimes(final AtomicInteger acceptableSequenceSeen) {
+        return MdibHistoryVisitor.ofRevisions(first -> {
             final var contextStates = first.getStatesByType(AbstractContextState.class);
             for (var contextState : contextStates) {
                 final var unbindingMdibVersion = contextState.getUnbindingMdibVersion();
@@ -308,7 +310,15 @@ public class InvariantNonFunctionalQualityAttributesTest extends InjectorTestBas
                 }
             }
         });
+    }
 
-        assertTestData(acceptableSequenceSeen.get(), "No suitable context states seen, test failed.");
+    private int replayHistory(final String check) throws IOException {
+        return sharedMdibHistoryReplay.getTestData(
+                InvariantNonFunctionalQualityAttributesTest.class,
+                HISTORY_CHECKS,
+                InjectorTestBase::isTestEnabled,
+                check,
+                messageStorage,
+                getInjector().getInstance(TestRunObserver.class));
     }
 }
@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import com.draeger.medical.sdccc.messages.MessageStorage;
 import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
 import com.draeger.medical.sdccc.util.Constants;
 import com.draeger.medical.sdccc.util.TestRunObserver;
 import com.google.inject.Guice;
@@ -18,14 +19,18 @@ import com.google.inject.TypeLiteral;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -87,6 +92,7 @@ public class MdibHistorian {
     private final RemoteMdibAccessFactory remoteMdibAccessFactory;
     private final ModificationsBuilderFactory modificationsBuilderFactory;
     private final Provider<ReportProcessor> reportProcessorProvider;
+    private final ParsedMessageCache parsedMessageCache;
 
     @AssistedInject
     MdibHistorian(
@@ -95,13 +101,15 @@ public class MdibHistorian {
             final MarshallingService marshalling,
             final SoapUtil soapUtil,
             final ModificationsBuilderFactory modificationsBuilderFactory,
-            final Provider<ReportProcessor> reportProcessorProvider) {
+            final Provider<ReportProcessor> reportProcessorProvider,
+            final ParsedMessageCache parsedMessageCache) {
         this.messageStorage = messageStorage;
         this.testRunObserver = testRunObserver;
         this.marshalling = marshalling;
         this.soapUtil = soapUtil;
         this.modificationsBuilderFactory = modificationsBuilderFactory;
         this.reportProcessorProvider = reportProcessorProvider;
+        this.parsedMessageCache = parsedMessageCache;
 
         class MdibHistorianBicepsModule extends AbstractConfigurationModule {
             @Override
@@ -222,61 +230,30 @@ public class MdibHistorian {
         final var storage = createNewStorage(sequenceId);
         final var reportProcessor = reportProcessorProvider.get();
         reportProcessor.startApplyingReportsOnMdib(storage);
-        final var mdibVersionPredicate =
-                new InitialMdibVersionPredicateWithUUID(ImpliedValueUtil.getMdibVersion(storage.getMdibVersion()));
+        final var initialMdibVersion = ImpliedValueUtil.getMdibVersion(storage.getMdibVersion());
 
-        try {
-            final var messages =
-                    messageStorage.getInboundMessagesByBodyType(Constants.RELEVANT_REPORT_BODIES.toArray(new QName[0]));
-            var preStream = messages.getStream()
-                    .sequential() // the stateful filter operation below is not threadsafe
-                    .map(this::unmarshallReportKeepUUID)
-                    .filter(report -> sequenceId.equals(report.getLeft().getSequenceId()))
-                    .filter(mdibVersionPredicate);
-            if (ensureUnique) {
-                preStream = filterReportDuplicates(preStream);
-            }
-            final var stream = preStream.map(pair -> {
-                final var report = pair.getLeft();
-                try {
-                    final var cmp = ImpliedValueUtil.getMdibVersion(storage.getMdibVersion())
-                            .compareTo(ImpliedValueUtil.getReportMdibVersion(report));
-                    if (cmp > 0) {
-                        fail("Cannot apply report older than current storage."
-                                + " Storage " + ImpliedValueUtil.getMdibVersion(storage.getMdibVersion())
-                                + " Report " + ImpliedValueUtil.getReportMdibVersion(report)
-                                + " " + report.getClass().getSimpleName());
-                    } else if (cmp == 0) {
-                        LOG.debug("Cannot apply report of equal mdib version. This means that another report with the"
-                                + " same version has already been applied, and is expected behavior when e.g."
-                                + " descriptors update, as both a report for description and state will arrive.");
-                    }
-                    final var episodic = EpisodicReport.tryFrom(report);
-                    if (episodic != null) {
-                        LOG.debug(
-                                "Applying report with mdib version {}, type {}",
-                                ImpliedValueUtil.getReportMdibVersion(report),
-                                report.getClass().getSimpleName());
-                        reportProcessor.processEpisodicReport(episodic);
-                    } else {
-                        // other reports do not modify the Mdib and hence cannot be passed into report processor,
-                        // simply ignore them.
-                        LOG.debug(
-                                "Ignoring report of type {} with MdibVersion {} as it is not expected to "
-                                        + "change the Mdib anyway.",
-                                report.getClass().getSimpleName(),
-                                ImpliedValueUtil.getReportMdibVersion(report));
-                    }
-                } catch (final Exception e) {
-                    fail(e);
-                }
-                return storage;
-            });
+        final var messages = getReportMessages(sequenceId, initialMdibVersion);
+        final var stream = unmarshallReports(messages, initialMdibVersion, ensureUnique)
+                .map(report -> {
+                    applyReport(reportProcessor, storage, report);
+                    return storage;
+                });
 
-            // initial mdib stream
-            final var initialMdibStream = Stream.of(storage);
+        // initial mdib stream
+        final var initialMdibStream = Stream.of(storage);
 
-            return new HistorianResult(messages, Stream.concat(initialMdibStream, stream));
+        return new HistorianResult(messages, Stream.concat(initialMdibStream, stream));
+    }
+
+    private MessageStorage.GetterResult<MessageContent> getReportMessages(
+            final String sequenceId, final BigInteger initialMdibVersion) {
+        try {
+            // only fetch and unmarshal the reports of the sequence, the predicate still handles MdibVersions
+            // which do not fit into the storage
+            return messageStorage.getInboundMessagesByMdibVersionAndBodyType(
+                    sequenceId,
+                    toMinimumMdibVersion(initialMdibVersion),
+                    Constants.RELEVANT_REPORT_BODIES.toArray(new QName[0]));
         } catch (IOException e) {
             final var errorMessage = "Error while trying to retrieve reports from storage";
             LOG.error("{}: {}", errorMessage, e.getMessage());
@@ -288,6 +265,57 @@ public class MdibHistorian {
         }
     }
 
+    private Stream<AbstractReport> unmarshallReports(
+            final MessageStorage.GetterResult<MessageContent> messages,
+            final BigInteger initialMdibVersion,
+            final boolean ensureUnique) {
+        final var mdibVersionPredicate = new InitialMdibVersionPredicateWithUUID(initialMdibVersion);
+        var preStream = messages.getStream()
+                .sequential() // the stateful filter operation below is not threadsafe
+                .map(this::unmarshallReportKeepUUID)
+                .filter(mdibVersionPredicate);
+        if (ensureUnique) {
+            preStream = filterReportDuplicates(preStream);
+        }
+        return preStream.map(Pair::getLeft);
+    }
+
+    private void applyReport(
+            final ReportProcessor reportProcessor, final RemoteMdibAccess storage, final AbstractReport report) {
+        try {
+            final var cmp = ImpliedValueUtil.getMdibVersion(storage.getMdibVersion())
+                    .compareTo(ImpliedValueUtil.getReportMdibVersion(report));
+            if (cmp > 0) {
+                fail("Cannot apply report older than current storage."
+                        + " Storage " + ImpliedValueUtil.getMdibVersion(storage.getMdibVersion())
+                        + " Report " + ImpliedValueUtil.getReportMdibVersion(report)
+                        + " " + report.getClass().getSimpleName());
+            } else if (cmp == 0) {
+                LOG.debug("Cannot apply report of equal mdib version. This means that another report with the"
+                        + " same version has already been applied, and is expected behavior when e.g."
+                        + " descriptors update, as both a report for description and state will arrive.");
+            }
+            final var episodic = EpisodicReport.tryFrom(report);
+            if (episodic != null) {
+                LOG.debug(
+                        "Applying report with mdib version {}, type {}",
+                        ImpliedValueUtil.getReportMdibVersion(report),
+                        report.getClass().getSimpleName());
+                reportProcessor.processEpisodicReport(episodic);
+            } else {
+                // other reports do not modify the Mdib and hence cannot be passed into report processor,
+                // simply ignore them.
+                LOG.debug(
+                        "Ignoring report of type {} with MdibVersion {} as it is not expected to "
+                                + "change the Mdib anyway.",
+                        report.getClass().getSimpleName(),
+                        ImpliedValueUtil.getReportMdibVersion(report));
+            }
+        } catch (final Exception e) {
+            fail(e);
+        }
+    }
+
     /**
      * Generates an mdib history for a sequence id using the first available GetMdibResponse for said sequence id and
      * all related episodic reports until the specified timestamp, exclusive.
@@ -460,7 +488,7 @@ public class MdibHistorian {
                         // this should never happen in an SDC protocol run
                         // -> flag the error by invalidating the test run
                         testRunObserver.invalidateTestRun(String.format(
-                                "encountered 2 reports [UUID=%s, UUID=%s] with the same "
+                                "encountered 2 reports [ID=%s, ID=%s] with the same "
                                         + "MdibVersion (%d), the same ReportType (%s), but different "
                                         + "contents. This clearly violates the Requirement SDPi:R1006 "
                                         + "and indicates a problem with MdibVersion handling.",
@@ -555,15 +583,21 @@ public class MdibHistorian {
         return storage;
     }
 
+    // MdibVersions too large for the storage are persisted with a placeholder, those must not be filtered out
+    private static long toMinimumMdibVersion(final BigInteger mdibVersion) {
+        return mdibVersion.bitLength() < Long.SIZE ? mdibVersion.longValueExact() : Long.MIN_VALUE;
+    }
+
     private Pair<AbstractReport, String> unmarshallReportKeepUUID(final MessageContent messageContent) {
-        return new ImmutablePair<>(unmarshallReport(messageContent), messageContent.getUuid());
+        return new ImmutablePair<>(
+                unmarshallReport(messageContent), MessageUtil.formatEntryId(messageContent.getEntryId()));
     }
 
     private AbstractReport unmarshallReport(final MessageContent messageContent) {
         final var failMessage = "Could not unmarshall report in message " + messageContent.getMessageHash();
         try {
-            final var currentMdib = marshalling.unmarshal(
-                    new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+            // reports are only read, the mdib access copies what it keeps
+            final var currentMdib = parsedMessageCache.unmarshal(messageContent);
             final var reportOpt = soapUtil.getBody(currentMdib, AbstractReport.class);
             if (reportOpt.isEmpty()) {
                 fail(failMessage);
@@ -583,8 +617,7 @@ public class MdibHistorian {
     private Mdib unmarshallMdib(final MessageContent messageContent) {
         final var failMessage = "Could not unmarshall Mdib in message " + messageContent.getMessageHash();
         try {
-            final var currentMdib = marshalling.unmarshal(
-                    new ByteArrayInputStream(messageContent.getBody().getBytes(StandardCharsets.UTF_8)));
+            final var currentMdib = marshalling.unmarshal(messageContent.getBodyStream());
             final var mdibOpt = soapUtil.getBody(currentMdib, GetMdibResponse.class);
             if (mdibOpt.isEmpty()) {
                 fail(failMessage);
@@ -617,6 +650,121 @@ public class MdibHistorian {
         return mdibStorage;
     }
 
+    /**
+     * Replays the episodic report based histories of all known sequence ids once and passes every mdib revision to
+     * all visitors.
+     *
+     * <p>
+     * A visitor failing by throwing an {@linkplain AssertionError} or {@linkplain RuntimeException} is not visited
+     * again, the remaining visitors are unaffected by it. The replay stops early once all visitors have failed.
+     *
+     * @param visitors to pass the mdib revisions to
+     * @return the failures of the visitors which failed, by visitor
+     * @throws IOException on errors retrieving messages from storage
+     */
+    public Map<MdibHistoryVisitor, Throwable> replayHistory(final List<? extends MdibHistoryVisitor> visitors)
+            throws IOException {
+        final Map<MdibHistoryVisitor, Throwable> failures = new IdentityHashMap<>();
+        try (final Stream<String> sequenceIds = this.getKnownSequenceIds()) {
+            for (final Iterator<String> iterator = sequenceIds.iterator();
+                    iterator.hasNext() && failures.size() < visitors.size(); ) {
+                replaySequence(iterator.next(), visitors, failures);
+            }
+        }
+        return failures;
+    }
+
+    private void replaySequence(
+            final String sequenceId,
+            final List<? extends MdibHistoryVisitor> visitors,
+            final Map<MdibHistoryVisitor, Throwable> failures) {
+        final List<MdibHistoryVisitor> active = new ArrayList<>();
+        for (final var visitor : visitors) {
+            if (!failures.containsKey(visitor)) {
+                active.add(visitor);
+            }
+        }
+        try {
+            final var current = createNewStorage(sequenceId);
+            final var reportProcessor = reportProcessorProvider.get();
+
+            // the previous revision is only kept when needed, from the entities changed by each report
+            final PreviousMdibRevision previous;
+            if (active.stream().anyMatch(MdibHistoryVisitor::visitsPairs)) {
+                previous = new PreviousMdibRevision(current);
+                reportProcessor.startApplyingReportsOnMdib(previous.recordChanges());
+            } else {
+                previous = null;
+                reportProcessor.startApplyingReportsOnMdib(current);
+            }
+
+            visitAll(active, failures, visitor -> visitor.startSequence(sequenceId));
+            visitAll(active, failures, visitor -> visitor.visit(current));
+            if (active.isEmpty()) {
+                return;
+            }
+
+            final var initialMdibVersion = ImpliedValueUtil.getMdibVersion(current.getMdibVersion());
+            try (final var messages = getReportMessages(sequenceId, initialMdibVersion);
+                    final var reports = unmarshallReports(messages, initialMdibVersion, false)) {
+                for (final Iterator<AbstractReport> iterator = reports.iterator();
+                        iterator.hasNext() && !active.isEmpty(); ) {
+                    final var report = iterator.next();
+                    if (previous != null) {
+                        previous.startRevision();
+                    }
+                    applyReport(reportProcessor, current, report);
+                    visitAll(active, failures, visitor -> visitor.visit(current));
+                    if (previous != null) {
+                        visitAll(active, failures, visitor -> {
+                            if (visitor.visitsPairs()) {
+                                visitor.visitPair(previous, current);
+                            }
+                        });
+                    }
+                }
+            }
+        } catch (PreprocessingException | ReportProcessingException e) {
+            fail(e);
+        }
+    }
+
+    private static void visitAll(
+            final List<MdibHistoryVisitor> active,
+            final Map<MdibHistoryVisitor, Throwable> failures,
+            final Consumer<MdibHistoryVisitor> action) {
+        for (final Iterator<MdibHistoryVisitor> iterator = active.iterator(); iterator.hasNext(); ) {
+            final var visitor = iterator.next();
+            try {
+                action.accept(visitor);
+            } catch (final AssertionError | RuntimeException e) {
+                failures.put(visitor, e);
+                iterator.remove();
+            }
+        }
+    }
+
+    // visitors only throw unchecked exceptions, which are rethrown as they are
+    static void rethrow(final Throwable failure) {
+        if (failure instanceof AssertionError assertionError) {
+            throw assertionError;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    private static void rethrowFailures(final Map<MdibHistoryVisitor, Throwable> failures) {
+        failures.values().forEach(MdibHistorian::rethrow);
+    }
+
+    private void replaySequenceOrFail(final MdibHistoryVisitor visitor, final String sequenceId) {
+        final Map<MdibHistoryVisitor, Throwable> failures = new IdentityHashMap<>();
+        replaySequence(sequenceId, List.of(visitor), failures);
+        rethrowFailures(failures);
+    }
+
     /**
      * Processes each RemoteMdibAccess from the episodic report based history for the specified sequence ID
      * using the provided processor.
@@ -626,14 +774,7 @@ public class MdibHistorian {
      */
     public void processRemoteMdibAccessForSequence(
             final Consumer<RemoteMdibAccess> processor, final String sequenceId) {
-        try (HistorianResult history = episodicReportBasedHistory(sequenceId)) {
-            RemoteMdibAccess mdibAccess;
-            while ((mdibAccess = history.next()) != null) {
-                processor.accept(mdibAccess);
-            }
-        } catch (PreprocessingException | ReportProcessingException e) {
-            fail(e);
-        }
+        replaySequenceOrFail(MdibHistoryVisitor.ofRevisions(processor), sequenceId);
     }
 
     /**
@@ -643,11 +784,7 @@ public class MdibHistorian {
      * @param processor  a consumer that processes each RemoteMdibAccess
      */
     public void processAllRemoteMdibAccess(final Consumer<RemoteMdibAccess> processor) throws IOException {
-        try (final Stream<String> sequenceIds = this.getKnownSequenceIds()) {
-            sequenceIds.forEach(sequenceId -> {
-                processRemoteMdibAccessForSequence(processor, sequenceId);
-            });
-        }
+        rethrowFailures(replayHistory(List.of(MdibHistoryVisitor.ofRevisions(processor))));
     }
 
     /**
@@ -657,11 +794,19 @@ public class MdibHistorian {
      * @param processor a BiConsumer that processes a RemoteMdibAccess and its associated sequence id.
      */
     public void processAllRemoteMdibAccess(final BiConsumer<RemoteMdibAccess, String> processor) throws IOException {
-        try (final Stream<String> sequenceIds = this.getKnownSequenceIds()) {
-            sequenceIds.forEach(sequenceId -> {
-                processRemoteMdibAccessForSequence(mdibAccess -> processor.accept(mdibAccess, sequenceId), sequenceId);
-            });
-        }
+        rethrowFailures(replayHistory(List.of(new MdibHistoryVisitor() {
+            private String sequenceId;
+
+            @Override
+            public void startSequence(final String sequenceId) {
+                this.sequenceId = sequenceId;
+            }
+
+            @Override
+            public void visit(final RemoteMdibAccess mdibAccess) {
+                processor.accept(mdibAccess, this.sequenceId);
+            }
+        })));
     }
 
     /**
@@ -673,25 +818,7 @@ public class MdibHistorian {
      */
     public void processAllConsecutivePairsForSequenceId(
             final BiConsumer<RemoteMdibAccess, RemoteMdibAccess> processor, final String sequenceId) {
-        try (final MdibHistorian.HistorianResult history = episodicReportBasedHistory(sequenceId);
-                final MdibHistorian.HistorianResult historyNext = episodicReportBasedHistory(sequenceId)) {
-
-            // skip the first entry so that history and historyNext are off by one entry
-            final var skippedElement = historyNext.next();
-            if (skippedElement == null) {
-                throw new NoTestData("Not enough input to compare mdib revisions");
-            }
-
-            RemoteMdibAccess first = history.next();
-            RemoteMdibAccess second = historyNext.next();
-            while (second != null) {
-                processor.accept(first, second);
-                first = history.next();
-                second = historyNext.next();
-            }
-        } catch (PreprocessingException | ReportProcessingException | NoTestData e) {
-            fail(e);
-        }
+        replaySequenceOrFail(MdibHistoryVisitor.ofConsecutivePairs(processor), sequenceId);
     }
 
     /**
@@ -702,11 +829,7 @@ public class MdibHistorian {
      */
     public void processAllConsecutivePairs(final BiConsumer<RemoteMdibAccess, RemoteMdibAccess> processor)
             throws IOException {
-        try (final Stream<String> sequenceIds = this.getKnownSequenceIds()) {
-            sequenceIds.forEach(sequenceId -> {
-                processAllConsecutivePairsForSequenceId(processor, sequenceId);
-            });
-        }
+        rethrowFailures(replayHistory(List.of(MdibHistoryVisitor.ofConsecutivePairs(processor))));
     }
 
     /**
@@ -758,28 +881,59 @@ public class MdibHistorian {
             throws IOException {
         try (final Stream<String> sequenceIds = this.getKnownSequenceIds()) {
             sequenceIds.forEach(sequenceId -> {
-                RemoteMdibAccess first = null;
-                RemoteMdibAccess second = null;
                 try {
-                    first = createNewStorage(sequenceId);
-                    second = createNewStorage(sequenceId);
-                } catch (PreprocessingException e) {
+                    processApplicableReportPairsForSequenceId(sequenceId, applicable, processor);
+                } catch (PreprocessingException | ReportProcessingException e) {
                     fail(e);
                 }
+            });
+        }
+    }
 
-                final var minimumMdibVersion = ImpliedValueUtil.getMdibVersion(first.getMdibVersion());
-                try (final var reports = getAllUniqueReports(sequenceId, minimumMdibVersion)) {
-                    for (final Iterator<AbstractReport> iterator = reports.iterator(); iterator.hasNext(); ) {
-                        final AbstractReport report = iterator.next();
-                        if (applicable.test(report)) {
-                            second = applyReportOnStorage(second, report);
-                            processor.accept(first, second, report);
-                            first = applyReportOnStorage(first, report);
-                        } else {
-                            first = applyReportOnStorage(first, report);
-                            second = applyReportOnStorage(second, report);
-                        }
-                    }
+    private void processApplicableReportPairsForSequenceId(
+            final String sequenceId,
+            final Predicate<AbstractReport> applicable,
+            final TriConsumer<RemoteMdibAccess, RemoteMdibAccess, AbstractReport> processor)
+            throws PreprocessingException, ReportProcessingException {
+        final var current = createNewStorage(sequenceId);
+        final var previous = new PreviousMdibRevision(current);
+        final var reportProcessor = reportProcessorProvider.get();
+        reportProcessor.startApplyingReportsOnMdib(previous.recordChanges());
+
+        final var minimumMdibVersion = ImpliedValueUtil.getMdibVersion(current.getMdibVersion());
+        try (final var reports = getAllUniqueReports(sequenceId, minimumMdibVersion)) {
+            for (final Iterator<AbstractReport> iterator = reports.iterator(); iterator.hasNext(); ) {
+                final AbstractReport report = iterator.next();
+                previous.startRevision();
+                applyReport(reportProcessor, current, report);
+                if (applicable.test(report)) {
+                    processor.accept(previous, current, report);
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes each applicable AbstractReport across all known sequence ids together with snapshots of the mdib
+     * before the MdibVersion of the report and after applying the report.
+     *
+     * <p>
+     * Reports are replayed in order and only the snapshots of the current and the previous MdibVersion are kept, use
+     * {@linkplain #getSnapshotHistory(String)} if random access to the history of a sequence is required.
+     *
+     * @param applicable a predicate that determines whether a given AbstractReport should be processed
+     * @param processor  a consumer that processes the snapshot before the MdibVersion of the report, the snapshot
+     *                   after applying the report and the report
+     * @throws IOException on errors retrieving the sequence ids from storage
+     */
+    public void processAllApplicableReportsWithSnapshots(
+            final Predicate<AbstractReport> applicable,
+            final TriConsumer<MdibSnapshot, MdibSnapshot, AbstractReport> processor)
+            throws IOException {
+        try (final Stream<String> sequenceIds = this.getKnownSequenceIds()) {
+            sequenceIds.forEach(sequenceId -> {
+                try {
+                    processApplicableReportSnapshotsForSequenceId(sequenceId, applicable, processor);
                 } catch (PreprocessingException | ReportProcessingException e) {
                     fail(e);
                 }
@@ -787,6 +941,80 @@ public class MdibHistorian {
         }
     }
 
+    private void processApplicableReportSnapshotsForSequenceId(
+            final String sequenceId,
+            final Predicate<AbstractReport> applicable,
+            final TriConsumer<MdibSnapshot, MdibSnapshot, AbstractReport> processor)
+            throws PreprocessingException, ReportProcessingException {
+        final var current = createNewStorage(sequenceId);
+        final var changes = new PreviousMdibRevision(current);
+        final var reportProcessor = reportProcessorProvider.get();
+        reportProcessor.startApplyingReportsOnMdib(changes.recordChanges());
+
+        final var minimumMdibVersion = ImpliedValueUtil.getMdibVersion(current.getMdibVersion());
+        var snapshot = MdibSnapshot.of(current);
+        var previousSnapshot = snapshot;
+        try (final var reports = getAllUniqueReports(sequenceId, minimumMdibVersion)) {
+            for (final Iterator<AbstractReport> iterator = reports.iterator(); iterator.hasNext(); ) {
+                final AbstractReport report = iterator.next();
+                // reports of the same mdib version are compared against the mdib before the first of them
+                if (!ImpliedValueUtil.getReportMdibVersion(report)
+                        .equals(ImpliedValueUtil.getMdibVersion(snapshot.getMdibVersion()))) {
+                    previousSnapshot = snapshot;
+                }
+                changes.startRevision();
+                applyReport(reportProcessor, current, report);
+                snapshot = snapshot.next(current, changes.getChangedHandles());
+                if (applicable.test(report)) {
+                    processor.accept(previousSnapshot, snapshot, report);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the episodic reports of a sequence, keeping an immutable snapshot of the mdib per MdibVersion.
+     *
+     * <p>
+     * Snapshots of consecutive MdibVersions share all entities which did not change in between, which allows keeping
+     * the whole history of a sequence for random access and comparing any two revisions without replaying the reports
+     * again.
+     *
+     * @param sequenceId of the sequence to replay
+     * @return snapshots of the mdib by MdibVersion, starting with the initial mdib of the sequence
+     */
+    public NavigableMap<BigInteger, MdibSnapshot> getSnapshotHistory(final String sequenceId) {
+        final NavigableMap<BigInteger, MdibSnapshot> snapshots = new TreeMap<>();
+        try {
+            addSnapshots(sequenceId, snapshots);
+        } catch (PreprocessingException | ReportProcessingException e) {
+            fail(e);
+        }
+        return Collections.unmodifiableNavigableMap(snapshots);
+    }
+
+    private void addSnapshots(final String sequenceId, final NavigableMap<BigInteger, MdibSnapshot> snapshots)
+            throws PreprocessingException, ReportProcessingException {
+        final var current = createNewStorage(sequenceId);
+        final var changes = new PreviousMdibRevision(current);
+        final var reportProcessor = reportProcessorProvider.get();
+        reportProcessor.startApplyingReportsOnMdib(changes.recordChanges());
+
+        final var initialMdibVersion = ImpliedValueUtil.getMdibVersion(current.getMdibVersion());
+        var snapshot = MdibSnapshot.of(current);
+        snapshots.put(initialMdibVersion, snapshot);
+        try (final var messages = getReportMessages(sequenceId, initialMdibVersion);
+                final var reports = unmarshallReports(messages, initialMdibVersion, false)) {
+            for (final Iterator<AbstractReport> iterator = reports.iterator(); iterator.hasNext(); ) {
+                changes.startRevision();
+                applyReport(reportProcessor, current, iterator.next());
+                // reports of the same mdib version replace the snapshot of the previous report
+                snapshot = snapshot.next(current, changes.getChangedHandles());
+                snapshots.put(ImpliedValueUtil.getMdibVersion(current.getMdibVersion()), snapshot);
+            }
+        }
+    }
+
     /**
      * Result container providing a {@linkplain RemoteMdibAccess} on which every incoming report is applied in order of
      * arrival.
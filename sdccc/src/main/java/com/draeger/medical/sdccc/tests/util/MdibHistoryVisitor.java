@@ -0,0 +1,106 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.somda.sdc.biceps.consumer.access.RemoteMdibAccess;
+
+/**
+ * Visitor of the mdib revisions replayed by the {@linkplain MdibHistorian}.
+ *
+ * <p>
+ * The visited {@linkplain RemoteMdibAccess} instances are updated in place by the replay, they must not be kept
+ * beyond the visit.
+ */
+public interface MdibHistoryVisitor {
+
+    /**
+     * Called before the first revision of a sequence is visited.
+     *
+     * @param sequenceId of the sequence which is replayed next
+     */
+    default void startSequence(final String sequenceId) {}
+
+    /**
+     * Visits an mdib revision, starting with the initial mdib of the sequence.
+     *
+     * @param mdibAccess the mdib after applying the next report
+     */
+    default void visit(final RemoteMdibAccess mdibAccess) {}
+
+    /**
+     * Visits two consecutive mdib revisions, only called if {@linkplain #visitsPairs()} is true.
+     *
+     * @param previous the mdib before applying the next report
+     * @param current  the mdib after applying the next report
+     */
+    default void visitPair(final RemoteMdibAccess previous, final RemoteMdibAccess current) {}
+
+    /**
+     * @return true if {@linkplain #visitPair(RemoteMdibAccess, RemoteMdibAccess)} shall be called, which requires the
+     *         replay to keep the previous revision
+     */
+    default boolean visitsPairs() {
+        return false;
+    }
+
+    /**
+     * Creates a visitor processing every mdib revision.
+     *
+     * @param processor which processes each revision
+     * @return a new visitor
+     */
+    static MdibHistoryVisitor ofRevisions(final Consumer<RemoteMdibAccess> processor) {
+        return new MdibHistoryVisitor() {
+            @Override
+            public void visit(final RemoteMdibAccess mdibAccess) {
+                processor.accept(mdibAccess);
+            }
+        };
+    }
+
+    /**
+     * Creates a visitor processing every pair of consecutive mdib revisions.
+     *
+     * @param processor which processes each pair
+     * @return a new visitor
+     */
+    static MdibHistoryVisitor ofConsecutivePairs(final BiConsumer<RemoteMdibAccess, RemoteMdibAccess> processor) {
+        return ofConsecutivePairsPerSequence(() -> processor);
+    }
+
+    /**
+     * Creates a visitor processing every pair of consecutive mdib revisions with a new processor for each sequence,
+     * e.g. for processors which keep track of previous revisions.
+     *
+     * @param processorFactory which creates the processor of the pairs of each sequence
+     * @return a new visitor
+     */
+    static MdibHistoryVisitor ofConsecutivePairsPerSequence(
+            final Supplier<BiConsumer<RemoteMdibAccess, RemoteMdibAccess>> processorFactory) {
+        return new MdibHistoryVisitor() {
+            private BiConsumer<RemoteMdibAccess, RemoteMdibAccess> processor;
+
+            @Override
+            public void startSequence(final String sequenceId) {
+                this.processor = processorFactory.get();
+            }
+
+            @Override
+            public void visitPair(final RemoteMdibAccess previous, final RemoteMdibAccess current) {
+                this.processor.accept(previous, current);
+            }
+
+            @Override
+            public boolean visitsPairs() {
+                return true;
+            }
+        };
+    }
+}
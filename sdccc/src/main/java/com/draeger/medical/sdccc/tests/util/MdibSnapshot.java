@@ -0,0 +1,269 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.somda.sdc.biceps.common.MdibEntity;
+import org.somda.sdc.biceps.common.access.MdibAccess;
+import org.somda.sdc.biceps.model.participant.AbstractContextState;
+import org.somda.sdc.biceps.model.participant.AbstractDescriptor;
+import org.somda.sdc.biceps.model.participant.AbstractMultiState;
+import org.somda.sdc.biceps.model.participant.AbstractState;
+import org.somda.sdc.biceps.model.participant.MdibVersion;
+
+/**
+ * Immutable mdib revision, as provided by {@linkplain MdibHistorian#getSnapshotHistory(String)}.
+ *
+ * <p>
+ * Snapshots of consecutive revisions share all entities which did not change in between, keeping the snapshots of all
+ * revisions of a sequence only costs memory for the changes of each report. Unlike the mdib of the
+ * {@linkplain MdibHistorian.HistorianResult}, snapshots can be kept and compared with each other.
+ *
+ * <p>
+ * Collections returned by the snapshot are not ordered by insertion. The returned entities and states are shared
+ * between snapshots and must not be modified.
+ */
+public final class MdibSnapshot implements MdibAccess {
+
+    private final MdibVersion mdibVersion;
+    private final BigInteger mdDescriptionVersion;
+    private final BigInteger mdStateVersion;
+    private final PersistentHashMap<String, MdibEntity> entities;
+    // handles of multi states to the handles of their descriptors
+    private final PersistentHashMap<String, String> multiStateDescriptors;
+    private final List<String> rootHandles;
+
+    private MdibSnapshot(
+            final MdibAccess mdibAccess,
+            final PersistentHashMap<String, MdibEntity> entities,
+            final PersistentHashMap<String, String> multiStateDescriptors,
+            final List<String> rootHandles) {
+        this.mdibVersion = mdibAccess.getMdibVersion();
+        this.mdDescriptionVersion = mdibAccess.getMdDescriptionVersion();
+        this.mdStateVersion = mdibAccess.getMdStateVersion();
+        this.entities = entities;
+        this.multiStateDescriptors = multiStateDescriptors;
+        this.rootHandles = rootHandles;
+    }
+
+    /**
+     * Creates a snapshot containing all entities of an mdib.
+     *
+     * @param mdibAccess to create the snapshot of
+     * @return the new snapshot
+     */
+    static MdibSnapshot of(final MdibAccess mdibAccess) {
+        PersistentHashMap<String, MdibEntity> entities = PersistentHashMap.empty();
+        PersistentHashMap<String, String> multiStateDescriptors = PersistentHashMap.empty();
+        for (final var entity : mdibAccess.findEntitiesByType(AbstractDescriptor.class)) {
+            entities = entities.with(entity.getHandle(), entity);
+            multiStateDescriptors = withMultiStates(multiStateDescriptors, entity);
+        }
+        return new MdibSnapshot(mdibAccess, entities, multiStateDescriptors, rootHandles(mdibAccess));
+    }
+
+    /**
+     * Derives the snapshot of the next revision of an mdib, sharing all entities which did not change.
+     *
+     * @param mdibAccess     the mdib in its next revision
+     * @param changedHandles handles of all entities which changed since this snapshot
+     * @return the snapshot of the next revision
+     */
+    MdibSnapshot next(final MdibAccess mdibAccess, final Collection<String> changedHandles) {
+        var nextEntities = entities;
+        var nextMultiStateDescriptors = multiStateDescriptors;
+        var rootsChanged = false;
+        // all changed entities are removed before adding them again, as multi states may move between entities
+        for (final var handle : changedHandles) {
+            final var previous = entities.get(handle);
+            if (previous != null) {
+                nextEntities = nextEntities.without(handle);
+                nextMultiStateDescriptors = withoutMultiStates(nextMultiStateDescriptors, previous);
+                rootsChanged |= previous.getParent().isEmpty();
+            }
+        }
+        for (final var handle : changedHandles) {
+            final var nextEntity = mdibAccess.getEntity(handle);
+            if (nextEntity.isPresent()) {
+                final var next = nextEntity.orElseThrow();
+                nextEntities = nextEntities.with(handle, next);
+                nextMultiStateDescriptors = withMultiStates(nextMultiStateDescriptors, next);
+                rootsChanged |= next.getParent().isEmpty();
+            }
+        }
+        return new MdibSnapshot(
+                mdibAccess,
+                nextEntities,
+                nextMultiStateDescriptors,
+                rootsChanged ? rootHandles(mdibAccess) : rootHandles);
+    }
+
+    /**
+     * Gets the handles of all entities which differ between two snapshots.
+     *
+     * <p>
+     * Only entities which are not shared by the snapshots are compared, which makes comparing consecutive revisions
+     * cheap.
+     *
+     * @param other snapshot to compare with
+     * @return handles of the entities which were inserted, deleted or changed in between
+     */
+    public Set<String> getChangedEntities(final MdibSnapshot other) {
+        final Set<String> changed = new HashSet<>();
+        entities.forEachDifference(other.entities, changed::add);
+        return changed;
+    }
+
+    private static List<String> rootHandles(final MdibAccess mdibAccess) {
+        return mdibAccess.getRootEntities().stream().map(MdibEntity::getHandle).toList();
+    }
+
+    private static PersistentHashMap<String, String> withMultiStates(
+            final PersistentHashMap<String, String> multiStateDescriptors, final MdibEntity entity) {
+        var result = multiStateDescriptors;
+        for (final var state : entity.getStates(AbstractState.class)) {
+            if (state instanceof AbstractMultiState multiState) {
+                result = result.with(multiState.getHandle(), entity.getHandle());
+            }
+        }
+        return result;
+    }
+
+    private static PersistentHashMap<String, String> withoutMultiStates(
+            final PersistentHashMap<String, String> multiStateDescriptors, final MdibEntity entity) {
+        var result = multiStateDescriptors;
+        for (final var state : entity.getStates(AbstractState.class)) {
+            if (state instanceof AbstractMultiState multiState) {
+                result = result.without(multiState.getHandle());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public MdibVersion getMdibVersion() {
+        return mdibVersion;
+    }
+
+    @Override
+    public BigInteger getMdDescriptionVersion() {
+        return mdDescriptionVersion;
+    }
+
+    @Override
+    public BigInteger getMdStateVersion() {
+        return mdStateVersion;
+    }
+
+    @Override
+    public <T extends AbstractDescriptor> Optional<T> getDescriptor(final String handle, final Class<T> type) {
+        return getEntity(handle).flatMap(entity -> entity.getDescriptor(type));
+    }
+
+    @Override
+    public Optional<AbstractDescriptor> getDescriptor(final String handle) {
+        return getEntity(handle).flatMap(entity -> entity.getDescriptor(AbstractDescriptor.class));
+    }
+
+    @Override
+    public Optional<MdibEntity> getEntity(final String handle) {
+        return Optional.ofNullable(entities.get(handle));
+    }
+
+    @Override
+    public <T extends AbstractDescriptor> Collection<MdibEntity> findEntitiesByType(final Class<T> type) {
+        final List<MdibEntity> result = new ArrayList<>();
+        entities.forEach((handle, entity) -> {
+            if (entity.getDescriptor(type).isPresent()) {
+                result.add(entity);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public <T extends AbstractDescriptor> List<MdibEntity> getChildrenByType(final String handle, final Class<T> type) {
+        final List<MdibEntity> result = new ArrayList<>();
+        getEntity(handle).ifPresent(parent -> {
+            for (final var child : parent.getChildren()) {
+                getEntity(child)
+                        .filter(entity -> entity.getDescriptor(type).isPresent())
+                        .ifPresent(result::add);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public List<MdibEntity> getRootEntities() {
+        final List<MdibEntity> result = new ArrayList<>(rootHandles.size());
+        for (final var handle : rootHandles) {
+            getEntity(handle).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<AbstractState> getState(final String handle) {
+        var entity = entities.get(handle);
+        if (entity == null) {
+            final var descriptorHandle = multiStateDescriptors.get(handle);
+            if (descriptorHandle == null) {
+                return Optional.empty();
+            }
+            entity = entities.get(descriptorHandle);
+        }
+        for (final var state : entity.getStates(AbstractState.class)) {
+            final var stateHandle = state instanceof AbstractMultiState multiState
+                    ? multiState.getHandle()
+                    : state.getDescriptorHandle();
+            if (handle.equals(stateHandle)) {
+                return Optional.of(state);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public <T extends AbstractState> Optional<T> getState(final String handle, final Class<T> type) {
+        return getState(handle).filter(type::isInstance).map(type::cast);
+    }
+
+    @Override
+    public <T extends AbstractState> List<T> getStatesByType(final Class<T> type) {
+        final List<T> result = new ArrayList<>();
+        entities.forEach((handle, entity) -> result.addAll(entity.getStates(type)));
+        return result;
+    }
+
+    @Override
+    public <T extends AbstractContextState> List<T> getContextStates(
+            final String descriptorHandle, final Class<T> type) {
+        return getEntity(descriptorHandle).map(entity -> entity.getStates(type)).orElseGet(List::of);
+    }
+
+    @Override
+    public List<AbstractContextState> getContextStates(final String descriptorHandle) {
+        return getContextStates(descriptorHandle, AbstractContextState.class);
+    }
+
+    @Override
+    public List<AbstractContextState> getContextStates() {
+        return getStatesByType(AbstractContextState.class);
+    }
+
+    @Override
+    public <T extends AbstractContextState> List<T> findContextStatesByType(final Class<T> type) {
+        return getStatesByType(type);
+    }
+}
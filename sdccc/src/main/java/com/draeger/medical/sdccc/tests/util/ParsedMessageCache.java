@@ -0,0 +1,125 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import com.draeger.medical.sdccc.configuration.TestSuiteConfig;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.somda.sdc.dpws.soap.MarshallingService;
+import org.somda.sdc.dpws.soap.SoapMessage;
+import org.somda.sdc.dpws.soap.exception.MarshallingException;
+
+/**
+ * Cache of unmarshalled messages shared by the tests, which often evaluate the same reports.
+ *
+ * <p>
+ * Messages are identified by their entry id and the hash of their body. At most the configured number of messages is
+ * kept, the least recently used ones are evicted first. The cached messages are only softly referenced and are
+ * therefore released by the garbage collector when memory runs low.
+ *
+ * <p>
+ * Cached messages are shared between all callers and must not be modified.
+ */
+@Singleton
+public class ParsedMessageCache {
+
+    /**
+     * Default of {@linkplain TestSuiteConfig#PARSED_MESSAGE_CACHE_SIZE}.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private static final Logger LOG = LogManager.getLogger(ParsedMessageCache.class);
+
+    private final MarshallingService marshalling;
+    private final int maximumSize;
+    private final Map<Long, CachedMessage> messages;
+
+    private long hits;
+    private long misses;
+    private long collected;
+
+    @Inject
+    ParsedMessageCache(
+            final MarshallingService marshalling,
+            @Named(TestSuiteConfig.PARSED_MESSAGE_CACHE_SIZE) final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid cache size: %s must not be negative.", TestSuiteConfig.PARSED_MESSAGE_CACHE_SIZE));
+        }
+        this.marshalling = marshalling;
+        this.maximumSize = maximumSize;
+        this.messages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, CachedMessage> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Unmarshals the body of a message, or returns the message unmarshalled by a previous call.
+     *
+     * @param messageContent to unmarshal
+     * @return the unmarshalled message, which must not be modified
+     * @throws MarshallingException if the body could not be unmarshalled
+     */
+    public SoapMessage unmarshal(final MessageContent messageContent) throws MarshallingException {
+        if (this.maximumSize == 0) {
+            return this.marshalling.unmarshal(messageContent.getBodyStream());
+        }
+
+        final byte[] digest = messageContent.getMessageDigest();
+        synchronized (this.messages) {
+            final CachedMessage cached = this.messages.get(messageContent.getEntryId());
+            if (cached != null && Arrays.equals(cached.digest(), digest)) {
+                final SoapMessage message = cached.message().get();
+                if (message != null) {
+                    this.hits++;
+                    return message;
+                }
+                this.collected++;
+            }
+            this.misses++;
+        }
+
+        // unmarshalling is the expensive part, it must not block the other callers
+        final SoapMessage message = this.marshalling.unmarshal(messageContent.getBodyStream());
+        synchronized (this.messages) {
+            this.messages.put(messageContent.getEntryId(), new CachedMessage(digest, new SoftReference<>(message)));
+        }
+        return message;
+    }
+
+    /**
+     * Logs how often messages were served from the cache and releases all cached messages.
+     */
+    public void clear() {
+        synchronized (this.messages) {
+            if (this.hits + this.misses > 0) {
+                LOG.info(
+                        "Parsed message cache: {} hits, {} misses, {} messages released due to low memory",
+                        this.hits,
+                        this.misses,
+                        this.collected);
+            }
+            this.messages.clear();
+            this.hits = 0;
+            this.misses = 0;
+            this.collected = 0;
+        }
+    }
+
+    private record CachedMessage(byte[] digest, SoftReference<SoapMessage> message) {}
+}
@@ -0,0 +1,354 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Immutable hash map sharing its structure with the map it was derived from.
+ *
+ * <p>
+ * The entries are kept in a hash array mapped trie, adding or removing an entry only copies the path to it. Maps
+ * derived from each other therefore share all unchanged subtrees, which makes keeping many versions of a large map
+ * cheap and allows finding the differences between two versions without visiting the shared subtrees.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param <K> type of the keys
+     * @param <V> type of the values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key to get the value of
+     * @return the value, or null if the key is not contained
+     */
+    @SuppressWarnings("unchecked")
+    V get(final K key) {
+        final int hash = hash(key);
+        Node node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            if (node instanceof Leaf leaf) {
+                return leaf.hash == hash && leaf.key.equals(key) ? (V) leaf.value : null;
+            }
+            if (node instanceof Collision collision) {
+                return collision.hash == hash ? (V) collision.get(key) : null;
+            }
+            final var branch = (Branch) node;
+            final int bit = bit(hash, shift);
+            if ((branch.bitmap & bit) == 0) {
+                return null;
+            }
+            node = branch.children[branch.index(bit)];
+        }
+        return null;
+    }
+
+    /**
+     * Derives a map with an entry added or replaced.
+     *
+     * @param key   of the entry
+     * @param value of the entry, must not be null
+     * @return the derived map, or this map if it already contains the very same value for the key
+     */
+    PersistentHashMap<K, V> with(final K key, final V value) {
+        Objects.requireNonNull(value);
+        final var added = new boolean[1];
+        final var newRoot = put(root, 0, new Leaf(hash(key), key, value), added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Derives a map with an entry removed.
+     *
+     * @param key of the entry
+     * @return the derived map, or this map if the key is not contained
+     */
+    PersistentHashMap<K, V> without(final K key) {
+        final var newRoot = remove(root, 0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Passes all entries to an action, in no particular order.
+     *
+     * @param action to pass the entries to
+     */
+    void forEach(final BiConsumer<? super K, ? super V> action) {
+        forEachEntry(root, action);
+    }
+
+    /**
+     * Passes all keys whose values differ between two maps to an action, values are compared by reference.
+     *
+     * <p>
+     * Subtrees shared by both maps are skipped, finding the differences between two maps derived from each other
+     * therefore only costs as much as the changes between them.
+     *
+     * @param other  map to compare with
+     * @param action to pass the keys to, in no particular order
+     */
+    void forEachDifference(final PersistentHashMap<K, V> other, final Consumer<? super K> action) {
+        difference(root, other.root, 0, action);
+    }
+
+    private static int hash(final Object key) {
+        final int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static Node put(final Node node, final int shift, final Leaf leaf, final boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return leaf;
+        }
+        if (node instanceof Leaf existing) {
+            if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                return existing.value == leaf.value ? existing : leaf;
+            }
+            added[0] = true;
+            if (existing.hash == leaf.hash) {
+                return new Collision(leaf.hash, new Leaf[] {existing, leaf});
+            }
+            return merge(existing, existing.hash, leaf, shift);
+        }
+        if (node instanceof Collision collision) {
+            if (collision.hash == leaf.hash) {
+                return collision.put(leaf, added);
+            }
+            added[0] = true;
+            return merge(collision, collision.hash, leaf, shift);
+        }
+        final var branch = (Branch) node;
+        final int bit = bit(leaf.hash, shift);
+        final int index = branch.index(bit);
+        if ((branch.bitmap & bit) == 0) {
+            added[0] = true;
+            final var children = new Node[branch.children.length + 1];
+            System.arraycopy(branch.children, 0, children, 0, index);
+            children[index] = leaf;
+            System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+            return new Branch(branch.bitmap | bit, children);
+        }
+        final var child = branch.children[index];
+        final var newChild = put(child, shift + BITS, leaf, added);
+        if (newChild == child) {
+            return branch;
+        }
+        final var children = branch.children.clone();
+        children[index] = newChild;
+        return new Branch(branch.bitmap, children);
+    }
+
+    // the hashes of both nodes differ, they are separated at the first level at which their hash bits differ
+    private static Node merge(final Node node, final int nodeHash, final Leaf leaf, final int shift) {
+        final int nodeBit = bit(nodeHash, shift);
+        final int leafBit = bit(leaf.hash, shift);
+        if (nodeBit == leafBit) {
+            return new Branch(nodeBit, new Node[] {merge(node, nodeHash, leaf, shift + BITS)});
+        }
+        final Node[] children =
+                Integer.compareUnsigned(nodeBit, leafBit) < 0 ? new Node[] {node, leaf} : new Node[] {leaf, node};
+        return new Branch(nodeBit | leafBit, children);
+    }
+
+    private static Node remove(final Node node, final int shift, final int hash, final Object key) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof Leaf leaf) {
+            return leaf.hash == hash && leaf.key.equals(key) ? null : leaf;
+        }
+        if (node instanceof Collision collision) {
+            return collision.hash == hash ? collision.remove(key) : collision;
+        }
+        final var branch = (Branch) node;
+        final int bit = bit(hash, shift);
+        if ((branch.bitmap & bit) == 0) {
+            return branch;
+        }
+        final int index = branch.index(bit);
+        final var child = branch.children[index];
+        final var newChild = remove(child, shift + BITS, hash, key);
+        if (newChild == child) {
+            return branch;
+        }
+        if (newChild == null) {
+            if (branch.children.length == 1) {
+                return null;
+            }
+            final var children = new Node[branch.children.length - 1];
+            System.arraycopy(branch.children, 0, children, 0, index);
+            System.arraycopy(branch.children, index + 1, children, index, children.length - index);
+            // a single remaining leaf does not need a branch of its own
+            if (children.length == 1 && !(children[0] instanceof Branch)) {
+                return children[0];
+            }
+            return new Branch(branch.bitmap & ~bit, children);
+        }
+        if (branch.children.length == 1 && !(newChild instanceof Branch)) {
+            return newChild;
+        }
+        final var children = branch.children.clone();
+        children[index] = newChild;
+        return new Branch(branch.bitmap, children);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void forEachEntry(final Node node, final BiConsumer<? super K, ? super V> action) {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof Leaf leaf) {
+            action.accept((K) leaf.key, (V) leaf.value);
+        } else if (node instanceof Collision collision) {
+            for (final var leaf : collision.leaves) {
+                action.accept((K) leaf.key, (V) leaf.value);
+            }
+        } else {
+            for (final var child : ((Branch) node).children) {
+                forEachEntry(child, action);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> void difference(
+            final Node node, final Node other, final int shift, final Consumer<? super K> action) {
+        if (node == other) {
+            return;
+        }
+        if (node instanceof Branch branch && other instanceof Branch otherBranch) {
+            // both branches are on the same level, their children can be compared slot by slot
+            for (int slot = 0; slot <= MASK; slot++) {
+                final int bit = 1 << slot;
+                final Node child = (branch.bitmap & bit) == 0 ? null : branch.children[branch.index(bit)];
+                final Node otherChild =
+                        (otherBranch.bitmap & bit) == 0 ? null : otherBranch.children[otherBranch.index(bit)];
+                difference(child, otherChild, shift + BITS, action);
+            }
+            return;
+        }
+        final Map<Object, Object> entries = new HashMap<>();
+        forEachEntry(node, entries::put);
+        final Map<Object, Object> otherEntries = new HashMap<>();
+        forEachEntry(other, otherEntries::put);
+        entries.forEach((key, value) -> {
+            if (otherEntries.remove(key) != value) {
+                action.accept((K) key);
+            }
+        });
+        otherEntries.keySet().forEach(key -> action.accept((K) key));
+    }
+
+    private interface Node {}
+
+    private record Leaf(int hash, Object key, Object value) implements Node {}
+
+    // entries whose keys have the same hash
+    private record Collision(int hash, Leaf[] leaves) implements Node {
+
+        private Object get(final Object key) {
+            for (final var leaf : leaves) {
+                if (leaf.key.equals(key)) {
+                    return leaf.value;
+                }
+            }
+            return null;
+        }
+
+        private Node put(final Leaf leaf, final boolean[] added) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(leaf.key)) {
+                    if (leaves[i].value == leaf.value) {
+                        return this;
+                    }
+                    final var newLeaves = leaves.clone();
+                    newLeaves[i] = leaf;
+                    return new Collision(hash, newLeaves);
+                }
+            }
+            added[0] = true;
+            final var newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+            newLeaves[leaves.length] = leaf;
+            return new Collision(hash, newLeaves);
+        }
+
+        private Node remove(final Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) {
+                    if (leaves.length == 2) {
+                        return leaves[1 - i];
+                    }
+                    final var newLeaves = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, newLeaves, 0, i);
+                    System.arraycopy(leaves, i + 1, newLeaves, i, newLeaves.length - i);
+                    return new Collision(hash, newLeaves);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static final class Branch implements Node {
+        private final int bitmap;
+        private final Node[] children;
+
+        private Branch(final int bitmap, final Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+}
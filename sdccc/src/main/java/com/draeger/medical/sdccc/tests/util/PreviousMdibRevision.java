@@ -0,0 +1,458 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.somda.sdc.biceps.common.MdibDescriptionModification;
+import org.somda.sdc.biceps.common.MdibDescriptionModifications;
+import org.somda.sdc.biceps.common.MdibEntity;
+import org.somda.sdc.biceps.common.MdibStateModifications;
+import org.somda.sdc.biceps.common.access.MdibAccessObserver;
+import org.somda.sdc.biceps.common.access.ReadTransaction;
+import org.somda.sdc.biceps.common.access.WriteDescriptionResult;
+import org.somda.sdc.biceps.common.access.WriteStateResult;
+import org.somda.sdc.biceps.common.storage.PreprocessingException;
+import org.somda.sdc.biceps.consumer.access.RemoteMdibAccess;
+import org.somda.sdc.biceps.model.participant.AbstractContextState;
+import org.somda.sdc.biceps.model.participant.AbstractDescriptor;
+import org.somda.sdc.biceps.model.participant.AbstractMultiState;
+import org.somda.sdc.biceps.model.participant.AbstractState;
+import org.somda.sdc.biceps.model.participant.MdibVersion;
+
+/**
+ * Read-only view of the mdib revision before the last reports applied to a {@linkplain RemoteMdibAccess}.
+ *
+ * <p>
+ * Instead of replaying every report a second time on another storage, the view records the entities a report is
+ * about to change, while the report is written through {@linkplain #recordChanges()}. All other entities are read
+ * from the current mdib, which makes keeping the previous revision as cheap as the change set of a single report.
+ *
+ * <p>
+ * Like the current mdib, the view changes with every report and must not be kept beyond the visit of a revision.
+ */
+final class PreviousMdibRevision implements RemoteMdibAccess, ReadTransaction {
+
+    private final RemoteMdibAccess current;
+    // entities as they were before the last report, empty for entities created by it
+    private final Map<String, Optional<MdibEntity>> replaced;
+
+    private MdibVersion previousMdibVersion;
+    private BigInteger previousMdDescriptionVersion;
+    private BigInteger previousMdStateVersion;
+
+    PreviousMdibRevision(final RemoteMdibAccess current) {
+        this.current = current;
+        this.replaced = new HashMap<>();
+        startRevision();
+    }
+
+    /**
+     * Makes the current mdib the previous revision, must be called before the next report is applied.
+     *
+     * <p>
+     * Without calling it, the view keeps the revision before all reports applied since the last call.
+     */
+    void startRevision() {
+        this.replaced.clear();
+        this.previousMdibVersion = current.getMdibVersion();
+        this.previousMdDescriptionVersion = current.getMdDescriptionVersion();
+        this.previousMdStateVersion = current.getMdStateVersion();
+    }
+
+    /**
+     * Gets the access reports have to be applied through for the changes to be recorded.
+     *
+     * @return an access writing to the current mdib, recording each entity before it is changed
+     */
+    RemoteMdibAccess recordChanges() {
+        return new RecordingMdibAccess();
+    }
+
+    /**
+     * @return handles of the entities changed since the previous revision
+     */
+    Set<String> getChangedHandles() {
+        return Collections.unmodifiableSet(replaced.keySet());
+    }
+
+    private void recordEntity(final String handle) {
+        if (handle != null && !replaced.containsKey(handle)) {
+            replaced.put(handle, current.getEntity(handle));
+        }
+    }
+
+    private void recordSubtree(final String handle) {
+        recordEntity(handle);
+        current.getEntity(handle).ifPresent(entity -> entity.getChildren().forEach(this::recordSubtree));
+    }
+
+    private void recordDescriptionChanges(final MdibDescriptionModifications modifications) {
+        for (final var modification : modifications.asList()) {
+            final var handle = modification.getDescriptorHandle();
+            if (modification instanceof MdibDescriptionModification.Delete) {
+                recordSubtree(handle);
+            } else {
+                recordEntity(handle);
+            }
+            // the children of the parent change on insertion and deletion
+            recordEntity(modification.getParent());
+            current.getEntity(handle).flatMap(MdibEntity::getParent).ifPresent(this::recordEntity);
+        }
+    }
+
+    private void recordStateChanges(final MdibStateModifications modifications) {
+        for (final var state : modifications.getStates()) {
+            recordEntity(state.getDescriptorHandle());
+            // a context state may be moved from another descriptor
+            current.getState(stateHandle(state))
+                    .map(AbstractState::getDescriptorHandle)
+                    .ifPresent(this::recordEntity);
+        }
+    }
+
+    private static String stateHandle(final AbstractState state) {
+        if (state instanceof AbstractMultiState multiState) {
+            return multiState.getHandle();
+        }
+        return state.getDescriptorHandle();
+    }
+
+    /**
+     * Substitutes the entities changed by the last report in the entities of the current mdib, in place to keep the
+     * order of the current mdib.
+     *
+     * @param currentEntities entities of the current mdib matching the filter
+     * @param filter          which the entities of the previous revision have to match
+     * @return the entities of the previous revision matching the filter
+     */
+    private List<MdibEntity> previousEntities(
+            final Collection<MdibEntity> currentEntities, final Predicate<MdibEntity> filter) {
+        if (replaced.isEmpty()) {
+            return new ArrayList<>(currentEntities);
+        }
+        final List<MdibEntity> result = new ArrayList<>(currentEntities.size());
+        final Set<String> substituted = new HashSet<>();
+        for (final var entity : currentEntities) {
+            final var previous = replaced.get(entity.getHandle());
+            if (previous == null) {
+                result.add(entity);
+            } else {
+                substituted.add(entity.getHandle());
+                previous.filter(filter).ifPresent(result::add);
+            }
+        }
+        replaced.forEach((handle, previous) -> {
+            if (!substituted.contains(handle)) {
+                previous.filter(filter).ifPresent(result::add);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public MdibVersion getMdibVersion() {
+        return previousMdibVersion;
+    }
+
+    @Override
+    public BigInteger getMdDescriptionVersion() {
+        return previousMdDescriptionVersion;
+    }
+
+    @Override
+    public BigInteger getMdStateVersion() {
+        return previousMdStateVersion;
+    }
+
+    @Override
+    public <T extends AbstractDescriptor> Optional<T> getDescriptor(final String handle, final Class<T> type) {
+        return getEntity(handle).flatMap(entity -> entity.getDescriptor(type));
+    }
+
+    @Override
+    public Optional<AbstractDescriptor> getDescriptor(final String handle) {
+        return getEntity(handle).flatMap(entity -> entity.getDescriptor(AbstractDescriptor.class));
+    }
+
+    @Override
+    public Optional<MdibEntity> getEntity(final String handle) {
+        final var previous = replaced.get(handle);
+        if (previous != null) {
+            return previous;
+        }
+        return current.getEntity(handle);
+    }
+
+    @Override
+    public <T extends AbstractDescriptor> Collection<MdibEntity> findEntitiesByType(final Class<T> type) {
+        return previousEntities(current.findEntitiesByType(type), entity -> entity.getDescriptor(type)
+                .isPresent());
+    }
+
+    @Override
+    public <T extends AbstractDescriptor> List<MdibEntity> getChildrenByType(final String handle, final Class<T> type) {
+        final List<MdibEntity> result = new ArrayList<>();
+        getEntity(handle).ifPresent(parent -> {
+            for (final var child : parent.getChildren()) {
+                getEntity(child)
+                        .filter(entity -> entity.getDescriptor(type).isPresent())
+                        .ifPresent(result::add);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public List<MdibEntity> getRootEntities() {
+        return previousEntities(
+                current.getRootEntities(), entity -> entity.getParent().isEmpty());
+    }
+
+    @Override
+    public Optional<AbstractState> getState(final String handle) {
+        final var currentState = current.getState(handle);
+        if (currentState.isPresent()
+                && !replaced.containsKey(currentState.orElseThrow().getDescriptorHandle())) {
+            return currentState;
+        }
+        // the state was changed by the last report, or deleted by it
+        for (final var previous : replaced.values()) {
+            if (previous.isPresent()) {
+                for (final var state : previous.orElseThrow().getStates(AbstractState.class)) {
+                    if (handle.equals(stateHandle(state))) {
+                        return Optional.of(state);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public <T extends AbstractState> Optional<T> getState(final String handle, final Class<T> type) {
+        return getState(handle).filter(type::isInstance).map(type::cast);
+    }
+
+    @Override
+    public <T extends AbstractState> List<T> getStatesByType(final Class<T> type) {
+        final var currentStates = current.getStatesByType(type);
+        if (replaced.isEmpty()) {
+            return currentStates;
+        }
+        final List<T> result = new ArrayList<>(currentStates.size());
+        final Set<String> substituted = new HashSet<>();
+        for (final var state : currentStates) {
+            final var descriptorHandle = state.getDescriptorHandle();
+            final var previous = replaced.get(descriptorHandle);
+            if (previous == null) {
+                result.add(state);
+            } else if (substituted.add(descriptorHandle)) {
+                previous.ifPresent(entity -> result.addAll(entity.getStates(type)));
+            }
+        }
+        replaced.forEach((handle, previous) -> {
+            if (!substituted.contains(handle)) {
+                previous.ifPresent(entity -> result.addAll(entity.getStates(type)));
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public <T extends AbstractContextState> List<T> getContextStates(
+            final String descriptorHandle, final Class<T> type) {
+        return getEntity(descriptorHandle).map(entity -> entity.getStates(type)).orElseGet(List::of);
+    }
+
+    @Override
+    public List<AbstractContextState> getContextStates(final String descriptorHandle) {
+        return getContextStates(descriptorHandle, AbstractContextState.class);
+    }
+
+    @Override
+    public List<AbstractContextState> getContextStates() {
+        return getStatesByType(AbstractContextState.class);
+    }
+
+    @Override
+    public <T extends AbstractContextState> List<T> findContextStatesByType(final Class<T> type) {
+        return getStatesByType(type);
+    }
+
+    @Override
+    public ReadTransaction startTransaction() {
+        return this;
+    }
+
+    @Override
+    public WriteDescriptionResult writeDescription(
+            final MdibVersion mdibVersion,
+            final BigInteger mdDescriptionVersion,
+            final BigInteger mdStateVersion,
+            final MdibDescriptionModifications descriptionModifications) {
+        throw new UnsupportedOperationException("The previous mdib revision is read-only");
+    }
+
+    @Override
+    public WriteStateResult writeStates(
+            final MdibVersion mdibVersion, final MdibStateModifications stateModifications) {
+        throw new UnsupportedOperationException("The previous mdib revision is read-only");
+    }
+
+    @Override
+    public void registerObserver(final MdibAccessObserver observer) {
+        throw new UnsupportedOperationException("The previous mdib revision cannot be observed");
+    }
+
+    @Override
+    public void unregisterObserver(final MdibAccessObserver observer) {
+        throw new UnsupportedOperationException("The previous mdib revision cannot be observed");
+    }
+
+    @Override
+    public void unregisterAllObservers() {
+        throw new UnsupportedOperationException("The previous mdib revision cannot be observed");
+    }
+
+    /**
+     * Writes to the current mdib, recording the entities which are changed beforehand.
+     */
+    private final class RecordingMdibAccess implements RemoteMdibAccess {
+
+        @Override
+        public WriteDescriptionResult writeDescription(
+                final MdibVersion mdibVersion,
+                final BigInteger mdDescriptionVersion,
+                final BigInteger mdStateVersion,
+                final MdibDescriptionModifications descriptionModifications)
+                throws PreprocessingException {
+            recordDescriptionChanges(descriptionModifications);
+            return current.writeDescription(
+                    mdibVersion, mdDescriptionVersion, mdStateVersion, descriptionModifications);
+        }
+
+        @Override
+        public WriteStateResult writeStates(
+                final MdibVersion mdibVersion, final MdibStateModifications stateModifications)
+                throws PreprocessingException {
+            recordStateChanges(stateModifications);
+            return current.writeStates(mdibVersion, stateModifications);
+        }
+
+        @Override
+        public MdibVersion getMdibVersion() {
+            return current.getMdibVersion();
+        }
+
+        @Override
+        public BigInteger getMdDescriptionVersion() {
+            return current.getMdDescriptionVersion();
+        }
+
+        @Override
+        public BigInteger getMdStateVersion() {
+            return current.getMdStateVersion();
+        }
+
+        @Override
+        public <T extends AbstractDescriptor> Optional<T> getDescriptor(final String handle, final Class<T> type) {
+            return current.getDescriptor(handle, type);
+        }
+
+        @Override
+        public Optional<AbstractDescriptor> getDescriptor(final String handle) {
+            return current.getDescriptor(handle);
+        }
+
+        @Override
+        public Optional<MdibEntity> getEntity(final String handle) {
+            return current.getEntity(handle);
+        }
+
+        @Override
+        public <T extends AbstractDescriptor> Collection<MdibEntity> findEntitiesByType(final Class<T> type) {
+            return current.findEntitiesByType(type);
+        }
+
+        @Override
+        public <T extends AbstractDescriptor> List<MdibEntity> getChildrenByType(
+                final String handle, final Class<T> type) {
+            return current.getChildrenByType(handle, type);
+        }
+
+        @Override
+        public List<MdibEntity> getRootEntities() {
+            return current.getRootEntities();
+        }
+
+        @Override
+        public Optional<AbstractState> getState(final String handle) {
+            return current.getState(handle);
+        }
+
+        @Override
+        public <T extends AbstractState> Optional<T> getState(final String handle, final Class<T> type) {
+            return current.getState(handle, type);
+        }
+
+        @Override
+        public <T extends AbstractState> List<T> getStatesByType(final Class<T> type) {
+            return current.getStatesByType(type);
+        }
+
+        @Override
+        public <T extends AbstractContextState> List<T> getContextStates(
+                final String descriptorHandle, final Class<T> type) {
+            return current.getContextStates(descriptorHandle, type);
+        }
+
+        @Override
+        public List<AbstractContextState> getContextStates(final String descriptorHandle) {
+            return current.getContextStates(descriptorHandle);
+        }
+
+        @Override
+        public List<AbstractContextState> getContextStates() {
+            return current.getContextStates();
+        }
+
+        @Override
+        public <T extends AbstractContextState> List<T> findContextStatesByType(final Class<T> type) {
+            return current.findContextStatesByType(type);
+        }
+
+        @Override
+        public ReadTransaction startTransaction() {
+            return current.startTransaction();
+        }
+
+        @Override
+        public void registerObserver(final MdibAccessObserver observer) {
+            current.registerObserver(observer);
+        }
+
+        @Override
+        public void unregisterObserver(final MdibAccessObserver observer) {
+            current.unregisterObserver(observer);
+        }
+
+        @Override
+        public void unregisterAllObservers() {
+            current.unregisterAllObservers();
+        }
+    }
+}
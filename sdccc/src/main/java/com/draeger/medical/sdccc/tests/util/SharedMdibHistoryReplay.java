@@ -0,0 +1,169 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import com.draeger.medical.sdccc.messages.MessageStorage;
+import com.draeger.medical.sdccc.tests.util.guice.MdibHistorianFactory;
+import com.draeger.medical.sdccc.util.TestRunObserver;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Replays the mdib history once for all history checks of a test class instead of once per test.
+ *
+ * <p>
+ * A history check is an {@linkplain MdibHistoryVisitor} which counts the test data it has seen. The first test of a
+ * class requesting the result of its check replays the history for the checks of all enabled tests of the class, the
+ * other tests reuse the results. The results are kept until the message storage changes or {@linkplain #clear()} is
+ * called.
+ *
+ * <p>
+ * The visitors are created anew for each replay and must not depend on the test instance requesting the result, as
+ * their results are shared with the other tests of the class.
+ */
+@Singleton
+public class SharedMdibHistoryReplay {
+    private static final Logger LOG = LogManager.getLogger(SharedMdibHistoryReplay.class);
+
+    private final MdibHistorianFactory mdibHistorianFactory;
+    private final Map<Class<?>, Replay> replays;
+
+    @Inject
+    SharedMdibHistoryReplay(final MdibHistorianFactory mdibHistorianFactory) {
+        this.mdibHistorianFactory = mdibHistorianFactory;
+        this.replays = new HashMap<>();
+    }
+
+    /**
+     * Gets the result of a history check, replaying the history for all checks of the test class if necessary.
+     *
+     * @param testClass       whose checks are replayed together
+     * @param checks          all checks of the test class by test identifier, creating the visitor of a check from
+     *                        the counter of the test data seen by it
+     * @param enabled         whether the test with a test identifier is enabled, checks of disabled tests are not
+     *                        replayed
+     * @param check           test identifier of the check to get the result of
+     * @param messageStorage  to replay the history from
+     * @param testRunObserver to indicate failures
+     * @return the amount of test data seen by the check
+     * @throws IOException on errors retrieving messages from storage
+     */
+    public synchronized int getTestData(
+            final Class<?> testClass,
+            final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> checks,
+            final Predicate<String> enabled,
+            final String check,
+            final MessageStorage messageStorage,
+            final TestRunObserver testRunObserver)
+            throws IOException {
+        if (!checks.containsKey(check)) {
+            throw new IllegalArgumentException("Unknown history check " + check + " of " + testClass.getSimpleName());
+        }
+
+        var replay = this.replays.get(testClass);
+        final long addedMessages = messageStorage.getAddedMessageCount();
+        if (replay == null
+                || replay.messageStorage != messageStorage
+                || replay.addedMessages != addedMessages
+                || !replay.testData.containsKey(check)) {
+            // the requested check belongs to a running test, even if its test identifier is not configured as enabled
+            final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> replayedChecks = new HashMap<>();
+            checks.forEach((testIdentifier, visitorFactory) -> {
+                if (testIdentifier.equals(check) || enabled.test(testIdentifier)) {
+                    replayedChecks.put(testIdentifier, visitorFactory);
+                }
+            });
+            replay = replay(replayedChecks, messageStorage, testRunObserver, addedMessages);
+            this.replays.put(testClass, replay);
+            LOG.debug(
+                    "Replayed the mdib history for {} history checks of {}",
+                    replayedChecks.size(),
+                    testClass.getName());
+        }
+
+        if (replay.storageFailure != null) {
+            throw replay.storageFailure;
+        }
+        if (replay.failure != null) {
+            MdibHistorian.rethrow(replay.failure);
+        }
+        final var checkFailure = replay.checkFailures.get(check);
+        if (checkFailure != null) {
+            MdibHistorian.rethrow(checkFailure);
+        }
+        return replay.testData.get(check).get();
+    }
+
+    /**
+     * Releases the results of all replays.
+     */
+    public synchronized void clear() {
+        this.replays.clear();
+    }
+
+    private Replay replay(
+            final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> checks,
+            final MessageStorage messageStorage,
+            final TestRunObserver testRunObserver,
+            final long addedMessages) {
+        final Map<String, AtomicInteger> testData = new HashMap<>();
+        final Map<MdibHistoryVisitor, String> visitors = new IdentityHashMap<>();
+        checks.forEach((check, visitorFactory) -> {
+            final var counter = new AtomicInteger(0);
+            testData.put(check, counter);
+            visitors.put(visitorFactory.apply(counter), check);
+        });
+
+        final var replay = new Replay(messageStorage, addedMessages, testData);
+        try {
+            final var mdibHistorian = mdibHistorianFactory.createMdibHistorian(messageStorage, testRunObserver);
+            mdibHistorian
+                    .replayHistory(new ArrayList<>(visitors.keySet()))
+                    .forEach((visitor, failure) -> replay.checkFailures.put(visitors.get(visitor), failure));
+        } catch (final IOException e) {
+            replay.storageFailure = e;
+        } catch (final AssertionError | RuntimeException e) {
+            // replaying the history itself failed, which fails every check
+            replay.failure = e;
+        }
+        return replay;
+    }
+
+    private static final class Replay {
+        private final MessageStorage messageStorage;
+        private final long addedMessages;
+        private final Map<String, AtomicInteger> testData;
+        private final Map<String, Throwable> checkFailures;
+
+        @Nullable
+        private IOException storageFailure;
+
+        @Nullable
+        private Throwable failure;
+
+        private Replay(
+                final MessageStorage messageStorage,
+                final long addedMessages,
+                final Map<String, AtomicInteger> testData) {
+            this.messageStorage = messageStorage;
+            this.addedMessages = addedMessages;
+            this.testData = testData;
+            this.checkFailures = new HashMap<>();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the charset declaration scanner of the message storage.
+ */
+public class TestCharsetDeclarationScanner {
+
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+    private static final byte[] UTF_32BE_BOM = {(byte) 0x00, (byte) 0x00, (byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_32LE_BOM = {(byte) 0xFF, (byte) 0xFE, (byte) 0x00, (byte) 0x00};
+
+    private static final String BODY = "<s12:Envelope xmlns:s12=\"http://www.w3.org/2003/05/soap-envelope\">"
+            + "<s12:Body>äöü</s12:Body></s12:Envelope>";
+
+    // the regular expressions previously used for the XML declaration and the Content-Type header
+    private static final Pattern LEGACY_DOUBLE_QUOTES =
+            Pattern.compile(".*<\\?.*encoding\\s*=\\s*\"([^\"]*)\".*\\?>.*", Pattern.DOTALL);
+    private static final Pattern LEGACY_SINGLE_QUOTES =
+            Pattern.compile(".*<\\?.*encoding\\s*=\\s*'([^']*)'.*\\?>.*", Pattern.DOTALL);
+    private static final Pattern LEGACY_CHARSET = Pattern.compile(".*;\\s*charset\\s*=\\s*([^;]*).*");
+
+    /**
+     * Tests whether all Unicode Byte Order Marks are recognized, including the UTF-32LE mark which starts with the
+     * UTF-16LE mark.
+     */
+    @Test
+    public void testByteOrderMark() {
+        assertEquals(StandardCharsets.UTF_8, CharsetDeclarationScanner.charsetFromByteOrderMark(UTF_8_BOM));
+        assertEquals(StandardCharsets.UTF_16BE, CharsetDeclarationScanner.charsetFromByteOrderMark(UTF_16BE_BOM));
+        assertEquals(StandardCharsets.UTF_16LE, CharsetDeclarationScanner.charsetFromByteOrderMark(UTF_16LE_BOM));
+        assertEquals(
+                CharsetDeclarationScanner.UTF_32BE, CharsetDeclarationScanner.charsetFromByteOrderMark(UTF_32BE_BOM));
+        assertEquals(
+                CharsetDeclarationScanner.UTF_32LE, CharsetDeclarationScanner.charsetFromByteOrderMark(UTF_32LE_BOM));
+
+        assertNull(CharsetDeclarationScanner.charsetFromByteOrderMark(new byte[0]));
+        assertNull(CharsetDeclarationScanner.charsetFromByteOrderMark(new byte[] {(byte) 0xEF, (byte) 0xBB}));
+        assertNull(CharsetDeclarationScanner.charsetFromByteOrderMark(BODY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tests whether the charset the XML declaration is encoded in is recognized from its first bytes.
+     */
+    @Test
+    public void testXmlDeclarationPrefix() {
+        final String declaration = "<?xml version=\"1.0\"?>";
+        assertEquals(
+                StandardCharsets.US_ASCII,
+                CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                        declaration.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(
+                StandardCharsets.US_ASCII,
+                CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                        concat(UTF_8_BOM, declaration.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(
+                StandardCharsets.UTF_16BE,
+                CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                        declaration.getBytes(StandardCharsets.UTF_16BE)));
+        assertEquals(
+                StandardCharsets.UTF_16LE,
+                CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                        declaration.getBytes(StandardCharsets.UTF_16LE)));
+        assertEquals(
+                CharsetDeclarationScanner.UTF_32BE,
+                CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                        declaration.getBytes(CharsetDeclarationScanner.UTF_32BE)));
+        assertEquals(
+                CharsetDeclarationScanner.UTF_32LE,
+                CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                        declaration.getBytes(CharsetDeclarationScanner.UTF_32LE)));
+        assertEquals(
+                CharsetDeclarationScanner.EBCDIC,
+                CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                        declaration.getBytes(CharsetDeclarationScanner.EBCDIC)));
+
+        // only a UTF-8 byte order mark is skipped
+        assertNull(CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(
+                concat(UTF_16BE_BOM, declaration.getBytes(StandardCharsets.UTF_16BE))));
+        assertNull(CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(BODY.getBytes(StandardCharsets.UTF_8)));
+        assertNull(CharsetDeclarationScanner.charsetFromXmlDeclarationPrefix(new byte[] {0x3C, 0x3F}));
+    }
+
+    /**
+     * Tests whether the encoding declaration is read in every charset the XML declaration can be encoded in and
+     * whether it agrees with the regular expressions used before.
+     */
+    @Test
+    public void testXmlDeclaration() {
+        final List<String> declarations = List.of(
+                "<?xml version=\"1.0\" encoding=\"UTF-16\"?>",
+                "<?xml version='1.0' encoding='windows-1252'?>",
+                "<?xml version=\"1.0\"   encoding = \"ISO-8859-1\" standalone=\"yes\" ?>",
+                "<?xml version=\"1.0\"\n\tencoding=\"UTF-8\"?>",
+                "<?xml version=\"1.0\"?>",
+                "<?xml version=\"1.0\" standalone='no'?>");
+        final List<Charset> encodings = List.of(
+                StandardCharsets.UTF_8,
+                StandardCharsets.US_ASCII,
+                StandardCharsets.UTF_16BE,
+                StandardCharsets.UTF_16LE,
+                CharsetDeclarationScanner.UTF_32BE,
+                CharsetDeclarationScanner.UTF_32LE,
+                CharsetDeclarationScanner.EBCDIC);
+
+        for (final String declaration : declarations) {
+            final String document = declaration + BODY;
+            final Charset expected = legacyCharsetFromXmlDeclaration(document);
+            for (final Charset encoding : encodings) {
+                final byte[] body = document.getBytes(encoding);
+                assertEquals(
+                        expected,
+                        CharsetDeclarationScanner.charsetFromXmlDeclaration(body, encoding),
+                        declaration + " in " + encoding);
+            }
+        }
+
+        // byte order marks are skipped
+        final String declaration = "<?xml version=\"1.0\" encoding=\"UTF-16BE\"?>";
+        assertEquals(
+                StandardCharsets.UTF_16BE,
+                CharsetDeclarationScanner.charsetFromXmlDeclaration(
+                        concat(UTF_16BE_BOM, declaration.getBytes(StandardCharsets.UTF_16BE)),
+                        StandardCharsets.UTF_16BE));
+        assertEquals(
+                StandardCharsets.UTF_16BE,
+                CharsetDeclarationScanner.charsetFromXmlDeclaration(
+                        concat(UTF_8_BOM, declaration.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+
+        // only a declaration at the start of the document counts
+        assertNull(CharsetDeclarationScanner.charsetFromXmlDeclaration(
+                (BODY + declaration).getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        // truncated declarations do not declare an encoding
+        assertNull(CharsetDeclarationScanner.charsetFromXmlDeclaration(
+                "<?xml version=\"1.0\" encoding=\"UTF".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+
+        assertThrows(
+                UnsupportedCharsetException.class,
+                () -> CharsetDeclarationScanner.charsetFromXmlDeclaration(
+                        "<?xml version=\"1.0\" encoding=\"unknown-charset\"?>".getBytes(StandardCharsets.UTF_8),
+                        StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests whether the charset parameter of Content-Type header values agrees with the regular expression used
+     * before.
+     */
+    @Test
+    public void testCharsetParameter() {
+        final List<String> contentTypes = List.of(
+                "application/soap+xml; charset=utf-8",
+                "application/soap+xml;charset=UTF-16",
+                "application/soap+xml; charset = \"ISO-8859-1\"",
+                "application/soap+xml; charset='utf-8'; action=\"urn:action\"",
+                "application/soap+xml; action=\"urn:action\"; charset=utf-8",
+                "application/soap+xml; charset=utf-8; charset=utf-16",
+                "application/soap+xml; charset=",
+                "application/soap+xml; action=\"urn:action\"",
+                "application/soap+xml",
+                "application/soap+xml; Charset=utf-8");
+
+        for (final String contentType : contentTypes) {
+            final Matcher matcher = LEGACY_CHARSET.matcher(contentType);
+            final String expected =
+                    matcher.matches() ? stripQuotes(matcher.group(1).trim()).trim() : null;
+            assertEquals(expected, CharsetDeclarationScanner.charsetParameter(contentType), contentType);
+        }
+    }
+
+    private static Charset legacyCharsetFromXmlDeclaration(final String document) {
+        final Matcher matcher = LEGACY_DOUBLE_QUOTES.matcher(document);
+        if (matcher.matches()) {
+            return Charset.forName(matcher.group(1));
+        }
+        final Matcher matcher2 = LEGACY_SINGLE_QUOTES.matcher(document);
+        if (matcher2.matches()) {
+            return Charset.forName(matcher2.group(1));
+        }
+        return null;
+    }
+
+    private static String stripQuotes(final String str) {
+        if ((str.startsWith("\"") && str.endsWith("\"")) || (str.startsWith("'") && str.endsWith("'"))) {
+            return str.substring(1, str.length() - 1);
+        }
+        return str;
+    }
+
+    private static byte[] concat(final byte[] first, final byte[] second) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(first);
+        out.writeBytes(second);
+        return out.toByteArray();
+    }
+}
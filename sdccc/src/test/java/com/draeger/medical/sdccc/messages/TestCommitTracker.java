@@ -0,0 +1,63 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the commit tracker of the message storage.
+ */
+public class TestCommitTracker {
+
+    /**
+     * Tests whether the high-water mark only advances once all lower sequence numbers have been committed.
+     */
+    @Test
+    public void testHighWaterMarkWithOutOfOrderCommits() {
+        final CommitTracker commitTracker = new CommitTracker();
+        assertEquals(0, commitTracker.getHighWaterMark());
+
+        commitTracker.commit(2);
+        commitTracker.commit(3);
+        assertEquals(0, commitTracker.getHighWaterMark());
+
+        commitTracker.commit(1);
+        assertEquals(3, commitTracker.getHighWaterMark());
+
+        commitTracker.commit(5);
+        assertEquals(3, commitTracker.getHighWaterMark());
+
+        commitTracker.commit(4);
+        assertEquals(5, commitTracker.getHighWaterMark());
+    }
+
+    /**
+     * Tests whether waiting for the high-water mark returns once it has been reached by another thread.
+     */
+    @Test
+    public void testAwaitHighWaterMark() {
+        final CommitTracker commitTracker = new CommitTracker();
+
+        final Thread committer = new Thread(() -> {
+            commitTracker.commit(2);
+            commitTracker.commit(1);
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            committer.start();
+            commitTracker.awaitHighWaterMark(2);
+        });
+        assertEquals(2, commitTracker.getHighWaterMark());
+
+        // already reached, must not block
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> commitTracker.awaitHighWaterMark(1));
+    }
+}
@@ -0,0 +1,695 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static com.draeger.medical.sdccc.messages.HibernateStorageBackend.DEFAULT_FETCH_SIZE;
+import static com.draeger.medical.sdccc.messages.HibernateStorageBackend.DEFAULT_MESSAGE_FETCH_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
+import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
+import com.draeger.medical.sdccc.util.CertificateUtil;
+import com.draeger.medical.sdccc.util.Constants;
+import com.draeger.medical.t2iapi.ResponseTypes;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import javax.xml.namespace.QName;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.somda.sdc.dpws.CommunicationLog;
+import org.somda.sdc.dpws.soap.ApplicationInfo;
+import org.somda.sdc.dpws.soap.CommunicationContext;
+import org.somda.sdc.dpws.soap.HttpApplicationInfo;
+import org.somda.sdc.dpws.soap.TransportInfo;
+
+/**
+ * Unit tests for the hibernate backend of the message storage.
+ */
+public class TestHibernateStorageBackend {
+
+    private static final String BULK_SEQUENCE_ID = "urn:uuid:bulk";
+    private static final String RARE_SEQUENCE_ID = "urn:uuid:rare";
+    // the optimizer only knows the number of distinct body types, spread the bulk like a real test run does
+    private static final List<QName> BULK_REPORTS = List.of(
+            Constants.MSG_EPISODIC_METRIC_REPORT,
+            Constants.MSG_EPISODIC_COMPONENT_REPORT,
+            Constants.MSG_EPISODIC_CONTEXT_REPORT,
+            Constants.MSG_EPISODIC_OPERATIONAL_STATE_REPORT,
+            Constants.MSG_DESCRIPTION_MODIFICATION_REPORT,
+            Constants.MSG_OPERATION_INVOKED_REPORT,
+            Constants.MSG_SYSTEM_ERROR_REPORT,
+            Constants.MSG_OBSERVED_VALUE_STREAM,
+            Constants.MSG_WAVEFORM_STREAM);
+    private static final int RARE_MESSAGE_COUNT = 10;
+    private static final int SMALL_ROW_COUNT = 1000;
+    private static final int LARGE_ROW_COUNT = 16000;
+    private static final int BATCH_SIZE = 500;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+    // a full scan grows with the 16 times larger row count, an index lookup does not
+    private static final long MAXIMUM_SLOWDOWN = 2;
+    private static final long TIMER_RESOLUTION_NANOS = 2_000_000;
+    private static final int BENCHMARK_MESSAGE_COUNT = 5000;
+    private static final int BENCHMARK_ROUNDS = 3;
+    // Derby's row and index maintenance remains, bulk loads measured about 1.45 to 1.8 times as fast as persisting
+    private static final double MINIMUM_BULK_LOAD_SPEEDUP = 1.25;
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    /**
+     * Tests whether the indexes declared for the query shapes of the message storage are created.
+     *
+     * @param dir temporary directory
+     * @throws SQLException on database errors
+     */
+    @Test
+    public void testIndexesCreated(@TempDir final File dir) throws SQLException {
+        try (final HibernateStorageBackend backend = new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE);
+                final Connection connection =
+                        DriverManager.getConnection("jdbc:derby:" + Path.of(dir.getAbsolutePath(), "Database"))) {
+            assertTrue(getIndexNames(connection, "MESSAGE_CONTENT").contains("MESSAGE_CONTENT_DIRECTION_IDX"));
+            assertTrue(
+                    getIndexNames(connection, "MDIB_VERSION_GROUPS").contains("MDIB_VERSION_GROUPS_BODY_ELEMENT_IDX"));
+        }
+    }
+
+    /**
+     * Benchmarks whether the latency of selective queries stays flat when the number of stored messages grows.
+     *
+     * <p>
+     * Only run by the benchmark task, as wall-clock latencies vary between machines. The indexes which keep the
+     * queries selective are checked by {@linkplain #testIndexesCreated(File)}.
+     *
+     * @param dir temporary directory
+     */
+    @Test
+    @Tag("benchmark")
+    public void testQueryLatencyIndependentOfRowCount(@TempDir final File dir) {
+        final QName rareReport = Constants.MSG_EPISODIC_ALERT_REPORT;
+        try (final HibernateStorageBackend backend = new HibernateStorageBackend(
+                new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE)) {
+            final List<MessageContent> rareMessages = new ArrayList<>();
+            for (int i = 0; i < RARE_MESSAGE_COUNT; i++) {
+                rareMessages.add(message(i, RARE_SEQUENCE_ID, rareReport));
+            }
+            backend.persist(rareMessages);
+            persistBulkMessages(backend, RARE_MESSAGE_COUNT, SMALL_ROW_COUNT);
+
+            final List<Supplier<Stream<MessageContent>>> queries = List.of(
+                    () -> backend.getInboundMessagesByBodyTypeAndSequenceId(RARE_SEQUENCE_ID, rareReport),
+                    () -> backend.getInboundMessagesByBodyType(false, rareReport),
+                    () -> backend.getInboundMessagesByTimestampAndBodyType(
+                            RARE_SEQUENCE_ID, Long.MAX_VALUE, rareReport));
+
+            final List<Long> smallLatencies =
+                    queries.stream().map(TestHibernateStorageBackend::measure).toList();
+            persistBulkMessages(backend, RARE_MESSAGE_COUNT + SMALL_ROW_COUNT, LARGE_ROW_COUNT - SMALL_ROW_COUNT);
+            final List<Long> largeLatencies =
+                    queries.stream().map(TestHibernateStorageBackend::measure).toList();
+
+            for (int i = 0; i < queries.size(); i++) {
+                assertTrue(
+                        largeLatencies.get(i) <= smallLatencies.get(i) * MAXIMUM_SLOWDOWN + TIMER_RESOLUTION_NANOS,
+                        String.format(
+                                "Query %s took %sns with %s rows, but %sns with %s rows",
+                                i, largeLatencies.get(i), LARGE_ROW_COUNT, smallLatencies.get(i), SMALL_ROW_COUNT));
+            }
+        }
+    }
+
+    /**
+     * Tests whether results streamed in fetch windows smaller than the result are complete, ordered and usable,
+     * although previous windows are detached from the session.
+     *
+     * @param dir temporary directory
+     */
+    @Test
+    public void testStreamingInFetchWindows(@TempDir final File dir) {
+        final int fetchSize = 3;
+        final int messageCount = 10;
+        try (final HibernateStorageBackend backend =
+                new HibernateStorageBackend(new HibernateConfigImpl(dir), fetchSize, fetchSize)) {
+            final List<MessageContent> messages = new ArrayList<>();
+            for (int i = 0; i < messageCount; i++) {
+                messages.add(message(messageCount - i, RARE_SEQUENCE_ID, Constants.MSG_EPISODIC_METRIC_REPORT));
+            }
+            backend.persist(messages);
+
+            try (final Stream<MessageContent> ordered =
+                    backend.getInboundMessagesByBodyType(true, Constants.MSG_EPISODIC_METRIC_REPORT)) {
+                assertEquals(
+                        LongStream.rangeClosed(1, messageCount).boxed().toList(),
+                        ordered.map(message ->
+                                        message.getMdibVersionGroups().get(0).getMdibVersion())
+                                .toList());
+            }
+            try (final Stream<MessageContent> unordered = backend.getInboundMessages()) {
+                assertEquals(
+                        messageCount,
+                        unordered
+                                .filter(message ->
+                                        message.getMdibVersionGroups().size() == 1)
+                                .count());
+            }
+            try (final Stream<String> sequenceIds = backend.getUniqueSequenceIds()) {
+                assertEquals(List.of(RARE_SEQUENCE_ID), sequenceIds.toList());
+            }
+        }
+    }
+
+    /**
+     * Tests whether a message with several matching MdibVersionGroups is returned once by every query, sorted by its
+     * first matching MdibVersionGroup, and whether the segment log backend returns the same results.
+     *
+     * @param dir temporary directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testSeveralMatchingMdibVersionGroups(@TempDir final File dir) throws IOException {
+        final QName report = Constants.MSG_EPISODIC_METRIC_REPORT;
+        final List<MessageContent> messages = List.of(
+                message(1, CommunicationLog.Direction.INBOUND, 5, 7),
+                message(2, CommunicationLog.Direction.INBOUND, 6),
+                message(3, CommunicationLog.Direction.OUTBOUND, 8, 9));
+        final var contentType = new AbstractMap.SimpleImmutableEntry<>("content-type", "application/soap+xml");
+
+        try (final HibernateStorageBackend hibernate = new HibernateStorageBackend(
+                        new HibernateConfigImpl(new File(dir, "hibernate")),
+                        DEFAULT_MESSAGE_FETCH_SIZE,
+                        DEFAULT_FETCH_SIZE);
+                final SegmentLogStorageBackend segmentLog =
+                        new SegmentLogStorageBackend(new File(dir, "segmentLog").toPath(), SEGMENT_SIZE)) {
+            for (final MessageStorageBackend backend : List.of(hibernate, segmentLog)) {
+                backend.persist(messages);
+
+                assertEquals(
+                        List.of(1L, 2L),
+                        timestamps(backend.getInboundMessagesByBodyTypeAndSequenceId(RARE_SEQUENCE_ID, report)));
+                assertEquals(List.of(1L, 2L), timestamps(backend.getInboundMessagesByBodyType(true, report)));
+                assertEquals(
+                        List.of(1L, 2L),
+                        timestamps(backend.getInboundMessagesByBodyType(false, report)).stream()
+                                .sorted()
+                                .toList());
+                assertEquals(
+                        List.of(2L, 1L),
+                        timestamps(backend.getInboundMessagesByMdibVersionAndBodyType(RARE_SEQUENCE_ID, 6, report)));
+                assertEquals(
+                        List.of(1L, 2L),
+                        timestamps(backend.getInboundMessagesByTimeIntervalAndBodyType(0, Long.MAX_VALUE, report)));
+                assertEquals(
+                        List.of(1L, 2L),
+                        timestamps(backend.getInboundMessagesByTimestampAndBodyType(
+                                RARE_SEQUENCE_ID, Long.MAX_VALUE, report)));
+                assertEquals(
+                        List.of(3L),
+                        timestamps(backend.getOutboundHttpMessagesByBodyTypeAndHeaders(
+                                List.of(report), List.of(contentType))));
+            }
+        }
+    }
+
+    /**
+     * Tests whether bulk loaded entities are persisted like saved ones and whether bulk loads can be mixed with
+     * regular inserts.
+     *
+     * @param dir temporary directory
+     * @throws IOException          on io exceptions
+     * @throws CertificateException on certificate exceptions
+     */
+    @Test
+    public void testBulkLoad(@TempDir final File dir) throws IOException, CertificateException {
+        final X509Certificate certificate = CertificateUtil.getDummyCert();
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        headers.put("Content-Type", "application/soap+xml; charset=utf-8");
+        headers.put("X-Multi", "first");
+        headers.put("X-Multi", "second");
+        final MessageContent expected = new MessageContent(
+                "<body>äöü</body>",
+                new CommunicationContext(
+                        new HttpApplicationInfo(headers, "transaction", "/request"),
+                        new TransportInfo(Constants.HTTPS_SCHEME, null, null, null, null, List.of(certificate)),
+                        null),
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.RESPONSE,
+                2,
+                2,
+                List.of(
+                        new MdibVersionGroupEntity.MdibVersionGroup(
+                                42, BULK_SEQUENCE_ID, Constants.MSG_EPISODIC_METRIC_REPORT.toString()),
+                        new MdibVersionGroupEntity.MdibVersionGroup(
+                                43, BULK_SEQUENCE_ID, Constants.MSG_EPISODIC_METRIC_REPORT.toString())),
+                Set.of("action1", "action2"),
+                MessageUtil.nextEntryId(),
+                true,
+                "127.0.0.1");
+        final String compressedBody = "<pm:MetricValue Value=\"10.0\"/>".repeat(100);
+        final MessageContent compressed = new MessageContent(
+                compressedBody,
+                new CommunicationContext(
+                        new ApplicationInfo(),
+                        new TransportInfo(Constants.HTTP_SCHEME, null, null, null, null, List.of()),
+                        null),
+                CommunicationLog.Direction.OUTBOUND,
+                CommunicationLog.MessageType.REQUEST,
+                3,
+                3,
+                List.of(),
+                Set.of(),
+                MessageUtil.nextEntryId(),
+                false,
+                null);
+        compressed.compressBody(MessageBodyCodec.DEFLATE);
+        final ManipulationData expectedManipulation = new ManipulationData(
+                10,
+                20,
+                ResponseTypes.Result.RESULT_SUCCESS,
+                "response",
+                "setComponentActivation",
+                List.of(Pair.of("handle", "h1"), Pair.of("activation", "On")),
+                MessageUtil.nextEntryId());
+
+        try (final HibernateStorageBackend backend = new HibernateStorageBackend(
+                new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE)) {
+            backend.persist(List.of(message(1, RARE_SEQUENCE_ID, Constants.MSG_EPISODIC_ALERT_REPORT)));
+            backend.bulkLoad(List.of(expected, compressed, expectedManipulation));
+            backend.persist(List.of(message(4, RARE_SEQUENCE_ID, Constants.MSG_EPISODIC_ALERT_REPORT)));
+
+            try (final Stream<MessageContent> messages = backend.getInboundSoapResponseMessages()) {
+                final List<MessageContent> actual = messages.toList();
+                assertEquals(1, actual.size());
+                final MessageContent message = actual.get(0);
+                assertEquals(expected.getBody(), message.getBody());
+                assertEquals(expected.getHeaders(), message.getHeaders());
+                assertEquals(expected.getTransactionId(), message.getTransactionId());
+                assertEquals(expected.getRequestUri(), message.getRequestUri());
+                assertEquals(expected.getCerts(), message.getCerts());
+                assertEquals(expected.getActions(), message.getActions());
+                assertEquals(expected.getDirection(), message.getDirection());
+                assertEquals(expected.getMessageType(), message.getMessageType());
+                assertEquals(expected.getTimestamp(), message.getTimestamp());
+                assertEquals(expected.getNanoTimestamp(), message.getNanoTimestamp());
+                assertEquals(expected.getMessageHash(), message.getMessageHash());
+                assertEquals(expected.getScheme(), message.getScheme());
+                assertEquals(expected.getEntryId(), message.getEntryId());
+                assertEquals(expected.getIsSOAP(), message.getIsSOAP());
+                assertEquals(expected.getSender(), message.getSender());
+                assertEquals(
+                        List.of(42L, 43L),
+                        message.getMdibVersionGroups().stream()
+                                .map(MdibVersionGroupEntity::getMdibVersion)
+                                .sorted()
+                                .toList());
+            }
+            try (final Stream<MessageContent> messages = backend.getOutboundMessages()) {
+                final List<MessageContent> actual = messages.toList();
+                assertEquals(1, actual.size());
+                assertEquals(MessageBodyCodec.DEFLATE, actual.get(0).getBodyCodec());
+                assertEquals(compressedBody, actual.get(0).getBody());
+                assertNull(actual.get(0).getSender());
+            }
+            try (final Stream<MessageContent> messages = backend.getInboundMessagesByBodyTypeAndSequenceId(
+                    RARE_SEQUENCE_ID, Constants.MSG_EPISODIC_ALERT_REPORT)) {
+                assertEquals(2, messages.count());
+            }
+
+            final var parameter =
+                    new ManipulationParameterUtil.ManipulationParameterData(List.of(Pair.of("handle", "h1")));
+            try (final Stream<ManipulationData> manipulations =
+                    backend.getManipulationDataByParametersAndManipulation(parameter, "setComponentActivation")) {
+                final List<ManipulationData> actual = manipulations.toList();
+                assertEquals(1, actual.size());
+                final ManipulationData manipulation = actual.get(0);
+                assertEquals(expectedManipulation.getStartTimestamp(), manipulation.getStartTimestamp());
+                assertEquals(expectedManipulation.getFinishTimestamp(), manipulation.getFinishTimestamp());
+                assertEquals(expectedManipulation.getResult(), manipulation.getResult());
+                assertEquals(expectedManipulation.getResponse(), manipulation.getResponse());
+                assertEquals(expectedManipulation.getEntryId(), manipulation.getEntryId());
+                assertEquals(2, manipulation.getParameters().size());
+            }
+        }
+    }
+
+    /**
+     * Tests whether bulk loading writes the very same rows into every table as persisting does, which fails on any
+     * difference between the mapping of the entities and the rows inserted by bulk loads.
+     *
+     * @param dir temporary directory
+     * @throws SQLException         on database errors
+     * @throws IOException          on io exceptions
+     * @throws CertificateException on certificate exceptions
+     */
+    @Test
+    public void testBulkLoadRowsMatchPersistedRows(@TempDir final File dir)
+            throws SQLException, IOException, CertificateException {
+        final X509Certificate certificate = CertificateUtil.getDummyCert();
+        final File persistDir = new File(dir, "persist");
+        final File bulkLoadDir = new File(dir, "bulkLoad");
+        try (final HibernateStorageBackend persisted = new HibernateStorageBackend(
+                        new HibernateConfigImpl(persistDir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE);
+                final HibernateStorageBackend bulkLoaded = new HibernateStorageBackend(
+                        new HibernateConfigImpl(bulkLoadDir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE)) {
+            persisted.persist(allEntityTypes(certificate));
+            bulkLoaded.bulkLoad(allEntityTypes(certificate));
+        }
+
+        final Map<String, List<String>> persistedRows = getRows(persistDir);
+        final Map<String, List<String>> bulkLoadedRows = getRows(bulkLoadDir);
+        for (final Map.Entry<String, List<String>> table : persistedRows.entrySet()) {
+            assertFalse(
+                    table.getValue().isEmpty(),
+                    "No rows for table " + table.getKey() + ", the entities do not cover every mapped table");
+        }
+        assertEquals(persistedRows, bulkLoadedRows);
+    }
+
+    /**
+     * Benchmarks bulk loading messages against saving them, both have to persist the same messages.
+     *
+     * <p>
+     * Only run by the benchmark task, as cpu times vary between machines. Whether bulk loading stores the same rows
+     * is checked by {@linkplain #testBulkLoadRowsMatchPersistedRows(File)}.
+     *
+     * @param dir temporary directory
+     */
+    @Test
+    @Tag("benchmark")
+    public void testBulkLoadFasterThanPersist(@TempDir final File dir) {
+        assumeTrue(ManagementFactory.getThreadMXBean().isCurrentThreadCpuTimeSupported());
+        // both are measured alternately and the fastest round counts, the first rounds include the warmup
+        long persistNanos = Long.MAX_VALUE;
+        long bulkLoadNanos = Long.MAX_VALUE;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            persistNanos = Math.min(
+                    persistNanos, measureLoad(new File(dir, "persist" + round), HibernateStorageBackend::persist));
+            bulkLoadNanos = Math.min(
+                    bulkLoadNanos, measureLoad(new File(dir, "bulkLoad" + round), HibernateStorageBackend::bulkLoad));
+        }
+
+        assertTrue(
+                bulkLoadNanos * MINIMUM_BULK_LOAD_SPEEDUP <= persistNanos,
+                String.format(
+                        "Bulk loading %s messages took %sns of cpu time, persisting them %sns",
+                        BENCHMARK_MESSAGE_COUNT, bulkLoadNanos, persistNanos));
+    }
+
+    /**
+     * Tests whether fetch sizes which are not positive are rejected.
+     *
+     * @param dir temporary directory
+     */
+    @Test
+    public void testInvalidFetchSize(@TempDir final File dir) {
+        try (final HibernateConfigImpl configuration = new HibernateConfigImpl(dir)) {
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> new HibernateStorageBackend(configuration, 0, DEFAULT_FETCH_SIZE));
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> new HibernateStorageBackend(configuration, DEFAULT_MESSAGE_FETCH_SIZE, 0));
+        }
+    }
+
+    private static void persistBulkMessages(
+            final HibernateStorageBackend backend, final int firstTimestamp, final int count) {
+        final List<MessageContent> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            batch.add(message(firstTimestamp + i, BULK_SEQUENCE_ID, BULK_REPORTS.get(i % BULK_REPORTS.size())));
+            if (batch.size() == BATCH_SIZE) {
+                backend.persist(batch);
+                batch.clear();
+            }
+        }
+        backend.persist(batch);
+    }
+
+    private static long measureLoad(
+            final File dir, final BiConsumer<HibernateStorageBackend, List<MessageContent>> load) {
+        // every round needs new entities, persisting assigns their ids
+        final List<MessageContent> messages = new ArrayList<>(BENCHMARK_MESSAGE_COUNT);
+        for (int i = 0; i < BENCHMARK_MESSAGE_COUNT; i++) {
+            messages.add(benchmarkMessage(i));
+        }
+        try (final HibernateStorageBackend backend = new HibernateStorageBackend(
+                new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE)) {
+            // the embedded database inserts in the calling thread, its cpu time is not affected by other processes
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            final long start = threads.getCurrentThreadCpuTime();
+            for (int i = 0; i < messages.size(); i += BATCH_SIZE) {
+                load.accept(backend, messages.subList(i, Math.min(i + BATCH_SIZE, messages.size())));
+            }
+            final long nanos = threads.getCurrentThreadCpuTime() - start;
+            assertBenchmarkMessages(backend);
+            return nanos;
+        }
+    }
+
+    private static long measure(final Supplier<Stream<MessageContent>> query) {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_RUNS + MEASURED_RUNS; i++) {
+            final long start = System.nanoTime();
+            try (final Stream<MessageContent> messages = query.get()) {
+                assertEquals(RARE_MESSAGE_COUNT, messages.count());
+            }
+            if (i >= WARMUP_RUNS) {
+                fastest = Math.min(fastest, System.nanoTime() - start);
+            }
+        }
+        return fastest;
+    }
+
+    // entities filling every mapped table, the same entities are created on every call
+    private static List<Object> allEntityTypes(final X509Certificate certificate) {
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        headers.put("Content-Type", "application/soap+xml; charset=utf-8");
+        headers.put("X-Multi", "first");
+        headers.put("X-Multi", "second");
+        final MessageContent inbound = new MessageContent(
+                "<body>äöü</body>",
+                new CommunicationContext(
+                        new HttpApplicationInfo(headers, "transaction", "/request"),
+                        new TransportInfo(Constants.HTTPS_SCHEME, null, null, null, null, List.of(certificate)),
+                        null),
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.RESPONSE,
+                2,
+                2,
+                List.of(
+                        new MdibVersionGroupEntity.MdibVersionGroup(
+                                42, BULK_SEQUENCE_ID, Constants.MSG_EPISODIC_METRIC_REPORT.toString()),
+                        new MdibVersionGroupEntity.MdibVersionGroup(
+                                43, BULK_SEQUENCE_ID, Constants.MSG_EPISODIC_ALERT_REPORT.toString())),
+                Set.of("action1", "action2"),
+                1,
+                true,
+                "127.0.0.1");
+        final MessageContent outbound = new MessageContent(
+                "<pm:MetricValue Value=\"10.0\"/>".repeat(100),
+                new CommunicationContext(
+                        new ApplicationInfo(),
+                        new TransportInfo(Constants.HTTP_SCHEME, null, null, null, null, List.of()),
+                        null),
+                CommunicationLog.Direction.OUTBOUND,
+                CommunicationLog.MessageType.REQUEST,
+                3,
+                3,
+                List.of(),
+                Set.of(),
+                2,
+                false,
+                null);
+        outbound.compressBody(MessageBodyCodec.DEFLATE);
+        final ManipulationData manipulation = new ManipulationData(
+                10,
+                20,
+                ResponseTypes.Result.RESULT_NOT_SUPPORTED,
+                "response",
+                "setComponentActivation",
+                List.of(Pair.of("handle", "h1"), Pair.of("activation", "On")),
+                3);
+        return List.of(inbound, outbound, manipulation);
+    }
+
+    // rows of all tables, rendered as strings and sorted, as the order of the rows is not defined
+    private static Map<String, List<String>> getRows(final File dir) throws SQLException {
+        final Map<String, List<String>> rows = new TreeMap<>();
+        try (final Connection connection =
+                DriverManager.getConnection("jdbc:derby:" + Path.of(dir.getAbsolutePath(), "Database"))) {
+            final List<String> tables = new ArrayList<>();
+            try (final ResultSet result =
+                    connection.getMetaData().getTables(null, "APP", "%", new String[] {"TABLE"})) {
+                while (result.next()) {
+                    tables.add(result.getString("TABLE_NAME"));
+                }
+            }
+            for (final String table : tables) {
+                final List<String> tableRows = new ArrayList<>();
+                try (final Statement statement = connection.createStatement();
+                        final ResultSet result = statement.executeQuery("SELECT * FROM \"" + table + "\"")) {
+                    final int columnCount = result.getMetaData().getColumnCount();
+                    while (result.next()) {
+                        final List<String> row = new ArrayList<>();
+                        for (int i = 1; i <= columnCount; i++) {
+                            final Object value = result.getObject(i);
+                            row.add(result.getMetaData().getColumnName(i) + "=" + render(value));
+                        }
+                        tableRows.add(String.join(", ", row));
+                    }
+                }
+                tableRows.sort(null);
+                rows.put(table, tableRows);
+            }
+        }
+        return rows;
+    }
+
+    private static String render(final Object value) throws SQLException {
+        if (value instanceof final Blob blob) {
+            return HexFormat.of().formatHex(blob.getBytes(1, (int) blob.length()));
+        }
+        if (value instanceof final Clob clob) {
+            return clob.getSubString(1, (int) clob.length());
+        }
+        if (value instanceof final byte[] bytes) {
+            return HexFormat.of().formatHex(bytes);
+        }
+        return String.valueOf(value);
+    }
+
+    private static List<Long> timestamps(final Stream<MessageContent> messages) {
+        try (messages) {
+            return messages.map(MessageContent::getNanoTimestamp).toList();
+        }
+    }
+
+    private static Set<String> getIndexNames(final Connection connection, final String table) throws SQLException {
+        final Set<String> indexNames = new HashSet<>();
+        try (final ResultSet indexes = connection.getMetaData().getIndexInfo(null, null, table, false, false)) {
+            while (indexes.next()) {
+                indexNames.add(indexes.getString("INDEX_NAME"));
+            }
+        }
+        return indexNames;
+    }
+
+    private static void assertBenchmarkMessages(final HibernateStorageBackend backend) {
+        try (final Stream<MessageContent> messages = backend.getInboundSoapMessages()) {
+            assertEquals(BENCHMARK_MESSAGE_COUNT, messages.count());
+        }
+        try (final Stream<MessageContent> messages = backend.getInboundMessagesByBodyTypeAndSequenceId(
+                BULK_SEQUENCE_ID, BULK_REPORTS.get(BULK_REPORTS.size() - 1))) {
+            assertEquals(
+                    BENCHMARK_MESSAGE_COUNT / BULK_REPORTS.size(),
+                    messages.filter(message -> message.getActions().size() == 1).count());
+        }
+    }
+
+    private static MessageContent benchmarkMessage(final int timestamp) {
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        headers.put("content-type", "application/soap+xml");
+        headers.put("content-length", "64");
+        return new MessageContent(
+                "<msg:EpisodicMetricReport MdibVersion=\"" + timestamp + "\"/>",
+                new CommunicationContext(
+                        new HttpApplicationInfo(headers, "transaction" + timestamp, "/request"),
+                        new TransportInfo(Constants.HTTP_SCHEME, null, null, null, null, List.of()),
+                        null),
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.REQUEST,
+                timestamp,
+                timestamp,
+                List.of(new MdibVersionGroupEntity.MdibVersionGroup(
+                        timestamp,
+                        BULK_SEQUENCE_ID,
+                        BULK_REPORTS.get(timestamp % BULK_REPORTS.size()).toString())),
+                Set.of("action"),
+                MessageUtil.nextEntryId(),
+                true,
+                "127.0.0.1");
+    }
+
+    private static MessageContent message(
+            final long timestamp, final CommunicationLog.Direction direction, final long... mdibVersions) {
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        headers.put("Content-Type", "application/soap+xml");
+        final List<MdibVersionGroupEntity.MdibVersionGroup> mdibVersionGroups = new ArrayList<>();
+        for (final long mdibVersion : mdibVersions) {
+            mdibVersionGroups.add(new MdibVersionGroupEntity.MdibVersionGroup(
+                    mdibVersion, RARE_SEQUENCE_ID, Constants.MSG_EPISODIC_METRIC_REPORT.toString()));
+        }
+        return new MessageContent(
+                "<body/>",
+                new CommunicationContext(
+                        new HttpApplicationInfo(headers, "transaction" + timestamp, "/request"),
+                        new TransportInfo(Constants.HTTP_SCHEME, null, null, null, null, List.of()),
+                        null),
+                direction,
+                CommunicationLog.MessageType.REQUEST,
+                timestamp,
+                timestamp,
+                mdibVersionGroups,
+                Set.of(),
+                MessageUtil.nextEntryId(),
+                true,
+                null);
+    }
+
+    private static MessageContent message(final long timestamp, final String sequenceId, final QName bodyElement) {
+        return new MessageContent(
+                "<body/>",
+                new CommunicationContext(
+                        new ApplicationInfo(),
+                        new TransportInfo(Constants.HTTP_SCHEME, null, null, null, null, List.of()),
+                        null),
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.REQUEST,
+                timestamp,
+                timestamp,
+                List.of(new MdibVersionGroupEntity.MdibVersionGroup(timestamp, sequenceId, bodyElement.toString())),
+                Set.of(),
+                MessageUtil.nextEntryId(),
+                true,
+                null);
+    }
+}
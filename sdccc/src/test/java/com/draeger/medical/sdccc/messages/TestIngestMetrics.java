@@ -0,0 +1,83 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the ingestion metrics of the message storage.
+ */
+public class TestIngestMetrics {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Tests whether recorded captures, batches, flushes and encoding checks are aggregated.
+     */
+    @Test
+    public void testSnapshot() {
+        final IngestMetrics metrics = new IngestMetrics();
+
+        metrics.recordCapture(3);
+        metrics.recordCapture(7);
+        metrics.recordCapture(1);
+        metrics.recordBatch(2, 100, 2 * MILLISECOND);
+        metrics.recordBatch(4, 300, 4 * MILLISECOND);
+        metrics.recordFlush(10 * MILLISECOND);
+        metrics.recordFlush(20 * MILLISECOND);
+        metrics.recordEncodingCheck(MILLISECOND);
+        metrics.recordEncodingCheck(3 * MILLISECOND);
+
+        final IngestMetrics.Snapshot snapshot = metrics.snapshot(1234);
+        assertEquals(3, snapshot.capturedEntries());
+        assertEquals(7, snapshot.queueOccupancyHighWaterMark());
+        assertEquals(6, snapshot.persistedEntries());
+        assertEquals(400, snapshot.persistedBodyBytes());
+        assertEquals(2, snapshot.batchCount());
+        assertEquals(3.0, snapshot.averageBatchSize(), DELTA);
+        assertEquals(4, snapshot.maxBatchSize());
+        assertEquals(3.0, snapshot.averageTransmitMillis(), DELTA);
+        assertEquals(4.0, snapshot.p99TransmitMillis(), DELTA);
+        assertEquals(2, snapshot.flushCount());
+        assertEquals(15.0, snapshot.averageFlushMillis(), DELTA);
+        assertEquals(20.0, snapshot.maxFlushMillis(), DELTA);
+        assertEquals(4.0, snapshot.encodingCheckMillis(), DELTA);
+        assertEquals(2000.0, snapshot.averageEncodingCheckMicros(), DELTA);
+        assertEquals(1234, snapshot.storageSize());
+    }
+
+    /**
+     * Tests whether the percentile of the transmit time only considers the most recent batches.
+     */
+    @Test
+    public void testTransmitTimePercentile() {
+        final IngestMetrics metrics = new IngestMetrics();
+        assertEquals(0.0, metrics.snapshot(-1).p99TransmitMillis(), DELTA);
+
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordBatch(1, 0, i * MILLISECOND);
+        }
+        assertEquals(99.0, metrics.snapshot(-1).p99TransmitMillis(), DELTA);
+
+        // slow batches are pushed out of the window by fast ones
+        for (int i = 0; i < IngestMetrics.TRANSMIT_TIME_WINDOW; i++) {
+            metrics.recordBatch(1, 0, MILLISECOND);
+        }
+        final IngestMetrics.Snapshot snapshot = metrics.snapshot(-1);
+        assertEquals(1.0, snapshot.p99TransmitMillis(), DELTA);
+        assertEquals(100 + IngestMetrics.TRANSMIT_TIME_WINDOW, snapshot.batchCount());
+        // the average still covers all batches
+        assertEquals(
+                (5050.0 + IngestMetrics.TRANSMIT_TIME_WINDOW) / (100 + IngestMetrics.TRANSMIT_TIME_WINDOW),
+                snapshot.averageTransmitMillis(),
+                DELTA);
+    }
+}
@@ -6,26 +6,33 @@
 
 package com.draeger.medical.sdccc.messages;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
 import com.draeger.medical.sdccc.util.XPathExtractor;
+import com.sun.management.ThreadMXBean;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.somda.sdc.dpws.CommunicationLog;
@@ -135,4 +142,120 @@ public class TestMessage {
             });
         }
     }
+
+    /**
+     * Tests whether single byte and bulk writes are captured correctly while the capture buffer grows across
+     * several size classes and whether the body survives handing the capture buffer back.
+     *
+     * @throws Exception on any exception
+     */
+    @Test
+    public void testWritesAcrossBufferGrowth() throws Exception {
+        final MessageStorage mockStorage = mock(MessageStorage.class);
+        final byte[] testBytes = new byte[5 * MessageBufferPool.MIN_BUFFER_SIZE + 17];
+        new Random(0).nextBytes(testBytes);
+
+        final Message message = new Message(
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.RESPONSE,
+                mock(CommunicationContext.class),
+                mockStorage);
+
+        int offset = 0;
+        for (int chunkLength = 1; offset < testBytes.length; chunkLength *= 3) {
+            final int length = Math.min(chunkLength, testBytes.length - offset);
+            if (length == 1) {
+                message.write(testBytes[offset]);
+            } else {
+                message.write(testBytes, offset, length);
+            }
+            offset += length;
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> message.write(testBytes, testBytes.length, 1));
+
+        message.close();
+        verify(mockStorage, times(1)).addMessage(message);
+
+        message.releaseBuffer();
+        assertArrayEquals(testBytes, message.getFinalMemory());
+        // the body is hashed while being written
+        assertArrayEquals(MessageUtil.digestMessage(testBytes), message.getMessageDigest());
+
+        // an empty message has an empty body
+        final Message emptyMessage = new Message(
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.RESPONSE,
+                mock(CommunicationContext.class),
+                mockStorage);
+        emptyMessage.close();
+        assertArrayEquals(new byte[0], emptyMessage.getFinalMemory());
+    }
+
+    /**
+     * Tests whether capturing a message allocates little more than the single copy of its body, i.e. whether
+     * the capture buffers are reused once the message storage has taken over the body.
+     *
+     * @throws Exception on any exception
+     */
+    @Test
+    public void testCaptureAllocation() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+        final ThreadMXBean allocationBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        final MessageStorage mockStorage =
+                mock(MessageStorage.class, withSettings().stubOnly());
+        final CommunicationContext mockContext = mock(CommunicationContext.class);
+        final int bodyLength = 64 * 1024;
+        final byte[] chunk = new byte[1024];
+        final int messageCount = 50;
+
+        long minAllocatedBytes = Long.MAX_VALUE;
+        // the first rounds warm up the buffer pool and the jit
+        for (int round = 0; round < 10; round++) {
+            final long threadId = Thread.currentThread().getId();
+            final long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < messageCount; i++) {
+                final Message message = new Message(
+                        CommunicationLog.Direction.OUTBOUND,
+                        CommunicationLog.MessageType.RESPONSE,
+                        mockContext,
+                        mockStorage);
+                for (int written = 0; written < bodyLength; written += chunk.length) {
+                    message.write(chunk);
+                }
+                message.close();
+                assertEquals(bodyLength, message.getFinalMemory().length);
+                message.releaseBuffer();
+            }
+            minAllocatedBytes =
+                    Math.min(minAllocatedBytes, allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+
+        final long allocatedBytesPerMessage = minAllocatedBytes / messageCount;
+        assertTrue(
+                allocatedBytesPerMessage < bodyLength * 3L / 2,
+                "capturing a message of " + bodyLength + " bytes allocated " + allocatedBytesPerMessage + " bytes");
+    }
+
+    /**
+     * Tests whether messages are identified in the order they were captured in, also by the string form of the
+     * identifier.
+     */
+    @Test
+    public void testEntryIdsFollowCaptureOrder() {
+        final MessageStorage mockStorage = mock(MessageStorage.class);
+        final CommunicationContext mockContext = mock(CommunicationContext.class);
+        Message previous = null;
+        for (int i = 0; i < 10_000; i++) {
+            final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND, CommunicationLog.MessageType.REQUEST, mockContext, mockStorage);
+            if (previous != null) {
+                assertTrue(previous.getEntryId() < message.getEntryId());
+                assertTrue(previous.getID().compareTo(message.getID()) < 0);
+            }
+            previous = message;
+        }
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
+import com.draeger.medical.sdccc.util.Constants;
+import com.draeger.medical.t2iapi.ResponseTypes;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.somda.sdc.dpws.CommunicationLog;
+import org.somda.sdc.dpws.soap.ApplicationInfo;
+import org.somda.sdc.dpws.soap.CommunicationContext;
+import org.somda.sdc.dpws.soap.TransportInfo;
+
+/**
+ * Unit tests for the message archive of the message storage.
+ */
+public class TestMessageArchive {
+
+    private static final int CHUNK_SIZE = 4096;
+    private static final String SEQUENCE_ID = "urn:uuid:1";
+
+    /**
+     * Tests whether entities are split into several chunks and read back in the order they were appended.
+     *
+     * @param dir archive directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testChunks(@TempDir final Path dir) throws IOException {
+        final Path path = dir.resolve("archive");
+        final int messageCount = 500;
+
+        try (final MessageArchive.Writer writer = new MessageArchive.Writer(path, CHUNK_SIZE)) {
+            for (int i = 0; i < messageCount; i++) {
+                writer.append(createMessage(i));
+            }
+            writer.append(new ManipulationData(
+                    1,
+                    2,
+                    ResponseTypes.Result.RESULT_SUCCESS,
+                    "response",
+                    "setMetricStatus",
+                    List.of(Pair.of("handle", "h1")),
+                    MessageUtil.nextEntryId()));
+            assertEquals(messageCount + 1, writer.getRecordCount());
+            writer.complete();
+        }
+
+        try (final MessageArchive.Reader reader = new MessageArchive.Reader(path)) {
+            assertTrue(reader.getChunks().size() > 1);
+            assertEquals(messageCount + 1, reader.getRecordCount());
+
+            final List<Object> entities = new ArrayList<>();
+            for (final MessageArchive.Chunk chunk : reader.getChunks()) {
+                final List<Object> chunkEntities = reader.readChunk(chunk);
+                assertEquals(chunk.recordCount(), chunkEntities.size());
+                entities.addAll(chunkEntities);
+            }
+
+            for (int i = 0; i < messageCount; i++) {
+                final MessageContent message = assertInstanceOf(MessageContent.class, entities.get(i));
+                assertEquals(createBody(i), message.getBody());
+                assertEquals(i, message.getMdibVersionGroups().get(0).getMdibVersion());
+            }
+            final ManipulationData manipulation = assertInstanceOf(ManipulationData.class, entities.get(messageCount));
+            assertEquals("setMetricStatus", manipulation.getMethodName());
+        }
+
+        // the chunks are compressed
+        assertTrue(Files.size(path) < messageCount * createBody(0).length());
+    }
+
+    /**
+     * Tests whether an empty archive can be read.
+     *
+     * @param dir archive directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testEmpty(@TempDir final Path dir) throws IOException {
+        final Path path = dir.resolve("archive");
+        try (final MessageArchive.Writer writer = new MessageArchive.Writer(path, CHUNK_SIZE)) {
+            assertEquals(0, writer.getRecordCount());
+            writer.complete();
+        }
+        try (final MessageArchive.Reader reader = new MessageArchive.Reader(path)) {
+            assertEquals(0, reader.getChunks().size());
+            assertEquals(0, reader.getRecordCount());
+        }
+    }
+
+    /**
+     * Tests whether files which are not complete archives are rejected.
+     *
+     * @param dir archive directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testInvalidArchive(@TempDir final Path dir) throws IOException {
+        final Path path = dir.resolve("archive");
+        Files.writeString(path, "not an archive, but long enough to contain a trailer");
+        assertThrows(IOException.class, () -> new MessageArchive.Reader(path));
+
+        try (final MessageArchive.Writer writer = new MessageArchive.Writer(path, CHUNK_SIZE)) {
+            writer.append(createMessage(0));
+            writer.complete();
+        }
+        final byte[] archive = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(archive, archive.length - 1));
+        assertThrows(IOException.class, () -> new MessageArchive.Reader(path));
+    }
+
+    /**
+     * Tests whether an archive which is not completed, e.g. because an export failed, neither replaces an existing
+     * archive nor leaves any files behind.
+     *
+     * @param dir archive directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testIncompleteArchive(@TempDir final Path dir) throws IOException {
+        final Path path = dir.resolve("archive");
+        try (final MessageArchive.Writer writer = new MessageArchive.Writer(path, CHUNK_SIZE)) {
+            writer.append(createMessage(0));
+            writer.complete();
+        }
+
+        // the caller failed before completing the archive
+        try (final MessageArchive.Writer writer = new MessageArchive.Writer(path, CHUNK_SIZE)) {
+            for (int i = 1; i < 100; i++) {
+                writer.append(createMessage(i));
+            }
+        }
+        assertArchive(dir, path, 1);
+
+        // appending failed, completing the archive must fail as well
+        try (final MessageArchive.Writer writer = new MessageArchive.Writer(path, CHUNK_SIZE)) {
+            writer.append(createMessage(1));
+            assertThrows(IllegalArgumentException.class, () -> writer.append("not an entity"));
+            writer.append(createMessage(2));
+            assertThrows(IOException.class, writer::complete);
+        }
+        assertArchive(dir, path, 1);
+    }
+
+    // asserts that the directory only contains the archive, with the given number of entities
+    private static void assertArchive(final Path dir, final Path path, final long recordCount) throws IOException {
+        try (final Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(path), files.toList());
+        }
+        try (final MessageArchive.Reader reader = new MessageArchive.Reader(path)) {
+            assertEquals(recordCount, reader.getRecordCount());
+        }
+    }
+
+    private static MessageContent createMessage(final int mdibVersion) {
+        return new MessageContent(
+                createBody(mdibVersion),
+                new CommunicationContext(
+                        new ApplicationInfo(),
+                        new TransportInfo(Constants.HTTP_SCHEME, null, null, null, null, List.of()),
+                        null),
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.REQUEST,
+                mdibVersion,
+                mdibVersion,
+                List.of(new MdibVersionGroupEntity.MdibVersionGroup(
+                        mdibVersion, SEQUENCE_ID, Constants.MSG_EPISODIC_METRIC_REPORT.toString())),
+                Set.of("action"),
+                MessageUtil.nextEntryId(),
+                true,
+                "127.0.0.1");
+    }
+
+    private static String createBody(final int mdibVersion) {
+        return "<msg:EpisodicMetricReport MdibVersion=\"" + mdibVersion + "\" SequenceId=\"" + SEQUENCE_ID
+                + "\"><msg:ReportPart><msg:MetricState DescriptorHandle=\"handle\"/></msg:ReportPart>"
+                + "</msg:EpisodicMetricReport>";
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the buffer pool messages are captured into.
+ */
+public class TestMessageBufferPool {
+
+    /**
+     * Tests whether buffers are handed out in the smallest size class providing the requested capacity.
+     */
+    @Test
+    public void testSizeClasses() {
+        final MessageBufferPool pool = new MessageBufferPool();
+
+        assertEquals(MessageBufferPool.MIN_BUFFER_SIZE, pool.acquire(0).length);
+        assertEquals(MessageBufferPool.MIN_BUFFER_SIZE, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE).length);
+        assertEquals(2 * MessageBufferPool.MIN_BUFFER_SIZE, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE + 1).length);
+        assertEquals(MessageBufferPool.MAX_BUFFER_SIZE, pool.acquire(MessageBufferPool.MAX_BUFFER_SIZE - 1).length);
+
+        // larger buffers are not pooled and hence not rounded up
+        assertEquals(MessageBufferPool.MAX_BUFFER_SIZE + 1, pool.acquire(MessageBufferPool.MAX_BUFFER_SIZE + 1).length);
+    }
+
+    /**
+     * Tests whether released buffers are handed out again and whether foreign buffers are not.
+     */
+    @Test
+    public void testReuse() {
+        final MessageBufferPool pool = new MessageBufferPool();
+
+        final byte[] buffer = pool.acquire(2 * MessageBufferPool.MIN_BUFFER_SIZE);
+        pool.release(buffer);
+        assertNotSame(buffer, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE));
+        assertSame(buffer, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE + 1));
+        assertNotSame(buffer, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE + 1));
+
+        final byte[] foreignBuffer = new byte[MessageBufferPool.MIN_BUFFER_SIZE + 1];
+        pool.release(foreignBuffer);
+        assertNotSame(foreignBuffer, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE + 1));
+
+        final byte[] unpooledBuffer = pool.acquire(MessageBufferPool.MAX_BUFFER_SIZE + 1);
+        pool.release(unpooledBuffer);
+        assertNotSame(unpooledBuffer, pool.acquire(MessageBufferPool.MAX_BUFFER_SIZE + 1));
+    }
+
+    /**
+     * Tests whether the buffers retained across all size classes stay within the bound of the pool.
+     */
+    @Test
+    public void testRetainedBytesBound() {
+        final MessageBufferPool pool = new MessageBufferPool(3 * MessageBufferPool.MIN_BUFFER_SIZE);
+
+        final byte[] small = pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE);
+        final byte[] large = pool.acquire(2 * MessageBufferPool.MIN_BUFFER_SIZE);
+        final byte[] exceeding = pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE);
+        pool.release(small);
+        pool.release(large);
+        assertEquals(3 * MessageBufferPool.MIN_BUFFER_SIZE, pool.getRetainedBytes());
+
+        // the bound is reached, the buffer is dropped even though its size class is empty
+        pool.release(exceeding);
+        assertEquals(3 * MessageBufferPool.MIN_BUFFER_SIZE, pool.getRetainedBytes());
+        assertSame(small, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE));
+        assertNotSame(exceeding, pool.acquire(MessageBufferPool.MIN_BUFFER_SIZE));
+
+        // acquiring a retained buffer frees its share of the bound
+        assertSame(large, pool.acquire(2 * MessageBufferPool.MIN_BUFFER_SIZE));
+        assertEquals(0, pool.getRetainedBytes());
+
+        // the largest buffers are pooled within the default bound as well
+        final MessageBufferPool defaultPool = new MessageBufferPool();
+        final byte[] largest = defaultPool.acquire(MessageBufferPool.MAX_BUFFER_SIZE);
+        defaultPool.release(largest);
+        assertEquals(MessageBufferPool.MAX_BUFFER_SIZE, defaultPool.getRetainedBytes());
+        assertSame(largest, defaultPool.acquire(MessageBufferPool.MAX_BUFFER_SIZE));
+    }
+}
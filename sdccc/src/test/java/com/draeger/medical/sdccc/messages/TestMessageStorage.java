@@ -6,11 +6,15 @@
 
 package com.draeger.medical.sdccc.messages;
 
+import static com.draeger.medical.sdccc.messages.HibernateStorageBackend.DEFAULT_FETCH_SIZE;
+import static com.draeger.medical.sdccc.messages.HibernateStorageBackend.DEFAULT_MESSAGE_FETCH_SIZE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -18,6 +22,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -27,7 +32,10 @@ import static org.mockito.Mockito.when;
 import com.draeger.medical.sdccc.messages.guice.MessageFactory;
 import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
 import com.draeger.medical.sdccc.messages.mapping.ManipulationParameter;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
 import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
 import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
 import com.draeger.medical.sdccc.util.CertificateUtil;
 import com.draeger.medical.sdccc.util.Constants;
@@ -35,21 +43,32 @@ import com.draeger.medical.sdccc.util.TestRunObserver;
 import com.draeger.medical.t2iapi.ResponseTypes;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
+import com.google.gson.Gson;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Duration;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
@@ -152,7 +171,18 @@ public class TestMessageStorage {
     @Test
     public void testMdibVersionOverflow(@TempDir final File dir) throws IOException, CertificateException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final ListMultimap<String, String> multimap = ArrayListMultimap.create();
 
             final CommunicationContext headerContext = getCommunicationContext(multimap);
@@ -185,7 +215,18 @@ public class TestMessageStorage {
     @Test
     public void testMdibVersionCloseToOverflow(@TempDir final File dir) throws IOException, CertificateException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final ListMultimap<String, String> multimap = ArrayListMultimap.create();
 
             final CommunicationContext headerContext = getCommunicationContext(multimap);
@@ -229,7 +270,18 @@ public class TestMessageStorage {
     @Test
     public void testGetUniqueSequenceIds(@TempDir final File dir) throws IOException, CertificateException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final ListMultimap<String, String> multimap = ArrayListMultimap.create();
 
             final CommunicationContext headerContext = getCommunicationContext(multimap);
@@ -288,7 +340,18 @@ public class TestMessageStorage {
     @Test
     public void testGetUniqueSequenceIdsOrdering(@TempDir final File dir) throws IOException, CertificateException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final ListMultimap<String, String> multimap = ArrayListMultimap.create();
 
             final CommunicationContext headerContext = getCommunicationContext(multimap);
@@ -364,7 +427,18 @@ public class TestMessageStorage {
     @Test
     public void testHeadersAndTransactionId(@TempDir final File dir) throws IOException, CertificateException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final ListMultimap<String, String> multimap = ArrayListMultimap.create();
 
             final List<String> expectedList1 = Arrays.asList("headerContent1", "headerContent2", "headerContent3");
@@ -428,7 +502,18 @@ public class TestMessageStorage {
     @Test
     public void testUdpMessageWithTransactionIdNull(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             try (final Message message = new Message(
                     CommunicationLog.Direction.INBOUND,
                     CommunicationLog.MessageType.UNKNOWN,
@@ -466,7 +551,18 @@ public class TestMessageStorage {
     @Test
     public void testBodyExtraction(@TempDir final File dir) throws IOException, CertificateException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final ListMultimap<String, String> multimap = ArrayListMultimap.create();
 
             // test tag with content
@@ -552,6 +648,73 @@ public class TestMessageStorage {
         }
     }
 
+    /**
+     * Tests whether all direct children of a SOAP body are extracted and whether more than one child invalidates the
+     * test run, regardless of what follows the SOAP body.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testBodyExtractionMultipleBodyElements(@TempDir final File dir) throws IOException {
+        try (final MessageStorage messageStorage = new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
+            final var expectedQName1 = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicMetricReport", "msg");
+            final var expectedQName2 = new QName(CommonConstants.NAMESPACE_MESSAGE, "some_body", "msg");
+            final String body = "<msg:EpisodicMetricReport MdibVersion=\"5\" SequenceId=\"urn:uuid:1\">"
+                    + "<msg:ReportPart/></msg:EpisodicMetricReport>"
+                    + "<msg:some_body><msg:some_body/></msg:some_body>";
+            // content following the SOAP body is not inspected
+            final String messageContent = String.format(BASE_MESSAGE_STRING, "action", body) + "<unclosed>";
+
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    new CommunicationContext(
+                            new HttpApplicationInfo(ArrayListMultimap.create(), "", null),
+                            new TransportInfo(Constants.HTTPS_SCHEME, null, null, null, null, List.of()),
+                            null),
+                    messageStorage)) {
+                message.write(messageContent.getBytes(StandardCharsets.UTF_8));
+            }
+
+            messageStorage.flush();
+
+            try (final MessageStorage.GetterResult<MessageContent> inboundMessages =
+                    messageStorage.getInboundMessages()) {
+                final List<MessageContent> messages =
+                        inboundMessages.getStream().toList();
+                assertEquals(1, messages.size());
+                final MessageContent content = messages.get(0);
+                assertTrue(content.getIsSOAP());
+                assertEquals(Set.of("action"), content.getActions());
+                assertEquals(
+                        Set.of(expectedQName1.toString(), expectedQName2.toString()),
+                        content.getMdibVersionGroups().stream()
+                                .map(MdibVersionGroupEntity::getBodyElement)
+                                .collect(Collectors.toSet()));
+                assertTrue(content.getMdibVersionGroups().stream()
+                        .anyMatch(mdibVersionGroup ->
+                                mdibVersionGroup.getBodyElement().equals(expectedQName1.toString())
+                                        && mdibVersionGroup.getMdibVersion() == 5L));
+            }
+            verify(this.testRunObserver)
+                    .invalidateTestRun(
+                            "Encountered multiple elements in soap body, but more than one are not allowed.");
+        }
+    }
+
     /**
      * Tests whether only inbound messages are retrieved from storage.
      *
@@ -561,7 +724,18 @@ public class TestMessageStorage {
     @Test
     public void testGetInboundMessages(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                3, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                3,
+                3,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final String expected = "inbound_body";
 
             try (final Message message = new Message(
@@ -610,6 +784,55 @@ public class TestMessageStorage {
         }
     }
 
+    /**
+     * Tests whether a getter runs its query only once to determine the presence of objects and to return them.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testGetterResultQueriesOnce(@TempDir final File dir) throws IOException {
+        final MessageStorageBackend storageBackend = mock(MessageStorageBackend.class);
+        final MessageContent first = mock(MessageContent.class);
+        final MessageContent second = mock(MessageContent.class);
+        final AtomicInteger closedResults = new AtomicInteger();
+        when(storageBackend.getInboundMessages())
+                .thenReturn(Stream.of(first, second).onClose(closedResults::incrementAndGet));
+        when(storageBackend.getOutboundMessages())
+                .thenReturn(Stream.<MessageContent>empty().onClose(closedResults::incrementAndGet));
+
+        try (final MessageStorage messageStorage = new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                storageBackend,
+                this.testRunObserver)) {
+
+            try (final MessageStorage.GetterResult<MessageContent> inboundMessages =
+                    messageStorage.getInboundMessages()) {
+                assertTrue(inboundMessages.areObjectsPresent());
+                assertEquals(List.of(first, second), inboundMessages.getStream().toList());
+            }
+            assertEquals(1, closedResults.get());
+
+            try (final MessageStorage.GetterResult<MessageContent> outboundMessages =
+                    messageStorage.getOutboundMessages()) {
+                assertFalse(outboundMessages.areObjectsPresent());
+                assertEquals(0, outboundMessages.getStream().count());
+            }
+            assertEquals(2, closedResults.get());
+
+            verify(storageBackend, times(1)).getInboundMessages();
+            verify(storageBackend, times(1)).getOutboundMessages();
+        }
+    }
+
     /**
      * Tests whether only outbound messages are retrieved from storage.
      *
@@ -619,7 +842,18 @@ public class TestMessageStorage {
     @Test
     public void testGetOutboundMessages(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                3, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                3,
+                3,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final String expected = "outbound_body";
 
             try (final Message message = new Message(
@@ -692,7 +926,18 @@ public class TestMessageStorage {
                 null);
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final var expected = String.format(BASE_MESSAGE_STRING, "action1", "expected_body");
 
             try (final Message message = new Message(
@@ -797,7 +1042,18 @@ public class TestMessageStorage {
                 null);
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final var expected = String.format(BASE_MESSAGE_STRING, "action1", "expected_body");
 
             try (final Message message = new Message(
@@ -907,7 +1163,18 @@ public class TestMessageStorage {
     @Test
     public void testGetInboundHttpMessages(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                5, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                5,
+                5,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
 
             try (final Message message = new Message(
                     CommunicationLog.Direction.OUTBOUND,
@@ -980,7 +1247,18 @@ public class TestMessageStorage {
     public void testGetOutboundHttpMessagesByBodyTypeAndHeaders(@TempDir final File dir)
             throws IOException, CertificateException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                3, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                3,
+                3,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
 
             final var expectedQName1 = new QName(CommonConstants.NAMESPACE_MESSAGE, "some_body", "msg");
             final String expectedBody1 = "<msg:some_body><pm:once_told_me>"
@@ -1069,7 +1347,18 @@ public class TestMessageStorage {
     @Test
     public void testGetInboundMessagesByBodyType(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                6, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                6,
+                6,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // test tag with content
             final var expectedQName1 = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicAlertReport", "msg");
             final String expectedBody1 = "<msg:EpisodicAlertReport><pm:once_told_me>"
@@ -1199,7 +1488,18 @@ public class TestMessageStorage {
     @Test
     public void testGetInboundMessagesByBodyTypeAndSequenceId(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                6, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                6,
+                6,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
 
             final var expectedQName1 = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicAlertReport", "msg");
             final var expectedQName2 = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicMetricReport", "msg");
@@ -1342,7 +1642,18 @@ public class TestMessageStorage {
     public void testGetInboundMessagesByBodyTypeAndSequenceIdGoodCheckOrderedByMdibVersionAndTimestamp(
             @TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                6, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                6,
+                6,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
 
             final var expectedQName2 = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicMetricReport", "msg");
 
@@ -1383,11 +1694,162 @@ public class TestMessageStorage {
         }
     }
 
+    /**
+     * Tests whether getInboundMessagesByMdibVersionAndBodyType() only retrieves messages of the given SequenceId
+     * starting at the given MdibVersion, ordered by MdibVersion and body type.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testGetInboundMessagesByMdibVersionAndBodyType(@TempDir final File dir) throws IOException {
+        try (final MessageStorage messageStorage = new MessageStorage(
+                6,
+                6,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
+
+            final var alertQName = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicAlertReport", "msg");
+            final var metricQName = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicMetricReport", "msg");
+
+            final String metric1 = String.format(
+                    BASE_MESSAGE_STRING, "action", String.format(SEQUENCE_ID_METRIC_BODY_STRING, "1", "s1"));
+            final String alert2 = String.format(
+                    BASE_MESSAGE_STRING, "action", String.format(SEQUENCE_ID_ALERT_BODY_STRING, "2", "s1"));
+            final String otherSequence3 = String.format(
+                    BASE_MESSAGE_STRING, "action", String.format(SEQUENCE_ID_METRIC_BODY_STRING, "3", "s2"));
+            final String metric3 = String.format(
+                    BASE_MESSAGE_STRING, "action", String.format(SEQUENCE_ID_METRIC_BODY_STRING, "3", "s1"));
+            final String alert3 = String.format(
+                    BASE_MESSAGE_STRING, "action", String.format(SEQUENCE_ID_ALERT_BODY_STRING, "3", "s1"));
+
+            addMessageWithTimestamp(messageStorage, metric1, 10L);
+            addMessageWithTimestamp(messageStorage, alert2, 20L);
+            addMessageWithTimestamp(messageStorage, otherSequence3, 30L);
+            addMessageWithTimestamp(messageStorage, metric3, 40L);
+            addMessageWithTimestamp(messageStorage, alert3, 50L);
+
+            messageStorage.flush();
+
+            try (final var inboundMessages = messageStorage.getInboundMessagesByMdibVersionAndBodyType(
+                    "urn:uuid:s1", 2, alertQName, metricQName)) {
+                assertEquals(
+                        List.of(alert2, alert3, metric3),
+                        inboundMessages.getStream().map(MessageContent::getBody).toList());
+            }
+            try (final var inboundMessages =
+                    messageStorage.getInboundMessagesByMdibVersionAndBodyType("urn:uuid:s1", 0, metricQName)) {
+                assertEquals(
+                        List.of(metric1, metric3),
+                        inboundMessages.getStream().map(MessageContent::getBody).toList());
+            }
+            try (final var inboundMessages = messageStorage.getInboundMessagesByMdibVersionAndBodyType(
+                    "urn:uuid:s1", 4, alertQName, metricQName)) {
+                assertFalse(inboundMessages.areObjectsPresent());
+            }
+        }
+    }
+
+    /**
+     * Tests whether messages captured concurrently, and hence ingested by several shards, are persisted completely
+     * and retrieved ordered by their MdibVersion and timestamp.
+     *
+     * @param dir message storage directory
+     * @throws Exception on any exception
+     */
+    @Test
+    public void testConcurrentCaptureKeepsQueryOrdering(@TempDir final File dir) throws Exception {
+        final int threadCount = 4;
+        final int messagesPerThread = 250;
+        try (final MessageStorage messageStorage = new MessageStorage(
+                64,
+                16,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
+
+            final var expectedQName = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicMetricReport", "msg");
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> threads = new ArrayList<>();
+            final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+            for (int t = 0; t < threadCount; t++) {
+                final Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        captureMetricReports(messageStorage, messagesPerThread, "s1");
+                    } catch (final Exception e) {
+                        failures.add(e);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(List.of(), failures);
+
+            messageStorage.flush();
+
+            try (final var inboundMessages =
+                    messageStorage.getInboundMessagesByBodyTypeAndSequenceId("urn:uuid:s1", expectedQName)) {
+                final var count = new AtomicInteger(0);
+                final long[] previous = {Long.MIN_VALUE, Long.MIN_VALUE};
+                inboundMessages.getStream().forEach(message -> {
+                    final long mdibVersion =
+                            message.getMdibVersionGroups().get(0).getMdibVersion();
+                    assertTrue(previous[0] <= mdibVersion);
+                    if (previous[0] == mdibVersion) {
+                        assertTrue(previous[1] <= message.getNanoTimestamp());
+                    }
+                    previous[0] = mdibVersion;
+                    previous[1] = message.getNanoTimestamp();
+                    count.incrementAndGet();
+                });
+                assertEquals(threadCount * messagesPerThread, count.get());
+            }
+        }
+    }
+
+    private void captureMetricReports(
+            final MessageStorage messageStorage, final int messageCount, final String sequenceId) throws IOException {
+        for (int i = 0; i < messageCount; i++) {
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    this.messageContext,
+                    messageStorage)) {
+                // every MdibVersion is captured once per call
+                message.write(String.format(
+                                BASE_MESSAGE_STRING,
+                                "action",
+                                String.format(SEQUENCE_ID_METRIC_BODY_STRING, i, sequenceId))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
     private void addMessageWithTimestamp(
             final MessageStorage messageStorage, final String messageContent2, final Long timestamp) {
         final var mockMessage1 = mock(Message.class);
-        final var mockMessageId1 = UUID.randomUUID();
-        when(mockMessage1.getID()).thenReturn(mockMessageId1.toString());
+        when(mockMessage1.getEntryId()).thenReturn(MessageUtil.nextEntryId());
         when(mockMessage1.getDirection()).thenReturn(CommunicationLog.Direction.INBOUND);
         when(mockMessage1.getMessageType()).thenReturn(CommunicationLog.MessageType.REQUEST);
         when(mockMessage1.getCommunicationContext()).thenReturn(this.messageContext);
@@ -1405,7 +1867,18 @@ public class TestMessageStorage {
     @Test
     public void testGetManipulationData(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                3, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                3,
+                3,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final var startTime1 = 1000;
             final var finishTime1 = 1500;
             final var result = ResponseTypes.Result.RESULT_SUCCESS;
@@ -1458,7 +1931,18 @@ public class TestMessageStorage {
     @Test
     public void testMessageStorageFlushNotInDeadlock(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                3, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                3,
+                3,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final String expected = "inbound_body";
 
             try (final Message message = new Message(
@@ -1543,6 +2027,494 @@ public class TestMessageStorage {
         }
     }
 
+    /**
+     * Tests whether adding messages does not block while the storage backend is busy, i.e. whether the messages are
+     * spilled to disk and persisted once the backend caught up.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testAddMessageSpillsWhileStorageIsBusy(@TempDir final File dir) throws IOException {
+        final int messageCount = 50;
+        final CountDownLatch backendReleased = new CountDownLatch(1);
+        final List<Object> persisted = Collections.synchronizedList(new ArrayList<>());
+        final MessageStorageBackend storageBackend = mock(MessageStorageBackend.class);
+        doAnswer(invocation -> {
+                    backendReleased.await();
+                    persisted.addAll(invocation.getArgument(0));
+                    return null;
+                })
+                .when(storageBackend)
+                .persist(any());
+
+        try (final MessageStorage messageStorage = new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                false,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                storageBackend,
+                this.testRunObserver)) {
+
+            assertTimeoutPreemptively(
+                    Duration.ofSeconds(30),
+                    () -> {
+                        for (int i = 0; i < messageCount; i++) {
+                            try (final Message message = new Message(
+                                    CommunicationLog.Direction.OUTBOUND,
+                                    CommunicationLog.MessageType.REQUEST,
+                                    this.messageContext,
+                                    messageStorage)) {
+                                message.write(("outbound_body" + i).getBytes(StandardCharsets.UTF_8));
+                            }
+                        }
+                    },
+                    "Adding messages blocked while the storage backend was busy.");
+            assertTrue(messageStorage.getSpilledEntryCount() > 0);
+
+            backendReleased.countDown();
+            assertTimeoutPreemptively(Duration.ofSeconds(30), messageStorage::flush);
+
+            assertEquals(messageStorage.getSpilledEntryCount(), messageStorage.getRecoveredEntryCount());
+            assertEquals(
+                    IntStream.range(0, messageCount)
+                            .mapToObj(i -> "outbound_body" + i)
+                            .collect(Collectors.toSet()),
+                    persisted.stream()
+                            .map(entity -> ((MessageContent) entity).getBody())
+                            .collect(Collectors.toSet()));
+            assertEquals(messageCount, persisted.size());
+        }
+        verifyNoInteractions(this.testRunObserver);
+    }
+
+    /**
+     * Tests whether messages become available without a flush once the batch linger time has passed, even though the
+     * batch is not full.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testMessagesPersistedAfterLingerTime(@TempDir final File dir) throws IOException {
+        try (final MessageStorage messageStorage = new MessageStorage(
+                5,
+                5,
+                5,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
+
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("inbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+
+            assertTimeoutPreemptively(
+                    Duration.ofSeconds(30),
+                    () -> {
+                        boolean present = false;
+                        while (!present) {
+                            try (final MessageStorage.GetterResult<MessageContent> inboundMessages =
+                                    messageStorage.getInboundMessages()) {
+                                present = inboundMessages.areObjectsPresent();
+                            }
+                        }
+                    },
+                    "Message was not persisted without a flush.");
+        }
+    }
+
+    /**
+     * Tests whether an invalid commit policy is rejected.
+     *
+     * @param dir message storage directory
+     */
+    @Test
+    public void testInvalidCommitPolicy(@TempDir final File dir) {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new MessageStorage(
+                        1,
+                        0,
+                        0,
+                        0,
+                        false,
+                        true,
+                        MessageBodyCodec.NONE,
+                        dir,
+                        mock(MessageFactory.class),
+                        new HibernateStorageBackend(
+                                new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                        this.testRunObserver));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new MessageStorage(
+                        1,
+                        1,
+                        -1,
+                        0,
+                        false,
+                        true,
+                        MessageBodyCodec.NONE,
+                        dir,
+                        mock(MessageFactory.class),
+                        new HibernateStorageBackend(
+                                new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                        this.testRunObserver));
+    }
+
+    /**
+     * Tests whether the ingestion metrics reflect the stored messages and whether they are written into the test run
+     * directory once the storage is closed.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testIngestMetrics(@TempDir final File dir) throws IOException {
+        final int messageCount = 3;
+        final IngestMetrics.Snapshot metrics;
+        try (final MessageStorage messageStorage = new MessageStorage(
+                5,
+                5,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
+
+            for (int i = 0; i < messageCount; i++) {
+                try (final Message message = new Message(
+                        CommunicationLog.Direction.INBOUND,
+                        CommunicationLog.MessageType.REQUEST,
+                        this.messageContext,
+                        messageStorage)) {
+                    message.write("inbound_body".getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            messageStorage.flush();
+
+            metrics = messageStorage.getIngestMetrics();
+            assertEquals(messageCount, metrics.capturedEntries());
+            assertEquals(messageCount, metrics.persistedEntries());
+            assertEquals(messageCount * "inbound_body".length(), metrics.persistedBodyBytes());
+            assertTrue(metrics.queueOccupancyHighWaterMark() >= 1);
+            assertTrue(metrics.batchCount() >= 1);
+            assertEquals(1, metrics.flushCount());
+            assertTrue(metrics.encodingCheckMillis() > 0);
+            assertTrue(metrics.storageSize() > 0);
+        }
+
+        final Path metricsFile = dir.toPath().resolve("IngestMetrics.json");
+        assertTrue(Files.exists(metricsFile));
+        final IngestMetrics.Snapshot writtenMetrics =
+                new Gson().fromJson(Files.readString(metricsFile), IngestMetrics.Snapshot.class);
+        assertEquals(metrics.persistedEntries(), writtenMetrics.persistedEntries());
+        assertEquals(metrics.batchCount(), writtenMetrics.batchCount());
+    }
+
+    /**
+     * Tests whether all stored messages and manipulations are exported into the archive in the test run directory.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testExportArchive(@TempDir final File dir) throws IOException {
+        final MessageStorage messageStorage = new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver);
+        final Path archive;
+        try (messageStorage) {
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("inbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.OUTBOUND,
+                    CommunicationLog.MessageType.RESPONSE,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("outbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+            messageStorage.createManipulationInfo(
+                    1,
+                    2,
+                    ResponseTypes.Result.RESULT_SUCCESS,
+                    "response",
+                    "setComponentActivation",
+                    ManipulationParameterUtil.buildEmptyManipulationParameterData());
+
+            archive = messageStorage.exportArchive();
+        }
+        assertEquals(dir.toPath().resolve("MessageArchive.bin"), archive);
+        assertThrows(IOException.class, messageStorage::exportArchive);
+
+        try (final MessageArchive.Reader reader = new MessageArchive.Reader(archive)) {
+            assertEquals(3, reader.getRecordCount());
+            final List<Object> entities = new ArrayList<>();
+            for (final MessageArchive.Chunk chunk : reader.getChunks()) {
+                entities.addAll(reader.readChunk(chunk));
+            }
+
+            final MessageContent inbound = (MessageContent) entities.get(0);
+            assertEquals(CommunicationLog.Direction.INBOUND, inbound.getDirection());
+            assertEquals("inbound_body", inbound.getBody());
+            final MessageContent outbound = (MessageContent) entities.get(1);
+            assertEquals(CommunicationLog.Direction.OUTBOUND, outbound.getDirection());
+            assertEquals("outbound_body", outbound.getBody());
+            final ManipulationData manipulation = (ManipulationData) entities.get(2);
+            assertEquals("setComponentActivation", manipulation.getMethodName());
+            assertEquals(ResponseTypes.Result.RESULT_SUCCESS, manipulation.getResult());
+        }
+    }
+
+    /**
+     * Tests whether a failed export keeps the previous archive and does not leave a partial archive behind.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testExportArchiveFailure(@TempDir final File dir) throws IOException {
+        final HibernateStorageBackend storageBackend = Mockito.spy(new HibernateStorageBackend(
+                new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE));
+        final MessageStorage messageStorage = new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                storageBackend,
+                this.testRunObserver);
+        try (messageStorage) {
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("inbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+            final Path archive = messageStorage.exportArchive();
+
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("second_inbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+            doAnswer(invocation -> Stream.generate(() -> {
+                        throw new IllegalStateException("backend failure");
+                    }))
+                    .when(storageBackend)
+                    .getOutboundMessages();
+            assertThrows(IllegalStateException.class, messageStorage::exportArchive);
+
+            try (final Stream<Path> files = Files.list(dir.toPath())) {
+                assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+            }
+            try (final MessageArchive.Reader reader = new MessageArchive.Reader(archive)) {
+                assertEquals(1, reader.getRecordCount());
+            }
+        }
+    }
+
+    /**
+     * Tests whether the message archive and the Database directory of a previous test run can be imported.
+     *
+     * @param dir message storage directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testImportRecording(@TempDir final File dir) throws IOException {
+        final File recordedDir =
+                Files.createDirectories(dir.toPath().resolve("recorded")).toFile();
+        final Path archive;
+        try (final MessageStorage messageStorage = createImportStorage(recordedDir, MessageBodyCodec.NONE)) {
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("inbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.OUTBOUND,
+                    CommunicationLog.MessageType.RESPONSE,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("outbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+            messageStorage.createManipulationInfo(
+                    1,
+                    2,
+                    ResponseTypes.Result.RESULT_SUCCESS,
+                    "response",
+                    "setComponentActivation",
+                    ManipulationParameterUtil.buildEmptyManipulationParameterData());
+
+            archive = messageStorage.exportArchive();
+        }
+
+        final List<Path> recordings = List.of(archive, recordedDir.toPath().resolve("Database"));
+        for (int i = 0; i < recordings.size(); i++) {
+            final File importDir =
+                    Files.createDirectories(dir.toPath().resolve("import" + i)).toFile();
+            final MessageStorage messageStorage = createImportStorage(importDir, MessageBodyCodec.DEFLATE);
+            try (messageStorage) {
+                assertEquals(3, messageStorage.importRecording(recordings.get(i)));
+
+                try (final MessageStorage.GetterResult<MessageContent> inboundMessages =
+                        messageStorage.getInboundMessages()) {
+                    final List<MessageContent> messages =
+                            inboundMessages.getStream().toList();
+                    assertEquals(1, messages.size());
+                    assertEquals("inbound_body", messages.get(0).getBody());
+                }
+                try (final MessageStorage.GetterResult<MessageContent> outboundMessages =
+                        messageStorage.getOutboundMessages()) {
+                    final List<MessageContent> messages =
+                            outboundMessages.getStream().toList();
+                    assertEquals(1, messages.size());
+                    assertEquals("outbound_body", messages.get(0).getBody());
+                }
+                try (final MessageStorage.GetterResult<ManipulationData> manipulationData =
+                        messageStorage.getManipulationData()) {
+                    final List<ManipulationData> manipulations =
+                            manipulationData.getStream().toList();
+                    assertEquals(1, manipulations.size());
+                    assertEquals("setComponentActivation", manipulations.get(0).getMethodName());
+                }
+            }
+            assertThrows(IOException.class, () -> messageStorage.importRecording(archive));
+        }
+
+        // neither an archive nor a database
+        try (final MessageStorage messageStorage = createImportStorage(dir, MessageBodyCodec.NONE)) {
+            assertThrows(IOException.class, () -> messageStorage.importRecording(recordedDir.toPath()));
+            assertThrows(
+                    IOException.class,
+                    () -> messageStorage.importRecording(recordedDir.toPath().resolve("IngestMetrics.json")));
+        }
+    }
+
+    /**
+     * Tests whether a recorded database whose schema does not match the current mapping is rejected on import.
+     *
+     * @param dir message storage directory
+     * @throws IOException  on io exceptions
+     * @throws SQLException on database exceptions
+     */
+    @Test
+    public void testImportIncompatibleDatabase(@TempDir final File dir) throws IOException, SQLException {
+        final File recordedDir =
+                Files.createDirectories(dir.toPath().resolve("recorded")).toFile();
+        try (final MessageStorage messageStorage = createImportStorage(recordedDir, MessageBodyCodec.NONE)) {
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    this.messageContext,
+                    messageStorage)) {
+                message.write("inbound_body".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        // a database of a version which did not have the column yet
+        final Path database = recordedDir.toPath().resolve("Database");
+        final String databaseUrl = "jdbc:derby:" + database.toAbsolutePath();
+        try (final Connection connection = DriverManager.getConnection(databaseUrl);
+                final Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE message_content DROP COLUMN scheme");
+        }
+        // derby reports a successful shutdown as exception
+        assertThrows(SQLException.class, () -> DriverManager.getConnection(databaseUrl + ";shutdown=true"));
+
+        final File importDir =
+                Files.createDirectories(dir.toPath().resolve("import")).toFile();
+        try (final MessageStorage messageStorage = createImportStorage(importDir, MessageBodyCodec.NONE)) {
+            final IOException exception =
+                    assertThrows(IOException.class, () -> messageStorage.importRecording(database));
+            assertTrue(exception.getMessage().contains("does not match the schema"), exception.getMessage());
+        }
+    }
+
+    private MessageStorage createImportStorage(final File dir, final MessageBodyCodec bodyCodec) {
+        return new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                bodyCodec,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver);
+    }
+
+    /**
+     * Tests whether a negative metrics log interval is rejected.
+     *
+     * @param dir message storage directory
+     */
+    @Test
+    public void testInvalidMetricsLogInterval(@TempDir final File dir) {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new MessageStorage(
+                        1,
+                        1,
+                        0,
+                        -1,
+                        false,
+                        true,
+                        MessageBodyCodec.NONE,
+                        dir,
+                        mock(MessageFactory.class),
+                        mock(MessageStorageBackend.class),
+                        this.testRunObserver));
+    }
+
     /**
      * Tests whether only inbound messages matching the body type inside the given time interval are retrieved.
      *
@@ -1552,7 +2524,18 @@ public class TestMessageStorage {
     @Test
     public void testGetInboundMessagesByTimeIntervalAndBodyType(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                6, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                6,
+                6,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // test tag with content
             final var expectedQName1 = new QName(CommonConstants.NAMESPACE_MESSAGE, "EpisodicAlertReport", "msg");
             final String expectedBody1 = "<msg:EpisodicAlertReport><pm:once_told_me>"
@@ -1612,8 +2595,7 @@ public class TestMessageStorage {
 
             // should not count since not in time interval
             final var mockMessage = mock(Message.class);
-            final var mockMessageId = UUID.randomUUID();
-            when(mockMessage.getID()).thenReturn(mockMessageId.toString());
+            when(mockMessage.getEntryId()).thenReturn(MessageUtil.nextEntryId());
             when(mockMessage.getDirection()).thenReturn(CommunicationLog.Direction.INBOUND);
             when(mockMessage.getMessageType()).thenReturn(CommunicationLog.MessageType.RESPONSE);
             when(mockMessage.getCommunicationContext()).thenReturn(this.messageContext);
@@ -1655,7 +2637,18 @@ public class TestMessageStorage {
     @Test
     public void testGetManipulationDataByManipulation(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                6, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                6,
+                6,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final var startTime1 = 1000;
             final var finishTime1 = 1500;
             final var result = ResponseTypes.Result.RESULT_SUCCESS;
@@ -1725,7 +2718,18 @@ public class TestMessageStorage {
     @Test
     public void testGetManipulationDataByParametersAndManipulation(@TempDir final File dir) throws Exception {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final var startTime1 = 1000;
             final var finishTime1 = 1500;
             final var result = ResponseTypes.Result.RESULT_SUCCESS;
@@ -1839,7 +2843,18 @@ public class TestMessageStorage {
     public void testGetManipulationDataByParametersAndManipulationOneParameter(@TempDir final File dir)
             throws Exception {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final var startTime1 = 1000;
             final var finishTime1 = 1500;
             final var result = ResponseTypes.Result.RESULT_SUCCESS;
@@ -1936,7 +2951,18 @@ public class TestMessageStorage {
     public void testGetManipulationDataByParametersAndManipulationEmptyParameters(@TempDir final File dir)
             throws Exception {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             final var startTime1 = 1000;
             final var finishTime1 = 1500;
             final var result = ResponseTypes.Result.RESULT_SUCCESS;
@@ -2016,7 +3042,18 @@ public class TestMessageStorage {
     @Test
     public void testDetermineCharsetFromMessageFromHttpHeader(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/xml; charset=ISO-8859-13");
@@ -2054,7 +3091,18 @@ public class TestMessageStorage {
     public void testDetermineCharsetFromMessageFromHttpHeaderSuppressEncodingErrors(@TempDir final File dir)
             throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, true, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                true,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             assertEquals(0, messageStorage.getMessageEncodingErrorCount());
 
@@ -2093,7 +3141,18 @@ public class TestMessageStorage {
     public void testDetermineCharsetFromMessageFromHttpHeaderEncodingCheckDisabled(@TempDir final File dir)
             throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, false, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                false,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             assertEquals(0, messageStorage.getMessageEncodingErrorCount());
 
@@ -2137,7 +3196,18 @@ public class TestMessageStorage {
     public void testDetermineCharsetFromMessageFromHttpHeaderSuppressMimeTypeErrors(@TempDir final File dir)
             throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, true, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                true,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             assertEquals(0, messageStorage.getInvalidMimeTypeErrorCount());
 
@@ -2176,7 +3246,18 @@ public class TestMessageStorage {
     @Test
     public void testDetermineCharsetFromMessageFromHttpHeaderWithQuotes(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/soap+xml; charset='ISO-8859-13'");
@@ -2212,7 +3293,18 @@ public class TestMessageStorage {
     public void testDetermineCharsetFromMessageFromHttpHeaderWithDoubleQuotes(@TempDir final File dir)
             throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/xml; charset=\"ISO-8859-13\"");
@@ -2248,7 +3340,18 @@ public class TestMessageStorage {
     @Test
     public void testDetermineCharsetFromMessageFromHttpHeaderWithBoundary(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/xml; charset=ISO-8859-13; boundary=XYZ");
@@ -2284,7 +3387,18 @@ public class TestMessageStorage {
     @Test
     public void testDetermineCharsetFromMessageFromHttpHeaderWithBoundary2(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/xml; charset=ISO-8859-13 ;boundary=XYZ");
@@ -2319,7 +3433,18 @@ public class TestMessageStorage {
     @Test
     public void testDetermineCharsetFromMessageFromXmlDeclaration(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/soap+xml");
@@ -2348,6 +3473,122 @@ public class TestMessageStorage {
         }
     }
 
+    /**
+     * Tests whether message bodies are stored as transmitted together with their charset and only decoded on demand.
+     *
+     * @param dir - a temporary directory.
+     * @throws IOException - when something goes wrong.
+     */
+    @Test
+    public void testBodyStoredInTransmittedCharset(@TempDir final File dir) throws IOException {
+        try (final MessageStorage messageStorage = new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
+            // given
+            final ListMultimap<String, String> headers = ArrayListMultimap.create();
+            headers.put("Content-Type", "application/soap+xml; charset=ISO-8859-1");
+
+            final HttpApplicationInfo applicationInfo = new HttpApplicationInfo(headers, "transactionId", "requestURI");
+            final TransportInfo transportInfo =
+                    new TransportInfo("http", "localhost", 1234, "remotehost", 4567, List.of());
+            final CommunicationContext communicationContext =
+                    new CommunicationContext(applicationInfo, transportInfo, null);
+            final String content =
+                    "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n<sometag>\u00c4\u00d6\u00dc</sometag>";
+            final byte[] encodedContent = content.getBytes(StandardCharsets.ISO_8859_1);
+            try (final Message message = new Message(
+                    CommunicationLog.Direction.INBOUND,
+                    CommunicationLog.MessageType.REQUEST,
+                    communicationContext,
+                    messageStorage)) {
+                message.write(encodedContent, 0, encodedContent.length);
+            }
+
+            // when
+            messageStorage.flush();
+
+            // then
+            try (final MessageStorage.GetterResult<MessageContent> inboundMessages =
+                    messageStorage.getInboundMessages()) {
+                final List<MessageContent> messages =
+                        inboundMessages.getStream().toList();
+                assertEquals(1, messages.size());
+                final MessageContent messageContent = messages.get(0);
+                assertEquals(StandardCharsets.ISO_8859_1, messageContent.getBodyCharset());
+                assertArrayEquals(encodedContent, messageContent.getBodyStream().readAllBytes());
+                assertEquals(
+                        encodedContent.length, messageContent.getBodyBuffer().remaining());
+                assertEquals(content, messageContent.getBody());
+            }
+        }
+    }
+
+    /**
+     * Tests whether message bodies are compressed when a compressing codec is configured, while bodies which do not
+     * benefit from compression are stored as they are.
+     *
+     * @param dir - a temporary directory.
+     * @throws IOException - when something goes wrong.
+     */
+    @Test
+    public void testBodyCompression(@TempDir final File dir) throws IOException {
+        final String largeBody = String.format(
+                BASE_MESSAGE_STRING,
+                "action",
+                String.format(SEQUENCE_ID_METRIC_BODY_STRING, "3", "1").repeat(100));
+        final String smallBody = "x";
+        try (final MessageStorage messageStorage = new MessageStorage(
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.DEFLATE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
+            for (final String body : List.of(largeBody, smallBody)) {
+                try (final Message message = new Message(
+                        CommunicationLog.Direction.INBOUND,
+                        CommunicationLog.MessageType.REQUEST,
+                        this.messageContext,
+                        messageStorage)) {
+                    message.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            messageStorage.flush();
+
+            assertEquals(largeBody.length() + smallBody.length(), messageStorage.getUncompressedBodyBytes());
+            assertTrue(messageStorage.getCompressedBodyBytes() * 10 < messageStorage.getUncompressedBodyBytes());
+
+            try (final MessageStorage.GetterResult<MessageContent> inboundMessages =
+                    messageStorage.getInboundMessages()) {
+                final Map<String, MessageBodyCodec> codecs = inboundMessages
+                        .getStream()
+                        .collect(Collectors.toMap(MessageContent::getBody, MessageContent::getBodyCodec));
+                assertEquals(Map.of(largeBody, MessageBodyCodec.DEFLATE, smallBody, MessageBodyCodec.NONE), codecs);
+            }
+            try (final MessageStorage.GetterResult<MessageContent> inboundMessages =
+                    messageStorage.getInboundMessagesByBodyType(false, Constants.MSG_EPISODIC_METRIC_REPORT)) {
+                assertEquals(1, inboundMessages.getStream().count());
+            }
+        }
+    }
+
     /**
      * Tests if determineCharsetFromMessage() correctly detects an EBCDIC Charset when it is given in the
      * XML Declaration.
@@ -2358,7 +3599,18 @@ public class TestMessageStorage {
     @Test
     public void testDetermineEBCDICCharsetFromMessageFromXmlDeclaration(@TempDir final File dir) throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/xml");
@@ -2398,7 +3650,18 @@ public class TestMessageStorage {
     public void testDetermineCharsetFromMessageFromXmlDeclarationUsingSingleQuotes(@TempDir final File dir)
             throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/soap+xml");
@@ -2447,7 +3710,18 @@ public class TestMessageStorage {
             throws IOException {
         Mockito.reset(this.testRunObserver);
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "application/soap+xml");
@@ -2494,7 +3768,18 @@ public class TestMessageStorage {
     public void testDetermineCharsetFromMessageFailureCharsetCannotBeDetermined(@TempDir final File dir)
             throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", "text/html"); // no charset in HTTP Header
@@ -2728,7 +4013,18 @@ public class TestMessageStorage {
         final String mimeType = "application/xml";
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", String.format("%s;charset=%s", mimeType, charsetInHttpHeader));
@@ -2774,7 +4070,18 @@ public class TestMessageStorage {
         final String mimeType = "application/xml";
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", String.format("%s;charset=%s", mimeType, charsetInHttpHeader));
@@ -2819,7 +4126,18 @@ public class TestMessageStorage {
         final String mimeType = "application/xml";
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", String.format("%s;charset=%s", mimeType, charsetInHttpHeader));
@@ -2862,7 +4180,18 @@ public class TestMessageStorage {
         final String mimeType = "application/xml";
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", String.format("%s;charset=%s", mimeType, charsetInHttpHeader));
@@ -2907,7 +4236,18 @@ public class TestMessageStorage {
         final String mimeType = "application/xml";
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", String.format("%s;charset=%s", mimeType, charsetInHttpHeader));
@@ -2955,7 +4295,18 @@ public class TestMessageStorage {
 
         final MessageStorage storage;
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, true, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                true,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             storage = messageStorage;
             assertEquals(0, messageStorage.getMessageEncodingErrorCount());
@@ -3003,7 +4354,18 @@ public class TestMessageStorage {
         final String mimeType = "application/xml";
 
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, false, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                false,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             headers.put("Content-Type", String.format("%s;charset=%s", mimeType, charsetInHttpHeader));
@@ -3053,7 +4415,18 @@ public class TestMessageStorage {
             final String mimeType)
             throws IOException {
         try (final MessageStorage messageStorage = new MessageStorage(
-                1, false, true, mock(MessageFactory.class), new HibernateConfigImpl(dir), this.testRunObserver)) {
+                1,
+                1,
+                0,
+                0,
+                false,
+                true,
+                MessageBodyCodec.NONE,
+                dir,
+                mock(MessageFactory.class),
+                new HibernateStorageBackend(
+                        new HibernateConfigImpl(dir), DEFAULT_MESSAGE_FETCH_SIZE, DEFAULT_FETCH_SIZE),
+                this.testRunObserver)) {
             // given
             final ListMultimap<String, String> headers = ArrayListMultimap.create();
             if (charsetInHttpHeader != null) {
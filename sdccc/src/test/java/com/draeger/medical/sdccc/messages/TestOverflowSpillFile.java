@@ -0,0 +1,175 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
+import com.draeger.medical.sdccc.util.CertificateUtil;
+import com.draeger.medical.sdccc.util.Constants;
+import com.draeger.medical.t2iapi.ResponseTypes;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.somda.sdc.dpws.CommunicationLog;
+import org.somda.sdc.dpws.soap.CommunicationContext;
+import org.somda.sdc.dpws.soap.HttpApplicationInfo;
+import org.somda.sdc.dpws.soap.TransportInfo;
+
+/**
+ * Unit tests for the overflow spill file of the message storage.
+ */
+public class TestOverflowSpillFile {
+
+    private static final String SPILL_FILE_NAME = "overflow.spill";
+
+    /**
+     * Tests whether all fields of messages and manipulations survive being spilled and whether they are read back
+     * in the order they were spilled.
+     *
+     * @param dir spill file directory
+     * @throws IOException          on io exceptions
+     * @throws CertificateException on certificate exceptions
+     */
+    @Test
+    public void testRoundTrip(@TempDir final Path dir) throws IOException, CertificateException {
+        final MessageStorage messageStorage = mock(MessageStorage.class);
+        final X509Certificate certificate = CertificateUtil.getDummyCert();
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        headers.put("Content-Type", "application/soap+xml; charset=utf-8");
+        headers.put("X-Multi", "first");
+        headers.put("X-Multi", "second");
+        final CommunicationContext communicationContext = new CommunicationContext(
+                new HttpApplicationInfo(headers, "transaction", "/request"),
+                new TransportInfo(Constants.HTTPS_SCHEME, "127.0.0.1", 1234, "127.0.0.2", null, List.of(certificate)),
+                null);
+
+        final Message message = new Message(
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.REQUEST,
+                communicationContext,
+                messageStorage);
+        message.write("<body>äöü</body>".getBytes(StandardCharsets.UTF_8));
+        message.close();
+
+        final ManipulationInfo manipulationInfo = new ManipulationInfo(
+                1000,
+                2000,
+                ResponseTypes.Result.RESULT_SUCCESS,
+                "response",
+                "setMetricStatus",
+                new ManipulationParameterUtil.ManipulationParameterData(List.of(Pair.of("Handle", "handle1"))),
+                messageStorage);
+
+        try (final OverflowSpillFile spillFile = new OverflowSpillFile(dir.resolve(SPILL_FILE_NAME), messageStorage)) {
+            assertTrue(spillFile.isEmpty());
+            assertNull(spillFile.poll());
+
+            spillFile.append(1, message);
+            spillFile.append(2, manipulationInfo);
+            assertFalse(spillFile.isEmpty());
+
+            final OverflowSpillFile.SpilledEntry spilledMessage = spillFile.poll();
+            assertNotNull(spilledMessage);
+            assertEquals(1, spilledMessage.sequenceNumber());
+            final Message restoredMessage = assertInstanceOf(Message.class, spilledMessage.entry());
+            assertEquals(message.getEntryId(), restoredMessage.getEntryId());
+            assertEquals(message.getDirection(), restoredMessage.getDirection());
+            assertEquals(message.getMessageType(), restoredMessage.getMessageType());
+            assertEquals(message.getTimestamp(), restoredMessage.getTimestamp());
+            assertEquals(message.getNanoTimestamp(), restoredMessage.getNanoTimestamp());
+            assertArrayEquals(message.getFinalMemory(), restoredMessage.getFinalMemory());
+            assertArrayEquals(message.getMessageDigest(), restoredMessage.getMessageDigest());
+            assertTrue(restoredMessage.isClosed());
+
+            final HttpApplicationInfo restoredApplicationInfo = assertInstanceOf(
+                    HttpApplicationInfo.class,
+                    restoredMessage.getCommunicationContext().getApplicationInfo());
+            assertEquals(
+                    ((HttpApplicationInfo) communicationContext.getApplicationInfo()).getHeaders(),
+                    restoredApplicationInfo.getHeaders());
+            assertEquals("transaction", restoredApplicationInfo.getTransactionId());
+            assertEquals("/request", restoredApplicationInfo.getRequestUri().orElseThrow());
+
+            final TransportInfo restoredTransportInfo =
+                    restoredMessage.getCommunicationContext().getTransportInfo();
+            assertEquals(Constants.HTTPS_SCHEME, restoredTransportInfo.getScheme());
+            assertEquals("127.0.0.1", restoredTransportInfo.getLocalAddress().orElseThrow());
+            assertEquals(1234, restoredTransportInfo.getLocalPort().orElseThrow());
+            assertEquals("127.0.0.2", restoredTransportInfo.getRemoteAddress().orElseThrow());
+            assertTrue(restoredTransportInfo.getRemotePort().isEmpty());
+            assertEquals(List.of(certificate), restoredTransportInfo.getX509Certificates());
+
+            final OverflowSpillFile.SpilledEntry spilledManipulation = spillFile.poll();
+            assertNotNull(spilledManipulation);
+            assertEquals(2, spilledManipulation.sequenceNumber());
+            final ManipulationInfo restoredManipulation =
+                    assertInstanceOf(ManipulationInfo.class, spilledManipulation.entry());
+            assertEquals(manipulationInfo.getEntryId(), restoredManipulation.getEntryId());
+            assertEquals(manipulationInfo.getStartTimestamp(), restoredManipulation.getStartTimestamp());
+            assertEquals(manipulationInfo.getFinishTimestamp(), restoredManipulation.getFinishTimestamp());
+            assertEquals(manipulationInfo.getResult(), restoredManipulation.getResult());
+            assertEquals(manipulationInfo.getResponse(), restoredManipulation.getResponse());
+            assertEquals(manipulationInfo.getMethodName(), restoredManipulation.getMethodName());
+            assertEquals(manipulationInfo.getParameter(), restoredManipulation.getParameter());
+
+            assertTrue(spillFile.isEmpty());
+            assertNull(spillFile.poll());
+            // fully read files are truncated
+            assertEquals(0, Files.size(dir.resolve(SPILL_FILE_NAME)));
+        }
+        assertFalse(Files.exists(dir.resolve(SPILL_FILE_NAME)));
+    }
+
+    /**
+     * Tests whether discarding the spill file reports the sequence numbers of all entries which have not been read.
+     *
+     * @param dir spill file directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testDiscard(@TempDir final Path dir) throws IOException {
+        final MessageStorage messageStorage = mock(MessageStorage.class);
+        try (final OverflowSpillFile spillFile = new OverflowSpillFile(dir.resolve(SPILL_FILE_NAME), messageStorage)) {
+            assertEquals(0, spillFile.discard().count());
+
+            for (long sequenceNumber = 3; sequenceNumber <= 5; sequenceNumber++) {
+                final Message message = new Message(
+                        CommunicationLog.Direction.OUTBOUND,
+                        CommunicationLog.MessageType.RESPONSE,
+                        new CommunicationContext(null, null, null),
+                        messageStorage);
+                message.close();
+                spillFile.append(sequenceNumber, message);
+            }
+
+            final OverflowSpillFile.SpilledEntry spilledEntry = spillFile.poll();
+            assertNotNull(spilledEntry);
+            assertEquals(3, spilledEntry.sequenceNumber());
+
+            assertArrayEquals(new long[] {4, 5}, spillFile.discard().toArray());
+            assertTrue(spillFile.isEmpty());
+            assertNull(spillFile.poll());
+        }
+    }
+}
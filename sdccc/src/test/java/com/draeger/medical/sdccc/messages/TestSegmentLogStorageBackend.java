@@ -0,0 +1,387 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.messages;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.draeger.medical.sdccc.configuration.TestSuiteConfig;
+import com.draeger.medical.sdccc.messages.mapping.ManipulationData;
+import com.draeger.medical.sdccc.messages.mapping.MdibVersionGroupEntity;
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
+import com.draeger.medical.sdccc.sdcri.testclient.TestClient;
+import com.draeger.medical.sdccc.tests.test_util.InjectorUtil;
+import com.draeger.medical.sdccc.tests.util.ManipulationParameterUtil;
+import com.draeger.medical.sdccc.util.CertificateUtil;
+import com.draeger.medical.sdccc.util.Constants;
+import com.draeger.medical.t2iapi.ResponseTypes;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.inject.Injector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.xml.namespace.QName;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.somda.sdc.common.guice.AbstractConfigurationModule;
+import org.somda.sdc.dpws.CommunicationLog;
+import org.somda.sdc.dpws.soap.ApplicationInfo;
+import org.somda.sdc.dpws.soap.CommunicationContext;
+import org.somda.sdc.dpws.soap.HttpApplicationInfo;
+import org.somda.sdc.dpws.soap.TransportInfo;
+
+/**
+ * Unit tests for the segment log backend of the message storage.
+ */
+public class TestSegmentLogStorageBackend {
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final String SEQUENCE_ID_1 = "urn:uuid:1";
+    private static final String SEQUENCE_ID_2 = "urn:uuid:2";
+
+    /**
+     * Tests whether all fields of messages and manipulations survive being written to and read from the log.
+     *
+     * @param dir segment log directory
+     * @throws IOException          on io exceptions
+     * @throws CertificateException on certificate exceptions
+     */
+    @Test
+    public void testRoundTrip(@TempDir final Path dir) throws IOException, CertificateException {
+        final X509Certificate certificate = CertificateUtil.getDummyCert();
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        headers.put("Content-Type", "application/soap+xml; charset=utf-8");
+        headers.put("X-Multi", "first");
+        headers.put("X-Multi", "second");
+        final CommunicationContext communicationContext = new CommunicationContext(
+                new HttpApplicationInfo(headers, "transaction", "/request"),
+                new TransportInfo(Constants.HTTPS_SCHEME, null, null, null, null, List.of(certificate)),
+                null);
+        final MessageContent expected = new MessageContent(
+                "<body>äöü</body>",
+                communicationContext,
+                CommunicationLog.Direction.INBOUND,
+                CommunicationLog.MessageType.RESPONSE,
+                1234,
+                5678,
+                List.of(new MdibVersionGroupEntity.MdibVersionGroup(
+                        42, SEQUENCE_ID_1, Constants.MSG_EPISODIC_METRIC_REPORT.toString())),
+                Set.of("action"),
+                MessageUtil.nextEntryId(),
+                false,
+                "127.0.0.1");
+        final ManipulationData expectedManipulation = new ManipulationData(
+                10,
+                20,
+                ResponseTypes.Result.RESULT_SUCCESS,
+                "response",
+                "setComponentActivation",
+                List.of(Pair.of("handle", "h1"), Pair.of("activation", "On")),
+                MessageUtil.nextEntryId());
+
+        try (final SegmentLogStorageBackend backend = new SegmentLogStorageBackend(dir, SEGMENT_SIZE)) {
+            backend.persist(List.of(expected, expectedManipulation));
+
+            try (final Stream<MessageContent> messages = backend.getInboundSoapResponseMessages()) {
+                final List<MessageContent> actual = messages.toList();
+                assertEquals(1, actual.size());
+                final MessageContent message = actual.get(0);
+                assertEquals(expected.getBody(), message.getBody());
+                assertEquals(expected.getHeaders(), message.getHeaders());
+                assertEquals(expected.getTransactionId(), message.getTransactionId());
+                assertEquals(expected.getRequestUri(), message.getRequestUri());
+                assertEquals(expected.getCerts(), message.getCerts());
+                assertEquals(expected.getActions(), message.getActions());
+                assertEquals(expected.getDirection(), message.getDirection());
+                assertEquals(expected.getMessageType(), message.getMessageType());
+                assertEquals(expected.getTimestamp(), message.getTimestamp());
+                assertEquals(expected.getNanoTimestamp(), message.getNanoTimestamp());
+                assertEquals(expected.getMessageHash(), message.getMessageHash());
+                assertEquals(expected.getScheme(), message.getScheme());
+                assertEquals(expected.getEntryId(), message.getEntryId());
+                assertEquals(expected.getIsSOAP(), message.getIsSOAP());
+                assertEquals(expected.getSender(), message.getSender());
+                assertEquals(1, message.getMdibVersionGroups().size());
+                assertEquals(42, message.getMdibVersionGroups().get(0).getMdibVersion());
+                assertEquals(
+                        SEQUENCE_ID_1, message.getMdibVersionGroups().get(0).getSequenceId());
+            }
+
+            final var parameter =
+                    new ManipulationParameterUtil.ManipulationParameterData(List.of(Pair.of("handle", "h1")));
+            try (final Stream<ManipulationData> manipulations =
+                    backend.getManipulationDataByParametersAndManipulation(parameter, "setComponentActivation")) {
+                final List<ManipulationData> actual = manipulations.toList();
+                assertEquals(1, actual.size());
+                final ManipulationData manipulation = actual.get(0);
+                assertEquals(expectedManipulation.getStartTimestamp(), manipulation.getStartTimestamp());
+                assertEquals(expectedManipulation.getFinishTimestamp(), manipulation.getFinishTimestamp());
+                assertEquals(expectedManipulation.getResult(), manipulation.getResult());
+                assertEquals(expectedManipulation.getResponse(), manipulation.getResponse());
+                assertEquals(expectedManipulation.getEntryId(), manipulation.getEntryId());
+                assertEquals(2, manipulation.getParameters().size());
+            }
+        }
+    }
+
+    /**
+     * Tests whether compressed message bodies are persisted compressed and restored as transmitted.
+     *
+     * @param dir segment log directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testCompressedBodyRoundTrip(@TempDir final Path dir) throws IOException {
+        final int segmentSize = 1024;
+        final String body = "<pm:MetricValue Value=\"10.0\"/>".repeat(100);
+        assertTrue(body.length() > segmentSize);
+        final MessageContent expected = message(
+                body, CommunicationLog.Direction.INBOUND, 1, 1, SEQUENCE_ID_1, Constants.MSG_EPISODIC_METRIC_REPORT);
+        expected.compressBody(MessageBodyCodec.DEFLATE);
+        assertEquals(MessageBodyCodec.DEFLATE, expected.getBodyCodec());
+
+        try (final SegmentLogStorageBackend backend = new SegmentLogStorageBackend(dir, segmentSize)) {
+            backend.persist(List.of(expected));
+
+            try (final Stream<MessageContent> messages = backend.getInboundMessages()) {
+                final List<MessageContent> actual = messages.toList();
+                assertEquals(1, actual.size());
+                assertEquals(body, actual.get(0).getBody());
+                assertEquals(expected.getMessageHash(), actual.get(0).getMessageHash());
+            }
+        }
+
+        // the compressed record fits into a regular segment
+        try (final Stream<Path> segments = Files.list(dir)) {
+            final List<Path> segmentFiles = segments.toList();
+            assertEquals(1, segmentFiles.size());
+            assertEquals(segmentSize, Files.size(segmentFiles.get(0)));
+        }
+    }
+
+    /**
+     * Tests whether the queries filter and sort like the queries of the hibernate backend.
+     *
+     * @param dir segment log directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testQueries(@TempDir final Path dir) throws IOException {
+        final QName metricReport = Constants.MSG_EPISODIC_METRIC_REPORT;
+        final QName alertReport = Constants.MSG_EPISODIC_ALERT_REPORT;
+
+        try (final SegmentLogStorageBackend backend = new SegmentLogStorageBackend(dir, SEGMENT_SIZE)) {
+            backend.persist(List.of(
+                    message("m5", CommunicationLog.Direction.INBOUND, 100, 5, SEQUENCE_ID_2, metricReport),
+                    message("m3", CommunicationLog.Direction.INBOUND, 200, 3, SEQUENCE_ID_1, metricReport),
+                    message("a4", CommunicationLog.Direction.INBOUND, 300, 4, SEQUENCE_ID_1, alertReport),
+                    message("o1", CommunicationLog.Direction.OUTBOUND, 400, 1, SEQUENCE_ID_1, metricReport)));
+            backend.persist(List.of(manipulation("second", 2), manipulation("first", 1), manipulation("second", 3)));
+
+            assertEquals(List.of(SEQUENCE_ID_2, SEQUENCE_ID_1), toList(backend.getUniqueSequenceIds()));
+            assertEquals(List.of("m5", "m3", "a4"), bodies(backend.getInboundMessages()));
+            assertEquals(List.of("o1"), bodies(backend.getOutboundMessages()));
+            assertEquals(List.of("m5", "m3"), bodies(backend.getInboundMessagesByBodyType(false, metricReport)));
+            assertEquals(
+                    List.of("m3", "a4", "m5"),
+                    bodies(backend.getInboundMessagesByBodyType(true, metricReport, alertReport)));
+            assertEquals(
+                    List.of("m3", "a4"),
+                    bodies(backend.getInboundMessagesByBodyTypeAndSequenceId(
+                            SEQUENCE_ID_1, metricReport, alertReport)));
+            assertEquals(
+                    List.of("m3", "a4"),
+                    bodies(backend.getInboundMessagesByMdibVersionAndBodyType(
+                            SEQUENCE_ID_1, 3, metricReport, alertReport)));
+            assertEquals(
+                    List.of("a4"),
+                    bodies(backend.getInboundMessagesByMdibVersionAndBodyType(
+                            SEQUENCE_ID_1, 4, metricReport, alertReport)));
+            assertEquals(
+                    List.of("m3", "m5"),
+                    bodies(backend.getInboundMessagesByTimeIntervalAndBodyType(100, 300, metricReport)));
+            assertEquals(
+                    List.of("m3"),
+                    bodies(backend.getInboundMessagesByTimestampAndBodyType(
+                            SEQUENCE_ID_1, 300, metricReport, alertReport)));
+            assertEquals(
+                    List.of("o1"),
+                    bodies(backend.getOutboundHttpMessagesByBodyTypeAndHeaders(
+                            List.of(metricReport),
+                            List.of(new AbstractMap.SimpleImmutableEntry<>("content-type", "application/xml")))));
+            assertEquals(
+                    List.of(),
+                    bodies(backend.getOutboundHttpMessagesByBodyTypeAndHeaders(
+                            List.of(alertReport),
+                            List.of(new AbstractMap.SimpleImmutableEntry<>("content-type", "application/xml")))));
+
+            assertEquals(
+                    List.of(1L, 2L, 3L),
+                    toList(backend.getManipulationData().map(ManipulationData::getStartTimestamp)));
+            assertEquals(
+                    List.of(2L, 3L),
+                    toList(backend.getManipulationDataByManipulation("second")
+                            .map(ManipulationData::getStartTimestamp)));
+        }
+    }
+
+    /**
+     * Tests whether records are spread over several segments and whether an existing log is indexed and appended to
+     * when it is opened again.
+     *
+     * @param dir segment log directory
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testSegmentRolloverAndRecovery(@TempDir final Path dir) throws IOException {
+        final int segmentSize = 1024;
+        final int messageCount = 50;
+        final List<String> expectedBodies = new ArrayList<>();
+
+        try (final SegmentLogStorageBackend backend = new SegmentLogStorageBackend(dir, segmentSize)) {
+            for (int i = 0; i < messageCount; i++) {
+                final String body = "message" + i;
+                backend.persist(List.of(message(
+                        body,
+                        CommunicationLog.Direction.INBOUND,
+                        i,
+                        i,
+                        SEQUENCE_ID_1,
+                        Constants.MSG_EPISODIC_METRIC_REPORT)));
+                expectedBodies.add(body);
+            }
+            // does not fit into a regular segment
+            final String largeBody = "x".repeat(segmentSize * 2);
+            backend.persist(List.of(message(
+                    largeBody,
+                    CommunicationLog.Direction.INBOUND,
+                    messageCount,
+                    messageCount,
+                    SEQUENCE_ID_1,
+                    Constants.MSG_EPISODIC_METRIC_REPORT)));
+            expectedBodies.add(largeBody);
+
+            assertEquals(expectedBodies, bodies(backend.getInboundMessages()));
+        }
+
+        try (final Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 2);
+        }
+
+        try (final SegmentLogStorageBackend backend = new SegmentLogStorageBackend(dir, segmentSize)) {
+            assertEquals(expectedBodies, bodies(backend.getInboundMessages()));
+
+            backend.persist(List.of(message(
+                    "appended",
+                    CommunicationLog.Direction.INBOUND,
+                    1000,
+                    1000,
+                    SEQUENCE_ID_2,
+                    Constants.MSG_EPISODIC_METRIC_REPORT)));
+            expectedBodies.add("appended");
+            assertEquals(
+                    expectedBodies,
+                    bodies(backend.getInboundMessagesByBodyType(true, Constants.MSG_EPISODIC_METRIC_REPORT)));
+            assertEquals(List.of(SEQUENCE_ID_1, SEQUENCE_ID_2), toList(backend.getUniqueSequenceIds()));
+        }
+    }
+
+    /**
+     * Tests whether the message storage uses the segment log when it is selected in the configuration.
+     *
+     * @throws IOException on io exceptions
+     */
+    @Test
+    public void testSelectedViaConfiguration() throws IOException {
+        final Injector injector = InjectorUtil.setupInjector(new AbstractConfigurationModule() {
+            @Override
+            protected void defaultConfigure() {
+                bind(TestClient.class).toInstance(mock(TestClient.class));
+                bind(TestSuiteConfig.COMMLOG_STORAGE_BACKEND, String.class, SegmentLogStorageBackend.NAME);
+            }
+        });
+
+        assertInstanceOf(SegmentLogStorageBackend.class, injector.getInstance(MessageStorageBackend.class));
+        try (final MessageStorage messageStorage = injector.getInstance(MessageStorage.class)) {
+            messageStorage.createManipulationInfo(
+                    1,
+                    2,
+                    ResponseTypes.Result.RESULT_SUCCESS,
+                    "",
+                    "setComponentActivation",
+                    ManipulationParameterUtil.buildEmptyManipulationParameterData());
+            messageStorage.flush();
+
+            try (final MessageStorage.GetterResult<ManipulationData> manipulations =
+                    messageStorage.getManipulationData()) {
+                assertTrue(manipulations.areObjectsPresent());
+            }
+        }
+    }
+
+    private static MessageContent message(
+            final String body,
+            final CommunicationLog.Direction direction,
+            final long nanoTimestamp,
+            final long mdibVersion,
+            final String sequenceId,
+            final QName bodyElement) {
+        final ListMultimap<String, String> headers = ArrayListMultimap.create();
+        headers.put("Content-Type", "application/xml");
+        return new MessageContent(
+                body,
+                new CommunicationContext(
+                        direction == CommunicationLog.Direction.OUTBOUND
+                                ? new HttpApplicationInfo(headers, "transaction", null)
+                                : new ApplicationInfo(),
+                        new TransportInfo(Constants.HTTP_SCHEME, null, null, null, null, List.of()),
+                        null),
+                direction,
+                CommunicationLog.MessageType.REQUEST,
+                nanoTimestamp,
+                nanoTimestamp,
+                List.of(new MdibVersionGroupEntity.MdibVersionGroup(mdibVersion, sequenceId, bodyElement.toString())),
+                Set.of(),
+                MessageUtil.nextEntryId(),
+                true,
+                null);
+    }
+
+    private static ManipulationData manipulation(final String methodName, final long startTimestamp) {
+        return new ManipulationData(
+                startTimestamp,
+                startTimestamp,
+                ResponseTypes.Result.RESULT_SUCCESS,
+                "",
+                methodName,
+                List.of(),
+                MessageUtil.nextEntryId());
+    }
+
+    private static List<String> bodies(final Stream<MessageContent> messages) {
+        return toList(messages.map(MessageContent::getBody));
+    }
+
+    private static <T> List<T> toList(final Stream<T> stream) {
+        try (stream) {
+            return stream.toList();
+        }
+    }
+}
@@ -190,20 +190,26 @@ public class InvariantParticipantModelHandleTestTest {
     public void testPermittedASCIIRange() {
         // below lower bound
         for (int i = 0; i < LOWER_BOUND; i++) {
-            assertFalse(testClass.isWithinPermittedASCIIRange(new String(Character.toChars(i))));
+            assertFalse(
+                    InvariantParticipantModelHandleTest.isWithinPermittedASCIIRange(new String(Character.toChars(i))));
         }
         // lower boundaries
         final int outOfLowerBound = 0x20;
-        assertFalse(testClass.isWithinPermittedASCIIRange(new String(Character.toChars(outOfLowerBound))));
-        assertTrue(testClass.isWithinPermittedASCIIRange(new String(Character.toChars(LOWER_BOUND))));
+        assertFalse(InvariantParticipantModelHandleTest.isWithinPermittedASCIIRange(
+                new String(Character.toChars(outOfLowerBound))));
+        assertTrue(InvariantParticipantModelHandleTest.isWithinPermittedASCIIRange(
+                new String(Character.toChars(LOWER_BOUND))));
         // valid
         for (int i = LOWER_BOUND; i <= UPPER_BOUND; i++) {
-            assertTrue(testClass.isWithinPermittedASCIIRange(new String(Character.toChars(i))));
+            assertTrue(
+                    InvariantParticipantModelHandleTest.isWithinPermittedASCIIRange(new String(Character.toChars(i))));
         }
         // upper boundaries
         final int outOfUpperBound = 0x7F;
-        assertTrue(testClass.isWithinPermittedASCIIRange(new String(Character.toChars(UPPER_BOUND))));
-        assertFalse(testClass.isWithinPermittedASCIIRange(new String(Character.toChars(outOfUpperBound))));
+        assertTrue(InvariantParticipantModelHandleTest.isWithinPermittedASCIIRange(
+                new String(Character.toChars(UPPER_BOUND))));
+        assertFalse(InvariantParticipantModelHandleTest.isWithinPermittedASCIIRange(
+                new String(Character.toChars(outOfUpperBound))));
     }
 
     /**
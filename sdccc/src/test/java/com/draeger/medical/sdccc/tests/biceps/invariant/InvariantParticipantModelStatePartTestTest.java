@@ -20,6 +20,7 @@ import com.draeger.medical.dpws.soap.model.Envelope;
 import com.draeger.medical.sdccc.marshalling.MarshallingUtil;
 import com.draeger.medical.sdccc.messages.Message;
 import com.draeger.medical.sdccc.messages.MessageStorage;
+import com.draeger.medical.sdccc.messages.util.MessageUtil;
 import com.draeger.medical.sdccc.sdcri.testclient.TestClient;
 import com.draeger.medical.sdccc.sdcri.testclient.TestClientUtil;
 import com.draeger.medical.sdccc.tests.InjectorTestBase;
@@ -4533,6 +4534,7 @@ public class InvariantParticipantModelStatePartTestTest {
 
     private Message buildTestMessage(final long timestamp, final Envelope envelope) throws Exception {
         final var message = mock(Message.class);
+        when(message.getEntryId()).thenReturn(MessageUtil.nextEntryId());
         when(message.getDirection()).thenReturn(CommunicationLog.Direction.INBOUND);
         when(message.getNanoTimestamp()).thenReturn(timestamp);
         when(message.getMessageType()).thenReturn(CommunicationLog.MessageType.RESPONSE);
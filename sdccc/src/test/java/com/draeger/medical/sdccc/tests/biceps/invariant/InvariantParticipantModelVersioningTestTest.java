@@ -513,7 +513,7 @@ public class InvariantParticipantModelVersioningTestTest {
         final T b = (T) a.clone();
         modification.modify(b);
 
-        assertEquals(expectedResult, testClass.hasDescriptorChanged(a, b));
+        assertEquals(expectedResult, InvariantParticipantModelVersioningTest.hasDescriptorChanged(a, b));
     }
 
     /**
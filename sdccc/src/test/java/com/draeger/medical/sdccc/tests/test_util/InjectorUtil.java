@@ -12,6 +12,8 @@ import com.draeger.medical.sdccc.configuration.DefaultTestSuiteModule;
 import com.draeger.medical.sdccc.configuration.TestRunConfig;
 import com.draeger.medical.sdccc.configuration.TestSuiteConfig;
 import com.draeger.medical.sdccc.messages.HibernateConfig;
+import com.draeger.medical.sdccc.messages.HibernateStorageBackend;
+import com.draeger.medical.sdccc.messages.util.MessageBodyCodec;
 import com.draeger.medical.sdccc.util.HibernateConfigInMemoryImpl;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -65,6 +67,25 @@ public final class InjectorUtil {
                             @Override
                             protected void configureCommlogSettings() {
                                 bind(TestSuiteConfig.COMMLOG_MESSAGE_BUFFER_SIZE, int.class, 1);
+                                bind(TestSuiteConfig.COMMLOG_MAX_BATCH_SIZE, long.class, 1L);
+                                bind(TestSuiteConfig.COMMLOG_MAX_BATCH_LINGER_TIME, long.class, 0L);
+                                bind(TestSuiteConfig.COMMLOG_METRICS_LOG_INTERVAL, long.class, 0L);
+                                bind(
+                                        TestSuiteConfig.COMMLOG_STORAGE_BACKEND,
+                                        String.class,
+                                        HibernateStorageBackend.NAME);
+                                bind(
+                                        TestSuiteConfig.COMMLOG_BODY_COMPRESSION,
+                                        String.class,
+                                        MessageBodyCodec.NONE.getName());
+                                bind(
+                                        TestSuiteConfig.COMMLOG_MESSAGE_FETCH_SIZE,
+                                        int.class,
+                                        HibernateStorageBackend.DEFAULT_MESSAGE_FETCH_SIZE);
+                                bind(
+                                        TestSuiteConfig.COMMLOG_FETCH_SIZE,
+                                        int.class,
+                                        HibernateStorageBackend.DEFAULT_FETCH_SIZE);
                             }
                         },
                         new DefaultEnabledTestConfig(),
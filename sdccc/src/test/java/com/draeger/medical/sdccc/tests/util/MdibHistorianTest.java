@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -18,9 +19,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.draeger.medical.biceps.model.message.DescriptionModificationReport;
+import com.draeger.medical.biceps.model.message.DescriptionModificationType;
 import com.draeger.medical.biceps.model.message.EpisodicContextReport;
 import com.draeger.medical.biceps.model.message.InvocationError;
 import com.draeger.medical.biceps.model.message.InvocationState;
+import com.draeger.medical.biceps.model.participant.AbstractDescriptor;
+import com.draeger.medical.biceps.model.participant.AbstractState;
 import com.draeger.medical.biceps.model.participant.AlertActivation;
 import com.draeger.medical.biceps.model.participant.Mdib;
 import com.draeger.medical.biceps.model.participant.MetricAvailability;
@@ -53,12 +58,17 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.util.TriConsumer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.somda.sdc.biceps.common.MdibEntity;
+import org.somda.sdc.biceps.common.access.MdibAccess;
 import org.somda.sdc.biceps.common.storage.PreprocessingException;
 import org.somda.sdc.biceps.consumer.access.RemoteMdibAccess;
 import org.somda.sdc.biceps.model.message.AbstractReport;
+import org.somda.sdc.biceps.model.message.EpisodicMetricReport;
 import org.somda.sdc.biceps.model.message.OperationInvokedReport;
 import org.somda.sdc.biceps.model.message.SystemErrorReport;
 import org.somda.sdc.biceps.model.participant.CodedValue;
@@ -84,6 +94,9 @@ public class MdibHistorianTest {
     private static final String PATIENT_CONTEXT_STATE_HANDLE = "He_is_dead_jim";
     private static final String SCO_HANDLE = "sco_what?";
     private static final String SET_STRING_HANDLE = "sadString";
+    private static final String NEW_METRIC_HANDLE = "newMetric";
+    private static final List<String> SUMMARIZED_HANDLES =
+            List.of(STRING_METRIC_HANDLE, NEW_METRIC_HANDLE, CHANNEL_HANDLE, PATIENT_CONTEXT_STATE_HANDLE, VMD_HANDLE);
 
     private MdibHistorianFactory historianFactory;
     private MessageStorageUtil messageStorageUtil;
@@ -1143,6 +1156,240 @@ public class MdibHistorianTest {
         assertEquals(2, processedMdibVersionsBySequence.get(sequenceIds.get(1)).size());
     }
 
+    /**
+     * Tests whether replayHistory() passes every revision and every pair of consecutive revisions to all visitors in
+     * a single replay, and whether a failing visitor does not affect the other visitors.
+     */
+    @Test
+    void testReplayHistory() throws Exception {
+        final var sequenceId = MdibBuilder.DEFAULT_SEQUENCE_ID;
+        messageStorageUtil.addInboundSecureHttpMessage(storage, buildMdibEnvelope(sequenceId, BigInteger.ONE));
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage, buildEpisodicMetricReport(sequenceId, BigInteger.TWO, BigInteger.ONE));
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage, buildEpisodicAlertReport(sequenceId, BigInteger.valueOf(3), BigInteger.ONE));
+
+        final var mockObserver = mock(TestRunObserver.class);
+        final var historian = historianFactory.createMdibHistorian(storage, mockObserver);
+
+        final List<BigInteger> revisions = new ArrayList<>();
+        final List<List<BigInteger>> pairs = new ArrayList<>();
+        final var failedVisits = new AtomicInteger(0);
+        final var revisionVisitor = MdibHistoryVisitor.ofRevisions(
+                mdibAccess -> revisions.add(mdibAccess.getMdibVersion().getVersion()));
+        final var pairVisitor = MdibHistoryVisitor.ofConsecutivePairs((previous, current) -> pairs.add(List.of(
+                previous.getMdibVersion().getVersion(), current.getMdibVersion().getVersion())));
+        final var failingVisitor = MdibHistoryVisitor.ofRevisions(mdibAccess -> {
+            failedVisits.incrementAndGet();
+            fail("failing visitor");
+        });
+
+        final var failures = historian.replayHistory(List.of(revisionVisitor, failingVisitor, pairVisitor));
+
+        assertEquals(List.of(BigInteger.ONE, BigInteger.TWO, BigInteger.valueOf(3)), revisions);
+        assertEquals(
+                List.of(List.of(BigInteger.ONE, BigInteger.TWO), List.of(BigInteger.TWO, BigInteger.valueOf(3))),
+                pairs);
+        // the failing visitor is not visited again after its failure
+        assertEquals(1, failedVisits.get());
+        assertEquals(Set.of(failingVisitor), failures.keySet());
+        assertTrue(failures.get(failingVisitor) instanceof AssertionError);
+    }
+
+    /**
+     * Tests whether the previous revision passed to pair visitors matches the revision visited before it, for state
+     * updates, created context states as well as created and deleted descriptors.
+     */
+    @Test
+    void testReplayHistoryPreviousRevision() throws Exception {
+        addDescriptionModifications(MdibBuilder.DEFAULT_SEQUENCE_ID);
+
+        final var mockObserver = mock(TestRunObserver.class);
+        final var historian = historianFactory.createMdibHistorian(storage, mockObserver);
+
+        final List<Map<String, Object>> revisions = new ArrayList<>();
+        final var comparedPairs = new AtomicInteger(0);
+        final var revisionVisitor =
+                MdibHistoryVisitor.ofRevisions(mdibAccess -> revisions.add(summarize(mdibAccess, SUMMARIZED_HANDLES)));
+        final var pairVisitor = MdibHistoryVisitor.ofConsecutivePairs((previous, current) -> {
+            comparedPairs.incrementAndGet();
+            assertEquals(revisions.get(revisions.size() - 2), summarize(previous, SUMMARIZED_HANDLES));
+        });
+
+        final var failures = historian.replayHistory(List.of(revisionVisitor, pairVisitor));
+
+        assertEquals(Map.of(), failures);
+        assertEquals(4, comparedPairs.get());
+        // make sure the reports actually changed the mdib
+        assertEquals(5, Set.copyOf(revisions).size());
+    }
+
+    /**
+     * Tests whether getSnapshotHistory() provides a snapshot per mdib version which matches the replayed revision,
+     * sharing the entities which did not change between the snapshots.
+     */
+    @Test
+    void testGetSnapshotHistory() throws Exception {
+        addDescriptionModifications(MdibBuilder.DEFAULT_SEQUENCE_ID);
+
+        final var mockObserver = mock(TestRunObserver.class);
+        final var historian = historianFactory.createMdibHistorian(storage, mockObserver);
+
+        final List<Map<String, Object>> revisions = new ArrayList<>();
+        historian.replayHistory(List.of(MdibHistoryVisitor.ofRevisions(
+                mdibAccess -> revisions.add(summarize(mdibAccess, SUMMARIZED_HANDLES)))));
+
+        final var snapshots = historian.getSnapshotHistory(MdibBuilder.DEFAULT_SEQUENCE_ID);
+        assertEquals(
+                List.of(
+                        BigInteger.ONE,
+                        BigInteger.TWO,
+                        BigInteger.valueOf(3),
+                        BigInteger.valueOf(4),
+                        BigInteger.valueOf(5)),
+                List.copyOf(snapshots.keySet()));
+        assertEquals(
+                revisions,
+                snapshots.values().stream()
+                        .map(snapshot -> summarize(snapshot, SUMMARIZED_HANDLES))
+                        .toList());
+
+        final var first = snapshots.get(BigInteger.ONE);
+        final var last = snapshots.get(BigInteger.valueOf(5));
+        assertEquals(Set.of(STRING_METRIC_HANDLE), first.getChangedEntities(snapshots.get(BigInteger.TWO)));
+        assertEquals(
+                Set.of(NEW_METRIC_HANDLE, STRING_METRIC_HANDLE, CHANNEL_HANDLE),
+                snapshots.get(BigInteger.valueOf(3)).getChangedEntities(snapshots.get(BigInteger.valueOf(4))));
+        assertEquals(
+                Set.of(STRING_METRIC_HANDLE, NEW_METRIC_HANDLE, CHANNEL_HANDLE, VMD_HANDLE, PATIENT_CONTEXT_HANDLE),
+                first.getChangedEntities(last));
+        // unchanged entities are shared instead of copied
+        assertSame(
+                first.getEntity(ALERT_SYSTEM_HANDLE).orElseThrow(),
+                last.getEntity(ALERT_SYSTEM_HANDLE).orElseThrow());
+        assertTrue(last.getEntity(CHANNEL_HANDLE).isEmpty());
+        assertTrue(first.getEntity(CHANNEL_HANDLE).isPresent());
+    }
+
+    /**
+     * Tests whether the snapshot preceding the mdib version of a report, both in the snapshot history and in the
+     * streamed snapshots, does not contain the changes of a preceding report of the same mdib version, unlike the
+     * consecutive pairs.
+     */
+    @Test
+    void testSnapshotHistoryBeforeMdibVersion() throws Exception {
+        final var sequenceId = MdibBuilder.DEFAULT_SEQUENCE_ID;
+        final var metric = mdibBuilder.buildStringMetric(
+                STRING_METRIC_HANDLE, MetricCategory.CLC, MetricAvailability.INTR, mdibBuilder.buildCodedValue("abc"));
+        metric.getRight().setStateVersion(BigInteger.ONE);
+
+        messageStorageUtil.addInboundSecureHttpMessage(storage, buildMdibEnvelope(sequenceId, BigInteger.ONE));
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage,
+                buildDescriptionModificationReport(
+                        sequenceId,
+                        BigInteger.TWO,
+                        buildDescriptionModificationReportPart(
+                                DescriptionModificationType.UPT, CHANNEL_HANDLE, metric)));
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage, buildEpisodicMetricReport(sequenceId, BigInteger.TWO, BigInteger.ONE));
+
+        final var mockObserver = mock(TestRunObserver.class);
+        final var historian = historianFactory.createMdibHistorian(storage, mockObserver);
+
+        final var snapshots = historian.getSnapshotHistory(sequenceId);
+        final var beforeReport = snapshots.lowerEntry(BigInteger.TWO).getValue();
+        assertEquals(BigInteger.ONE, beforeReport.getMdibVersion().getVersion());
+        assertNull(beforeReport.getState(STRING_METRIC_HANDLE).orElseThrow().getStateVersion());
+        assertEquals(Set.of(STRING_METRIC_HANDLE), beforeReport.getChangedEntities(snapshots.get(BigInteger.TWO)));
+
+        // the consecutive pairs contain the changes of the description modification report
+        final List<List<Object>> processed = new ArrayList<>();
+        final TriConsumer<RemoteMdibAccess, RemoteMdibAccess, AbstractReport> processor =
+                (previous, current, report) -> processed.add(List.of(
+                        previous.getMdibVersion().getVersion(),
+                        current.getMdibVersion().getVersion(),
+                        previous.getState(STRING_METRIC_HANDLE).orElseThrow().getStateVersion() == null));
+
+        historian.processAllApplicableReportsConsecutivePairs(
+                report -> report instanceof EpisodicMetricReport, processor);
+        assertEquals(List.of(List.of(BigInteger.TWO, BigInteger.TWO, false)), processed);
+
+        // the streamed snapshots compare the report with the mdib before its mdib version
+        final List<List<Object>> snapshotted = new ArrayList<>();
+        historian.processAllApplicableReportsWithSnapshots(
+                report -> report instanceof EpisodicMetricReport,
+                (before, after, report) -> snapshotted.add(List.of(
+                        before.getMdibVersion().getVersion(),
+                        after.getMdibVersion().getVersion(),
+                        before.getChangedEntities(after))));
+        assertEquals(List.of(List.of(BigInteger.ONE, BigInteger.TWO, Set.of(STRING_METRIC_HANDLE))), snapshotted);
+    }
+
+    // updates a metric, creates a context state, replaces the metric and finally deletes the channel
+    private void addDescriptionModifications(final String sequenceId) throws IOException, JAXBException {
+        final var newMetric = mdibBuilder.buildStringMetric(
+                NEW_METRIC_HANDLE, MetricCategory.CLC, MetricAvailability.INTR, mdibBuilder.buildCodedValue("abc"));
+        final var channel = mdibBuilder.buildChannel(CHANNEL_HANDLE);
+        final var metric = mdibBuilder.buildStringMetric(
+                STRING_METRIC_HANDLE, MetricCategory.CLC, MetricAvailability.INTR, mdibBuilder.buildCodedValue("abc"));
+
+        messageStorageUtil.addInboundSecureHttpMessage(storage, buildMdibEnvelope(sequenceId, BigInteger.ONE));
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage, buildEpisodicMetricReport(sequenceId, BigInteger.TWO, BigInteger.ONE));
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage, buildEpisodicContextReport(sequenceId, BigInteger.valueOf(3), BigInteger.ONE));
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage,
+                buildDescriptionModificationReport(
+                        sequenceId,
+                        BigInteger.valueOf(4),
+                        buildDescriptionModificationReportPart(
+                                DescriptionModificationType.CRT, CHANNEL_HANDLE, newMetric),
+                        buildDescriptionModificationReportPart(
+                                DescriptionModificationType.DEL, CHANNEL_HANDLE, metric)));
+        // deletes the channel the metric was created in
+        messageStorageUtil.addInboundSecureHttpMessage(
+                storage,
+                buildDescriptionModificationReport(
+                        sequenceId,
+                        BigInteger.valueOf(5),
+                        buildDescriptionModificationReportPart(DescriptionModificationType.DEL, VMD_HANDLE, channel)));
+    }
+
+    private static Map<String, Object> summarize(final MdibAccess mdibAccess, final List<String> stateHandles) {
+        final Map<String, Object> summary = new HashMap<>();
+        summary.put("mdibVersion", mdibAccess.getMdibVersion());
+        summary.put("mdDescriptionVersion", mdibAccess.getMdDescriptionVersion());
+        summary.put("mdStateVersion", mdibAccess.getMdStateVersion());
+        for (var entity :
+                mdibAccess.findEntitiesByType(org.somda.sdc.biceps.model.participant.AbstractDescriptor.class)) {
+            summary.put(
+                    "entity " + entity.getHandle(),
+                    List.of(entity.getDescriptor(), entity.getParent(), entity.getChildren(), entity.getStates()));
+            summary.put(
+                    "children " + entity.getHandle(),
+                    mdibAccess
+                            .getChildrenByType(
+                                    entity.getHandle(), org.somda.sdc.biceps.model.participant.AbstractDescriptor.class)
+                            .stream()
+                            .map(MdibEntity::getHandle)
+                            .toList());
+        }
+        summary.put(
+                "roots",
+                mdibAccess.getRootEntities().stream().map(MdibEntity::getHandle).toList());
+        summary.put(
+                "states",
+                Set.copyOf(mdibAccess.getStatesByType(org.somda.sdc.biceps.model.participant.AbstractState.class)));
+        summary.put("contextStates", Set.copyOf(mdibAccess.getContextStates()));
+        for (var handle : stateHandles) {
+            summary.put("state " + handle, mdibAccess.getState(handle));
+            summary.put("descriptor " + handle, mdibAccess.getDescriptor(handle));
+        }
+        return summary;
+    }
+
     /**
      * Tests if episodicReportBasedHistory() gracefully ignores a given report.
      * @param report - the report to ignore
@@ -1272,6 +1519,32 @@ public class MdibHistorianTest {
         return mdib;
     }
 
+    @SafeVarargs
+    private DescriptionModificationReport.ReportPart buildDescriptionModificationReportPart(
+            final DescriptionModificationType modificationType,
+            final String parentDescriptor,
+            final Pair<? extends AbstractDescriptor, ? extends AbstractState>... modifications) {
+        final var reportPart = messageBuilder.buildDescriptionModificationReportReportPart();
+        reportPart.setModificationType(modificationType);
+        reportPart.setParentDescriptor(parentDescriptor);
+        for (var modification : modifications) {
+            reportPart.getDescriptor().add(modification.getLeft());
+            if (modificationType != DescriptionModificationType.DEL) {
+                reportPart.getState().add(modification.getRight());
+            }
+        }
+        return reportPart;
+    }
+
+    private Envelope buildDescriptionModificationReport(
+            final String sequenceId,
+            final BigInteger mdibVersion,
+            final DescriptionModificationReport.ReportPart... reportParts) {
+        final var report = messageBuilder.buildDescriptionModificationReport(sequenceId, List.of(reportParts));
+        report.setMdibVersion(mdibVersion);
+        return messageBuilder.createSoapMessageWithBody(ActionConstants.ACTION_DESCRIPTION_MODIFICATION_REPORT, report);
+    }
+
     Envelope buildEpisodicComponentReport(
             final String sequenceId,
             final String handle,
@@ -0,0 +1,118 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.draeger.medical.sdccc.messages.mapping.MessageContent;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.somda.sdc.dpws.soap.MarshallingService;
+import org.somda.sdc.dpws.soap.SoapMessage;
+import org.somda.sdc.dpws.soap.exception.MarshallingException;
+
+/**
+ * Unit tests for the {@linkplain ParsedMessageCache}.
+ */
+public class ParsedMessageCacheTest {
+
+    private MarshallingService marshalling;
+
+    @BeforeEach
+    void setUp() throws MarshallingException {
+        marshalling = mock(MarshallingService.class);
+        when(marshalling.unmarshal(any(InputStream.class))).thenAnswer(invocation -> mock(SoapMessage.class));
+    }
+
+    /**
+     * Tests whether a message is only unmarshalled once and served from the cache afterwards.
+     *
+     * @throws MarshallingException on marshalling exceptions
+     */
+    @Test
+    @DisplayName("Ensure messages are only unmarshalled once")
+    public void testUnmarshalCachesMessages() throws MarshallingException {
+        final var cache = new ParsedMessageCache(marshalling, 10);
+        final var first = message(1, 1);
+        final var second = message(2, 2);
+
+        final var firstMessage = cache.unmarshal(first);
+        final var secondMessage = cache.unmarshal(second);
+        assertNotSame(firstMessage, secondMessage);
+        assertSame(firstMessage, cache.unmarshal(first));
+        assertSame(secondMessage, cache.unmarshal(second));
+        verify(marshalling, times(2)).unmarshal(any(InputStream.class));
+
+        // a message with a different body is not mistaken for the cached one
+        assertNotSame(firstMessage, cache.unmarshal(message(1, 3)));
+        verify(marshalling, times(3)).unmarshal(any(InputStream.class));
+
+        cache.clear();
+        assertNotSame(secondMessage, cache.unmarshal(second));
+        verify(marshalling, times(4)).unmarshal(any(InputStream.class));
+    }
+
+    /**
+     * Tests whether the least recently used messages are evicted once the maximum size is exceeded.
+     *
+     * @throws MarshallingException on marshalling exceptions
+     */
+    @Test
+    @DisplayName("Ensure the least recently used messages are evicted")
+    public void testUnmarshalEvictsLeastRecentlyUsed() throws MarshallingException {
+        final var cache = new ParsedMessageCache(marshalling, 2);
+        final var first = message(1, 1);
+        final var second = message(2, 2);
+        final var third = message(3, 3);
+
+        final var firstMessage = cache.unmarshal(first);
+        final var secondMessage = cache.unmarshal(second);
+        // the first message is used more recently than the second one now
+        assertSame(firstMessage, cache.unmarshal(first));
+        cache.unmarshal(third);
+        verify(marshalling, times(3)).unmarshal(any(InputStream.class));
+
+        assertSame(firstMessage, cache.unmarshal(first));
+        assertNotSame(secondMessage, cache.unmarshal(second));
+        verify(marshalling, times(4)).unmarshal(any(InputStream.class));
+    }
+
+    /**
+     * Tests whether a maximum size of zero disables the cache and negative sizes are rejected.
+     *
+     * @throws MarshallingException on marshalling exceptions
+     */
+    @Test
+    @DisplayName("Ensure a maximum size of zero disables the cache")
+    public void testUnmarshalDisabled() throws MarshallingException {
+        final var cache = new ParsedMessageCache(marshalling, 0);
+        final var first = message(1, 1);
+
+        assertNotSame(cache.unmarshal(first), cache.unmarshal(first));
+        verify(marshalling, times(2)).unmarshal(any(InputStream.class));
+
+        assertThrows(IllegalArgumentException.class, () -> new ParsedMessageCache(marshalling, -1));
+    }
+
+    private static MessageContent message(final long entryId, final int digest) {
+        final var messageContent = mock(MessageContent.class);
+        when(messageContent.getEntryId()).thenReturn(entryId);
+        when(messageContent.getMessageDigest()).thenReturn(new byte[] {(byte) digest});
+        when(messageContent.getBodyStream()).thenAnswer(invocation -> new ByteArrayInputStream(new byte[0]));
+        return messageContent;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@linkplain PersistentHashMap}.
+ */
+public class PersistentHashMapTest {
+
+    /**
+     * Tests whether the map behaves like a hash map for random insertions and removals, including keys with equal
+     * hashes, and whether earlier versions of the map remain unchanged.
+     */
+    @Test
+    @DisplayName("Ensure the map behaves like a hash map and keeps earlier versions")
+    public void testRandomModifications() {
+        final var random = new Random(42);
+        final Map<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+
+        for (int i = 0; i < 5000; i++) {
+            // few distinct hashes make collisions likely, many distinct hashes make the trie deep
+            final var key = new Key(random.nextInt(2000), i % 2 == 0 ? random.nextInt(50) : random.nextInt());
+            final var before = map;
+            final var beforeEntries = entries(before);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key);
+            } else {
+                expected.put(key, i);
+                map = map.with(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.get(key), map.get(key));
+            // the previous version is not affected by the modification
+            assertEquals(beforeEntries, entries(before));
+        }
+        assertEquals(expected, entries(map));
+        for (var entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Tests whether the differences between two versions of a map are found.
+     */
+    @Test
+    @DisplayName("Ensure the differences between two versions are found")
+    public void testForEachDifference() {
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 1000; i++) {
+            map = map.with(new Key(i, i), i);
+        }
+        final var changed = map.with(new Key(1, 1), -1)
+                .without(new Key(2, 2))
+                .with(new Key(1000, 3), 1000)
+                .with(new Key(4, 4), 4);
+
+        final Set<Key> differences = new HashSet<>();
+        map.forEachDifference(changed, differences::add);
+        assertEquals(Set.of(new Key(1, 1), new Key(2, 2), new Key(1000, 3)), differences);
+
+        differences.clear();
+        changed.forEachDifference(map, differences::add);
+        assertEquals(Set.of(new Key(1, 1), new Key(2, 2), new Key(1000, 3)), differences);
+    }
+
+    /**
+     * Tests whether modifications which do not change the map return the same instance.
+     */
+    @Test
+    @DisplayName("Ensure modifications without effect keep the map")
+    public void testModificationsWithoutEffect() {
+        final Integer value = 1000;
+        final var map = PersistentHashMap.<Key, Integer>empty().with(new Key(1, 1), value);
+
+        assertSame(map, map.with(new Key(1, 1), value));
+        assertSame(map, map.without(new Key(2, 1)));
+        assertSame(map, map.without(new Key(2, 2)));
+        assertNull(map.without(new Key(1, 1)).get(new Key(1, 1)));
+        assertEquals(0, map.without(new Key(1, 1)).size());
+    }
+
+    private static <K, V> Map<K, V> entries(final PersistentHashMap<K, V> map) {
+        final Map<K, V> entries = new HashMap<>();
+        map.forEach(entries::put);
+        return entries;
+    }
+
+    private record Key(int id, int hash) {
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key key && key.id == id && key.hash == hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * This Source Code Form is subject to the terms of the "SDCcc non-commercial use license".
+ *
+ * Copyright (C) 2025 Draegerwerk AG & Co. KGaA
+ */
+
+package com.draeger.medical.sdccc.tests.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.draeger.medical.sdccc.messages.MessageStorage;
+import com.draeger.medical.sdccc.tests.util.guice.MdibHistorianFactory;
+import com.draeger.medical.sdccc.util.TestRunObserver;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@linkplain SharedMdibHistoryReplay}.
+ */
+public class SharedMdibHistoryReplayTest {
+    private static final String FIRST_CHECK = "first";
+    private static final String SECOND_CHECK = "second";
+    private static final String DISABLED_CHECK = "disabled";
+
+    private final List<String> createdVisitors = new ArrayList<>();
+    private final List<Integer> replayedVisitors = new ArrayList<>();
+    private MessageStorage messageStorage;
+    private TestRunObserver testRunObserver;
+    private SharedMdibHistoryReplay replay;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        messageStorage = mock(MessageStorage.class);
+        testRunObserver = mock(TestRunObserver.class);
+
+        final var historian = mock(MdibHistorian.class);
+        when(historian.replayHistory(anyList())).thenAnswer(invocation -> {
+            replayedVisitors.add(invocation.<List<?>>getArgument(0).size());
+            return Map.of();
+        });
+        final var historianFactory = mock(MdibHistorianFactory.class);
+        when(historianFactory.createMdibHistorian(any(), any())).thenReturn(historian);
+        replay = new SharedMdibHistoryReplay(historianFactory);
+    }
+
+    /**
+     * Tests whether only the checks of enabled tests and the requested check are replayed, with new visitors for
+     * every replay.
+     *
+     * @throws IOException on errors retrieving messages from storage
+     */
+    @Test
+    @DisplayName("Ensure only the checks of enabled tests are replayed")
+    public void testReplaysEnabledChecks() throws IOException {
+        final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> checks = Map.of(
+                FIRST_CHECK, check(FIRST_CHECK, 1),
+                SECOND_CHECK, check(SECOND_CHECK, 2),
+                DISABLED_CHECK, check(DISABLED_CHECK, 3));
+        final Set<String> enabled = Set.of(FIRST_CHECK, SECOND_CHECK);
+
+        assertEquals(1, getTestData(checks, enabled, FIRST_CHECK));
+        assertEquals(2, getTestData(checks, enabled, SECOND_CHECK));
+        assertEquals(List.of(2), replayedVisitors);
+        assertEquals(Set.of(FIRST_CHECK, SECOND_CHECK), Set.copyOf(createdVisitors));
+
+        // a running test is replayed even though its test identifier is not enabled
+        createdVisitors.clear();
+        assertEquals(3, getTestData(checks, enabled, DISABLED_CHECK));
+        assertEquals(List.of(2, 3), replayedVisitors);
+        assertEquals(Set.of(FIRST_CHECK, SECOND_CHECK, DISABLED_CHECK), Set.copyOf(createdVisitors));
+
+        // new messages replay the history with new visitors
+        createdVisitors.clear();
+        when(messageStorage.getAddedMessageCount()).thenReturn(1L);
+        assertEquals(1, getTestData(checks, enabled, FIRST_CHECK));
+        assertEquals(List.of(2, 3, 2), replayedVisitors);
+        assertEquals(Set.of(FIRST_CHECK, SECOND_CHECK), Set.copyOf(createdVisitors));
+    }
+
+    private int getTestData(
+            final Map<String, Function<AtomicInteger, MdibHistoryVisitor>> checks,
+            final Set<String> enabled,
+            final String check)
+            throws IOException {
+        return replay.getTestData(
+                SharedMdibHistoryReplayTest.class, checks, enabled::contains, check, messageStorage, testRunObserver);
+    }
+
+    // creates visitors which have seen the given amount of test data
+    private Function<AtomicInteger, MdibHistoryVisitor> check(final String check, final int testData) {
+        return counter -> {
+            createdVisitors.add(check);
+            counter.set(testData);
+            return mock(MdibHistoryVisitor.class);
+        };
+    }
+}